@@ -0,0 +1,24 @@
+package com.courigistics.courigisticsbackend.config;
+
+/**
+ * Hibernate second-level cache region names
+ *
+ * Each region's size and TTL is set in hibernate-cache.conf; a region missing there falls back
+ * to the bounded default.
+ */
+public final class CacheRegions {
+
+    public static final String DEPOT = "depot";
+    public static final String VEHICLES = "vehicles";
+
+    // Query result regions
+    public static final String DEPOT_QUERIES = "depot-queries";
+    public static final String VEHICLE_BY_COURIER = "vehicle-by-courier";
+
+    // Hibernate's own regions
+    public static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    private CacheRegions() {
+    }
+}
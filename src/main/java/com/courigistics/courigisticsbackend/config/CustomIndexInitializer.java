@@ -0,0 +1,78 @@
+package com.courigistics.courigisticsbackend.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates the indexes JPA @Index cannot describe
+ *
+ * - GiST indexes behind the PostGIS spatial queries
+ * - expression indexes on LOWER(city) behind the case-insensitive dispatch shard lookups
+ *
+ * Hibernate's schema tooling never creates these. They are built CONCURRENTLY so a first start
+ * against a populated database does not block writes. Skipped entirely off PostgreSQL (H2 in tests).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CustomIndexInitializer {
+
+    /**
+     * @param definition everything after ON table, e.g. "USING GIST (location)"
+     */
+    private record CustomIndex(String name, String table, String definition) {}
+
+    private static final List<CustomIndex> CUSTOM_INDEXES = List.of(
+            new CustomIndex("idx_address_location", "addresses", "USING GIST (location)"),
+            new CustomIndex("idx_depot_city_lower", "depot", "(LOWER(city))"),
+            new CustomIndex("idx_courier_operational_city_lower", "couriers", "(LOWER(operational_city))")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createCustomIndexes() {
+        if (!isPostgres()) {
+            log.debug("Not running on PostgreSQL, skipping custom indexes");
+            return;
+        }
+
+        for (CustomIndex index : CUSTOM_INDEXES) {
+            try {
+                // 1: A concurrent build that died half way leaves an INVALID index that IF NOT EXISTS would keep
+                Boolean valid = jdbcTemplate.query(
+                        "SELECT i.indisvalid FROM pg_index i WHERE i.indexrelid = to_regclass(?)",
+                        rs -> rs.next() ? rs.getBoolean(1) : null,
+                        index.name());
+                if (Boolean.TRUE.equals(valid)) {
+                    continue;
+                }
+                if (Boolean.FALSE.equals(valid)) {
+                    log.warn("Rebuilding invalid index {}", index.name());
+                    jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index.name());
+                }
+
+                // 2: Build it
+                jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index.name()
+                        + " ON " + index.table() + " " + index.definition());
+                log.info("Created index {} on {} {}", index.name(), index.table(), index.definition());
+            } catch (RuntimeException e) {
+                // Queries still work without the index, only slower; do not fail startup over it
+                log.error("Failed to create index {}: {}", index.name(), e.getMessage());
+            }
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -1,4 +1,70 @@
 package com.courigistics.courigisticsbackend.config;
 
+import com.courigistics.courigisticsbackend.services.cache.CacheInvalidationBus;
+import com.courigistics.courigisticsbackend.services.cache.RedisCacheInvalidationBus;
+import com.courigistics.courigisticsbackend.services.cache.RedisSharedCacheStore;
+import com.courigistics.courigisticsbackend.services.cache.SharedCacheStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Redis as the shared cache tier and invalidation bus, only when app.cache.l2.type=redis
+ * Spring Boot's Redis auto-configuration is excluded so nodes without Redis never try to connect.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.cache.l2.type", havingValue = "redis")
 public class RedisConfig {
+
+    @Value("${app.cache.l2.redis.url}")
+    private String redisUrl;
+
+    @Value("${app.cache.l2.redis.timeout-ms}")
+    private long timeoutMs;
+
+    @Value("${app.cache.l2.redis.key-prefix}")
+    private String keyPrefix;
+
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory() {
+        // A short command timeout: a slow Redis should turn into cache misses, not slow requests
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .commandTimeout(Duration.ofMillis(timeoutMs))
+                .build();
+        return new LettuceConnectionFactory(LettuceConnectionFactory.createRedisConfiguration(redisUrl), clientConfiguration);
+    }
+
+    @Bean
+    public StringRedisTemplate stringRedisTemplate(RedisConnectionFactory redisConnectionFactory) {
+        return new StringRedisTemplate(redisConnectionFactory);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory redisConnectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        return container;
+    }
+
+    @Bean
+    public SharedCacheStore redisSharedCacheStore(StringRedisTemplate stringRedisTemplate) {
+        return new RedisSharedCacheStore(stringRedisTemplate, keyPrefix);
+    }
+
+    @Bean
+    public CacheInvalidationBus redisCacheInvalidationBus(StringRedisTemplate stringRedisTemplate,
+                                                          RedisMessageListenerContainer redisMessageListenerContainer,
+                                                          ObjectMapper objectMapper) {
+        return new RedisCacheInvalidationBus(stringRedisTemplate, redisMessageListenerContainer,
+                objectMapper, keyPrefix + "invalidations");
+    }
 }
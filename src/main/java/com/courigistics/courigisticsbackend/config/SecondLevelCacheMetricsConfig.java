@@ -0,0 +1,77 @@
+package com.courigistics.courigisticsbackend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes second-level cache hits, misses and hit ratio per region through Micrometer
+ *
+ * Reads Hibernate's statistics (hibernate.generate_statistics) on scrape. Query result regions
+ * are created on first use, so their meters report zero/NaN until then.
+ * Only registered when statistics are on (JPA_STATISTICS_ENABLED); otherwise the meters would read zeros.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.jpa.properties.hibernate.generate_statistics", havingValue = "true")
+public class SecondLevelCacheMetricsConfig {
+
+    private static final List<String> REGIONS = List.of(
+            CacheRegions.DEPOT,
+            CacheRegions.VEHICLES,
+            CacheRegions.DEPOT_QUERIES,
+            CacheRegions.VEHICLE_BY_COURIER
+    );
+
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            for (String region : REGIONS) {
+                regionCounter(registry, statistics, region, "hit", CacheRegionStatistics::getHitCount);
+                regionCounter(registry, statistics, region, "miss", CacheRegionStatistics::getMissCount);
+                FunctionCounter.builder("jpa.cache.puts", statistics,
+                                stats -> regionCount(stats, region, CacheRegionStatistics::getPutCount))
+                        .description("Entries put into a second-level cache region")
+                        .tag("region", region)
+                        .register(registry);
+                Gauge.builder("jpa.cache.hit.ratio", statistics, stats -> hitRatio(stats.getCacheRegionStatistics(region)))
+                        .description("Share of second-level cache lookups served from the region")
+                        .tag("region", region)
+                        .register(registry);
+            }
+        };
+    }
+
+    private static void regionCounter(MeterRegistry registry, Statistics statistics,
+                                      String region, String result, ToLongFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder("jpa.cache.requests", statistics, stats -> regionCount(stats, region, count))
+                .description("Second-level cache lookups by result")
+                .tag("region", region)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static double regionCount(Statistics statistics, String region, ToLongFunction<CacheRegionStatistics> count) {
+        CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+        return regionStatistics == null ? 0 : count.applyAsLong(regionStatistics);
+    }
+
+    private static double hitRatio(CacheRegionStatistics regionStatistics) {
+        if (regionStatistics == null) {
+            return Double.NaN;
+        }
+        long lookups = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return lookups == 0 ? Double.NaN : (double) regionStatistics.getHitCount() / lookups;
+    }
+}
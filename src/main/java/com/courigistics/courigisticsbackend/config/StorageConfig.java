@@ -1,4 +1,31 @@
 package com.courigistics.courigisticsbackend.config;
 
+import com.courigistics.courigisticsbackend.services.storage.LocalFileSystemStorage;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Selects the {@link ObjectStorage} implementation with app.storage.type
+ * Only "local" exists today; an object storage bean can be added here behind its own type
+ */
+@Configuration
 public class StorageConfig {
+
+    @Value("${app.storage.local.root-dir}")
+    private String rootDir;
+
+    @Value("${app.storage.public-base-url}")
+    private String publicBaseUrl;
+
+    @Bean
+    @ConditionalOnProperty(name = "app.storage.type", havingValue = "local", matchIfMissing = true)
+    public ObjectStorage localObjectStorage() throws IOException {
+        return new LocalFileSystemStorage(Paths.get(rootDir), publicBaseUrl);
+    }
 }
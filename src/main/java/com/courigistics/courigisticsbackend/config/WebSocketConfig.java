@@ -0,0 +1,30 @@
+package com.courigistics.courigisticsbackend.config;
+
+import com.courigistics.courigisticsbackend.services.dispatch.CourierOfferSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * WebSocket endpoints
+ *
+ * Handshakes go through the normal security filter chain, so each endpoint is protected by the
+ * path rules in SecurityConfig. Clients authenticate with a bearer token, not cookies, so any
+ * origin may connect (same as CorsConfig).
+ */
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final CourierOfferSocketHandler courierOfferSocketHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        // Courier offers: accept/decline delivery offers (see CourierOfferDispatcher)
+        registry.addHandler(courierOfferSocketHandler, "/api/v1/courier/offers/ws")
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -0,0 +1,97 @@
+package com.courigistics.courigisticsbackend.config.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory set of revoked access token IDs (jti)
+ *
+ * Entries are grouped into buckets by the token's expiry time. Each bucket has a small
+ * Bloom filter in front of an exact set: almost every request is answered by a missing
+ * bucket or a Bloom miss (a few array reads, no allocation), and only a Bloom hit
+ * touches the exact set, so there are no false positives. A whole bucket is dropped
+ * once every token in it has expired, which bounds memory to the access-token lifetime.
+ */
+@Component
+public class AccessTokenDenyList {
+
+    private static final long BUCKET_MILLIS = 5 * 60 * 1000L;
+    // 2^16 bits = 8 KB per bucket; ~1% false positives at 6k revocations per 5 minutes
+    private static final int BLOOM_BITS_LOG2 = 16;
+    private static final int BLOOM_HASHES = 3;
+
+    private final ConcurrentHashMap<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private static final class Bucket {
+        private final AtomicLongArray bits = new AtomicLongArray(1 << (BLOOM_BITS_LOG2 - 6));
+        private final Set<String> exact = ConcurrentHashMap.newKeySet();
+
+        void add(String jti) {
+            exact.add(jti);
+            int h1 = jti.hashCode();
+            int h2 = mix(h1);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) >>> (32 - BLOOM_BITS_LOG2);
+                long mask = 1L << (bit & 63);
+                int word = bit >>> 6;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean contains(String jti) {
+            int h1 = jti.hashCode();
+            int h2 = mix(h1);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (h1 + i * h2) >>> (32 - BLOOM_BITS_LOG2);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return exact.contains(jti);
+        }
+    }
+
+    /**
+     * @param jti           token ID
+     * @param expiresAtMillis token expiry (epoch millis); the entry is forgotten after it
+     */
+    public void revoke(String jti, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        buckets.computeIfAbsent(expiresAtMillis / BUCKET_MILLIS, k -> new Bucket()).add(jti);
+    }
+
+    public boolean isRevoked(String jti, long expiresAtMillis) {
+        Bucket bucket = buckets.get(expiresAtMillis / BUCKET_MILLIS);
+        return bucket != null && bucket.contains(jti);
+    }
+
+    /**
+     * Drops buckets whose tokens have all expired
+     */
+    public void evictExpired() {
+        long currentBucket = System.currentTimeMillis() / BUCKET_MILLIS;
+        buckets.keySet().removeIf(bucket -> bucket < currentBucket);
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(bucket -> bucket.exact.size()).sum();
+    }
+
+    // murmur3 finalizer; second, independent hash for double hashing
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h | 1;
+    }
+}
@@ -0,0 +1,154 @@
+package com.courigistics.courigisticsbackend.config.security;
+
+import com.courigistics.courigisticsbackend.exceptions.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * BCrypt encoder that runs every hash on a small CPU-sized pool instead of the request thread
+ * - At most {@code workers} hashes run at once, so a login storm cannot take every core from the rest of the API
+ * - Callers beyond the admission queue are turned away immediately with a 503 rather than piling up on Tomcat threads
+ * - {@link #upgradeEncoding} reports hashes made with a lower cost, DaoAuthenticationProvider then rehashes on login
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.password-hashing.bcrypt-strength}")
+    private int bcryptStrength;
+
+    @Value("${app.security.password-hashing.workers}")
+    private int configuredWorkers;
+
+    @Value("${app.security.password-hashing.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${app.security.password-hashing.max-wait-ms}")
+    private long maxWaitMs;
+
+    private BCryptPasswordEncoder delegate;
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+    private Timer matchesTimer;
+    private Timer queueWaitTimer;
+    private Counter rejected;
+    private Counter timedOut;
+
+    @PostConstruct
+    void init() {
+        // 0 means one worker per core; BCrypt is pure CPU, more threads only add context switching
+        int workers = configuredWorkers > 0 ? configuredWorkers : Runtime.getRuntime().availableProcessors();
+        delegate = new BCryptPasswordEncoder(bcryptStrength);
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        encodeTimer = hashTimer("encode");
+        matchesTimer = hashTimer("matches");
+        queueWaitTimer = Timer.builder("auth.password.hashing.queue.wait")
+                .description("Time a hash request waits for a free worker")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        rejected = Counter.builder("auth.password.hashing.rejected")
+                .description("Hash requests turned away because the admission queue was full")
+                .register(meterRegistry);
+        timedOut = Counter.builder("auth.password.hashing.timeouts")
+                .description("Hash requests abandoned after waiting too long for a result")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.password.hashing.queue.depth", executor, e -> e.getQueue().size());
+        meterRegistry.gauge("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount);
+
+        log.info("Password hashing executor initialized: workers={}, queue={}, bcryptStrength={}",
+                workers, queueCapacity, bcryptStrength);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Only parses the cost prefix, cheap enough to stay on the caller's thread
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T submit(Timer hashTimer, Callable<T> hash) {
+        long enqueuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.recordCallable(hash);
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hashing queue full ({} waiting), rejecting request", executor.getQueue().size());
+            throw unavailable();
+        }
+
+        try {
+            return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The caller has given up; drop the hash if it has not started yet
+            future.cancel(true);
+            timedOut.increment();
+            throw unavailable();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw unavailable();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("auth.password.hashing")
+                .description("BCrypt execution time on the hashing pool")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private ServiceUnavailableException unavailable() {
+        return new ServiceUnavailableException("Authentication service is busy, please retry shortly", 1);
+    }
+}
@@ -1,5 +1,6 @@
 package com.courigistics.courigisticsbackend.config.security;
 
+import com.courigistics.courigisticsbackend.services.auth.AccessTokenRevocationService;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -15,7 +16,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
@@ -32,6 +32,7 @@ import java.util.Optional;
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
     private final Environment environment;
 
     private static final String AUTHORIZATION_HEADER = "Authorization";
@@ -87,8 +88,9 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String username = jwtService.extractUsername(token);
         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
 
-        if (validateRequest(token, userDetails, request, response)){
-            setAuthenticationContext(userDetails, request);
+        Claims claims = jwtService.extractAllClaims(token);
+        if (validateRequest(token, claims, userDetails, request, response)){
+            setAuthenticationContext(userDetails, claims, request);
             log.info("Authenticated {} via JWT for request to {}", username, request.getRequestURI());
         }
     }
@@ -101,7 +103,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
      * @param userDetails who the user is
      * @param request the sent request
      */
-    private void setAuthenticationContext(UserDetails userDetails, @NonNull HttpServletRequest request) {
+    private void setAuthenticationContext(UserDetails userDetails, Claims claims, @NonNull HttpServletRequest request) {
 
 
         /* creates an authentication object that Springboot understands
@@ -115,8 +117,8 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         var authToken = new UsernamePasswordAuthenticationToken(
                 userDetails, null, userDetails.getAuthorities()
         );
-        // Adding additional details from the request such as IP address, session id, user agent
-        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        // Adding additional details from the request such as IP address, session id, plus the token's jti/exp for logout
+        authToken.setDetails(new JwtAuthenticationDetails(request, claims.getId(), claims.getExpiration().toInstant()));
         /*
          * This stores the authenticated user in Spring Security’s global context for this request.
          * Once stored:
@@ -130,12 +132,13 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     /**
      * Groups all validation checks for an incoming authenticated request
      * @param token the jwt token
+     * @param claims the token's verified claims
      * @param userDetails - the user
      * @param request - the passed request
      * @param response - the expected response
      * @return true if all checks pass, false if otherwise
      */
-    private boolean validateRequest(String token, UserDetails userDetails, @NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
+    private boolean validateRequest(String token, Claims claims, UserDetails userDetails, @NonNull HttpServletRequest request, @NonNull HttpServletResponse response) {
         // Standard token validation (expiry, audience)
         if (!jwtService.isTokenValid(token, userDetails)){
             sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Invalid token");
@@ -143,7 +146,12 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
         validateAccountStatus(userDetails);
 
-        Claims claims = jwtService.extractAllClaims(token);
+        // Revoked (logged out) access tokens; in-memory check, no DB round trip
+        if (accessTokenRevocationService.isRevoked(claims.getId(), claims.getExpiration().toInstant())) {
+            log.warn("Revoked access token presented by {}", userDetails.getUsername());
+            sendError(response, HttpServletResponse.SC_UNAUTHORIZED, "Token has been revoked");
+            return false;
+        }
 
         // Security validation (IP, fingerprint, Issuer)
         if (!validateIssuer(claims)) {
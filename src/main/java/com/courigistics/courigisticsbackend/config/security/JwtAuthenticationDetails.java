@@ -0,0 +1,24 @@
+package com.courigistics.courigisticsbackend.config.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.Getter;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.time.Instant;
+
+/**
+ * Request details (IP, session) plus the identity of the access token that authenticated it
+ * Lets logout revoke exactly the token that was presented
+ */
+@Getter
+public class JwtAuthenticationDetails extends WebAuthenticationDetails {
+
+    private final String jti;
+    private final Instant expiresAt;
+
+    public JwtAuthenticationDetails(HttpServletRequest request, String jti, Instant expiresAt) {
+        super(request);
+        this.jti = jti;
+        this.expiresAt = expiresAt;
+    }
+}
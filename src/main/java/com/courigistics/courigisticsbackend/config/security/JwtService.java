@@ -78,6 +78,7 @@ public class JwtService {
 
         String token = Jwts.builder()
                 .claims(claims)
+                .id(UUID.randomUUID().toString()) // unique per token, so two tokens issued in the same second never collide
                 .subject(userDetails.getUsername()) // the account
                 .issuer(issuer) // who issued the token
                 .issuedAt(now) // when was the token issued at
@@ -0,0 +1,263 @@
+package com.courigistics.courigisticsbackend.config.security;
+
+import com.courigistics.courigisticsbackend.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory failed-login counters used to throttle brute force and credential stuffing
+ *
+ * Failures are counted over a sliding window along three keys:
+ * - username + IP: one client guessing one account, throttled in memory
+ * - IP: one client spraying many accounts, throttled in memory
+ * - username: one account attacked from many IPs, locked in the database once the threshold is crossed
+ *
+ * Each window is a ring of time slots packed into an AtomicLongArray (slot epoch + count per long),
+ * so recording and checking an attempt is a map lookup and a few CAS operations, with no locks
+ * and no allocation for keys that are already tracked.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoginAttemptTracker {
+
+    private static final int SLOTS = 15;
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final String UNKNOWN_IP = "unknown";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.security.login-attempts.window-seconds}")
+    private long windowSeconds;
+
+    @Value("${app.security.login-attempts.max-failures-per-username-ip}")
+    private int maxFailuresPerUsernameIp;
+
+    @Value("${app.security.login-attempts.max-failures-per-ip}")
+    private int maxFailuresPerIp;
+
+    @Value("${app.security.login-attempts.lock-threshold}")
+    private int lockThreshold;
+
+    @Value("${app.security.login-attempts.max-tracked-keys}")
+    private int maxTrackedKeys;
+
+    private final ConcurrentHashMap<String, SlidingWindow> byUsernameIp = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SlidingWindow> byIp = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, SlidingWindow> byUsername = new ConcurrentHashMap<>();
+
+    private long slotMillis;
+    private Counter throttledUsernameIp;
+    private Counter throttledIp;
+    private Counter untracked;
+
+    @PostConstruct
+    void init() {
+        slotMillis = Math.max(1, windowSeconds * 1000 / SLOTS);
+        throttledUsernameIp = throttledCounter("username_ip");
+        throttledIp = throttledCounter("ip");
+        untracked = Counter.builder("auth.login.attempts.untracked")
+                .description("Failed logins not counted because the tracker was at capacity")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.login.attempts.tracked_keys", this,
+                tracker -> tracker.byUsernameIp.size() + tracker.byIp.size() + tracker.byUsername.size());
+    }
+
+    /**
+     * Called before authenticating so throttled callers never reach BCrypt
+     */
+    public void checkAllowed(String usernameOrEmail, String clientIp) {
+        long epoch = currentEpoch();
+        String ip = normalizeIp(clientIp);
+
+        SlidingWindow ipWindow = byIp.get(ip);
+        if (ipWindow != null && ipWindow.total(epoch) >= maxFailuresPerIp) {
+            throttledIp.increment();
+            throw throttled(ipWindow, epoch);
+        }
+
+        SlidingWindow pairWindow = byUsernameIp.get(pairKey(normalizeUsername(usernameOrEmail), ip));
+        if (pairWindow != null && pairWindow.total(epoch) >= maxFailuresPerUsernameIp) {
+            throttledUsernameIp.increment();
+            throw throttled(pairWindow, epoch);
+        }
+    }
+
+    /**
+     * Records a failed attempt
+     * @return true exactly once when the account's failures cross the lock threshold
+     */
+    public boolean recordFailure(String usernameOrEmail, String clientIp) {
+        long epoch = currentEpoch();
+        String username = normalizeUsername(usernameOrEmail);
+        String ip = normalizeIp(clientIp);
+
+        increment(byIp, ip, epoch);
+        increment(byUsernameIp, pairKey(username, ip), epoch);
+
+        SlidingWindow accountWindow = windowFor(byUsername, username);
+        if (accountWindow == null) {
+            return false;
+        }
+        int failures = accountWindow.increment(epoch);
+        return failures >= lockThreshold && accountWindow.lockSignalled.compareAndSet(false, true);
+    }
+
+    /**
+     * A successful login clears the account's counters; the IP's counter is left to expire
+     * so one valid account cannot be used to reset a spraying client
+     */
+    public void recordSuccess(String username, String email, String clientIp) {
+        String ip = normalizeIp(clientIp);
+        for (String identifier : new String[]{username, email}) {
+            if (identifier == null) {
+                continue;
+            }
+            String key = normalizeUsername(identifier);
+            byUsername.remove(key);
+            byUsernameIp.remove(pairKey(key, ip));
+        }
+    }
+
+    /**
+     * Forgets every counter for an account, e.g. after a password reset unlocks it
+     */
+    public void clearAccount(String username, String email) {
+        for (String identifier : new String[]{username, email}) {
+            if (identifier == null) {
+                continue;
+            }
+            String key = normalizeUsername(identifier);
+            byUsername.remove(key);
+            String prefix = key + '|';
+            byUsernameIp.keySet().removeIf(pair -> pair.startsWith(prefix));
+        }
+    }
+
+    /**
+     * Drops windows with no failures inside the current window
+     * An increment racing with removal may be lost, which only makes the tracker slightly more lenient
+     */
+    @Scheduled(fixedDelayString = "${app.security.login-attempts.sweep-interval-ms}")
+    public void sweep() {
+        long oldestLiveEpoch = currentEpoch() - SLOTS + 1;
+        int before = byUsernameIp.size() + byIp.size() + byUsername.size();
+        byUsernameIp.values().removeIf(window -> window.lastEpoch < oldestLiveEpoch);
+        byIp.values().removeIf(window -> window.lastEpoch < oldestLiveEpoch);
+        byUsername.values().removeIf(window -> window.lastEpoch < oldestLiveEpoch);
+        int removed = before - (byUsernameIp.size() + byIp.size() + byUsername.size());
+        if (removed > 0) {
+            log.debug("Login attempt sweep removed {} idle windows", removed);
+        }
+    }
+
+    private void increment(ConcurrentHashMap<String, SlidingWindow> windows, String key, long epoch) {
+        SlidingWindow window = windowFor(windows, key);
+        if (window != null) {
+            window.increment(epoch);
+        }
+    }
+
+    private SlidingWindow windowFor(ConcurrentHashMap<String, SlidingWindow> windows, String key) {
+        SlidingWindow window = windows.get(key);
+        if (window != null) {
+            return window;
+        }
+        // Hard cap so a flood of random usernames cannot exhaust the heap
+        if (windows.size() >= maxTrackedKeys) {
+            untracked.increment();
+            return null;
+        }
+        return windows.computeIfAbsent(key, k -> new SlidingWindow());
+    }
+
+    private TooManyRequestsException throttled(SlidingWindow window, long epoch) {
+        long retryAt = (window.oldestCountedEpoch(epoch) + SLOTS) * slotMillis;
+        long retryAfterSeconds = Math.max(1, (retryAt - System.currentTimeMillis() + 999) / 1000);
+        return new TooManyRequestsException("Too many failed login attempts. Please try again later", retryAfterSeconds);
+    }
+
+    private Counter throttledCounter(String key) {
+        return Counter.builder("auth.login.throttled")
+                .description("Login attempts rejected before authentication")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    private long currentEpoch() {
+        return System.currentTimeMillis() / slotMillis;
+    }
+
+    private static String normalizeUsername(String usernameOrEmail) {
+        return usernameOrEmail == null ? "" : usernameOrEmail.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeIp(String clientIp) {
+        return clientIp == null || clientIp.isBlank() ? UNKNOWN_IP : clientIp;
+    }
+
+    private static String pairKey(String username, String ip) {
+        return username + '|' + ip;
+    }
+
+    private static final class SlidingWindow {
+        // Each slot holds (epoch << COUNT_BITS) | count; a slot from an older epoch counts as empty
+        private final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+        private final AtomicBoolean lockSignalled = new AtomicBoolean();
+        private volatile long lastEpoch;
+
+        int increment(long epoch) {
+            int index = (int) (epoch % SLOTS);
+            long current;
+            long next;
+            do {
+                current = slots.get(index);
+                if ((current >>> COUNT_BITS) == epoch) {
+                    next = (current & COUNT_MASK) == COUNT_MASK ? current : current + 1;
+                } else {
+                    next = (epoch << COUNT_BITS) | 1;
+                }
+            } while (!slots.compareAndSet(index, current, next));
+            lastEpoch = epoch;
+            return total(epoch);
+        }
+
+        int total(long epoch) {
+            long oldest = epoch - SLOTS + 1;
+            long total = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                long slot = slots.get(i);
+                long slotEpoch = slot >>> COUNT_BITS;
+                if (slotEpoch >= oldest && slotEpoch <= epoch) {
+                    total += slot & COUNT_MASK;
+                }
+            }
+            return (int) Math.min(total, Integer.MAX_VALUE);
+        }
+
+        long oldestCountedEpoch(long epoch) {
+            long oldest = epoch - SLOTS + 1;
+            long result = epoch;
+            for (int i = 0; i < SLOTS; i++) {
+                long slot = slots.get(i);
+                long slotEpoch = slot >>> COUNT_BITS;
+                if (slotEpoch >= oldest && slotEpoch < result && (slot & COUNT_MASK) > 0) {
+                    result = slotEpoch;
+                }
+            }
+            return result;
+        }
+    }
+}
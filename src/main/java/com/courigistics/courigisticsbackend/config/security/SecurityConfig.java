@@ -16,8 +16,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -42,6 +42,8 @@ public class SecurityConfig {
     private final SecurityHeadersConfig securityHeadersConfig;
     private final Environment environment;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final PasswordEncoder passwordEncoder; // BoundedPasswordEncoder: BCrypt off the request thread
+    private final UserDetailsPasswordService userDetailsPasswordService;
 
     // public endpoints
     private static final String[] PUBLIC_ENDPONTS ={
@@ -51,6 +53,7 @@ public class SecurityConfig {
             "/api/v1/auth/forgot-password/*", // for password reset request
             "/api/v1/auth/reset-password/*", // for password reset success
             "/api/v1/auth/setup-account/*",
+            "/api/v1/payments/mpesa/callback/*", // payment provider callbacks; authenticated by the secret path segment
     };
 
     // Dev test endpoints
@@ -71,7 +74,8 @@ public class SecurityConfig {
     public AuthenticationProvider authenticationProvider (){
         // Connect the auth provider to our custom logic for finding users
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder()); // password hashing algorithm to use (BCrypt)
+        authProvider.setPasswordEncoder(passwordEncoder); // password hashing algorithm to use (BCrypt)
+        authProvider.setUserDetailsPasswordService(userDetailsPasswordService); // rehash on login when the BCrypt cost is raised
         return authProvider;
     }
 
@@ -80,11 +84,6 @@ public class SecurityConfig {
         return configuration.getAuthenticationManager();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder(){
-        return new BCryptPasswordEncoder();
-    }
-
     @Bean
     /*
      * This method configures the SecurityFilterChain, which is is a sequence of filters that Spring security applies to
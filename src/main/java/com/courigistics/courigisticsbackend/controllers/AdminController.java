@@ -1,7 +1,200 @@
 package com.courigistics.courigisticsbackend.controllers;
 
+import com.courigistics.courigisticsbackend.dto.requests.courier.CourierBulkApprovalRequest;
+import com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint;
+import com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupRebuildResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierBulkApprovalResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierOnboardingResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.PendingCourierPageResponse;
+import com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryTrajectoryResponse;
+import com.courigistics.courigisticsbackend.dto.responses.reconciliation.CodReconciliationRunResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.CodReconciliation;
+import com.courigistics.courigisticsbackend.entities.enums.RollupGranularity;
+import com.courigistics.courigisticsbackend.repositories.CodReconciliationRepository;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupDimension;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupService;
+import com.courigistics.courigisticsbackend.services.auth.CourierAuthService;
+import com.courigistics.courigisticsbackend.services.courier.CourierOnboardingService;
+import com.courigistics.courigisticsbackend.services.reconciliation.CodReconciliationService;
+import com.courigistics.courigisticsbackend.services.trajectory.TrajectoryService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-@RestController("/api/v1")
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/admin")
+@RequiredArgsConstructor
+@Slf4j
 public class AdminController {
+
+    private final CodReconciliationService codReconciliationService;
+    private final CodReconciliationRepository codReconciliationRepository;
+    private final CourierOnboardingService courierOnboardingService;
+    private final CourierAuthService courierAuthService;
+    private final TrajectoryService trajectoryService;
+    private final PackageRollupService packageRollupService;
+
+    /**
+     * Re-runs COD reconciliation for a day (e.g. after late delivery updates)
+     */
+    @PostMapping("/reconciliation/cod")
+    public ResponseEntity<Map<String, Object>> runCodReconciliation(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        log.info("Manual COD reconciliation requested for {}", date);
+        CodReconciliationRunResponse run = codReconciliationService.reconcile(date);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Reconciliation completed",
+                "data", run
+        ));
+    }
+
+    /**
+     * Couriers whose COD takings did not reconcile on a day
+     */
+    @GetMapping("/reconciliation/cod/mismatches")
+    public ResponseEntity<Map<String, Object>> getCodMismatches(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
+    ) {
+        List<Map<String, Object>> mismatches = codReconciliationRepository.findByBusinessDateAndMismatchTrue(date)
+                .stream()
+                .map(AdminController::toSummary)
+                .toList();
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", mismatches
+        ));
+    }
+
+    /**
+     * Bulk courier onboarding for fleet partners
+     * The CSV is sent as the raw request body; see CourierOnboardingService for the columns
+     */
+    @PostMapping(value = "/couriers/onboarding", consumes = "text/csv")
+    public ResponseEntity<Map<String, Object>> onboardCouriers(HttpServletRequest request) throws IOException {
+        CourierOnboardingResponse result = courierOnboardingService.onboard(request.getInputStream());
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", String.format("%d couriers created, %d rows failed", result.createdCount(), result.failedCount()),
+                "data", result
+        ));
+    }
+
+    /**
+     * Pending-approval queue, oldest registrations first (keyset paginated)
+     */
+    @GetMapping("/couriers/pending")
+    public ResponseEntity<Map<String, Object>> getPendingCouriers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime afterRegisteredAt,
+            @RequestParam(required = false) UUID afterId,
+            @RequestParam(defaultValue = "50") int size
+    ) {
+        PendingCourierPageResponse page = courierAuthService.getPendingApprovalQueue(
+                afterRegisteredAt, afterId, Math.min(Math.max(size, 1), 200));
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", page
+        ));
+    }
+
+    @PostMapping("/couriers/approvals")
+    public ResponseEntity<Map<String, Object>> approveCouriers(
+            Authentication authentication,
+            @Valid @RequestBody CourierBulkApprovalRequest request
+    ) {
+        Account admin = SecurityUtils.getAuthenticatedAccount(authentication);
+        CourierBulkApprovalResponse result = courierAuthService.approveCouriers(request.courierIds(), admin.getId());
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", String.format("%d couriers approved, %d skipped", result.approvedCount(), result.skipped().size()),
+                "data", result
+        ));
+    }
+
+    /**
+     * Replays the path a courier took on a delivery (disputes, fare adjustments)
+     */
+    @GetMapping("/deliveries/{deliveryId}/trajectory")
+    public ResponseEntity<Map<String, Object>> getDeliveryTrajectory(@PathVariable UUID deliveryId) {
+        DeliveryTrajectoryResponse trajectory = trajectoryService.getTrajectory(deliveryId);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", trajectory
+        ));
+    }
+
+    /**
+     * Packages created per hour or day in [from, to), grouped by one dimension
+     */
+    @GetMapping("/analytics/packages")
+    public ResponseEntity<Map<String, Object>> getPackageCounts(
+            @RequestParam PackageRollupDimension dimension,
+            @RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        List<PackageRollupPoint> counts = packageRollupService.getCounts(dimension, granularity, from, to);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", counts
+        ));
+    }
+
+    /**
+     * Recomputes package rollups for the days in [from, to) (backfill, or repair after a bad import)
+     */
+    @PostMapping("/analytics/packages/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildPackageRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        log.info("Package rollup rebuild requested for [{}, {})", from, to);
+        PackageRollupRebuildResponse run = packageRollupService.rebuild(from, to);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Rebuild completed",
+                "data", run
+        ));
+    }
+
+    private static Map<String, Object> toSummary(CodReconciliation row) {
+        return Map.of(
+                "courierId", row.getCourier().getId(),
+                "operationalCity", row.getOperationalCity(),
+                "deliveryCount", row.getDeliveryCount(),
+                "amountOwed", row.getAmountOwed(),
+                "estimatedAmount", row.getEstimatedAmount(),
+                "missingFinalPriceCount", row.getMissingFinalPriceCount(),
+                "mismatchReason", row.getMismatchReason()
+        );
+    }
 }
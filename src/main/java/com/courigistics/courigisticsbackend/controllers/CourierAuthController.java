@@ -5,6 +5,8 @@ import com.courigistics.courigisticsbackend.dto.requests.courier.CourierRegister
 import com.courigistics.courigisticsbackend.dto.requests.courier.CourierSetupAccountRequest;
 import com.courigistics.courigisticsbackend.dto.responses.auth.AuthResponse;
 import com.courigistics.courigisticsbackend.dto.responses.courier.CourierRegistrationResponse;
+import com.courigistics.courigisticsbackend.exceptions.ServiceUnavailableException;
+import com.courigistics.courigisticsbackend.exceptions.TooManyRequestsException;
 import com.courigistics.courigisticsbackend.services.auth.CourierAuthService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
@@ -118,6 +120,9 @@ public class CourierAuthController {
                     "message", "Login successful",
                     "data", authResponse
             ));
+        } catch (TooManyRequestsException | ServiceUnavailableException e){
+            // Throttling and hashing back-pressure carry their own status and Retry-After (GlobalExceptionHandler)
+            throw e;
         } catch (Exception e){
             log.error("Courier login failed: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
@@ -1,16 +1,25 @@
 package com.courigistics.courigisticsbackend.controllers;
 
-import com.courigistics.courigisticsbackend.dto.responses.courier.CourierProfileResponse;
+import com.courigistics.courigisticsbackend.dto.requests.delivery.LocationUpdateRequest;
 import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.services.courier.CourierLocationService;
+import com.courigistics.courigisticsbackend.services.courier.CourierProfileSnapshot;
 import com.courigistics.courigisticsbackend.services.courier.CourierService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.Map;
 
@@ -21,20 +30,40 @@ import java.util.Map;
 public class CourierController {
 
     private final CourierService courierService;
+    private final CourierLocationService courierLocationService;
 
+    /**
+     * Polled by the courier app; a matching If-None-Match gets a 304 served from the profile cache
+     * Matching is left to Spring, which handles weak validators, lists and "*"
+     */
     @GetMapping("/me")
     @PreAuthorize("hasAuthority('COURIER')")
-    public ResponseEntity<Map<String, Object>> getCourierProfile(Authentication authentication) {
+    public ResponseEntity<Map<String, Object>> getCourierProfile(
+            Authentication authentication,
+            WebRequest webRequest
+    ) {
         Account account = (Account) authentication.getPrincipal();
-        log.info("Fetching profile for courier: {}", account.getUsername());
+        log.debug("Fetching profile for courier: {}", account.getUsername());
 
         try {
-            CourierProfileResponse profile = courierService.getCourierProfile(account.getId());
+            CourierProfileSnapshot profile = courierService.getCourierProfile(account.getId());
 
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "data", profile
-            ));
+            // Private: the response is per courier, so shared caches must not keep it
+            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+            if (webRequest.checkNotModified(profile.etag())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(profile.etag())
+                        .cacheControl(cacheControl)
+                        .build();
+            }
+
+            return ResponseEntity.ok()
+                    .eTag(profile.etag())
+                    .cacheControl(cacheControl)
+                    .body(Map.of(
+                            "success", true,
+                            "data", profile.profile()
+                    ));
         } catch (Exception e) {
             log.error("Failed to fetch courier profile: {}", e.getMessage());
             return ResponseEntity.status(500).body(Map.of(
@@ -43,4 +72,18 @@ public class CourierController {
             ));
         }
     }
+
+    /**
+     * Location ping from the courier app; drives automatic arrival detection at pickup and dropoff points
+     */
+    @PostMapping("/location")
+    public ResponseEntity<Map<String, Object>> updateLocation(
+            Authentication authentication,
+            @Valid @RequestBody LocationUpdateRequest request
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        courierLocationService.recordPing(account.getId(), request.lat(), request.lon());
+
+        return ResponseEntity.ok(Map.of("success", true));
+    }
 }
@@ -0,0 +1,47 @@
+package com.courigistics.courigisticsbackend.controllers;
+
+import com.courigistics.courigisticsbackend.dto.responses.customer.NearestAddressResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.services.address.AddressLookupService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/customer/addresses")
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerAddressController {
+
+    private final AddressLookupService addressLookupService;
+
+    /**
+     * Snaps a dropped pin to the customer's closest saved addresses
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<Map<String, Object>> findNearestAddresses(
+            Authentication authentication,
+            @RequestParam double latitude,
+            @RequestParam double longitude,
+            @RequestParam(defaultValue = "5") int limit
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+
+        List<NearestAddressResponse> addresses = addressLookupService.findNearestAddresses(
+                account.getId(), latitude, longitude, limit);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", addresses
+        ));
+    }
+}
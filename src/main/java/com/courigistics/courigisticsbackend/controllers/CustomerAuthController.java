@@ -6,6 +6,8 @@ import com.courigistics.courigisticsbackend.dto.requests.customer.CustomerRegist
 import com.courigistics.courigisticsbackend.dto.requests.auth.ResetPasswordRequest;
 import com.courigistics.courigisticsbackend.dto.responses.auth.AuthResponse;
 import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.exceptions.ServiceUnavailableException;
+import com.courigistics.courigisticsbackend.exceptions.TooManyRequestsException;
 import com.courigistics.courigisticsbackend.services.auth.AuthService;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
@@ -140,6 +142,9 @@ public class CustomerAuthController {
                     "message", "Login successful",
                     "data", authResponse
             ));
+        } catch (TooManyRequestsException | ServiceUnavailableException e){
+            // Throttling and hashing back-pressure carry their own status and Retry-After (GlobalExceptionHandler)
+            throw e;
         } catch (IllegalArgumentException e){
             log.warn("Login failed for {}: {}", loginRequest.usernameOrEmail(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
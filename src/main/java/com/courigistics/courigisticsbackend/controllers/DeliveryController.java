@@ -1,4 +1,48 @@
 package com.courigistics.courigisticsbackend.controllers;
 
+import com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryHistoryEntry;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.services.delivery.DeliveryHistoryService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/v1/deliveries")
+@RequiredArgsConstructor
+@Slf4j
 public class DeliveryController {
+
+    private final DeliveryHistoryService deliveryHistoryService;
+
+    /**
+     * The caller's deliveries created in [from, to), newest first
+     * Customers see what they sent, couriers what they carried
+     */
+    @GetMapping("/history")
+    public ResponseEntity<Map<String, Object>> getHistory(
+            Authentication authentication,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+
+        List<DeliveryHistoryEntry> history = deliveryHistoryService.findHistory(account, from, to);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", history
+        ));
+    }
 }
@@ -0,0 +1,39 @@
+package com.courigistics.courigisticsbackend.controllers;
+
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.services.eta.EtaService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+/**
+ * Live tracking of a customer's deliveries
+ */
+@RestController
+@RequestMapping("/api/v1/customer/deliveries")
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryTrackingController {
+
+    private final EtaService etaService;
+
+    /**
+     * Server-sent events with the delivery's ETA, sent whenever it changes noticeably
+     */
+    @GetMapping(value = "/{deliveryId}/eta", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter trackEta(Authentication authentication, @PathVariable UUID deliveryId) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        log.debug("ETA tracking of delivery {} opened by {}", deliveryId, account.getUsername());
+
+        return etaService.trackEta(account.getId(), deliveryId);
+    }
+}
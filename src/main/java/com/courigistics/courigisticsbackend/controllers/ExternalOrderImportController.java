@@ -0,0 +1,86 @@
+package com.courigistics.courigisticsbackend.controllers;
+
+import com.courigistics.courigisticsbackend.dto.responses.imports.ImportJobProgressResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.enums.ImportFormat;
+import com.courigistics.courigisticsbackend.services.imports.ExternalOrderImportService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk import of external marketplace orders
+ * The file is sent as the raw request body (text/csv or application/x-ndjson), not multipart,
+ * so it can be streamed to disk without being buffered in memory
+ */
+@RestController
+@RequestMapping("/api/v1/customer/imports/external-orders")
+@RequiredArgsConstructor
+@Slf4j
+public class ExternalOrderImportController {
+
+    private static final String CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ExternalOrderImportService externalOrderImportService;
+
+    @PostMapping(consumes = {CSV, NDJSON})
+    public ResponseEntity<Map<String, Object>> startImport(
+            Authentication authentication,
+            HttpServletRequest request
+    ) throws IOException {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        ImportFormat format = request.getContentType().startsWith(NDJSON) ? ImportFormat.NDJSON : ImportFormat.CSV;
+        log.info("External order import ({}) requested by {}", format, account.getUsername());
+
+        ImportJobProgressResponse job = externalOrderImportService.startImport(
+                account.getId(), format, request.getInputStream());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "success", true,
+                "message", "Import queued",
+                "data", job
+        ));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getProgress(
+            Authentication authentication,
+            @PathVariable UUID jobId
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "data", externalOrderImportService.getProgress(account.getId(), jobId)
+        ));
+    }
+
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<Map<String, Object>> resumeImport(
+            Authentication authentication,
+            @PathVariable UUID jobId
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        log.info("Resuming import job {} for {}", jobId, account.getUsername());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "success", true,
+                "message", "Import resumed",
+                "data", externalOrderImportService.resumeImport(account.getId(), jobId)
+        ));
+    }
+}
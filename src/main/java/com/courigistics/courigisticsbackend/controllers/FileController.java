@@ -0,0 +1,123 @@
+package com.courigistics.courigisticsbackend.controllers;
+
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.services.storage.ImageVariant;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import com.courigistics.courigisticsbackend.services.storage.ProofOfDeliveryImageProcessor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Serves stored proof-of-delivery images and their variants (?variant=thumb|web)
+ *
+ * Objects are content addressed and never change, so responses carry a year-long
+ * immutable Cache-Control and an ETag. Local files are handed to Tomcat's sendfile
+ * when available (zero-copy); otherwise they are copied with FileChannel.transferTo.
+ */
+@RestController
+@RequestMapping("/api/v1/files")
+@RequiredArgsConstructor
+@Slf4j
+public class FileController {
+
+    private static final Pattern SHARD = Pattern.compile("^[0-9a-f]{2}$");
+    private static final Pattern NAME = Pattern.compile("^[0-9a-f]{64}\\.(jpg|png|webp)$");
+
+    private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+    // Variant requested but not generated yet: let the client come back for it
+    private static final String REVALIDATE = "private, no-cache";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ObjectStorage objectStorage;
+    private final ProofOfDeliveryImageProcessor imageProcessor;
+
+    @GetMapping("/pod/{shard}/{name}")
+    public void getProofOfDeliveryImage(
+            @PathVariable String shard,
+            @PathVariable String name,
+            @RequestParam(required = false) String variant,
+            HttpServletRequest request,
+            HttpServletResponse response
+    ) throws IOException {
+        // 1: Only well-formed content-addressed keys, so nothing else on disk is reachable
+        if (!SHARD.matcher(shard).matches() || !NAME.matcher(name).matches()) {
+            throw new ResourceNotFoundException("File not found");
+        }
+        ImageVariant imageVariant;
+        try {
+            imageVariant = ImageVariant.fromParam(variant);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown variant: " + variant);
+        }
+
+        String originalKey = "pod/" + shard + "/" + name;
+        String servedKey = imageProcessor.resolveServedKey(originalKey, imageVariant);
+        boolean exact = imageVariant == null || !servedKey.equals(originalKey);
+
+        // 2: Conditional request; Spring sets the ETag and the 304, and handles weak validators, lists and "*"
+        String etag = "\"" + servedKey.substring(servedKey.lastIndexOf('/') + 1) + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, exact ? IMMUTABLE : REVALIDATE);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+
+        // 3: Body
+        long size;
+        try {
+            size = objectStorage.size(servedKey);
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("File not found");
+        }
+        response.setContentType(contentTypeOf(servedKey));
+        response.setContentLengthLong(size);
+
+        Optional<Path> localFile = objectStorage.localPath(servedKey);
+        if (localFile.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, localFile.get().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+
+        try (FileChannel in = objectStorage.open(servedKey);
+             WritableByteChannel out = Channels.newChannel(response.getOutputStream())) {
+            long position = 0;
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private static String contentTypeOf(String key) {
+        if (key.endsWith(".png")) {
+            return "image/png";
+        }
+        if (key.endsWith(".webp")) {
+            return "image/webp";
+        }
+        return "image/jpeg";
+    }
+}
@@ -1,4 +1,75 @@
 package com.courigistics.courigisticsbackend.controllers;
 
+import com.courigistics.courigisticsbackend.dto.requests.payment.MpesaCallbackRequest;
+import com.courigistics.courigisticsbackend.dto.requests.payment.StkPushRequest;
+import com.courigistics.courigisticsbackend.dto.responses.payment.StkPushResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.services.payment.MpesaCallbackAuthenticator;
+import com.courigistics.courigisticsbackend.services.payment.MpesaCallbackService;
+import com.courigistics.courigisticsbackend.services.payment.MpesaStkPushService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/v1/payments")
+@RequiredArgsConstructor
+@Slf4j
 public class PaymentController {
+
+    private final MpesaCallbackService mpesaCallbackService;
+    private final MpesaCallbackAuthenticator mpesaCallbackAuthenticator;
+    private final MpesaStkPushService mpesaStkPushService;
+
+    /**
+     * Starts an M-Pesa payment for one of the caller's deliveries (prompt on the phone)
+     */
+    @PostMapping("/mpesa/stk-push/{deliveryId}")
+    public ResponseEntity<Map<String, Object>> startMpesaPayment(
+            Authentication authentication,
+            @PathVariable UUID deliveryId,
+            @Valid @RequestBody StkPushRequest request
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        StkPushResponse push = mpesaStkPushService.initiate(account, deliveryId, request.phoneNumber());
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Payment request sent to your phone",
+                "data", push
+        ));
+    }
+
+    /**
+     * Daraja STK push result callback
+     * The last path segment is the deployment's callback secret; requests without it are refused.
+     * Acknowledges immediately (processing is asynchronous); duplicates are acknowledged too,
+     * so the provider stops retrying. Responds in the shape Daraja expects.
+     */
+    @PostMapping("/mpesa/callback/{token}")
+    public ResponseEntity<Map<String, Object>> mpesaCallback(
+            @PathVariable String token,
+            @RequestBody MpesaCallbackRequest callback,
+            HttpServletRequest request
+    ) {
+        mpesaCallbackAuthenticator.authenticate(token, request.getRemoteAddr());
+        boolean queued = mpesaCallbackService.accept(callback);
+
+        return ResponseEntity.ok(Map.of(
+                "ResultCode", 0,
+                "ResultDesc", queued ? "Accepted" : "Duplicate"
+        ));
+    }
 }
@@ -0,0 +1,41 @@
+package com.courigistics.courigisticsbackend.controllers;
+
+import com.courigistics.courigisticsbackend.dto.requests.payment.CallbackSimulationRequest;
+import com.courigistics.courigisticsbackend.dto.responses.payment.CallbackSimulationResponse;
+import com.courigistics.courigisticsbackend.services.payment.MpesaCallbackSimulator;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Dev/test-only endpoint that replays duplicated, out-of-order M-Pesa callback storms
+ */
+@RestController
+@RequestMapping("/api/v1/admin/payments/mpesa")
+@Profile({"dev", "test"})
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentSimulatorController {
+
+    private final MpesaCallbackSimulator mpesaCallbackSimulator;
+
+    @PostMapping("/simulate")
+    public ResponseEntity<Map<String, Object>> simulate(@Valid @RequestBody CallbackSimulationRequest request)
+            throws InterruptedException {
+        CallbackSimulationResponse report = mpesaCallbackSimulator.replay(request);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Callback storm replayed",
+                "data", report
+        ));
+    }
+}
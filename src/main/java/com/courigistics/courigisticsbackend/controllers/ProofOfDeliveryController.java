@@ -0,0 +1,110 @@
+package com.courigistics.courigisticsbackend.controllers;
+
+import com.courigistics.courigisticsbackend.dto.requests.delivery.ProofOfDeliveryUploadRequest;
+import com.courigistics.courigisticsbackend.dto.responses.delivery.UploadSessionResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.services.delivery.ProofOfDeliveryService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resumable proof-of-delivery uploads
+ * Chunks are sent as raw bodies (not multipart) with an Upload-Offset header
+ */
+@RestController
+@RequestMapping("/api/v1/courier/deliveries/{deliveryId}/proof-of-delivery/uploads")
+@RequiredArgsConstructor
+@Slf4j
+public class ProofOfDeliveryController {
+
+    private static final String UPLOAD_OFFSET = "Upload-Offset";
+
+    private final ProofOfDeliveryService proofOfDeliveryService;
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> createUpload(
+            Authentication authentication,
+            @PathVariable UUID deliveryId,
+            @Valid @RequestBody ProofOfDeliveryUploadRequest request
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        UploadSessionResponse upload = proofOfDeliveryService.createUpload(account.getId(), deliveryId, request);
+
+        return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                "success", true,
+                "message", "Upload created",
+                "data", upload
+        ));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> getUpload(
+            Authentication authentication,
+            @PathVariable UUID deliveryId,
+            @PathVariable UUID uploadId
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        UploadSessionResponse upload = proofOfDeliveryService.getUpload(account.getId(), deliveryId, uploadId);
+
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, String.valueOf(upload.receivedBytes()))
+                .body(Map.of(
+                        "success", true,
+                        "data", upload
+                ));
+    }
+
+    @PatchMapping(value = "/{uploadId}", consumes = {"application/offset+octet-stream", "application/octet-stream"})
+    public ResponseEntity<Map<String, Object>> appendChunk(
+            Authentication authentication,
+            @PathVariable UUID deliveryId,
+            @PathVariable UUID uploadId,
+            @RequestHeader(UPLOAD_OFFSET) long offset,
+            HttpServletRequest request
+    ) throws IOException {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        UploadSessionResponse upload = proofOfDeliveryService.appendChunk(
+                account.getId(), deliveryId, uploadId, offset, request.getInputStream());
+
+        return ResponseEntity.ok()
+                .header(UPLOAD_OFFSET, String.valueOf(upload.receivedBytes()))
+                .body(Map.of(
+                        "success", true,
+                        "data", upload
+                ));
+    }
+
+    @DeleteMapping("/{uploadId}")
+    public ResponseEntity<Map<String, Object>> abortUpload(
+            Authentication authentication,
+            @PathVariable UUID deliveryId,
+            @PathVariable UUID uploadId
+    ) {
+        Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+        proofOfDeliveryService.abortUpload(account.getId(), deliveryId, uploadId);
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "message", "Upload aborted"
+        ));
+    }
+}
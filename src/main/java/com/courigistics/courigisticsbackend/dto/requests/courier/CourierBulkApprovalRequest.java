@@ -0,0 +1,17 @@
+package com.courigistics.courigisticsbackend.dto.requests.courier;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Couriers an admin approves in one call
+ */
+public record CourierBulkApprovalRequest(
+        @NotEmpty(message = "At least one courier ID is required")
+        @Size(max = 500, message = "At most 500 couriers can be approved per request")
+        List<UUID> courierIds
+) {
+}
@@ -0,0 +1,16 @@
+package com.courigistics.courigisticsbackend.dto.requests.courier;
+
+import java.util.UUID;
+
+/**
+ * A courier's answer to an offer, sent over the offers WebSocket
+ *
+ * @param type ACCEPT or DECLINE
+ */
+public record CourierOfferReply(
+        String type,
+        UUID offerId
+) {
+    public static final String ACCEPT = "ACCEPT";
+    public static final String DECLINE = "DECLINE";
+}
@@ -0,0 +1,24 @@
+package com.courigistics.courigisticsbackend.dto.requests.delivery;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+/**
+ * Opens a resumable proof-of-delivery upload
+ *
+ * @param sizeBytes   total image size; the upload completes when this many bytes are committed
+ * @param contentType image MIME type (image/jpeg, image/png, image/webp)
+ * @param sha256      optional hex SHA-256 of the image, verified on completion
+ */
+public record ProofOfDeliveryUploadRequest(
+        @NotNull(message = "Size is required")
+        @Positive(message = "Size must be positive")
+        Long sizeBytes,
+        @NotBlank(message = "Content type is required")
+        String contentType,
+        @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "sha256 must be 64 hex characters")
+        String sha256
+) {
+}
@@ -0,0 +1,29 @@
+package com.courigistics.courigisticsbackend.dto.requests.imports;
+
+import com.courigistics.courigisticsbackend.entities.enums.PackageCategory;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One validated record from a merchant's external order file
+ *
+ * CSV header / NDJSON keys:
+ * sourcePlatform, productName, quantity, price, currency, expectedArrivalDate,
+ * description, packageCategory, isFragile
+ *
+ * @param recordNumber 1-based position of the record in the file (header excluded)
+ */
+public record ExternalOrderRow(
+        long recordNumber,
+        String sourcePlatform,
+        String productName,
+        Integer quantity,
+        BigDecimal price,
+        String currency,
+        LocalDateTime expectedArrivalDate,
+        String description,
+        PackageCategory packageCategory,
+        boolean isFragile
+) {
+}
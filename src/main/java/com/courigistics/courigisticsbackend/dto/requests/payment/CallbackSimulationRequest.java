@@ -0,0 +1,25 @@
+package com.courigistics.courigisticsbackend.dto.requests.payment;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import java.util.List;
+
+/**
+ * Parameters for replaying an M-Pesa callback storm against the ingestion path
+ *
+ * @param checkoutRequestIds real checkout IDs to pay; if empty, syntheticCount random IDs are used
+ * @param duplicates         how many times each callback is delivered
+ * @param failureRatio       share of checkouts that also receive a failure callback, shuffled before or after success
+ * @param threads            concurrent senders
+ */
+public record CallbackSimulationRequest(
+        List<String> checkoutRequestIds,
+        @Min(0) @Max(100_000) Integer syntheticCount,
+        @Min(1) @Max(50) Integer duplicates,
+        @DecimalMin("0.0") @DecimalMax("1.0") Double failureRatio,
+        @Min(1) @Max(256) Integer threads
+) {
+}
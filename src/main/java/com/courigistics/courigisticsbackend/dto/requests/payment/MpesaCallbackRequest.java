@@ -0,0 +1,70 @@
+package com.courigistics.courigisticsbackend.dto.requests.payment;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Daraja STK push result callback
+ *
+ * {"Body":{"stkCallback":{"MerchantRequestID":"...","CheckoutRequestID":"...","ResultCode":0,
+ *  "ResultDesc":"...","CallbackMetadata":{"Item":[{"Name":"Amount","Value":1.0}, ...]}}}}
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record MpesaCallbackRequest(
+        @JsonProperty("Body") Body body
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Body(
+            @JsonProperty("stkCallback") StkCallback stkCallback
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record StkCallback(
+            @JsonProperty("MerchantRequestID") String merchantRequestId,
+            @JsonProperty("CheckoutRequestID") String checkoutRequestId,
+            @JsonProperty("ResultCode") Integer resultCode,
+            @JsonProperty("ResultDesc") String resultDesc,
+            @JsonProperty("CallbackMetadata") CallbackMetadata callbackMetadata
+    ) {
+    }
+
+    /**
+     * Only present on successful payments
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record CallbackMetadata(
+            @JsonProperty("Item") List<Item> items
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Item(
+            @JsonProperty("Name") String name,
+            @JsonProperty("Value") Object value
+    ) {
+    }
+
+    public StkCallback stkCallback() {
+        return body != null ? body.stkCallback() : null;
+    }
+
+    /**
+     * Looks up a metadata item by name, e.g. "MpesaReceiptNumber"
+     */
+    public Object metadataValue(String name) {
+        StkCallback callback = stkCallback();
+        if (callback == null || callback.callbackMetadata() == null || callback.callbackMetadata().items() == null) {
+            return null;
+        }
+        for (Item item : callback.callbackMetadata().items()) {
+            if (name.equals(item.name())) {
+                return item.value();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.courigistics.courigisticsbackend.dto.requests.payment;
+
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Starts an M-Pesa STK push for a delivery
+ *
+ * @param phoneNumber number to prompt (07..., 2547... or +2547...); defaults to the account's phone
+ */
+public record StkPushRequest(
+        @Pattern(regexp = "^\\+?[0-9]{9,15}$", message = "Phone number must be valid") String phoneNumber
+) {
+}
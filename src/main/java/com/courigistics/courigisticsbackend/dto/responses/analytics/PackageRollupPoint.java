@@ -0,0 +1,13 @@
+package com.courigistics.courigisticsbackend.dto.responses.analytics;
+
+import java.time.LocalDateTime;
+
+/**
+ * Packages created in one bucket for one value of the requested dimension
+ */
+public record PackageRollupPoint(
+        LocalDateTime bucketStart,
+        String value,
+        long count
+) {
+}
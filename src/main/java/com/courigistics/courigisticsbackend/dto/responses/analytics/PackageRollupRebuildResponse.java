@@ -0,0 +1,13 @@
+package com.courigistics.courigisticsbackend.dto.responses.analytics;
+
+import java.time.LocalDate;
+
+public record PackageRollupRebuildResponse(
+        LocalDate from,
+        LocalDate to,
+        int days,
+        long packages,
+        int rollupRows,
+        long elapsedMillis
+) {
+}
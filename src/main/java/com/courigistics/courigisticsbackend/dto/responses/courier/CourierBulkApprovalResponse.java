@@ -0,0 +1,23 @@
+package com.courigistics.courigisticsbackend.dto.responses.courier;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk approval; couriers that could not be approved are listed with the reason
+ */
+public record CourierBulkApprovalResponse(
+        int requestedCount,
+        int approvedCount,
+        List<ApprovedCourier> approved,
+        List<SkippedCourier> skipped
+) {
+    /**
+     * @param employeeId null for freelancers
+     */
+    public record ApprovedCourier(UUID courierId, String email, String employeeId) {
+    }
+
+    public record SkippedCourier(UUID courierId, String reason) {
+    }
+}
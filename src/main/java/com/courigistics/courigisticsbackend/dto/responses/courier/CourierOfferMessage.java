@@ -0,0 +1,36 @@
+package com.courigistics.courigisticsbackend.dto.responses.courier;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Message pushed to a courier over the offers WebSocket
+ *
+ * @param type      OFFER, CONFIRMED (the courier got the delivery) or WITHDRAWN (the offer is no longer open)
+ * @param reason    why an offer was withdrawn: TAKEN, EXPIRED or CANCELLED
+ * @param expiresAt answer before this, or the offer moves on to the next courier
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CourierOfferMessage(
+        String type,
+        UUID offerId,
+        UUID deliveryId,
+        Double pickupLat,
+        Double pickupLon,
+        LocalDateTime expiresAt,
+        String reason
+) {
+    public static CourierOfferMessage offer(UUID offerId, UUID deliveryId, double pickupLat, double pickupLon, LocalDateTime expiresAt) {
+        return new CourierOfferMessage("OFFER", offerId, deliveryId, pickupLat, pickupLon, expiresAt, null);
+    }
+
+    public static CourierOfferMessage confirmed(UUID offerId, UUID deliveryId) {
+        return new CourierOfferMessage("CONFIRMED", offerId, deliveryId, null, null, null, null);
+    }
+
+    public static CourierOfferMessage withdrawn(UUID offerId, String reason) {
+        return new CourierOfferMessage("WITHDRAWN", offerId, null, null, null, null, reason);
+    }
+}
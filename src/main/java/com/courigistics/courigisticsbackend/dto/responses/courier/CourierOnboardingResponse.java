@@ -0,0 +1,33 @@
+package com.courigistics.courigisticsbackend.dto.responses.courier;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a bulk courier onboarding upload
+ *
+ * @param rowsPerSecond rows processed (created + rejected) per second of wall time
+ * @param rows          one result per CSV data row, in file order
+ */
+public record CourierOnboardingResponse(
+        int totalRows,
+        int createdCount,
+        int failedCount,
+        long durationMillis,
+        double rowsPerSecond,
+        List<RowResult> rows
+) {
+    /**
+     * @param rowNumber 1-based data row number (header excluded)
+     * @param courierId set when the courier was created
+     * @param errors    empty when the courier was created
+     */
+    public record RowResult(
+            int rowNumber,
+            String email,
+            boolean created,
+            UUID courierId,
+            List<String> errors
+    ) {
+    }
+}
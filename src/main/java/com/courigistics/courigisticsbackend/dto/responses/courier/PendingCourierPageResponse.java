@@ -0,0 +1,17 @@
+package com.courigistics.courigisticsbackend.dto.responses.courier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Keyset page of the pending-approval queue, oldest registrations first
+ *
+ * @param nextAfterRegisteredAt pass back with nextAfterId to fetch the next page; null on the last page
+ */
+public record PendingCourierPageResponse(
+        List<PendingCourierResponse> items,
+        LocalDateTime nextAfterRegisteredAt,
+        UUID nextAfterId
+) {
+}
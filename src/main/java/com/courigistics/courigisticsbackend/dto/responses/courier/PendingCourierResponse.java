@@ -0,0 +1,22 @@
+package com.courigistics.courigisticsbackend.dto.responses.courier;
+
+import com.courigistics.courigisticsbackend.entities.enums.EmploymentType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One entry of the admin pending-approval queue
+ * Built directly by a JPQL constructor expression, no entities are loaded
+ */
+public record PendingCourierResponse(
+        UUID courierId,
+        String firstName,
+        String lastName,
+        String email,
+        String phone,
+        EmploymentType employmentType,
+        Boolean emailVerified,
+        LocalDateTime registeredAt
+) {
+}
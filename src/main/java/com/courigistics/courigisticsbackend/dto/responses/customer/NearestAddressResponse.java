@@ -0,0 +1,20 @@
+package com.courigistics.courigisticsbackend.dto.responses.customer;
+
+import java.util.UUID;
+
+/**
+ * A saved address matched to a dropped pin
+ *
+ * @param distanceMeters great-circle distance from the pin
+ */
+public record NearestAddressResponse(
+        UUID id,
+        String label,
+        String addressLine1,
+        String city,
+        double latitude,
+        double longitude,
+        boolean isDefault,
+        double distanceMeters
+) {
+}
@@ -0,0 +1,25 @@
+package com.courigistics.courigisticsbackend.dto.responses.delivery;
+
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One delivery in a customer's or courier's history
+ * Built from the live table or, for archived months, from the partition archive
+ */
+public record DeliveryHistoryEntry(
+        UUID id,
+        String deliveryNumber,
+        DeliveryStatus deliveryStatus,
+        PaymentStatus paymentStatus,
+        String recipientName,
+        BigDecimal estimatedPrice,
+        BigDecimal finalPrice,
+        LocalDateTime createdAt,
+        LocalDateTime actualDeliveryTime
+) {
+}
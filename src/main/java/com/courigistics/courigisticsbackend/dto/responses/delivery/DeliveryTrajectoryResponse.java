@@ -0,0 +1,20 @@
+package com.courigistics.courigisticsbackend.dto.responses.delivery;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Recorded path of a delivery, up to the last trajectory flush
+ *
+ * @param actualDistanceKm distance travelled, measured over every accepted ping (not just the stored ones)
+ * @param encodedBytes     storage used by the simplified, encoded path
+ */
+public record DeliveryTrajectoryResponse(
+        UUID deliveryId,
+        double actualDistanceKm,
+        int encodedBytes,
+        List<Point> points
+) {
+    public record Point(double latitude, double longitude, LocalDateTime recordedAt) {}
+}
@@ -0,0 +1,23 @@
+package com.courigistics.courigisticsbackend.dto.responses.delivery;
+
+import com.courigistics.courigisticsbackend.entities.enums.UploadSessionStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * @param receivedBytes offset to send the next chunk from
+ * @param maxChunkBytes largest chunk the server accepts per request
+ * @param url           proof-of-delivery URL, set once the upload has completed
+ */
+public record UploadSessionResponse(
+        UUID uploadId,
+        UUID deliveryId,
+        UploadSessionStatus status,
+        long totalBytes,
+        long receivedBytes,
+        long maxChunkBytes,
+        String url,
+        LocalDateTime expiresAt
+) {
+}
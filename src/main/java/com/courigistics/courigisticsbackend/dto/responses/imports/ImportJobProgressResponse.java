@@ -0,0 +1,27 @@
+package com.courigistics.courigisticsbackend.dto.responses.imports;
+
+import com.courigistics.courigisticsbackend.entities.enums.ImportFormat;
+import com.courigistics.courigisticsbackend.entities.enums.ImportJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Progress snapshot of a bulk import job
+ *
+ * @param recordsProcessed records committed so far (imported + rejected)
+ * @param recordsPerSecond throughput since the job (or its last resume) started
+ */
+public record ImportJobProgressResponse(
+        UUID jobId,
+        ImportJobStatus status,
+        ImportFormat format,
+        long recordsProcessed,
+        long importedCount,
+        long rejectedCount,
+        double recordsPerSecond,
+        String lastError,
+        LocalDateTime startedAt,
+        LocalDateTime finishedAt
+) {
+}
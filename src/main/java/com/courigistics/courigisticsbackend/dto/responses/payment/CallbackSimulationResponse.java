@@ -0,0 +1,11 @@
+package com.courigistics.courigisticsbackend.dto.responses.payment;
+
+public record CallbackSimulationResponse(
+        int checkouts,
+        int callbacksSent,
+        int enqueued,
+        int rejectedAsDuplicate,
+        long elapsedMillis,
+        double callbacksPerSecond
+) {
+}
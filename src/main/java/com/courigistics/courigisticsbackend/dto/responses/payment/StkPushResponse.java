@@ -0,0 +1,12 @@
+package com.courigistics.courigisticsbackend.dto.responses.payment;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record StkPushResponse(
+        UUID deliveryId,
+        String checkoutRequestId,
+        BigDecimal amount,
+        String customerMessage
+) {
+}
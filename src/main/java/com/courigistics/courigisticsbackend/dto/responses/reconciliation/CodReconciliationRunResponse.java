@@ -0,0 +1,13 @@
+package com.courigistics.courigisticsbackend.dto.responses.reconciliation;
+
+import java.time.LocalDate;
+
+public record CodReconciliationRunResponse(
+        LocalDate businessDate,
+        int cities,
+        int couriers,
+        long deliveries,
+        int mismatches,
+        long elapsedMillis
+) {
+}
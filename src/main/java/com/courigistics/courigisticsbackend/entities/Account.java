@@ -1,8 +1,10 @@
 package com.courigistics.courigisticsbackend.entities;
 
 import com.courigistics.courigisticsbackend.entities.enums.AccountType;
+import com.courigistics.courigisticsbackend.events.CacheEvictionEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,6 +15,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(CacheEvictionEntityListener.class)
 @Table(name = "accounts", indexes = {
         @Index(name = "idx_account_email", columnList = "email"),
         @Index(name = "idx_account_phone", columnList = "phone"),
@@ -52,9 +55,20 @@ public class Account implements UserDetails {
     private Boolean emailVerified;
 
 
-    @Column(name = "last_login")
+    // Login metadata below is written in batches by LoginActivityBuffer, never by entity updates
+    @Column(name = "last_login", updatable = false)
     private LocalDateTime lastLogin;
 
+    @Column(name = "login_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private long loginCount;
+
+    @Column(name = "last_login_ip", length = 45, updatable = false)
+    private String lastLoginIp;
+
+    @Column(name = "last_login_user_agent", updatable = false)
+    private String lastLoginUserAgent;
+
     // Relationships
     @OneToOne(mappedBy = "account", cascade = CascadeType.ALL)
     private Customer customer;
@@ -70,6 +84,17 @@ public class Account implements UserDetails {
     @Column(name = "acc_non_locked", nullable = false)
     private boolean accountNonLocked = true;
 
+    // Set when repeated failed logins locked the account; such locks lift on their own after a while
+    @Column(name = "locked_at")
+    private LocalDateTime lockedAt;
+
+    // Username and email as last read from or written to the database, so an edit can evict principals cached under the old values
+    @Transient
+    private String storedUsername;
+
+    @Transient
+    private String storedEmail;
+
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
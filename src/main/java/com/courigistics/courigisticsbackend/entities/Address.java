@@ -1,5 +1,6 @@
 package com.courigistics.courigisticsbackend.entities;
 
+import com.courigistics.courigisticsbackend.events.CacheEvictionEntityListener;
 import com.courigistics.courigisticsbackend.utils.GeoUtils;
 import jakarta.persistence.*;
 import lombok.*;
@@ -9,6 +10,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(CacheEvictionEntityListener.class)
+// location also has a GiST index (idx_address_location), created by CustomIndexInitializer
 @Table(name = "addresses", indexes = {
         @Index(name = "idx_address_account", columnList = "account_id")
 })
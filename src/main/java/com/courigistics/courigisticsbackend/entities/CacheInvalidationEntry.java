@@ -0,0 +1,35 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A cache invalidation published for the other nodes (see JdbcCacheInvalidationBus)
+ * The increasing id is the cursor of the feed every node polls; rows are short-lived
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "cache_invalidations", indexes = {
+        @Index(name = "idx_cache_invalidation_created_at", columnList = "created_at")
+})
+public class CacheInvalidationEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "cache_name", nullable = false, length = 64)
+    private String cacheName;
+
+    // Null when the whole cache was cleared
+    @Column(name = "cache_key")
+    private String cacheKey;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,64 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Daily cash-on-delivery summary for one courier
+ * Written by the nightly reconciliation job; one row per courier per business date
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "cod_reconciliations",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cod_reconciliation_courier_date", columnNames = {"courier_id", "business_date"}),
+        indexes = {
+                @Index(name = "idx_cod_reconciliation_date_city", columnList = "business_date, operational_city"),
+                @Index(name = "idx_cod_reconciliation_mismatch", columnList = "business_date, mismatch")
+        }
+)
+public class CodReconciliation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "courier_id", nullable = false)
+    private Courier courier;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "operational_city", nullable = false)
+    private String operationalCity;
+
+    @Column(name = "delivery_count", nullable = false)
+    private Integer deliveryCount;
+
+    // Cash the courier owes: final price, or estimated price where no final price was recorded
+    @Column(name = "amount_owed", nullable = false, precision = 14, scale = 2)
+    private BigDecimal amountOwed;
+
+    @Column(name = "estimated_amount", nullable = false, precision = 14, scale = 2)
+    private BigDecimal estimatedAmount;
+
+    @Column(name = "missing_final_price_count", nullable = false)
+    private Integer missingFinalPriceCount;
+
+    @Column(name = "mismatch", nullable = false)
+    private Boolean mismatch;
+
+    @Column(name = "mismatch_reason")
+    private String mismatchReason;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -3,6 +3,7 @@ package com.courigistics.courigisticsbackend.entities;
 import com.courigistics.courigisticsbackend.entities.enums.CourierStatus;
 import com.courigistics.courigisticsbackend.entities.enums.EmploymentType;
 import com.courigistics.courigisticsbackend.entities.enums.PaymentType;
+import com.courigistics.courigisticsbackend.events.CacheEvictionEntityListener;
 import com.courigistics.courigisticsbackend.utils.GeoUtils;
 import jakarta.persistence.*;
 import lombok.*;
@@ -20,6 +21,7 @@ import java.util.UUID;
  * with delivery requests based on proximity and vehicle capacity
  */
 @Entity
+@EntityListeners(CacheEvictionEntityListener.class)
 @Getter
 @Setter
 @Table(name = "couriers", indexes = {
@@ -27,8 +29,11 @@ import java.util.UUID;
         @Index(name = "idx_courier_depot", columnList = "depot_id"),
         @Index(name = "idx_courier_status", columnList = "status"),
         @Index(name = "idx_courier_employee_id", columnList = "employee_id"),
+        // Dispatch matches LOWER(operational_city), served by idx_courier_operational_city_lower (see CustomIndexInitializer)
         @Index(name = "idx_courier_operational_city", columnList =  "operational_city"),
-        @Index(name = "idx_courier_available", columnList = "available_for_assignment")
+        @Index(name = "idx_courier_available", columnList = "available_for_assignment"),
+        @Index(name = "idx_courier_reservation_expiry", columnList = "reservation_expires_at"),
+        @Index(name = "idx_courier_pending_queue", columnList = "pending_approval, created_at, id")
 })
 @NoArgsConstructor
 @AllArgsConstructor
@@ -144,10 +149,24 @@ public class Courier {
     @Column(name = "current_location", columnDefinition = "geography(Point, 4326)", nullable = true)
     private Point currentLocation;
 
-    @Column(name = "available_for_assignment", nullable = false)
+    // Availability and reservations below are only changed by the conditional updates in
+    // CourierReservationService, never by entity updates, so a stale save cannot free a reserved courier
+    @Column(name = "available_for_assignment", nullable = false, updatable = false)
     @Builder.Default
     private Boolean availableForAssignment = true;
 
+    /**
+     * Delivery this courier is reserved for, offered or accepted
+     */
+    @Column(name = "reserved_delivery_id", updatable = false)
+    private UUID reservedDeliveryId;
+
+    /**
+     * When an un-accepted offer lapses and the courier is freed again; null once accepted
+     */
+    @Column(name = "reservation_expires_at", updatable = false)
+    private LocalDateTime reservationExpiresAt;
+
     @Column(name = "hired_at")
     private LocalDateTime hiredAt;
 
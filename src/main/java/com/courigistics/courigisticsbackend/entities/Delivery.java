@@ -15,23 +15,30 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "deliveries", indexes = {
-        @Index(name = "idx_delivery_number", columnList = "delivery_number"),
-        @Index(name = "idx_package_number", columnList = "package_id"),
-        @Index(name = "idx_sender_acc_id", columnList = "sender_acc_id"),
-        @Index(name = "idx_courier_id", columnList = "courier_id"),
-        @Index(name = "idx_created_at", columnList = "created_at")
+// Unique keys include created_at, as a partitioned table requires (see db/partitioning/deliveries.sql,
+// which also keeps these columns unique across partitions)
+@Table(name = "deliveries", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_delivery_number", columnNames = {"delivery_number", "created_at"}),
+        @UniqueConstraint(name = "uk_delivery_package", columnNames = {"package_id", "created_at"}),
+        @UniqueConstraint(name = "uk_delivery_mpesa_checkout", columnNames = {"mpesa_checkout_request_id", "created_at"})
+}, indexes = {
+        // History reads are always bounded by created_at (and prune partitions on it)
+        @Index(name = "idx_sender_acc_id", columnList = "sender_acc_id, created_at"),
+        @Index(name = "idx_courier_id", columnList = "courier_id, created_at"),
+        @Index(name = "idx_created_at", columnList = "created_at"),
+        @Index(name = "idx_delivery_cod_reconciliation", columnList = "payment_method, delivery_status, actual_delivery_time"),
+        @Index(name = "idx_delivery_status_courier", columnList = "delivery_status, courier_id")
 })
 public class Delivery {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(name = "delivery_number", unique = true, nullable = false)
+    @Column(name = "delivery_number", nullable = false)
     private String deliveryNumber;
 
     @OneToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "package_id", unique = true, nullable = false)
+    @JoinColumn(name = "package_id", nullable = false)
     private Packages packages;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -115,6 +122,10 @@ public class Delivery {
     @Enumerated(value = EnumType.STRING)
     private PaymentStatus paymentStatus = PaymentStatus.PENDING;
 
+    // STK push CheckoutRequestID; M-Pesa callbacks are matched to the delivery through it
+    @Column(name = "mpesa_checkout_request_id", length = 64)
+    private String mpesaCheckoutRequestId;
+
     @Column(name = "scheduled_pickup_time")
     private List<LocalDateTime> scheduledPickupTime;
 
@@ -163,10 +174,18 @@ public class Delivery {
     @Column(name = "retry_count")
     private Integer retryCount;
 
-    @Column(name = "created_at")
+    // Partition key once deliveries is partitioned by month (db/partitioning/deliveries.sql), so never updated
+    @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @PrePersist
+    protected void onCreate() {
+        // The builder skips the field initializer
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
 }
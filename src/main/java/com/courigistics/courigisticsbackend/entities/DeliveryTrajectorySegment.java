@@ -0,0 +1,54 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One append-only chunk of a delivery's recorded path
+ *
+ * Points are simplified and delta/varint encoded (see TrajectoryCodec); each segment starts from an
+ * absolute point so it decodes on its own. A trip is replayed by decoding its segments in order.
+ * Rows are written in batches by the trajectory flush, never updated.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "delivery_trajectory_segments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_trajectory_segment_delivery_seq", columnNames = {"delivery_id", "seq"})
+)
+public class DeliveryTrajectorySegment {
+    @Id
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "delivery_id", nullable = false)
+    private Delivery delivery;
+
+    @Column(name = "seq", nullable = false)
+    private Integer seq;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "ended_at", nullable = false)
+    private LocalDateTime endedAt;
+
+    // Distance travelled since the start of the trip up to the end of this segment
+    @Column(name = "cumulative_distance_km", nullable = false)
+    private Double cumulativeDistanceKm;
+
+    @Column(name = "encoded_points", nullable = false)
+    private byte[] encodedPoints;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
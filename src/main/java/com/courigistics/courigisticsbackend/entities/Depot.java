@@ -1,13 +1,17 @@
 package com.courigistics.courigisticsbackend.entities;
 
+import com.courigistics.courigisticsbackend.config.CacheRegions;
 import com.courigistics.courigisticsbackend.entities.enums.DepotStatus;
 import com.courigistics.courigisticsbackend.entities.enums.DepotType;
+import com.courigistics.courigisticsbackend.events.CacheEvictionEntityListener;
 import com.courigistics.courigisticsbackend.utils.GeoUtils;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.locationtech.jts.geom.Point;
 
 import java.time.LocalDateTime;
@@ -20,10 +24,16 @@ import java.util.UUID;
  * - Determine coverage areas using radius-based queries
  * - Find nearest depots for delivery assignments
  * - Validate if addresses fall within depot service areas
+ *
+ * Read on most registrations and profile reads but rarely changed, so it lives in the second-level cache
  */
 @Entity
+@EntityListeners(CacheEvictionEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.DEPOT)
 @Table(name = "depot", indexes = {
         @Index(name = "idx_depot_code", columnList = "code"),
+        // Dispatch matches LOWER(city), served by idx_depot_city_lower (see CustomIndexInitializer)
         @Index(name = "idx_depot_city", columnList = "city"),
         @Index(name = "idx_depot_parent", columnList = "parent_depot_id")
 })
@@ -46,6 +56,10 @@ public class Depot {
     @Column(unique = true, nullable = false)
     private String code;
 
+    // Code as last read from or written to the database, so a rename can evict the id cached under the old code
+    @Transient
+    private String storedCode;
+
     @Enumerated(EnumType.STRING)
     private DepotType depotType = DepotType.STANDALONE;
 
@@ -100,6 +114,10 @@ public class Depot {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Part of the courier profile ETag
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     // Relationships
     @OneToMany(mappedBy = "depot")
     private List<Courier> couriers;
@@ -116,6 +134,7 @@ public class Depot {
             this.createdAt = LocalDateTime.now();
             populateLocationFromCoordinates();
         }
+        this.updatedAt = LocalDateTime.now();
     }
 
     /**
@@ -123,6 +142,7 @@ public class Depot {
      */
     @PreUpdate
     protected void onUpdate(){
+        this.updatedAt = LocalDateTime.now();
         populateLocationFromCoordinates();
     }
 
@@ -0,0 +1,28 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A running dispatch node; its heartbeat tells the others how many nodes share the city shards
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "dispatch_nodes")
+public class DispatchNode {
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+}
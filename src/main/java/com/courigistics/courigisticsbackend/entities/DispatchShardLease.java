@@ -0,0 +1,41 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ownership of one city's dispatch shard
+ *
+ * A node owns a shard while lease_expires_at is in the future and must keep renewing it. Every
+ * change of owner bumps the epoch, and dispatch writes only succeed while the writer's
+ * (owner, epoch) still matches this row. A node that lost its lease without noticing (GC pause,
+ * network partition) therefore cannot assign anything. Rows are managed with plain SQL by
+ * DispatchLeaseManager.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "dispatch_shard_leases")
+public class DispatchShardLease {
+    // Lower-cased city name
+    @Id
+    @Column(name = "shard_key", length = 100)
+    private String shardKey;
+
+    @Column(name = "owner_node_id", length = 100)
+    private String ownerNodeId;
+
+    @Column(name = "epoch", nullable = false)
+    private Long epoch;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
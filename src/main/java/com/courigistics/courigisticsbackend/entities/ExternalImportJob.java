@@ -0,0 +1,106 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import com.courigistics.courigisticsbackend.entities.enums.ImportFormat;
+import com.courigistics.courigisticsbackend.entities.enums.ImportJobStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Tracks a bulk import of external marketplace orders (Amazon, Jumia, ...)
+ *
+ * The uploaded file is staged in object storage, readable by every node, and processed in chunks. After every committed
+ * chunk the checkpoint is moved forward in the same transaction, so a crashed or
+ * failed job can be resumed from the last committed record instead of starting over.
+ */
+@Entity
+@Table(name = "external_import_jobs", indexes = {
+        @Index(name = "idx_import_job_account", columnList = "account_id"),
+        @Index(name = "idx_import_job_status", columnList = "status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExternalImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "format", nullable = false)
+    private ImportFormat format;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ImportJobStatus status;
+
+    /**
+     * ObjectStorage key of the staged upload, re-read when the job is resumed (on any node)
+     */
+    @Column(name = "staged_file_path", nullable = false, length = 512)
+    private String stagedFileKey;
+
+    /**
+     * Number of data records (header excluded) already committed
+     * Records before this position are skipped on resume
+     */
+    @Column(name = "checkpoint_record", nullable = false)
+    @Builder.Default
+    private long checkpointRecord = 0;
+
+    @Column(name = "imported_count", nullable = false)
+    @Builder.Default
+    private long importedCount = 0;
+
+    @Column(name = "rejected_count", nullable = false)
+    @Builder.Default
+    private long rejectedCount = 0;
+
+    /**
+     * Checkpoint when the latest run started, so throughput only counts that run's records
+     * Nullable so the column can be added to existing jobs; null means the run started at 0
+     */
+    @Column(name = "run_start_record")
+    private Long runStartRecord;
+
+    /**
+     * Refreshed by the node running the job; a RUNNING job whose heartbeat has gone stale
+     * was orphaned by a dead node and may be resumed elsewhere
+     */
+    @Column(name = "heartbeat_at")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "last_error", length = 1024)
+    private String lastError;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,36 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Exclusive run of a cluster-wide job (e.g. the package rollup rebuild)
+ *
+ * Every node schedules the same jobs; whoever claims the lease runs, the others skip. The holder
+ * renews it while working and clears it when done, and a holder that died lets it expire.
+ * Rows are managed with plain SQL by the jobs themselves.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "job_leases")
+public class JobLease {
+    @Id
+    @Column(name = "job_name", length = 100)
+    private String jobName;
+
+    // Random per run, so a run never mistakes another's lease for its own
+    @Column(name = "holder", length = 36)
+    private String holder;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
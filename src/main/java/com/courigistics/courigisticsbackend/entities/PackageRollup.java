@@ -0,0 +1,63 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import com.courigistics.courigisticsbackend.entities.enums.RollupGranularity;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Packages created in one hour or day, for one combination of the analytics dimensions
+ *
+ * Incremented as packages are created and rebuilt per day by the rollup job. Analytics read
+ * these rows (summed over the dimensions they don't group by) instead of the packages table.
+ * Dimension columns are never null, so increments can match a bucket with plain equality.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "package_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_package_rollup_bucket", columnNames = {
+                "granularity", "bucket_start", "package_category", "package_type", "is_fragile", "is_insured", "city"
+        })
+)
+public class PackageRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "granularity", nullable = false, length = 8)
+    @Enumerated(value = EnumType.STRING)
+    private RollupGranularity granularity;
+
+    // Start of the hour or day
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // PackageCategory name, or UNSPECIFIED
+    @Column(name = "package_category", nullable = false, length = 32)
+    private String packageCategory;
+
+    // PackageType name, or UNSPECIFIED
+    @Column(name = "package_type", nullable = false, length = 32)
+    private String packageType;
+
+    @Column(name = "is_fragile", nullable = false)
+    private boolean fragile;
+
+    @Column(name = "is_insured", nullable = false)
+    private boolean insured;
+
+    // City of the sender's default address, or UNKNOWN
+    @Column(name = "city", nullable = false)
+    private String city;
+
+    @Column(name = "package_count", nullable = false)
+    private long packageCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
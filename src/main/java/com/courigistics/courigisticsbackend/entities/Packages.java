@@ -2,6 +2,7 @@ package com.courigistics.courigisticsbackend.entities;
 
 import com.courigistics.courigisticsbackend.entities.enums.PackageCategory;
 import com.courigistics.courigisticsbackend.entities.enums.PackageType;
+import com.courigistics.courigisticsbackend.events.PackageRollupEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -18,7 +19,11 @@ import java.util.UUID;
  * PackageType tells us the nature of the item for handling and pricing.
  */
 @Entity
-@Table(name = "packages")
+@EntityListeners(PackageRollupEntityListener.class)
+// created_at is indexed for the per-day rollup rebuild
+@Table(name = "packages", indexes = {
+        @Index(name = "idx_package_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,50 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One month of a partitioned table, moved out of the database into an archive object
+ * Written before the partition is dropped, so history reads switch to the archive without a gap
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "partition_archives", indexes = {
+        @Index(name = "idx_partition_archive_period", columnList = "table_name, period_start", unique = true)
+})
+public class PartitionArchive {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "table_name", nullable = false, length = 64)
+    private String tableName;
+
+    // First day of the archived month
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    // Gzip-compressed JSON lines, one row per line, never rewritten (see PartitionArchiver for the layout)
+    @Column(name = "storage_key", nullable = false)
+    private String storageKey;
+
+    // JSON owner column → owner id → [offset, length] of that owner's rows in the archive; null for unindexed archives
+    @Column(name = "index_storage_key")
+    private String indexStorageKey;
+
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,74 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import com.courigistics.courigisticsbackend.entities.enums.PaymentCallbackOutcome;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentMethod;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One processed payment provider callback
+ * The unique constraint on (checkout_request_id, result_code) is the durable idempotency guard:
+ * a retried callback can never be applied twice, even across nodes or restarts, while a failure
+ * and a later success for the same checkout are both kept
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "payments",
+        uniqueConstraints = @UniqueConstraint(name = "uk_payment_checkout_result", columnNames = {"checkout_request_id", "result_code"}),
+        indexes = @Index(name = "idx_payment_delivery_id", columnList = "delivery_id")
+)
+public class Payment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "checkout_request_id", nullable = false, length = 64)
+    private String checkoutRequestId;
+
+    @Column(name = "merchant_request_id", length = 64)
+    private String merchantRequestId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "delivery_id")
+    private Delivery delivery;
+
+    @Column(name = "payment_method")
+    @Enumerated(value = EnumType.STRING)
+    private PaymentMethod paymentMethod;
+
+    @Column(name = "result_code", nullable = false)
+    private Integer resultCode;
+
+    @Column(name = "result_desc")
+    private String resultDesc;
+
+    @Column(name = "receipt_number", length = 32)
+    private String receiptNumber;
+
+    @Column(name = "amount")
+    private BigDecimal amount;
+
+    @Column(name = "phone_number", length = 20)
+    private String phoneNumber;
+
+    @Column(name = "transaction_date")
+    private LocalDateTime transactionDate;
+
+    @Column(name = "outcome")
+    @Enumerated(value = EnumType.STRING)
+    private PaymentCallbackOutcome outcome;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
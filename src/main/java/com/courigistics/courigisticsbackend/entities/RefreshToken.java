@@ -7,8 +7,19 @@ import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * A refresh token session
+ * Only the SHA-256 of the token is stored: lookups hit a fixed-size unique index and a
+ * database leak does not hand out usable tokens.
+ * Databases created before token_hash existed are migrated by db/refresh_token/token_hash.sql.
+ */
 @Entity
-@Table(name = "refresh_token")
+@Table(name = "refresh_token", indexes = {
+        @Index(name = "idx_refresh_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_refresh_token_account_active", columnList = "account_id, invalidated, expiry_date"),
+        @Index(name = "idx_refresh_token_expiry_date", columnList = "expiry_date"),
+        @Index(name = "idx_refresh_token_invalidated_at", columnList = "invalidated_at")
+})
 @Getter
 @Setter
 @AllArgsConstructor
@@ -21,11 +32,12 @@ public class RefreshToken {
     private UUID id;
 
     @JoinColumn(name = "account_id", nullable = false, referencedColumnName = "id")
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private Account account;
 
-    @Column(name = "token", nullable = false, length = 1024)
-    private String token;
+    // Hex SHA-256 of the refresh token JWT
+    @Column(name = "token_hash", nullable = false, unique = true, length = 64)
+    private String tokenHash;
 
     @Column(name = "expiry_date")
     private Instant expiryDate;
@@ -33,6 +45,10 @@ public class RefreshToken {
     @Column(name = "invalidated")
     private boolean invalidated;
 
+    // When the token was rotated or revoked; invalidated rows are kept for a while to detect reuse
+    @Column(name = "invalidated_at")
+    private LocalDateTime invalidatedAt;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
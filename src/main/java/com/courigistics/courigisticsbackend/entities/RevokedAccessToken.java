@@ -0,0 +1,37 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * A revoked access token
+ * The increasing id doubles as the cursor of the change feed every node polls to
+ * keep its in-memory deny list in sync
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "revoked_access_tokens", indexes = {
+        @Index(name = "idx_revoked_access_token_jti", columnList = "jti", unique = true),
+        @Index(name = "idx_revoked_access_token_expires_at", columnList = "expires_at")
+})
+public class RevokedAccessToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "jti", nullable = false, unique = true, length = 64)
+    private String jti;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
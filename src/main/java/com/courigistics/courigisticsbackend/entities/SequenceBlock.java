@@ -0,0 +1,31 @@
+package com.courigistics.courigisticsbackend.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Named counter used to hand out blocks of sequence values
+ *
+ * Instead of counting rows or hitting the database once per generated identifier,
+ * callers reserve a whole block (e.g. 500 values) in one short locked update and
+ * then hand numbers out from memory.
+ *
+ * Example: name = "package-tracking", nextValue = 12001
+ * - Import reserves 500 → gets 12001..12500, row now holds 12501
+ */
+@Entity
+@Table(name = "sequence_blocks")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SequenceBlock {
+
+    @Id
+    @Column(name = "name", nullable = false, length = 64)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+}
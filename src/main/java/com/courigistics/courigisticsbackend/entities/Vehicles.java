@@ -1,10 +1,14 @@
 package com.courigistics.courigisticsbackend.entities;
 
+import com.courigistics.courigisticsbackend.config.CacheRegions;
 import com.courigistics.courigisticsbackend.entities.enums.PackageCategory;
 import com.courigistics.courigisticsbackend.entities.enums.VehicleStatus;
 import com.courigistics.courigisticsbackend.entities.enums.VehicleType;
+import com.courigistics.courigisticsbackend.events.CacheEvictionEntityListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -15,10 +19,15 @@ import java.util.UUID;
  * Uses PackageCategory to define what size packages this vehicle can carry.
  * This enables intelligent courier assignment - bikes can't carry furniture,
  * but can efficiently deliver documents and small parcels.
+ *
+ * Second-level cached: read on every courier profile view, changed rarely
  */
 
 @Builder
 @Entity
+@EntityListeners(CacheEvictionEntityListener.class)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheRegions.VEHICLES)
 @Table(name = "vehicles", indexes = {
         @Index(name = "idx_vehicle_courier", columnList = "courier_id"),
         @Index(name = "idx_depot_id", columnList = "depot_id"),
@@ -136,6 +145,10 @@ public class Vehicles {
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
 
+    // Part of the courier profile ETag
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
     /**
      * Lifecycle hook: auto-set maxPackageCategory from vehicleType if not already set
      *
@@ -145,6 +158,7 @@ public class Vehicles {
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
 
         // Auto-assign maxPackageCategory based on vehicleType if not set
         if (this.maxPackageCategory == null && this.vehicleType != null) {
@@ -152,6 +166,11 @@ public class Vehicles {
         }
     }
 
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
     /**
      * Maps vehicle types to default package categories
      *
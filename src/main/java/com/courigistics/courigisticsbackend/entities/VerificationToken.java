@@ -8,7 +8,12 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "verification_tokens")
+@Table(name = "verification_tokens", indexes = {
+        @Index(name = "idx_verification_token_token", columnList = "token", unique = true),
+        // One live token per account and type; creation reissues the existing row instead of inserting
+        @Index(name = "idx_verification_token_account_type", columnList = "account_id, token_type", unique = true),
+        @Index(name = "idx_verification_token_expiry_date", columnList = "expiry_date")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,7 +28,7 @@ public class VerificationToken {
     @JoinColumn(name = "account_id", nullable = false)
     private Account account;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String token;
 
     @Enumerated(value = EnumType.STRING)
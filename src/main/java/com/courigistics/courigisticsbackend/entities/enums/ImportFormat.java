@@ -0,0 +1,9 @@
+package com.courigistics.courigisticsbackend.entities.enums;
+
+/**
+ * File formats accepted by the external order import
+ * CSV expects a header row, NDJSON expects one JSON object per line
+ */
+public enum ImportFormat {
+    CSV, NDJSON
+}
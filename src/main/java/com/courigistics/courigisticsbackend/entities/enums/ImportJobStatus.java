@@ -0,0 +1,8 @@
+package com.courigistics.courigisticsbackend.entities.enums;
+
+/**
+ * Lifecycle of a bulk import job
+ */
+public enum ImportJobStatus {
+    QUEUED, RUNNING, COMPLETED, FAILED
+}
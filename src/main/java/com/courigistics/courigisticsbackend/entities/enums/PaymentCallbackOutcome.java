@@ -0,0 +1,13 @@
+package com.courigistics.courigisticsbackend.entities.enums;
+
+/**
+ * What a provider callback did to its delivery
+ * APPLIED   - payment status transitioned
+ * IGNORED   - delivery already in a state the callback may not override (e.g. late failure after PAID)
+ * UNMATCHED - no delivery carries this checkout request ID (yet); re-evaluated when a retry arrives
+ *             or when the checkout is linked to its delivery
+ * AMOUNT_MISMATCH - success callback whose Amount differs from the delivery's amount due; not applied
+ */
+public enum PaymentCallbackOutcome {
+    APPLIED, IGNORED, UNMATCHED, AMOUNT_MISMATCH
+}
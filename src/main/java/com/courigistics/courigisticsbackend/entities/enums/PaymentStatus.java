@@ -1,5 +1,5 @@
 package com.courigistics.courigisticsbackend.entities.enums;
 
 public enum PaymentStatus {
-    PENDING, PAID, REFLECTED,
+    PENDING, PAID, REFLECTED, FAILED
 }
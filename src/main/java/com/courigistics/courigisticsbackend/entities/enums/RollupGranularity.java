@@ -0,0 +1,8 @@
+package com.courigistics.courigisticsbackend.entities.enums;
+
+/**
+ * Bucket width of an analytics rollup row
+ */
+public enum RollupGranularity {
+    HOUR, DAY
+}
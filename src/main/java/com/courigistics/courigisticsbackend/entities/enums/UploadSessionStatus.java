@@ -0,0 +1,5 @@
+package com.courigistics.courigisticsbackend.entities.enums;
+
+public enum UploadSessionStatus {
+    OPEN, COMPLETED, ABORTED
+}
@@ -1,4 +1,95 @@
 package com.courigistics.courigisticsbackend.events;
 
+import com.courigistics.courigisticsbackend.config.security.LoginAttemptTracker;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.repositories.AccountRepository;
+import com.courigistics.courigisticsbackend.services.user.AccountDetailsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.event.AuthenticationFailureBadCredentialsEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Counts bad-credential logins and locks the account once its failures cross the threshold
+ * Only the crossing is written to the database; every other failure stays in memory.
+ * Such locks lift by themselves after lock-duration-minutes (a password reset lifts them sooner).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
 public class AuthenticationFailureListener {
+
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final AccountDetailsService accountDetailsService;
+
+    @Value("${app.security.login-attempts.lock-duration-minutes}")
+    private long lockDurationMinutes;
+
+    @EventListener
+    public void onBadCredentials(AuthenticationFailureBadCredentialsEvent event) {
+        String usernameOrEmail = event.getAuthentication().getName();
+        String clientIp = event.getAuthentication().getDetails() instanceof WebAuthenticationDetails details
+                ? details.getRemoteAddress()
+                : null;
+
+        if (!loginAttemptTracker.recordFailure(usernameOrEmail, clientIp)) {
+            return;
+        }
+
+        // Own transaction: the login transaction that triggered this is about to roll back
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        Integer locked = requiresNew.execute(status -> {
+            int updated = accountRepository.lockByUsernameOrEmail(usernameOrEmail, LocalDateTime.now());
+            if (updated > 0) {
+                // Bulk UPDATE, so the cached principal is evicted here rather than by the entity listener
+                // (inside this transaction, so the other nodes are told once the lock has committed)
+                accountRepository.findByUsername(usernameOrEmail)
+                        .or(() -> accountRepository.findByEmail(usernameOrEmail))
+                        .ifPresent(account -> accountDetailsService.evict(account.getUsername(), account.getEmail()));
+            }
+            return updated;
+        });
+        if (locked != null && locked > 0) {
+            log.warn("Account {} locked after repeated failed logins (last from {})", usernameOrEmail, clientIp);
+        }
+    }
+
+    /**
+     * Lifts failed-login locks older than the lock duration
+     * Idempotent, so every node may run it; the conditional UPDATE unlocks each account once
+     */
+    @Scheduled(fixedDelayString = "${app.security.login-attempts.unlock-interval-ms}")
+    public void unlockExpiredLocks() {
+        LocalDateTime lockedBefore = LocalDateTime.now().minusMinutes(lockDurationMinutes);
+        Integer unlocked = new TransactionTemplate(transactionManager).execute(status -> {
+            List<Account> expired = accountRepository.findExpiredLoginLocks(lockedBefore);
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            int updated = accountRepository.unlockExpiredLoginLocks(
+                    expired.stream().map(Account::getId).toList(), lockedBefore);
+            // Bulk UPDATE again: evict the cached principals so the unlock is seen on the next request
+            expired.forEach(account -> {
+                accountDetailsService.evict(account.getUsername(), account.getEmail());
+                loginAttemptTracker.clearAccount(account.getUsername(), account.getEmail());
+            });
+            return updated;
+        });
+        if (unlocked != null && unlocked > 0) {
+            log.info("Unlocked {} accounts whose failed-login lock expired", unlocked);
+        }
+    }
 }
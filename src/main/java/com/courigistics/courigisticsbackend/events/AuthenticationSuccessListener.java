@@ -1,4 +1,30 @@
 package com.courigistics.courigisticsbackend.events;
 
+import com.courigistics.courigisticsbackend.config.security.LoginAttemptTracker;
+import com.courigistics.courigisticsbackend.entities.Account;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Clears an account's failed-login counters after it authenticates successfully
+ */
+@Component
+@RequiredArgsConstructor
 public class AuthenticationSuccessListener {
+
+    private final LoginAttemptTracker loginAttemptTracker;
+
+    @EventListener
+    public void onSuccess(AuthenticationSuccessEvent event) {
+        if (!(event.getAuthentication().getPrincipal() instanceof Account account)) {
+            return;
+        }
+        String clientIp = event.getAuthentication().getDetails() instanceof WebAuthenticationDetails details
+                ? details.getRemoteAddress()
+                : null;
+        loginAttemptTracker.recordSuccess(account.getUsername(), account.getEmail(), clientIp);
+    }
 }
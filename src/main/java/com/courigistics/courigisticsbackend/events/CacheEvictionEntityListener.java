@@ -0,0 +1,110 @@
+package com.courigistics.courigisticsbackend.events;
+
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.Address;
+import com.courigistics.courigisticsbackend.entities.Courier;
+import com.courigistics.courigisticsbackend.entities.Depot;
+import com.courigistics.courigisticsbackend.entities.Vehicles;
+import com.courigistics.courigisticsbackend.services.address.AddressLookupService;
+import com.courigistics.courigisticsbackend.services.cache.CacheNames;
+import com.courigistics.courigisticsbackend.services.cache.TwoTierCacheManager;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Objects;
+
+/**
+ * Evicts the two-tier cache entries derived from an entity when it is updated or deleted
+ *
+ * Instantiated by Hibernate through Spring's bean container. The cache manager is looked up
+ * lazily: the listener is created while the EntityManagerFactory is still being built.
+ * Bulk JPQL updates bypass this, so their callers evict themselves.
+ * Principals are cached under the username or email they were looked up with, so an account edit
+ * evicts the stored values as well as the new ones; depot ids are cached by code, so the same goes for a depot rename.
+ * Address writes drop the account from this node's nearest-address cache (see AddressLookupServiceImpl).
+ */
+@RequiredArgsConstructor
+public class CacheEvictionEntityListener {
+
+    private final ObjectProvider<TwoTierCacheManager> cacheManager;
+    private final ObjectProvider<AddressLookupService> addressLookupService;
+
+    @PostLoad
+    public void onLoad(Object entity) {
+        switch (entity) {
+            case Account account -> rememberStoredIdentifiers(account);
+            case Depot depot -> depot.setStoredCode(depot.getCode());
+            default -> {
+            }
+        }
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        switch (entity) {
+            case Account account -> rememberStoredIdentifiers(account);
+            case Depot depot -> depot.setStoredCode(depot.getCode());
+            case Address address -> evictAddresses(address);
+            default -> {
+            }
+        }
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Address address) {
+            evictAddresses(address);
+            return;
+        }
+        TwoTierCacheManager caches = cacheManager.getObject();
+        switch (entity) {
+            case Account account -> {
+                if (account.getUsername() != null) {
+                    caches.invalidate(CacheNames.PRINCIPALS, account.getUsername());
+                }
+                caches.invalidate(CacheNames.PRINCIPALS, account.getEmail());
+                // A rename leaves the principal cached under the old values too
+                if (account.getStoredUsername() != null && !Objects.equals(account.getStoredUsername(), account.getUsername())) {
+                    caches.invalidate(CacheNames.PRINCIPALS, account.getStoredUsername());
+                }
+                if (account.getStoredEmail() != null && !Objects.equals(account.getStoredEmail(), account.getEmail())) {
+                    caches.invalidate(CacheNames.PRINCIPALS, account.getStoredEmail());
+                }
+                rememberStoredIdentifiers(account);
+                caches.invalidate(CacheNames.COURIER_PROFILES, account.getId().toString());
+            }
+            case Courier courier ->
+                    caches.invalidate(CacheNames.COURIER_PROFILES, courier.getAccount().getId().toString());
+            // Reaching the account from here would load two lazy associations mid-flush; vehicle edits are rare
+            case Vehicles vehicle -> caches.invalidateAll(CacheNames.COURIER_PROFILES);
+            case Depot depot -> {
+                caches.invalidate(CacheNames.DEPOT_IDS, depot.getCode());
+                // A renamed code must stop resolving to this depot
+                if (depot.getStoredCode() != null && !Objects.equals(depot.getStoredCode(), depot.getCode())) {
+                    caches.invalidate(CacheNames.DEPOT_IDS, depot.getStoredCode());
+                }
+                depot.setStoredCode(depot.getCode());
+                caches.invalidateAll(CacheNames.COURIER_PROFILES);
+            }
+            default -> {
+            }
+        }
+    }
+
+    // The account is lazy; its id comes from the proxy without loading it
+    private void evictAddresses(Address address) {
+        if (address.getAccount() != null) {
+            addressLookupService.getObject().evictAccount(address.getAccount().getId());
+        }
+    }
+
+    private static void rememberStoredIdentifiers(Account account) {
+        account.setStoredUsername(account.getUsername());
+        account.setStoredEmail(account.getEmail());
+    }
+}
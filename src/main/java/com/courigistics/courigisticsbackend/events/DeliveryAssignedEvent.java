@@ -1,4 +1,24 @@
 package com.courigistics.courigisticsbackend.events;
 
-public class DeliveryAssignedEvent {
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Published after a delivery's assignment to a courier is committed
+ */
+@Getter
+public class DeliveryAssignedEvent extends ApplicationEvent {
+
+    private final UUID deliveryId;
+    private final UUID courierId;
+    private final UUID courierAccountId;
+
+    public DeliveryAssignedEvent(UUID deliveryId, UUID courierId, UUID courierAccountId) {
+        super(deliveryId);
+        this.deliveryId = deliveryId;
+        this.courierId = courierId;
+        this.courierAccountId = courierAccountId;
+    }
 }
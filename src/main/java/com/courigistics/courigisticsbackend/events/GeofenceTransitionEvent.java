@@ -0,0 +1,34 @@
+package com.courigistics.courigisticsbackend.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Published when a courier's location ping enters or leaves a delivery's pickup or dropoff fence
+ */
+@Getter
+public class GeofenceTransitionEvent extends ApplicationEvent {
+
+    public enum FenceType { PICKUP, DROPOFF }
+
+    public enum Transition { ARRIVED, DEPARTED }
+
+    private final UUID deliveryId;
+    private final UUID courierAccountId;
+    private final FenceType fenceType;
+    private final Transition transition;
+    private final LocalDateTime occurredAt;
+
+    public GeofenceTransitionEvent(UUID deliveryId, UUID courierAccountId, FenceType fenceType,
+                                   Transition transition, LocalDateTime occurredAt) {
+        super(deliveryId);
+        this.deliveryId = deliveryId;
+        this.courierAccountId = courierAccountId;
+        this.fenceType = fenceType;
+        this.transition = transition;
+        this.occurredAt = occurredAt;
+    }
+}
@@ -0,0 +1,74 @@
+package com.courigistics.courigisticsbackend.events;
+
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.events.GeofenceTransitionEvent.FenceType;
+import com.courigistics.courigisticsbackend.events.GeofenceTransitionEvent.Transition;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.courigistics.courigisticsbackend.services.geofence.GeofenceEngine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Turns geofence crossings into delivery status transitions
+ *
+ * Only transitions that need no human confirmation are automated:
+ * - leaving the pickup point after PICKED_UP puts the delivery IN_TRANSIT
+ * - reaching the dropoff point while in transit puts it OUT_FOR_DELIVERY
+ * Picking up and delivering still require the courier (and OTP / proof of delivery).
+ * Runs off the ping thread; each transition is a conditional UPDATE, so a manual change made
+ * in the meantime always wins.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeofenceTransitionListener {
+
+    private static final Set<DeliveryStatus> DEPARTED_PICKUP_FROM = EnumSet.of(DeliveryStatus.PICKED_UP);
+    private static final Set<DeliveryStatus> ARRIVED_DROPOFF_FROM = EnumSet.of(
+            DeliveryStatus.PICKED_UP, DeliveryStatus.IN_TRANSIT);
+
+    private final DeliveryRepository deliveryRepository;
+    private final GeofenceEngine geofenceEngine;
+    private final PlatformTransactionManager transactionManager;
+
+    @Async("geofenceEventExecutor")
+    @EventListener
+    public void onGeofenceTransition(GeofenceTransitionEvent event) {
+        DeliveryStatus target;
+        Set<DeliveryStatus> allowedFrom;
+        LocalDateTime pickupTime = null;
+
+        if (event.getFenceType() == FenceType.PICKUP && event.getTransition() == Transition.DEPARTED) {
+            target = DeliveryStatus.IN_TRANSIT;
+            allowedFrom = DEPARTED_PICKUP_FROM;
+            pickupTime = event.getOccurredAt();
+        } else if (event.getFenceType() == FenceType.DROPOFF && event.getTransition() == Transition.ARRIVED) {
+            target = DeliveryStatus.OUT_FOR_DELIVERY;
+            allowedFrom = ARRIVED_DROPOFF_FROM;
+        } else {
+            return;
+        }
+
+        LocalDateTime effectivePickupTime = pickupTime;
+        Integer updated = new TransactionTemplate(transactionManager).execute(status ->
+                deliveryRepository.transitionDeliveryStatus(
+                        event.getDeliveryId(), target, allowedFrom, effectivePickupTime, LocalDateTime.now()));
+
+        if (updated != null && updated > 0) {
+            log.info("Delivery {} moved to {} after courier {} {} the {} point",
+                    event.getDeliveryId(), target, event.getCourierAccountId(),
+                    event.getTransition().name().toLowerCase(), event.getFenceType().name().toLowerCase());
+            // The delivery's fences depend on its status, e.g. the pickup fence is gone once IN_TRANSIT
+            geofenceEngine.refreshCourier(event.getCourierAccountId());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.courigistics.courigisticsbackend.events;
+
+import com.courigistics.courigisticsbackend.entities.Packages;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupKey;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupService;
+import jakarta.persistence.PostPersist;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.Map;
+
+/**
+ * Counts packages saved through JPA into the analytics rollups
+ *
+ * Runs after the insert, inside its transaction. The rollup service is looked up lazily:
+ * the listener is created while the EntityManagerFactory is still being built.
+ * JDBC batch inserts (the external order import) bypass this and record their own counts.
+ */
+@RequiredArgsConstructor
+public class PackageRollupEntityListener {
+
+    private final ObjectProvider<PackageRollupService> packageRollupService;
+
+    @PostPersist
+    public void onCreate(Packages packages) {
+        PackageRollupService rollups = packageRollupService.getObject();
+        // getId() on the lazy sender reference does not load the account
+        String city = rollups.resolveCity(packages.getSenderAccount().getId());
+        PackageRollupKey key = PackageRollupKey.of(packages.getPackageCategory(), packages.getPackageType(),
+                packages.getIsFragile(), packages.getIsInsured(), city);
+        rollups.recordCreated(packages.getCreatedAt(), Map.of(key, 1L));
+    }
+}
@@ -0,0 +1,24 @@
+package com.courigistics.courigisticsbackend.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.UUID;
+
+/**
+ * Published once a proof-of-delivery image is committed to storage and recorded on the delivery
+ */
+@Getter
+public class ProofOfDeliveryUploadedEvent extends ApplicationEvent {
+
+    private final UUID deliveryId;
+    private final String storageKey;
+    private final String contentType;
+
+    public ProofOfDeliveryUploadedEvent(UUID deliveryId, String storageKey, String contentType) {
+        super(storageKey);
+        this.deliveryId = deliveryId;
+        this.storageKey = storageKey;
+        this.contentType = contentType;
+    }
+}
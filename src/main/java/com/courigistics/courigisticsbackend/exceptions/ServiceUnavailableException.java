@@ -0,0 +1,17 @@
+package com.courigistics.courigisticsbackend.exceptions;
+
+/**
+ * Thrown when a bounded resource is saturated and the request should be retried later (HTTP 503)
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
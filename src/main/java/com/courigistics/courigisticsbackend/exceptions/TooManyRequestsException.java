@@ -0,0 +1,17 @@
+package com.courigistics.courigisticsbackend.exceptions;
+
+/**
+ * Thrown when a caller is being rate limited (HTTP 429)
+ */
+public class TooManyRequestsException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
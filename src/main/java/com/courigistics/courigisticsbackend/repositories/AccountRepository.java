@@ -2,9 +2,17 @@ package com.courigistics.courigisticsbackend.repositories;
 
 import com.courigistics.courigisticsbackend.entities.Account;
 import com.courigistics.courigisticsbackend.entities.Customer;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -15,9 +23,42 @@ public interface AccountRepository extends JpaRepository<Account, UUID> {
 
     Optional<Account> findByEmail(String email);
 
+    /**
+     * Loads an account with a row-level write lock, serialising per-account writes such as token creation
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") UUID id);
+
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
 
     boolean existsByPhone(String phone);
+
+    // Set-based uniqueness checks for bulk onboarding: one query per batch of candidates
+    @Query("SELECT a.email FROM Account a WHERE a.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT a.phone FROM Account a WHERE a.phone IN :phones")
+    List<String> findExistingPhones(@Param("phones") Collection<String> phones);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.password = :password WHERE a.id = :id")
+    int updatePassword(@Param("id") UUID id, @Param("password") String password);
+
+    // Conditional so concurrent lockouts of the same account write once
+    @Modifying
+    @Query("UPDATE Account a SET a.accountNonLocked = false, a.lockedAt = :now " +
+            "WHERE (a.username = :usernameOrEmail OR a.email = :usernameOrEmail) AND a.accountNonLocked = true")
+    int lockByUsernameOrEmail(@Param("usernameOrEmail") String usernameOrEmail, @Param("now") LocalDateTime now);
+
+    // Only locks placed by the failed-login tracker carry lockedAt; other locks are left alone
+    @Query("SELECT a FROM Account a WHERE a.accountNonLocked = false AND a.lockedAt < :lockedBefore")
+    List<Account> findExpiredLoginLocks(@Param("lockedBefore") LocalDateTime lockedBefore);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.accountNonLocked = true, a.lockedAt = null " +
+            "WHERE a.id IN :ids AND a.accountNonLocked = false AND a.lockedAt < :lockedBefore")
+    int unlockExpiredLoginLocks(@Param("ids") Collection<UUID> ids, @Param("lockedBefore") LocalDateTime lockedBefore);
 }
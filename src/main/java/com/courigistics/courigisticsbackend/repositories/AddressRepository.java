@@ -0,0 +1,52 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.Address;
+import com.courigistics.courigisticsbackend.services.address.AddressLocation;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface AddressRepository extends JpaRepository<Address, UUID> {
+
+    /**
+     * Loads the coordinates of an account's saved addresses for the in-memory lookup index
+     * Addresses without coordinates cannot be matched to a pin and are left out
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.services.address.AddressLocation(
+            a.id, a.label, a.addressLine1, a.city, a.latitude, a.longitude, a.isDefault)
+        FROM Address a
+        WHERE a.account.id = :accountId
+          AND a.latitude IS NOT NULL AND a.longitude IS NOT NULL
+        """)
+    List<AddressLocation> findLocationsByAccountId(@Param("accountId") UUID accountId, Pageable pageable);
+
+    /**
+     * Finds an account's saved addresses closest to a point
+     *
+     * The <-> operator is the PostGIS kNN distance; ordering by it with a LIMIT lets the
+     * idx_address_location GiST index return rows nearest-first instead of sorting the whole set.
+     *
+     * @param limit number of addresses to return
+     * @return addresses nearest first
+     */
+    @Query(value = """
+        SELECT a.* FROM addresses a
+        WHERE a.account_id = :accountId
+          AND a.location IS NOT NULL
+        ORDER BY a.location <-> ST_MakePoint(:longitude, :latitude)::geography
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Address> findNearestByAccountId(
+            @Param("accountId") UUID accountId,
+            @Param("latitude") double latitude,
+            @Param("longitude") double longitude,
+            @Param("limit") int limit
+    );
+}
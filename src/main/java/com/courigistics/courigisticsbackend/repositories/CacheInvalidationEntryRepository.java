@@ -0,0 +1,28 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.CacheInvalidationEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CacheInvalidationEntryRepository extends JpaRepository<CacheInvalidationEntry, Long> {
+
+    /**
+     * Change feed: invalidations after the last one this node has seen
+     */
+    List<CacheInvalidationEntry> findTop1000ByIdGreaterThanOrderByIdAsc(Long lastSeenId);
+
+    // Feed start for a fresh node: its caches are empty, so older invalidations do not matter
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM CacheInvalidationEntry c WHERE c.createdAt < :settledBefore")
+    long findLatestSettledId(@Param("settledBefore") LocalDateTime settledBefore);
+
+    @Modifying
+    @Query("DELETE FROM CacheInvalidationEntry c WHERE c.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,43 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.CodReconciliation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface CodReconciliationRepository extends JpaRepository<CodReconciliation, UUID> {
+
+    List<CodReconciliation> findByBusinessDateAndMismatchTrue(LocalDate businessDate);
+
+    List<CodReconciliation> findByBusinessDateAndOperationalCity(LocalDate businessDate, String operationalCity);
+
+    /**
+     * Clears a city's summaries for a date so a re-run replaces them instead of duplicating
+     */
+    @Modifying
+    @Query("""
+        DELETE FROM CodReconciliation r
+        WHERE r.businessDate = :date
+          AND r.operationalCity = :city
+        """)
+    int deleteByBusinessDateAndOperationalCity(@Param("date") LocalDate date, @Param("city") String city);
+
+    /**
+     * Clears the given couriers' summaries for a date, whatever city they were filed under
+     * The unique key is (courier, date), so a courier who changed city must be cleared by courier
+     */
+    @Modifying
+    @Query("""
+        DELETE FROM CodReconciliation r
+        WHERE r.businessDate = :date
+          AND r.courier.id IN :courierIds
+        """)
+    int deleteByBusinessDateAndCourierIds(@Param("date") LocalDate date, @Param("courierIds") List<UUID> courierIds);
+}
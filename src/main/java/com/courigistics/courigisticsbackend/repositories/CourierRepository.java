@@ -1,12 +1,19 @@
 package com.courigistics.courigisticsbackend.repositories;
 
+import com.courigistics.courigisticsbackend.dto.responses.courier.PendingCourierResponse;
 import com.courigistics.courigisticsbackend.entities.Courier;
 import com.courigistics.courigisticsbackend.entities.enums.CourierStatus;
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.services.courier.CourierProfileRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -127,14 +134,176 @@ public interface CourierRepository extends JpaRepository<Courier, UUID> {
      * Used during courier onboarding validation
      */
     boolean existsByNationalId(String nationalId);
+
+    // Set-based uniqueness checks for bulk onboarding
+    @Query("SELECT c.nationalId FROM Courier c WHERE c.nationalId IN :nationalIds")
+    List<String> findExistingNationalIds(@Param("nationalIds") Collection<String> nationalIds);
+
+    @Query("SELECT c.driversLicenseNumber FROM Courier c WHERE c.driversLicenseNumber IN :licenseNumbers")
+    List<String> findExistingDriversLicenseNumbers(@Param("licenseNumbers") Collection<String> licenseNumbers);
     List<Courier> findByPendingApprovalTrue();
+
+    /**
+     * Pending-approval queue, keyset paginated on (createdAt, id)
+     * - Served by idx_courier_pending_queue; cost does not grow with the page number
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.courier.PendingCourierResponse(
+            c.id, c.firstName, c.lastName, a.email, a.phone, c.employmentType, a.emailVerified, c.createdAt)
+        FROM Courier c JOIN c.account a
+        WHERE c.pendingApproval = true
+        ORDER BY c.createdAt ASC, c.id ASC
+        """)
+    List<PendingCourierResponse> findPendingApprovalQueue(Pageable pageable);
+
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.courier.PendingCourierResponse(
+            c.id, c.firstName, c.lastName, a.email, a.phone, c.employmentType, a.emailVerified, c.createdAt)
+        FROM Courier c JOIN c.account a
+        WHERE c.pendingApproval = true
+          AND (c.createdAt > :afterCreatedAt OR (c.createdAt = :afterCreatedAt AND c.id > :afterId))
+        ORDER BY c.createdAt ASC, c.id ASC
+        """)
+    List<PendingCourierResponse> findPendingApprovalQueueAfter(
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") UUID afterId,
+            Pageable pageable
+    );
+
+    /**
+     * Everything the courier profile screen shows, in one query
+     * - The vehicle is only joined for freelancers, as the profile only shows theirs
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.services.courier.CourierProfileRow(
+            c.firstName, c.lastName, a.email, a.phone, c.nationalId, c.employmentType, c.employeeId, c.status,
+            d.name, d.code,
+            v.id, v.vehicleType, v.make, v.model, v.licencePlate, v.vehicleColor,
+            v.vehicleCapacityKg, v.vehicleCapacityM3, v.status,
+            a.updatedAt, c.updatedAt, d.updatedAt, v.updatedAt)
+        FROM Courier c
+        JOIN c.account a
+        LEFT JOIN c.depot d
+        LEFT JOIN Vehicles v ON v.courier = c
+            AND c.employmentType = com.courigistics.courigisticsbackend.entities.enums.EmploymentType.FREELANCER
+        WHERE a.id = :accountId
+        """)
+    Optional<CourierProfileRow> findProfileByAccountId(@Param("accountId") UUID accountId);
+
+    // Bulk approval loads every courier and its account in one query
+    @Query("SELECT c FROM Courier c JOIN FETCH c.account WHERE c.id IN :ids")
+    List<Courier> findAllWithAccountByIdIn(@Param("ids") Collection<UUID> ids);
     /**
      * Finds all couriers by status
      * Used for admin management and reporting
      */
     List<Courier> findByStatus(CourierStatus status);
 
-    @Query("SELECT COUNT(c) FROM Courier c WHERE YEAR(c.createdAt) = :year")
-    long countByCreatedAtYear(@Param("year") int year);
+    /**
+     * Highest employee ID with the given prefix (e.g. "COU-2025-"); IDs are zero-padded so string order is numeric order
+     */
+    @Query("SELECT MAX(c.employeeId) FROM Courier c WHERE c.employeeId LIKE CONCAT(:prefix, '%')")
+    Optional<String> findMaxEmployeeIdStartingWith(@Param("prefix") String prefix);
 
+    /**
+     * Claims a free courier for a delivery in one conditional UPDATE
+     * - Of any number of concurrent callers exactly one gets 1 back; the rest see 0
+     *
+     * @param expiresAt when the offer lapses if not accepted; null reserves outright
+     */
+    @Modifying
+    @Query("""
+        UPDATE Courier c
+        SET c.availableForAssignment = false,
+            c.reservedDeliveryId = :deliveryId,
+            c.reservationExpiresAt = :expiresAt
+        WHERE c.id = :courierId
+          AND c.availableForAssignment = true
+          AND c.status = 'ACTIVE'
+        """)
+    int reserve(
+            @Param("courierId") UUID courierId,
+            @Param("deliveryId") UUID deliveryId,
+            @Param("expiresAt") LocalDateTime expiresAt
+    );
+
+    /**
+     * Accepts an offer that has not lapsed yet
+     */
+    @Modifying
+    @Query("""
+        UPDATE Courier c
+        SET c.reservationExpiresAt = null
+        WHERE c.id = :courierId
+          AND c.reservedDeliveryId = :deliveryId
+          AND c.reservationExpiresAt > :now
+        """)
+    int confirmReservation(
+            @Param("courierId") UUID courierId,
+            @Param("deliveryId") UUID deliveryId,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Frees one courier, provided it is still reserved for the given delivery
+     */
+    @Modifying
+    @Query("""
+        UPDATE Courier c
+        SET c.availableForAssignment = true,
+            c.reservedDeliveryId = null,
+            c.reservationExpiresAt = null
+        WHERE c.id = :courierId
+          AND c.reservedDeliveryId = :deliveryId
+        """)
+    int releaseReservation(@Param("courierId") UUID courierId, @Param("deliveryId") UUID deliveryId);
+
+    /**
+     * Frees couriers reserved for any of the given deliveries
+     * - Keyed on the delivery, so a late release cannot free a courier already reserved for something else
+     */
+    @Modifying
+    @Query("""
+        UPDATE Courier c
+        SET c.availableForAssignment = true,
+            c.reservedDeliveryId = null,
+            c.reservationExpiresAt = null
+        WHERE c.reservedDeliveryId IN :deliveryIds
+        """)
+    int releaseReservations(@Param("deliveryIds") Collection<UUID> deliveryIds);
+
+    /**
+     * Frees couriers whose offers lapsed without being accepted; served by idx_courier_reservation_expiry
+     */
+    @Modifying
+    @Query("""
+        UPDATE Courier c
+        SET c.availableForAssignment = true,
+            c.reservedDeliveryId = null,
+            c.reservationExpiresAt = null
+        WHERE c.reservationExpiresAt <= :now
+        """)
+    int releaseExpiredReservations(@Param("now") LocalDateTime now);
+
+    /**
+     * Frees couriers holding an accepted or outright reservation for a delivery that ended, or that no
+     * longer exists (archived or deleted)
+     * - Catches every way a delivery can end, including writes that bypass the application
+     * - Pending offers are left to lapse on their own (releaseExpiredReservations)
+     */
+    @Modifying
+    @Query("""
+        UPDATE Courier c
+        SET c.availableForAssignment = true,
+            c.reservedDeliveryId = null,
+            c.reservationExpiresAt = null
+        WHERE c.reservedDeliveryId IS NOT NULL
+          AND c.reservationExpiresAt IS NULL
+          AND NOT EXISTS (
+              SELECT 1 FROM Delivery d
+              WHERE d.id = c.reservedDeliveryId
+                AND d.deliveryStatus NOT IN :endedStatuses
+          )
+        """)
+    int releaseReservationsOfEndedDeliveries(@Param("endedStatuses") Collection<DeliveryStatus> endedStatuses);
 }
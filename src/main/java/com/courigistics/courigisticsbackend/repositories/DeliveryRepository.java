@@ -1,15 +1,23 @@
 package com.courigistics.courigisticsbackend.repositories;
 
+import com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryHistoryEntry;
 import com.courigistics.courigisticsbackend.entities.Delivery;
 import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentStatus;
+import com.courigistics.courigisticsbackend.services.eta.CompletedTripRow;
+import com.courigistics.courigisticsbackend.services.eta.InFlightDeliveryRow;
+import com.courigistics.courigisticsbackend.services.geofence.ActiveDeliveryFence;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -47,6 +55,47 @@ public interface DeliveryRepository extends JpaRepository<Delivery, UUID> {
         """)
     Page<Delivery> findByCourier_Id(@Param("courierId") UUID courierId, Pageable pageable);
 
+    /**
+     * A customer's deliveries created in [from, to), newest first
+     * Bounded by createdAt so only the partitions for those months are read
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryHistoryEntry(
+            d.id, d.deliveryNumber, d.deliveryStatus, d.paymentStatus, d.recipientName,
+            d.estimatedPrice, d.finalPrice, d.createdAt, d.actualDeliveryTime)
+        FROM Delivery d
+        WHERE d.sender.id = :accountId
+          AND d.createdAt >= :from
+          AND d.createdAt < :to
+        ORDER BY d.createdAt DESC
+        """)
+    List<DeliveryHistoryEntry> findSenderHistory(
+            @Param("accountId") UUID accountId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable
+    );
+
+    /**
+     * A courier's deliveries created in [from, to), newest first
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryHistoryEntry(
+            d.id, d.deliveryNumber, d.deliveryStatus, d.paymentStatus, d.recipientName,
+            d.estimatedPrice, d.finalPrice, d.createdAt, d.actualDeliveryTime)
+        FROM Delivery d
+        WHERE d.courier.id = :courierId
+          AND d.createdAt >= :from
+          AND d.createdAt < :to
+        ORDER BY d.createdAt DESC
+        """)
+    List<DeliveryHistoryEntry> findCourierHistory(
+            @Param("courierId") UUID courierId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable
+    );
+
     /**
      * Finds delivery by unique delivery number
      * Used for customer tracking and admin lookup
@@ -102,16 +151,23 @@ public interface DeliveryRepository extends JpaRepository<Delivery, UUID> {
      * @param date      date to filter by (based on createdAt)
      * @return count of deliveries
      */
+    default long countByCourierAndStatusAndDate(UUID courierId, DeliveryStatus status, LocalDate date) {
+        return countByCourierAndStatusCreatedBetween(courierId, status, date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    // A range on the bare column rather than DATE(createdAt), so the index and partition pruning apply
     @Query("""
         SELECT COUNT(d) FROM Delivery d
         WHERE d.courier.id = :courierId
           AND d.deliveryStatus = :status
-          AND DATE(d.createdAt) = :date
+          AND d.createdAt >= :from
+          AND d.createdAt < :to
         """)
-    long countByCourierAndStatusAndDate(
+    long countByCourierAndStatusCreatedBetween(
             @Param("courierId") UUID courierId,
             @Param("status") DeliveryStatus status,
-            @Param("date") LocalDate date
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
     );
 
     /**
@@ -138,15 +194,196 @@ public interface DeliveryRepository extends JpaRepository<Delivery, UUID> {
     /**
      * Finds deliveries between two dates for reporting
      * Used for analytics and depot performance reports
+     *
+     * @param startDate first day included
+     * @param endDate   last day included
      */
+    default List<Delivery> findByDepotAndDateRange(UUID depotId, LocalDate startDate, LocalDate endDate) {
+        return findByDepotCreatedBetween(depotId, startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+    }
+
     @Query("""
         SELECT d FROM Delivery d
         WHERE d.originDepot.id = :depotId
-          AND d.createdAt BETWEEN :startDate AND :endDate
+          AND d.createdAt >= :from
+          AND d.createdAt < :to
         """)
-    List<Delivery> findByDepotAndDateRange(
+    List<Delivery> findByDepotCreatedBetween(
             @Param("depotId") UUID depotId,
-            @Param("startDate") LocalDate startDate,
-            @Param("endDate") LocalDate endDate
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /**
+     * Finds the delivery an M-Pesa STK push belongs to
+     * Used by callback ingestion
+     */
+    Optional<Delivery> findByMpesaCheckoutRequestId(String checkoutRequestId);
+
+    /**
+     * Stores the CheckoutRequestID of a started STK push, unless the delivery got paid meanwhile
+     * A newer push replaces an older one; callbacks for the older checkout then stay UNMATCHED
+     * A checkout already linked to another delivery is refused, so callbacks map to exactly one
+     *
+     * @return 1 if the checkout was linked
+     */
+    @Modifying
+    @Query("""
+        UPDATE Delivery d
+        SET d.mpesaCheckoutRequestId = :checkoutRequestId,
+            d.updatedAt = :now
+        WHERE d.id = :deliveryId
+          AND d.paymentStatus IN :payableFrom
+          AND NOT EXISTS (SELECT 1 FROM Delivery o
+                          WHERE o.mpesaCheckoutRequestId = :checkoutRequestId AND o.id <> :deliveryId)
+        """)
+    int linkMpesaCheckout(
+            @Param("deliveryId") UUID deliveryId,
+            @Param("checkoutRequestId") String checkoutRequestId,
+            @Param("payableFrom") Collection<PaymentStatus> payableFrom,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Moves payment status forward only if the delivery is in one of the allowed source states
+     * A single conditional UPDATE, so concurrent or out-of-order callbacks cannot
+     * overwrite each other (e.g. a late failure never downgrades PAID)
+     *
+     * @return 1 if the transition happened, 0 otherwise
+     */
+    @Modifying
+    @Query("""
+        UPDATE Delivery d
+        SET d.paymentStatus = :target,
+            d.updatedAt = :now
+        WHERE d.id = :deliveryId
+          AND d.paymentStatus IN :allowedFrom
+        """)
+    int transitionPaymentStatus(
+            @Param("deliveryId") UUID deliveryId,
+            @Param("target") PaymentStatus target,
+            @Param("allowedFrom") Collection<PaymentStatus> allowedFrom,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Checks that a delivery is assigned to the courier behind an account
+     * Used to authorise proof-of-delivery uploads
+     */
+    boolean existsByIdAndCourier_Account_Id(UUID deliveryId, UUID accountId);
+
+    /**
+     * Records the proof-of-delivery URL once the image is committed to storage
+     */
+    @Modifying
+    @Query("""
+        UPDATE Delivery d
+        SET d.proofOfDeliveryUrl = :url,
+            d.updatedAt = :now
+        WHERE d.id = :deliveryId
+        """)
+    int updateProofOfDeliveryUrl(
+            @Param("deliveryId") UUID deliveryId,
+            @Param("url") String url,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Pickup and dropoff coordinates of every delivery in an active status that has a courier
+     * Feeds the geofence engine's periodic rebuild
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.services.geofence.ActiveDeliveryFence(
+            d.id, a.id, d.deliveryStatus, d.pickupLat, d.pickupLon, d.dropOffLat, d.dropOffLon)
+        FROM Delivery d JOIN d.courier c JOIN c.account a
+        WHERE d.deliveryStatus IN :statuses
+        """)
+    List<ActiveDeliveryFence> findActiveFences(@Param("statuses") Collection<DeliveryStatus> statuses);
+
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.services.geofence.ActiveDeliveryFence(
+            d.id, a.id, d.deliveryStatus, d.pickupLat, d.pickupLon, d.dropOffLat, d.dropOffLon)
+        FROM Delivery d JOIN d.courier c JOIN c.account a
+        WHERE a.id = :accountId
+          AND d.deliveryStatus IN :statuses
+        """)
+    List<ActiveDeliveryFence> findActiveFencesByCourierAccountId(
+            @Param("accountId") UUID accountId,
+            @Param("statuses") Collection<DeliveryStatus> statuses
+    );
+
+    /**
+     * Moves delivery status forward only if the delivery is in one of the allowed source states
+     * Same conditional UPDATE as payments, so an automatic transition never overrides a manual one
+     *
+     * @param pickupTime recorded as the actual pickup time unless one is already set; may be null
+     * @return 1 if the transition happened, 0 otherwise
+     */
+    @Modifying
+    @Query("""
+        UPDATE Delivery d
+        SET d.deliveryStatus = :target,
+            d.actualPickupTime = COALESCE(d.actualPickupTime, :pickupTime),
+            d.updatedAt = :now
+        WHERE d.id = :deliveryId
+          AND d.deliveryStatus IN :allowedFrom
+        """)
+    int transitionDeliveryStatus(
+            @Param("deliveryId") UUID deliveryId,
+            @Param("target") DeliveryStatus target,
+            @Param("allowedFrom") Collection<DeliveryStatus> allowedFrom,
+            @Param("pickupTime") LocalDateTime pickupTime,
+            @Param("now") LocalDateTime now
     );
+
+    /**
+     * Deliveries on their way, with the courier's city and vehicle type for the speed profile
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.services.eta.InFlightDeliveryRow(
+            d.id, a.id, d.deliveryStatus, d.pickupLat, d.pickupLon, d.dropOffLat, d.dropOffLon,
+            c.operationalCity, v.vehicleType)
+        FROM Delivery d JOIN d.courier c JOIN c.account a
+        LEFT JOIN Vehicles v ON v.courier = c
+        WHERE d.deliveryStatus IN :statuses
+        """)
+    List<InFlightDeliveryRow> findInFlightForEta(@Param("statuses") Collection<DeliveryStatus> statuses);
+
+    /**
+     * Delivered trips among the given deliveries that have everything needed to measure their speed
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.services.eta.CompletedTripRow(
+            d.id, c.operationalCity, v.vehicleType, d.actualDistanceKm, d.actualPickupTime, d.actualDeliveryTime)
+        FROM Delivery d JOIN d.courier c
+        LEFT JOIN Vehicles v ON v.courier = c
+        WHERE d.id IN :deliveryIds
+          AND d.deliveryStatus = com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus.DELIVERED
+          AND d.actualDistanceKm IS NOT NULL
+          AND d.actualPickupTime IS NOT NULL
+          AND d.actualDeliveryTime IS NOT NULL
+        """)
+    List<CompletedTripRow> findCompletedTrips(@Param("deliveryIds") Collection<UUID> deliveryIds);
+
+    /**
+     * Recently delivered trips, oldest first, to warm the speed profiles up at startup
+     */
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.services.eta.CompletedTripRow(
+            d.id, c.operationalCity, v.vehicleType, d.actualDistanceKm, d.actualPickupTime, d.actualDeliveryTime)
+        FROM Delivery d JOIN d.courier c
+        LEFT JOIN Vehicles v ON v.courier = c
+        WHERE d.deliveryStatus = com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus.DELIVERED
+          AND d.actualDeliveryTime >= :since
+          AND d.actualDistanceKm IS NOT NULL
+          AND d.actualPickupTime IS NOT NULL
+        ORDER BY d.actualDeliveryTime ASC
+        """)
+    List<CompletedTripRow> findCompletedTripsSince(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Checks that a delivery was sent by an account
+     * Used to authorise tracking subscriptions
+     */
+    boolean existsByIdAndSender_Id(UUID deliveryId, UUID accountId);
 }
@@ -0,0 +1,23 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.DeliveryTrajectorySegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DeliveryTrajectorySegmentRepository extends JpaRepository<DeliveryTrajectorySegment, UUID> {
+
+    /**
+     * All segments of a trip in recording order, for replay
+     */
+    List<DeliveryTrajectorySegment> findByDelivery_IdOrderBySeqAsc(UUID deliveryId);
+
+    /**
+     * Latest segment of a trip; lets recording resume after a restart without losing the distance so far
+     */
+    Optional<DeliveryTrajectorySegment> findFirstByDelivery_IdOrderBySeqDesc(UUID deliveryId);
+}
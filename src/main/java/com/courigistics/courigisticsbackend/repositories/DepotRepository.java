@@ -1,9 +1,12 @@
 package com.courigistics.courigisticsbackend.repositories;
 
+import com.courigistics.courigisticsbackend.config.CacheRegions;
 import com.courigistics.courigisticsbackend.entities.Depot;
 import com.courigistics.courigisticsbackend.entities.enums.DepotStatus;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,6 +14,9 @@ import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 /**
  * Repository for Depot entity with PostGIS spatial query support
  *
@@ -66,12 +72,21 @@ public interface DepotRepository extends JpaRepository<Depot, UUID> {
      * @param status status of that depot
      * @return matching depot
      */
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheRegions.DEPOT_QUERIES)
+    })
     List<Depot> findByCityAndStatus(String city, DepotStatus status);
 
     /**
      * Find depot by unique code (e.g., "NBO-MAIN", "MBA-WEST")
      * Used during courier registration to assign default depot
+     * Query-cached; any depot write through JPA invalidates the cached result
      */
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheRegions.DEPOT_QUERIES)
+    })
     Optional<Depot> findByCode(String code);
 
     /**
@@ -0,0 +1,75 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.ExternalImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ExternalImportJobRepository extends JpaRepository<ExternalImportJob, UUID> {
+
+    Optional<ExternalImportJob> findByIdAndAccount_Id(UUID id, UUID accountId);
+
+    /**
+     * Moves the checkpoint and counters forward after a chunk has been written
+     * Runs inside the chunk transaction so data and checkpoint commit together
+     */
+    @Modifying
+    @Query("""
+        UPDATE ExternalImportJob j
+        SET j.checkpointRecord = :checkpoint,
+            j.importedCount = j.importedCount + :imported,
+            j.rejectedCount = j.rejectedCount + :rejected,
+            j.heartbeatAt = :now,
+            j.updatedAt = :now
+        WHERE j.id = :jobId
+        """)
+    int advanceCheckpoint(
+            @Param("jobId") UUID jobId,
+            @Param("checkpoint") long checkpoint,
+            @Param("imported") long imported,
+            @Param("rejected") long rejected,
+            @Param("now") LocalDateTime now
+    );
+
+    /**
+     * Keeps the jobs running on this node from looking orphaned between chunks
+     */
+    @Modifying
+    @Query("""
+        UPDATE ExternalImportJob j SET j.heartbeatAt = :now
+        WHERE j.id IN :jobIds AND j.status = com.courigistics.courigisticsbackend.entities.enums.ImportJobStatus.RUNNING
+        """)
+    int touchHeartbeat(@Param("jobIds") Collection<UUID> jobIds, @Param("now") LocalDateTime now);
+
+    /**
+     * Takes a failed job, or a running one whose node stopped heartbeating, for a resume
+     * Conditional, so two nodes resuming the same job cannot both win
+     *
+     * @return 1 if this caller claimed the job
+     */
+    @Modifying
+    @Query("""
+        UPDATE ExternalImportJob j
+        SET j.status = com.courigistics.courigisticsbackend.entities.enums.ImportJobStatus.QUEUED,
+            j.lastError = NULL,
+            j.heartbeatAt = :now,
+            j.updatedAt = :now
+        WHERE j.id = :jobId
+          AND (j.status = com.courigistics.courigisticsbackend.entities.enums.ImportJobStatus.FAILED
+               OR (j.status = com.courigistics.courigisticsbackend.entities.enums.ImportJobStatus.RUNNING
+                   AND (j.heartbeatAt IS NULL OR j.heartbeatAt < :staleBefore)))
+        """)
+    int claimForResume(
+            @Param("jobId") UUID jobId,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            @Param("now") LocalDateTime now
+    );
+}
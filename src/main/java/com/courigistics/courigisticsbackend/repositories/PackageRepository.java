@@ -53,7 +53,9 @@ public interface PackageRepository extends JpaRepository<Packages, UUID> {
      *
      * @param category package category (DOCUMENT, SMALL_PARCEL, etc.)
      * @return list of packages in that category
+     * @deprecated loads every matching package; counts come from PackageRollupService
      */
+    @Deprecated
     List<Packages> findByPackageCategory(PackageCategory category);
 
     /**
@@ -62,7 +64,9 @@ public interface PackageRepository extends JpaRepository<Packages, UUID> {
      *
      * @param packageType type of package (DOCUMENT, PARCEL, FRAGILE, EXTERNAL_ORDER)
      * @return list of packages of that type
+     * @deprecated loads every matching package; counts come from PackageRollupService
      */
+    @Deprecated
     List<Packages> findByPackageType(PackageType packageType);
 
     /**
@@ -87,7 +91,9 @@ public interface PackageRepository extends JpaRepository<Packages, UUID> {
      * Used for insurance tracking and reporting
      *
      * @return list of insured packages
+     * @deprecated loads every insured package; counts come from PackageRollupService
      */
+    @Deprecated
     List<Packages> findByIsInsuredTrue();
 
     /**
@@ -95,7 +101,9 @@ public interface PackageRepository extends JpaRepository<Packages, UUID> {
      * Used for special handling reports and courier briefings
      *
      * @return list of fragile packages
+     * @deprecated loads every fragile package; counts come from PackageRollupService
      */
+    @Deprecated
     List<Packages> findByIsFragileTrue();
 
 }
@@ -0,0 +1,98 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint;
+import com.courigistics.courigisticsbackend.entities.PackageRollup;
+import com.courigistics.courigisticsbackend.entities.enums.RollupGranularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Package counts per bucket, grouped by one dimension
+ * Every query reads buckets in [from, to) of one granularity and sums the other dimensions away
+ */
+@Repository
+public interface PackageRollupRepository extends JpaRepository<PackageRollup, Long> {
+
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint(
+            r.bucketStart, r.packageCategory, SUM(r.packageCount))
+        FROM PackageRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to
+        GROUP BY r.bucketStart, r.packageCategory
+        ORDER BY r.bucketStart, r.packageCategory
+        """)
+    List<PackageRollupPoint> sumByCategory(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint(
+            r.bucketStart, r.packageType, SUM(r.packageCount))
+        FROM PackageRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to
+        GROUP BY r.bucketStart, r.packageType
+        ORDER BY r.bucketStart, r.packageType
+        """)
+    List<PackageRollupPoint> sumByType(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint(
+            r.bucketStart, CASE WHEN r.fragile = true THEN 'true' ELSE 'false' END, SUM(r.packageCount))
+        FROM PackageRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to
+        GROUP BY r.bucketStart, r.fragile
+        ORDER BY r.bucketStart, r.fragile
+        """)
+    List<PackageRollupPoint> sumByFragile(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint(
+            r.bucketStart, CASE WHEN r.insured = true THEN 'true' ELSE 'false' END, SUM(r.packageCount))
+        FROM PackageRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to
+        GROUP BY r.bucketStart, r.insured
+        ORDER BY r.bucketStart, r.insured
+        """)
+    List<PackageRollupPoint> sumByInsured(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    @Query("""
+        SELECT new com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint(
+            r.bucketStart, r.city, SUM(r.packageCount))
+        FROM PackageRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to
+        GROUP BY r.bucketStart, r.city
+        ORDER BY r.bucketStart, r.city
+        """)
+    List<PackageRollupPoint> sumByCity(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to
+    );
+
+    /**
+     * Clears every granularity's buckets in [from, to) before they are rebuilt
+     */
+    @Modifying
+    @Query("DELETE FROM PackageRollup r WHERE r.bucketStart >= :from AND r.bucketStart < :to")
+    int deleteBucketsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+}
@@ -0,0 +1,20 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.PartitionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PartitionArchiveRepository extends JpaRepository<PartitionArchive, Long> {
+
+    boolean existsByTableNameAndPeriodStart(String tableName, LocalDate periodStart);
+
+    /**
+     * Archived months of a table overlapping a history read, newest first
+     */
+    List<PartitionArchive> findByTableNameAndPeriodStartBetweenOrderByPeriodStartDesc(
+            String tableName, LocalDate fromMonth, LocalDate toMonth);
+}
@@ -1,4 +1,25 @@
 package com.courigistics.courigisticsbackend.repositories;
 
-public interface PaymentRepository {
+import com.courigistics.courigisticsbackend.entities.Payment;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentCallbackOutcome;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, UUID> {
+
+    /**
+     * All callbacks recorded for a checkout (at most one per result code)
+     */
+    List<Payment> findByCheckoutRequestId(String checkoutRequestId);
+
+    boolean existsByCheckoutRequestIdAndResultCode(String checkoutRequestId, Integer resultCode);
+
+    Optional<Payment> findByCheckoutRequestIdAndResultCode(String checkoutRequestId, Integer resultCode);
+
+    List<Payment> findByCheckoutRequestIdAndOutcome(String checkoutRequestId, PaymentCallbackOutcome outcome);
 }
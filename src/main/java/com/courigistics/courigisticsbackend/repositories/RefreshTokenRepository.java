@@ -2,19 +2,105 @@ package com.courigistics.courigisticsbackend.repositories;
 
 import com.courigistics.courigisticsbackend.entities.Account;
 import com.courigistics.courigisticsbackend.entities.RefreshToken;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
-    Optional<RefreshToken> findByToken(String token);
-    Optional<RefreshToken> findByAccount(Account account);
+
+    /**
+     * Loads a token with its account in one query
+     */
+    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.account WHERE rt.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHash(@Param("tokenHash") String tokenHash);
+
     void deleteByAccount(Account account);
 
     @Modifying(clearAutomatically = true)
-    @Query("UPDATE RefreshToken rt SET rt.invalidated = true WHERE rt.account = :account")
-    void invalidateAllByAccount(Account account);
+    @Query("""
+        UPDATE RefreshToken rt
+        SET rt.invalidated = true,
+            rt.invalidatedAt = :now
+        WHERE rt.account = :account
+          AND rt.invalidated = false
+        """)
+    int invalidateAllByAccount(@Param("account") Account account, @Param("now") LocalDateTime now);
+
+    /**
+     * Rotation-on-use: consumes a live token in a single conditional update
+     * Of two concurrent refreshes with the same token exactly one sees 1
+     *
+     * @return 1 if this call consumed the token, 0 if it was already used, revoked or expired
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE RefreshToken rt
+        SET rt.invalidated = true,
+            rt.invalidatedAt = :now
+        WHERE rt.tokenHash = :tokenHash
+          AND rt.invalidated = false
+          AND rt.expiryDate > :instant
+        """)
+    int consume(
+            @Param("tokenHash") String tokenHash,
+            @Param("now") LocalDateTime now,
+            @Param("instant") Instant instant
+    );
+
+    /**
+     * Live sessions of an account, newest first
+     * Used with an offset page to find the sessions beyond the per-account cap
+     */
+    @Query("""
+        SELECT rt.id FROM RefreshToken rt
+        WHERE rt.account.id = :accountId
+          AND rt.invalidated = false
+          AND rt.expiryDate > :instant
+        ORDER BY rt.createdAt DESC
+        """)
+    List<UUID> findActiveIdsByAccount(
+            @Param("accountId") UUID accountId,
+            @Param("instant") Instant instant,
+            Pageable pageable
+    );
+
+    @Modifying(clearAutomatically = true)
+    @Query("""
+        UPDATE RefreshToken rt
+        SET rt.invalidated = true,
+            rt.invalidatedAt = :now
+        WHERE rt.id IN :ids
+        """)
+    int invalidateByIds(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Deletes one bounded batch of dead rows: expired, or invalidated before the cutoff
+     * The LIMITed sub-select keeps each statement (and its row locks) short
+     *
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query(value = """
+        DELETE FROM refresh_token
+        WHERE id IN (
+            SELECT id FROM refresh_token
+            WHERE expiry_date < :instant
+               OR invalidated_at < :invalidatedBefore
+            LIMIT :batchSize
+        )
+        """, nativeQuery = true)
+    int deleteDeadBatch(
+            @Param("instant") Instant instant,
+            @Param("invalidatedBefore") LocalDateTime invalidatedBefore,
+            @Param("batchSize") int batchSize
+    );
 }
@@ -0,0 +1,26 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.RevokedAccessToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedAccessTokenRepository extends JpaRepository<RevokedAccessToken, Long> {
+
+    boolean existsByJti(String jti);
+
+    /**
+     * Change feed: revocations after the last one this node has seen, still unexpired
+     */
+    List<RevokedAccessToken> findTop1000ByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(Long lastSeenId, Instant now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedAccessToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,23 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.SequenceBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface SequenceBlockRepository extends JpaRepository<SequenceBlock, String> {
+
+    /**
+     * Loads a sequence row with a row-level write lock
+     * Held only for the duration of the short block reservation transaction
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SequenceBlock s WHERE s.name = :name")
+    Optional<SequenceBlock> findByNameForUpdate(@Param("name") String name);
+}
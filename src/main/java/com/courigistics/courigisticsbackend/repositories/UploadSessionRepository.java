@@ -0,0 +1,44 @@
+package com.courigistics.courigisticsbackend.repositories;
+
+import com.courigistics.courigisticsbackend.entities.UploadSession;
+import com.courigistics.courigisticsbackend.entities.enums.UploadSessionStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+
+    Optional<UploadSession> findByIdAndAccount_Id(UUID id, UUID accountId);
+
+    /**
+     * Commits a chunk by moving the offset forward, but only from the offset the chunk was written at
+     * Two racing writers of the same chunk cannot both advance the session
+     *
+     * @return 1 if the offset moved, 0 if another request got there first
+     */
+    @Modifying
+    @Query("""
+        UPDATE UploadSession s
+        SET s.receivedBytes = :newOffset,
+            s.updatedAt = :now
+        WHERE s.id = :id
+          AND s.receivedBytes = :expectedOffset
+          AND s.status = 'OPEN'
+        """)
+    int advanceOffset(
+            @Param("id") UUID id,
+            @Param("expectedOffset") long expectedOffset,
+            @Param("newOffset") long newOffset,
+            @Param("now") LocalDateTime now
+    );
+
+    List<UploadSession> findTop500ByStatusAndExpiresAtBefore(UploadSessionStatus status, LocalDateTime cutoff);
+}
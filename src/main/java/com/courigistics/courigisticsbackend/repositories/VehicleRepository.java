@@ -1,22 +1,41 @@
 package com.courigistics.courigisticsbackend.repositories;
 
+import com.courigistics.courigisticsbackend.config.CacheRegions;
 import com.courigistics.courigisticsbackend.entities.Vehicles;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
 @Repository
 public interface VehicleRepository extends JpaRepository<Vehicles, UUID> {
 
     /**
      * Find vehicle by courier ID
+     * Query-cached for profile reads; the vehicle itself then comes from the entity cache
      */
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = CacheRegions.VEHICLE_BY_COURIER)
+    })
     Optional<Vehicles> findByCourier_id(UUID id);
 
     /**
      *Find Vehicle by courier ID
      */
     boolean existsByLicencePlate(String licencePlate);
+
+    // Set-based uniqueness check for bulk onboarding
+    @Query("SELECT v.licencePlate FROM Vehicles v WHERE v.licencePlate IN :plates")
+    List<String> findExistingLicencePlates(@Param("plates") Collection<String> plates);
 }
@@ -4,15 +4,48 @@ import com.courigistics.courigisticsbackend.entities.Account;
 import com.courigistics.courigisticsbackend.entities.VerificationToken;
 import com.courigistics.courigisticsbackend.entities.enums.TokenType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
 public interface VerificationTokenRepository extends JpaRepository<VerificationToken, UUID> {
     Optional<VerificationToken> findByToken(String token);
-    Optional<VerificationToken> findByAccountAndTokenType(Account account, TokenType tokenType);
     void deleteByAccount(Account account);
 
+    Optional<VerificationToken> findByAccountAndTokenType(Account account, TokenType tokenType);
+
+    // Existing tokens of a batch of accounts, so they can be reissued in place
+    @Query("SELECT t FROM VerificationToken t WHERE t.account IN :accounts AND t.tokenType = :tokenType")
+    List<VerificationToken> findByAccountInAndTokenType(
+            @Param("accounts") Collection<Account> accounts,
+            @Param("tokenType") TokenType tokenType
+    );
+
+    @Modifying
+    @Query("DELETE FROM VerificationToken t WHERE t.account = :account AND t.tokenType = :tokenType")
+    int deleteByAccountAndTokenType(@Param("account") Account account, @Param("tokenType") TokenType tokenType);
+
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM VerificationToken t WHERE t.account IN :accounts AND t.tokenType = :tokenType")
+    int deleteByAccountInAndTokenType(@Param("accounts") Collection<Account> accounts, @Param("tokenType") TokenType tokenType);
+
+    // Bounded so the sweeper never holds locks on a large range of rows
+    @Modifying
+    @Query(value = """
+            DELETE FROM verification_tokens
+            WHERE id IN (
+                SELECT id FROM verification_tokens
+                WHERE expiry_date < :now
+                LIMIT :batchSize
+            )
+            """, nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
 }
@@ -0,0 +1,18 @@
+package com.courigistics.courigisticsbackend.services.address;
+
+import java.util.UUID;
+
+/**
+ * Coordinates of one saved address, as held by the in-memory lookup index
+ * Built directly by a JPQL constructor expression, no entities are loaded
+ */
+public record AddressLocation(
+        UUID id,
+        String label,
+        String addressLine1,
+        String city,
+        double latitude,
+        double longitude,
+        boolean isDefault
+) {
+}
@@ -0,0 +1,23 @@
+package com.courigistics.courigisticsbackend.services.address;
+
+import com.courigistics.courigisticsbackend.dto.responses.customer.NearestAddressResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface AddressLookupService {
+
+    /**
+     * Snaps a dropped pin to the account's closest saved addresses
+     *
+     * @param accountId owner of the addresses
+     * @param limit     maximum number of addresses to return
+     * @return saved addresses nearest first; empty if none have coordinates
+     */
+    List<NearestAddressResponse> findNearestAddresses(UUID accountId, double latitude, double longitude, int limit);
+
+    /**
+     * Drops the cached addresses of an account; called by CacheEvictionEntityListener when an address is added, edited or removed
+     */
+    void evictAccount(UUID accountId);
+}
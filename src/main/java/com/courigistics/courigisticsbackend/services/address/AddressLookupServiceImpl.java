@@ -0,0 +1,170 @@
+package com.courigistics.courigisticsbackend.services.address;
+
+import com.courigistics.courigisticsbackend.dto.responses.customer.NearestAddressResponse;
+import com.courigistics.courigisticsbackend.entities.Address;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.repositories.AddressRepository;
+import com.courigistics.courigisticsbackend.utils.GeoUtils;
+import com.courigistics.courigisticsbackend.utils.ValidationUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Nearest saved address lookup
+ *
+ * Each account that looks up addresses gets its saved address coordinates loaded once into an
+ * {@link AddressSpatialIndex}; lookups within the TTL never touch the database. Accounts with more
+ * addresses than we are willing to hold in memory are answered by the PostGIS kNN query instead.
+ *
+ * The cache is per node. Address writes on this node evict the account through CacheEvictionEntityListener;
+ * the TTL bounds how long another node's address changes stay invisible.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AddressLookupServiceImpl implements AddressLookupService {
+
+    private final AddressRepository addressRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.addresses.lookup.cache-ttl-minutes}")
+    private long cacheTtlMinutes;
+
+    @Value("${app.addresses.lookup.max-cached-accounts}")
+    private int maxCachedAccounts;
+
+    @Value("${app.addresses.lookup.max-cached-addresses-per-account}")
+    private int maxCachedAddressesPerAccount;
+
+    @Value("${app.addresses.lookup.max-results}")
+    private int maxResults;
+
+    private final ConcurrentHashMap<UUID, CachedAddresses> cache = new ConcurrentHashMap<>();
+
+    private long ttlNanos;
+    private Counter cacheHits;
+    private Counter cacheLoads;
+    private Counter databaseLookups;
+
+    /**
+     * @param index null when the account has too many addresses to cache, lookups then go to PostGIS
+     */
+    private record CachedAddresses(AddressSpatialIndex index, long expiresAt) {
+        boolean isExpired(long now) {
+            return expiresAt - now <= 0;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        ttlNanos = Duration.ofMinutes(cacheTtlMinutes).toNanos();
+        cacheHits = Counter.builder("addresses.lookup.cache.hits")
+                .description("Nearest address lookups answered from memory")
+                .register(meterRegistry);
+        cacheLoads = Counter.builder("addresses.lookup.cache.loads")
+                .description("Accounts whose addresses were loaded into the lookup cache")
+                .register(meterRegistry);
+        databaseLookups = Counter.builder("addresses.lookup.database")
+                .description("Nearest address lookups answered by the PostGIS kNN query")
+                .register(meterRegistry);
+        meterRegistry.gauge("addresses.lookup.cache.accounts", cache, Map::size);
+    }
+
+    @Override
+    public List<NearestAddressResponse> findNearestAddresses(UUID accountId, double latitude, double longitude, int limit) {
+        try {
+            ValidationUtils.validateCoordinates(latitude, longitude);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+        int k = Math.max(1, Math.min(limit, maxResults));
+
+        // 1: Served from memory while the account's index is fresh
+        CachedAddresses cached = getOrLoad(accountId);
+        if (cached.index() != null) {
+            cacheHits.increment();
+            return cached.index().nearest(latitude, longitude, k).stream()
+                    .map(n -> toResponse(n.address(), n.distanceKm()))
+                    .toList();
+        }
+
+        // 2: Too many addresses to hold in memory, let the GiST index do the kNN search
+        databaseLookups.increment();
+        List<Address> nearest = addressRepository.findNearestByAccountId(accountId, latitude, longitude, k);
+        return nearest.stream()
+                .map(a -> toResponse(
+                        new AddressLocation(a.getId(), a.getLabel(), a.getAddressLine1(), a.getCity(),
+                                a.getLatitude(), a.getLongitude(), a.isDefault()),
+                        GeoUtils.haversineDistance(latitude, longitude, a.getLatitude(), a.getLongitude())))
+                .toList();
+    }
+
+    @Override
+    public void evictAccount(UUID accountId) {
+        cache.remove(accountId);
+    }
+
+    /**
+     * Drops expired entries so accounts that stopped looking up addresses do not stay in memory
+     */
+    @Scheduled(fixedDelayString = "${app.addresses.lookup.sweep-interval-ms}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        cache.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    private CachedAddresses getOrLoad(UUID accountId) {
+        long now = System.nanoTime();
+        CachedAddresses cached = cache.get(accountId);
+        if (cached != null && !cached.isExpired(now)) {
+            return cached;
+        }
+
+        // Loaded outside the map so a slow query never blocks other accounts; a racing duplicate load is harmless
+        List<AddressLocation> locations = addressRepository.findLocationsByAccountId(
+                accountId, PageRequest.of(0, maxCachedAddressesPerAccount + 1));
+        AddressSpatialIndex index = locations.size() > maxCachedAddressesPerAccount
+                ? null
+                : new AddressSpatialIndex(locations);
+        CachedAddresses loaded = new CachedAddresses(index, now + ttlNanos);
+        cacheLoads.increment();
+        log.debug("Loaded {} address locations for account {}{}", locations.size(), accountId,
+                index == null ? " (over the cache limit, using PostGIS)" : "");
+
+        if (cache.size() >= maxCachedAccounts && !cache.containsKey(accountId)) {
+            evictExpired();
+            if (cache.size() >= maxCachedAccounts) {
+                // Still full of live accounts: start over, every entry can be reloaded
+                cache.clear();
+            }
+        }
+        cache.put(accountId, loaded);
+        return loaded;
+    }
+
+    private static NearestAddressResponse toResponse(AddressLocation address, double distanceKm) {
+        return new NearestAddressResponse(
+                address.id(),
+                address.label(),
+                address.addressLine1(),
+                address.city(),
+                address.latitude(),
+                address.longitude(),
+                address.isDefault(),
+                distanceKm * 1000
+        );
+    }
+}
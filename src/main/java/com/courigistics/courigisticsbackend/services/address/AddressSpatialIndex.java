@@ -0,0 +1,85 @@
+package com.courigistics.courigisticsbackend.services.address;
+
+import com.courigistics.courigisticsbackend.utils.GeoUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable nearest-neighbour index over one account's saved addresses
+ *
+ * Addresses are sorted by latitude. A search starts at the pin's latitude and walks outwards in
+ * both directions; the latitude gap alone is a lower bound on the great-circle distance, so the
+ * walk stops as soon as that gap exceeds the k-th best distance found so far. For the few hundred
+ * addresses a business sender keeps, that touches a handful of entries per lookup.
+ */
+final class AddressSpatialIndex {
+
+    // Length of one degree of latitude along a meridian (km), same earth radius as GeoUtils
+    private static final double KM_PER_DEGREE_LATITUDE = 6371.0 * Math.PI / 180.0;
+
+    record Neighbour(AddressLocation address, double distanceKm) {}
+
+    private final AddressLocation[] addresses;
+    private final double[] latitudes;
+
+    AddressSpatialIndex(List<AddressLocation> locations) {
+        this.addresses = locations.toArray(AddressLocation[]::new);
+        Arrays.sort(this.addresses, Comparator.comparingDouble(AddressLocation::latitude));
+        this.latitudes = new double[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            latitudes[i] = addresses[i].latitude();
+        }
+    }
+
+    int size() {
+        return addresses.length;
+    }
+
+    /**
+     * @return up to k addresses nearest first
+     */
+    List<Neighbour> nearest(double latitude, double longitude, int k) {
+        if (addresses.length == 0 || k <= 0) {
+            return List.of();
+        }
+
+        // Max-heap on distance holding the best k seen so far
+        PriorityQueue<Neighbour> best = new PriorityQueue<>(
+                k, Comparator.comparingDouble(Neighbour::distanceKm).reversed());
+
+        int insertion = Arrays.binarySearch(latitudes, latitude);
+        int up = insertion >= 0 ? insertion : -insertion - 1;
+        int down = up - 1;
+
+        while (down >= 0 || up < addresses.length) {
+            // 1: Take whichever side is closer in latitude
+            double downGap = down >= 0 ? latitude - latitudes[down] : Double.MAX_VALUE;
+            double upGap = up < addresses.length ? latitudes[up] - latitude : Double.MAX_VALUE;
+            boolean takeDown = downGap <= upGap;
+            double gapKm = (takeDown ? downGap : upGap) * KM_PER_DEGREE_LATITUDE;
+
+            // 2: Every remaining address is at least this far away
+            if (best.size() == k && gapKm >= best.peek().distanceKm()) {
+                break;
+            }
+
+            AddressLocation candidate = addresses[takeDown ? down-- : up++];
+            double distanceKm = GeoUtils.haversineDistance(
+                    latitude, longitude, candidate.latitude(), candidate.longitude());
+            if (best.size() < k) {
+                best.add(new Neighbour(candidate, distanceKm));
+            } else if (distanceKm < best.peek().distanceKm()) {
+                best.poll();
+                best.add(new Neighbour(candidate, distanceKm));
+            }
+        }
+
+        List<Neighbour> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(Neighbour::distanceKm));
+        return result;
+    }
+}
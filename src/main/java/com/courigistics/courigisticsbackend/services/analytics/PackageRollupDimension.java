@@ -0,0 +1,8 @@
+package com.courigistics.courigisticsbackend.services.analytics;
+
+/**
+ * Package attribute an analytics read groups by
+ */
+public enum PackageRollupDimension {
+    CATEGORY, TYPE, FRAGILE, INSURED, CITY
+}
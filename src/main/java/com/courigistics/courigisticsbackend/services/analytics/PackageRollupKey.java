@@ -0,0 +1,51 @@
+package com.courigistics.courigisticsbackend.services.analytics;
+
+import com.courigistics.courigisticsbackend.entities.enums.PackageCategory;
+import com.courigistics.courigisticsbackend.entities.enums.PackageType;
+
+import java.util.Comparator;
+
+/**
+ * One combination of the rollup dimensions, with missing values already replaced
+ * Ordered so concurrent increments touch rollup rows in the same order and cannot deadlock.
+ */
+public record PackageRollupKey(
+        String packageCategory,
+        String packageType,
+        boolean fragile,
+        boolean insured,
+        String city
+) implements Comparable<PackageRollupKey> {
+
+    public static final String UNSPECIFIED = "UNSPECIFIED";
+    public static final String UNKNOWN_CITY = "UNKNOWN";
+
+    private static final Comparator<PackageRollupKey> ORDER = Comparator
+            .comparing(PackageRollupKey::packageCategory)
+            .thenComparing(PackageRollupKey::packageType)
+            .thenComparing(PackageRollupKey::fragile)
+            .thenComparing(PackageRollupKey::insured)
+            .thenComparing(PackageRollupKey::city);
+
+    public static PackageRollupKey of(PackageCategory category, PackageType type, Boolean fragile, Boolean insured, String city) {
+        return of(category != null ? category.name() : null, type != null ? type.name() : null, fragile, insured, city);
+    }
+
+    /**
+     * From raw column values
+     */
+    public static PackageRollupKey of(String category, String type, Boolean fragile, Boolean insured, String city) {
+        return new PackageRollupKey(
+                category != null ? category : UNSPECIFIED,
+                type != null ? type : UNSPECIFIED,
+                Boolean.TRUE.equals(fragile),
+                Boolean.TRUE.equals(insured),
+                city != null && !city.isBlank() ? city : UNKNOWN_CITY
+        );
+    }
+
+    @Override
+    public int compareTo(PackageRollupKey other) {
+        return ORDER.compare(this, other);
+    }
+}
@@ -0,0 +1,51 @@
+package com.courigistics.courigisticsbackend.services.analytics;
+
+import com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint;
+import com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupRebuildResponse;
+import com.courigistics.courigisticsbackend.entities.enums.RollupGranularity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hourly and daily package counts per category, type, fragile, insured and city
+ */
+public interface PackageRollupService {
+
+    /**
+     * City packages from this sender are counted under: their default address's city
+     *
+     * @return null if the sender has no default address
+     */
+    String resolveCity(UUID senderAccountId);
+
+    /**
+     * Adds newly created packages to their hour and day buckets
+     * Call it in the transaction that inserts the packages, so both commit or neither does.
+     *
+     * @param counts packages created at createdAt, per dimension combination
+     */
+    void recordCreated(LocalDateTime createdAt, Map<PackageRollupKey, Long> counts);
+
+    /**
+     * Package counts per bucket in [from, to), grouped by one dimension
+     */
+    List<PackageRollupPoint> getCounts(PackageRollupDimension dimension, RollupGranularity granularity,
+                                       LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Recomputes the rollups of the days in [from, to) from the packages table
+     * Only days that ended more than settle-minutes ago can be rebuilt; safe to re-run.
+     *
+     * @return run statistics
+     */
+    PackageRollupRebuildResponse rebuild(LocalDate from, LocalDate to);
+
+    /**
+     * Nightly entry point: rebuilds yesterday, repairing any drift in the incremental counts
+     */
+    void rebuildYesterday();
+}
@@ -0,0 +1,341 @@
+package com.courigistics.courigisticsbackend.services.analytics;
+
+import com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupPoint;
+import com.courigistics.courigisticsbackend.dto.responses.analytics.PackageRollupRebuildResponse;
+import com.courigistics.courigisticsbackend.entities.enums.RollupGranularity;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.ServiceUnavailableException;
+import com.courigistics.courigisticsbackend.repositories.PackageRollupRepository;
+import com.courigistics.courigisticsbackend.services.jobs.JobLeaseManager;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Package analytics rollups
+ *
+ * Two write paths keep the rollups current:
+ * - Incremental: package inserts add to their hour and day buckets in the same transaction
+ * - Rebuild: a day's packages are streamed through a server-side cursor, counted per hour in
+ *   memory (bounded by the number of dimension combinations, not packages), and the day's
+ *   buckets are replaced in one transaction
+ * Packages are stamped when the inserting transaction starts, not when it commits, so a day can
+ * still gain rows after midnight (a transaction stamped 23:59:59 that commits at 00:00:05). A day is
+ * therefore only rebuilt once it ended more than settle-minutes ago, which must exceed the longest
+ * transaction; a transaction still open then would be lost from the rebuilt counts. Rebuilds race
+ * each other (every node schedules the nightly one), so a run holds the job lease and others skip
+ * or are turned away.
+ * Increments are an UPDATE, then an INSERT for a new bucket, which H2 runs as well as PostgreSQL.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PackageRollupServiceImpl implements PackageRollupService {
+
+    private static final String SELECT_SENDER_CITY = """
+        SELECT MIN(city) FROM addresses
+        WHERE account_id = ? AND is_default = true
+        """;
+
+    private static final String INCREMENT_ROLLUP = """
+        UPDATE package_rollups SET package_count = package_count + ?, updated_at = ?
+        WHERE granularity = ? AND bucket_start = ? AND package_category = ? AND package_type = ?
+          AND is_fragile = ? AND is_insured = ? AND city = ?
+        """;
+
+    private static final String INSERT_ROLLUP = """
+        INSERT INTO package_rollups (granularity, bucket_start, package_category, package_type,
+                                     is_fragile, is_insured, city, package_count, updated_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String REBUILD_JOB = "package-rollup-rebuild";
+
+    // Unique violation, in PostgreSQL and H2 alike
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    // City resolved the same way as resolveCity, so a rebuild reproduces the incremental counts
+    private static final String STREAM_PACKAGES = """
+        SELECT p.package_category, p.package_type, p.is_fragile, p.is_insured,
+               (SELECT MIN(a.city) FROM addresses a
+                WHERE a.account_id = p.sender_acc_id AND a.is_default = true) AS city,
+               p.created_at
+        FROM packages p
+        WHERE p.created_at >= ? AND p.created_at < ?
+        """;
+
+    private final PackageRollupRepository packageRollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource dataSource;
+    private final JobLeaseManager jobLeaseManager;
+
+    @Value("${app.analytics.package-rollups.fetch-size}")
+    private int fetchSize;
+
+    @Value("${app.analytics.package-rollups.max-query-days}")
+    private int maxQueryDays;
+
+    @Value("${app.analytics.package-rollups.max-hourly-query-days}")
+    private int maxHourlyQueryDays;
+
+    @Value("${app.analytics.package-rollups.max-rebuild-days}")
+    private int maxRebuildDays;
+
+    @Value("${app.analytics.package-rollups.rebuild-lease-minutes}")
+    private long rebuildLeaseMinutes;
+
+    @Value("${app.analytics.package-rollups.settle-minutes}")
+    private long settleMinutes;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    public String resolveCity(UUID senderAccountId) {
+        return jdbcTemplate.queryForObject(SELECT_SENDER_CITY, String.class, senderAccountId);
+    }
+
+    @Override
+    public void recordCreated(LocalDateTime createdAt, Map<PackageRollupKey, Long> counts) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        Timestamp hour = Timestamp.valueOf(createdAt.truncatedTo(ChronoUnit.HOURS));
+        Timestamp day = Timestamp.valueOf(createdAt.toLocalDate().atStartOfDay());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // Sorted, so two transactions incrementing overlapping keys lock them in the same order
+        List<Object[]> args = new ArrayList<>(counts.size() * 2);
+        for (Map.Entry<PackageRollupKey, Long> entry : new TreeMap<>(counts).entrySet()) {
+            args.add(rollupArgs(RollupGranularity.HOUR, hour, entry.getKey(), entry.getValue(), now));
+            args.add(rollupArgs(RollupGranularity.DAY, day, entry.getKey(), entry.getValue(), now));
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement increment = connection.prepareStatement(INCREMENT_ROLLUP);
+                 PreparedStatement insert = connection.prepareStatement(INSERT_ROLLUP)) {
+                for (Object[] row : args) {
+                    increment(connection, increment, insert, row);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Adds to an existing bucket, or creates it
+     * Two transactions can both find a bucket missing; the insert runs under a savepoint, so the
+     * loser rolls back just that and increments the winner's row instead of failing its transaction.
+     */
+    private static void increment(Connection connection, PreparedStatement increment, PreparedStatement insert,
+                                  Object[] row) throws SQLException {
+        if (executeIncrement(increment, row) == 1) {
+            return;
+        }
+        Savepoint savepoint = connection.setSavepoint();
+        try {
+            for (int i = 0; i < row.length; i++) {
+                insert.setObject(i + 1, row[i]);
+            }
+            insert.executeUpdate();
+            connection.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            if (!UNIQUE_VIOLATION.equals(e.getSQLState())) {
+                throw e;
+            }
+            connection.rollback(savepoint);
+            executeIncrement(increment, row);
+        }
+    }
+
+    // row is in INSERT_ROLLUP order: granularity .. city, count, updated_at
+    private static int executeIncrement(PreparedStatement increment, Object[] row) throws SQLException {
+        increment.setObject(1, row[7]);
+        increment.setObject(2, row[8]);
+        for (int i = 0; i < 7; i++) {
+            increment.setObject(i + 3, row[i]);
+        }
+        return increment.executeUpdate();
+    }
+
+    @Override
+    public List<PackageRollupPoint> getCounts(PackageRollupDimension dimension, RollupGranularity granularity,
+                                              LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        int maxDays = granularity == RollupGranularity.HOUR ? maxHourlyQueryDays : maxQueryDays;
+        if (ChronoUnit.DAYS.between(from, to) > maxDays) {
+            throw new BadRequestException(granularity + " rollups can be read at most " + maxDays + " days at a time");
+        }
+        return switch (dimension) {
+            case CATEGORY -> packageRollupRepository.sumByCategory(granularity, from, to);
+            case TYPE -> packageRollupRepository.sumByType(granularity, from, to);
+            case FRAGILE -> packageRollupRepository.sumByFragile(granularity, from, to);
+            case INSURED -> packageRollupRepository.sumByInsured(granularity, from, to);
+            case CITY -> packageRollupRepository.sumByCity(granularity, from, to);
+        };
+    }
+
+    @Override
+    @Scheduled(cron = "${app.analytics.package-rollups.cron}")
+    public void rebuildYesterday() {
+        LocalDate today = LocalDate.now();
+        if (!isSettled(today)) {
+            log.warn("Package rollups for {} not settled yet (settle-minutes {}), skipping the rebuild",
+                    today.minusDays(1), settleMinutes);
+            return;
+        }
+        if (!jobLeaseManager.runExclusively(REBUILD_JOB, Duration.ofMinutes(rebuildLeaseMinutes),
+                holder -> rebuildDays(today.minusDays(1), today, holder))) {
+            log.info("Package rollup rebuild already running on another node, skipping");
+        }
+    }
+
+    @Override
+    public PackageRollupRebuildResponse rebuild(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        if (!isSettled(to)) {
+            throw new BadRequestException("Only days that ended more than " + settleMinutes + " minutes ago can be rebuilt");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > maxRebuildDays) {
+            throw new BadRequestException("At most " + maxRebuildDays + " days can be rebuilt at a time");
+        }
+        PackageRollupRebuildResponse[] run = new PackageRollupRebuildResponse[1];
+        if (!jobLeaseManager.runExclusively(REBUILD_JOB, Duration.ofMinutes(rebuildLeaseMinutes),
+                holder -> run[0] = rebuildDays(from, to, holder))) {
+            throw new ServiceUnavailableException("A package rollup rebuild is already running", 60);
+        }
+        return run[0];
+    }
+
+    /**
+     * Whether every transaction that could still add packages before the given (exclusive) day has finished
+     */
+    private boolean isSettled(LocalDate endExclusive) {
+        return !endExclusive.atStartOfDay().plusMinutes(settleMinutes).isAfter(LocalDateTime.now());
+    }
+
+    private PackageRollupRebuildResponse rebuildDays(LocalDate from, LocalDate to, String holder) {
+        long start = System.nanoTime();
+        int days = 0;
+        long packages = 0;
+        int rows = 0;
+        // One day per pass: bounded memory, and an interrupted run keeps the days it finished
+        for (LocalDate day = from; day.isBefore(to); day = day.plusDays(1)) {
+            // Per day, so the lease only has to outlast the longest day
+            if (!jobLeaseManager.renew(REBUILD_JOB, holder, Duration.ofMinutes(rebuildLeaseMinutes))) {
+                throw new IllegalStateException("Package rollup rebuild lease lost before " + day);
+            }
+            DayTally tally = rebuildDay(day);
+            days++;
+            packages += tally.packages;
+            rows += tally.rows;
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Package rollups rebuilt for [{}, {}) in {} ms: {} packages, {} rollup rows",
+                from, to, elapsedMillis, packages, rows);
+        return new PackageRollupRebuildResponse(from, to, days, packages, rows, elapsedMillis);
+    }
+
+    /**
+     * Per-hour package counts of one day, per dimension combination
+     */
+    private static final class DayTally {
+        private final Map<PackageRollupKey, long[]> hourly = new HashMap<>();
+        private long packages;
+        private int rows;
+
+        void add(PackageRollupKey key, int hour) {
+            hourly.computeIfAbsent(key, k -> new long[24])[hour]++;
+            packages++;
+        }
+    }
+
+    private DayTally rebuildDay(LocalDate day) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime dayEnd = day.plusDays(1).atStartOfDay();
+
+        // 1: Stream and count; the cursor only stays open inside a transaction on Postgres
+        DayTally tally = new DayTally();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> streamingJdbcTemplate.query(STREAM_PACKAGES, rs -> {
+            PackageRollupKey key = PackageRollupKey.of(
+                    rs.getString(1),
+                    rs.getString(2),
+                    (Boolean) rs.getObject(3),
+                    (Boolean) rs.getObject(4),
+                    rs.getString(5));
+            tally.add(key, rs.getTimestamp(6).toLocalDateTime().getHour());
+        }, Timestamp.valueOf(dayStart), Timestamp.valueOf(dayEnd)));
+
+        // 2: Hour rows, plus one day row per combination
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> args = new ArrayList<>();
+        for (Map.Entry<PackageRollupKey, long[]> entry : tally.hourly.entrySet()) {
+            long[] hours = entry.getValue();
+            long dayTotal = 0;
+            for (int hour = 0; hour < hours.length; hour++) {
+                if (hours[hour] > 0) {
+                    args.add(rollupArgs(RollupGranularity.HOUR, Timestamp.valueOf(dayStart.plusHours(hour)),
+                            entry.getKey(), hours[hour], now));
+                    dayTotal += hours[hour];
+                }
+            }
+            args.add(rollupArgs(RollupGranularity.DAY, Timestamp.valueOf(dayStart), entry.getKey(), dayTotal, now));
+        }
+        tally.rows = args.size();
+
+        // 3: Replace the day's buckets atomically
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            packageRollupRepository.deleteBucketsBetween(dayStart, dayEnd);
+            if (!args.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ROLLUP, args);
+            }
+        });
+
+        log.debug("Package rollups {}: {} packages, {} rollup rows", day, tally.packages, tally.rows);
+        return tally;
+    }
+
+    private static Object[] rollupArgs(RollupGranularity granularity, Timestamp bucketStart,
+                                       PackageRollupKey key, long count, Timestamp updatedAt) {
+        return new Object[]{
+                granularity.name(), bucketStart, key.packageCategory(), key.packageType(),
+                key.fragile(), key.insured(), key.city(), count, updatedAt
+        };
+    }
+}
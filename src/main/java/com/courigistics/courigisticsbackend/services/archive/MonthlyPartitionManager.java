@@ -0,0 +1,148 @@
+package com.courigistics.courigisticsbackend.services.archive;
+
+import com.courigistics.courigisticsbackend.services.jobs.JobLeaseManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps monthly range partitions (on created_at) in place for the partitioned tables
+ *
+ * Partitions are named {table}_pYYYYMM and created a few months ahead, so an insert never finds
+ * its month missing. Tables are converted to partitioned ones once, by script (see
+ * db/partitioning); until then, and on databases other than PostgreSQL, this does nothing.
+ * Every node schedules the maintenance; one at a time runs it, under a job lease.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MonthlyPartitionManager {
+
+    // Range-partitioned by month on created_at; the delivery event log joins this list when it lands
+    private static final List<String> PARTITIONED_TABLES = List.of("deliveries");
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final Pattern PARTITION_NAME = Pattern.compile("_p(\\d{6})$");
+    private static final String MAINTENANCE_JOB = "partition-maintenance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseManager jobLeaseManager;
+
+    @Value("${app.partitioning.months-ahead}")
+    private int monthsAhead;
+
+    @Value("${app.partitioning.lease-minutes}")
+    private long leaseMinutes;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        ensurePartitions();
+    }
+
+    @Scheduled(cron = "${app.partitioning.maintenance-cron}")
+    public void ensurePartitions() {
+        jobLeaseManager.runExclusively(MAINTENANCE_JOB, Duration.ofMinutes(leaseMinutes), holder -> {
+            for (String table : getPartitionedTables()) {
+                YearMonth current = YearMonth.now();
+                for (int i = 0; i <= monthsAhead; i++) {
+                    createPartition(table, current.plusMonths(i));
+                }
+            }
+        });
+    }
+
+    /**
+     * Tables that are actually partitioned in this database (empty off PostgreSQL)
+     */
+    public List<String> getPartitionedTables() {
+        if (!isPostgres()) {
+            return List.of();
+        }
+        List<String> partitioned = new ArrayList<>(PARTITIONED_TABLES.size());
+        for (String table : PARTITIONED_TABLES) {
+            Boolean isPartitioned = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?))",
+                    Boolean.class, table);
+            if (Boolean.TRUE.equals(isPartitioned)) {
+                partitioned.add(table);
+            } else {
+                log.debug("Table {} is not partitioned, skipping partition maintenance", table);
+            }
+        }
+        return partitioned;
+    }
+
+    /**
+     * Months with an attached partition, oldest first
+     */
+    public List<YearMonth> listPartitions(String table) {
+        List<String> names = jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                """, String.class, table);
+        List<YearMonth> months = new ArrayList<>(names.size());
+        for (String name : names) {
+            Matcher matcher = PARTITION_NAME.matcher(name);
+            if (matcher.find()) {
+                months.add(YearMonth.parse(matcher.group(1), SUFFIX));
+            }
+        }
+        months.sort(null);
+        return months;
+    }
+
+    /**
+     * Detaches a month's partition and drops it; the rows must be archived first
+     */
+    public void dropPartition(String table, YearMonth month) {
+        String partition = partitionName(table, month);
+        if (listPartitions(table).contains(month)) {
+            try {
+                // Concurrent detach does not block queries on the parent while it waits
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition + " CONCURRENTLY");
+            } catch (RuntimeException e) {
+                // An interrupted concurrent detach leaves the partition pending; finish it
+                log.warn("Concurrent detach of {} failed ({}), finalizing", partition, e.getMessage());
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition + " FINALIZE");
+            }
+        }
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+        log.info("Dropped partition {}", partition);
+    }
+
+    public static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+
+    private void createPartition(String table, YearMonth month) {
+        String partition = partitionName(table, month);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table
+                    + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" + month.plusMonths(1).atDay(1) + "')");
+        } catch (RuntimeException e) {
+            // Without a partition, inserts for that month fail; retried on the next run
+            log.error("Failed to create partition {}: {}", partition, e.getMessage());
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -0,0 +1,160 @@
+package com.courigistics.courigisticsbackend.services.archive;
+
+import com.courigistics.courigisticsbackend.entities.PartitionArchive;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads rows back out of partition archives written by {@link PartitionArchiver}
+ * Each row is the JSON object of the original columns (snake_case names, as in the table).
+ * Results are newest first by created_at, the column every archived table is partitioned on.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionArchiveReader {
+
+    private static final TypeReference<Map<String, Map<String, long[]>>> INDEX_TYPE = new TypeReference<>() {};
+    private static final Comparator<JsonNode> BY_CREATED_AT = Comparator.comparing(PartitionArchiveReader::createdAt);
+
+    private final ObjectStorage objectStorage;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.archive.cached-indexes}")
+    private int cachedIndexes;
+
+    // Archives are never rewritten, so their indexes never go stale
+    private Cache<String, Map<String, Map<String, long[]>>> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = Caffeine.newBuilder().maximumSize(cachedIndexes).build();
+    }
+
+    /**
+     * One owner's rows from an archive, newest first
+     * Indexed archives decompress only the owner's member and stop at the limit; older archives are scanned whole.
+     *
+     * @param ownerColumn column the owner is matched on, as in the table (e.g. sender_acc_id)
+     * @param filter      applied to the owner's rows
+     * @param limit       at most this many rows, the newest ones
+     */
+    public <T> List<T> readOwner(PartitionArchive archive, String ownerColumn, String ownerId,
+                                 Predicate<JsonNode> filter, Function<JsonNode, T> mapper, int limit) {
+        if (archive.getIndexStorageKey() == null) {
+            return scan(archive, row -> ownerId.equals(row.path(ownerColumn).asText(null)) && filter.test(row), mapper, limit);
+        }
+        long[] member = index(archive).getOrDefault(ownerColumn, Map.of()).get(ownerId);
+        if (member == null) {
+            return List.of();
+        }
+
+        List<T> matches = new ArrayList<>();
+        // Members are written newest first, so the first matches are the ones to keep
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(readRange(archive.getStorageKey(), member[0], member[1]))),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while (matches.size() < limit && (line = in.readLine()) != null) {
+                JsonNode row = objectMapper.readTree(line);
+                if (filter.test(row)) {
+                    matches.add(mapper.apply(row));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive " + archive.getStorageKey(), e);
+        }
+        log.debug("Read {} rows of {} {} from archive {}", matches.size(), ownerColumn, ownerId, archive.getStorageKey());
+        return matches;
+    }
+
+    /**
+     * Streams the whole archive once, keeping the newest matching rows
+     *
+     * @param filter applied to every row; cheap checks first, the archive holds a whole month
+     * @param limit  keep at most this many matches
+     */
+    public <T> List<T> scan(PartitionArchive archive, Predicate<JsonNode> filter, Function<JsonNode, T> mapper, int limit) {
+        // Min-heap on created_at, so the oldest kept match is the one dropped
+        PriorityQueue<JsonNode> newest = new PriorityQueue<>(BY_CREATED_AT);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Channels.newInputStream(objectStorage.open(archive.getStorageKey())), 64 * 1024),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                JsonNode row = objectMapper.readTree(line);
+                if (filter.test(row)) {
+                    newest.add(row);
+                    if (newest.size() > limit) {
+                        newest.poll();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive " + archive.getStorageKey(), e);
+        }
+        List<JsonNode> rows = new ArrayList<>(newest);
+        rows.sort(BY_CREATED_AT.reversed());
+        log.debug("Read {} matching rows from archive {}", rows.size(), archive.getStorageKey());
+        return rows.stream().map(mapper).toList();
+    }
+
+    private Map<String, Map<String, long[]>> index(PartitionArchive archive) {
+        return indexes.get(archive.getIndexStorageKey(), key -> {
+            try (InputStream in = Channels.newInputStream(objectStorage.open(key))) {
+                return objectMapper.readValue(in, INDEX_TYPE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read archive index " + key, e);
+            }
+        });
+    }
+
+    private byte[] readRange(String storageKey, long offset, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+        try (FileChannel channel = objectStorage.open(storageKey)) {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException("Archive " + storageKey + " ends before its indexed range");
+                }
+                position += read;
+            }
+        }
+        return buffer.array();
+    }
+
+    private static LocalDateTime createdAt(JsonNode row) {
+        return row.hasNonNull("created_at") ? LocalDateTime.parse(row.get("created_at").asText()) : LocalDateTime.MIN;
+    }
+}
@@ -0,0 +1,318 @@
+package com.courigistics.courigisticsbackend.services.archive;
+
+import com.courigistics.courigisticsbackend.entities.PartitionArchive;
+import com.courigistics.courigisticsbackend.repositories.PartitionArchiveRepository;
+import com.courigistics.courigisticsbackend.services.jobs.JobLeaseManager;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves expired monthly partitions out of the database
+ *
+ * For each partition older than the retention period:
+ * 1. Streams its rows as JSON lines into a gzip file, from one snapshot, and checks the count
+ * 2. Stores the file in object storage (write once, never modified)
+ * 3. Records the archive, which switches history reads for that month over to it
+ * 4. Detaches and drops the partition
+ * A run that dies between 3 and 4 is finished by the next one. Every node schedules the job; a run
+ * holds the archive job lease, renewed per partition, so no two nodes export or drop the same one.
+ *
+ * History is read per owner, so an archive is not one stream in table order. Rows are written once per
+ * owner column (sender, courier), grouped by owner and newest first, and every owner's group is its own
+ * gzip member. A sidecar index maps each owner to the byte range of its member, so a reader decompresses
+ * only that owner's rows and can stop at its limit. The file stays valid gzip (members concatenate);
+ * the price is one copy of each row per owner column.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PartitionArchiver {
+
+    private static final String ARCHIVE_PREFIX = "archive/";
+    private static final String INDEX_SUFFIX = ".index.json";
+    private static final String ARCHIVE_JOB = "partition-archive";
+
+    // Columns history is read by; the first one's section holds every row and is the one counted
+    private static final Map<String, List<String>> OWNER_COLUMNS = Map.of(
+            "deliveries", List.of("sender_acc_id", "courier_id")
+    );
+
+    private final MonthlyPartitionManager partitionManager;
+    private final PartitionArchiveRepository partitionArchiveRepository;
+    private final ObjectStorage objectStorage;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final JobLeaseManager jobLeaseManager;
+
+    @Value("${app.archive.retention-months}")
+    private int retentionMonths;
+
+    @Value("${app.archive.fetch-size}")
+    private int fetchSize;
+
+    @Value("${app.archive.staging-dir}")
+    private String stagingDirPath;
+
+    @Value("${app.archive.lease-minutes}")
+    private long leaseMinutes;
+
+    private Path stagingDir;
+    private JdbcTemplate streamingJdbcTemplate;
+
+    @PostConstruct
+    void init() throws IOException {
+        stagingDir = Paths.get(stagingDirPath).toAbsolutePath().normalize();
+        Files.createDirectories(stagingDir);
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Scheduled(cron = "${app.archive.cron}")
+    public void archiveExpiredPartitions() {
+        Duration ttl = Duration.ofMinutes(leaseMinutes);
+        jobLeaseManager.runExclusively(ARCHIVE_JOB, ttl, holder -> archiveExpiredPartitions(holder, ttl));
+    }
+
+    private void archiveExpiredPartitions(String holder, Duration ttl) {
+        YearMonth oldestKept = YearMonth.now().minusMonths(retentionMonths);
+        for (String table : partitionManager.getPartitionedTables()) {
+            for (YearMonth month : partitionManager.listPartitions(table)) {
+                if (!month.isBefore(oldestKept)) {
+                    break;
+                }
+                // The lease must outlast one partition; losing it means another node may be archiving now
+                if (!jobLeaseManager.renew(ARCHIVE_JOB, holder, ttl)) {
+                    log.warn("Archive lease lost before {}, stopping", MonthlyPartitionManager.partitionName(table, month));
+                    return;
+                }
+                try {
+                    archive(table, month);
+                } catch (IOException | RuntimeException e) {
+                    // The partition stays in place and is retried on the next run
+                    log.error("Failed to archive {}: {}", MonthlyPartitionManager.partitionName(table, month), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void archive(String table, YearMonth month) throws IOException {
+        String partition = MonthlyPartitionManager.partitionName(table, month);
+
+        // 1: Already archived by a run that stopped before the drop
+        if (partitionArchiveRepository.existsByTableNameAndPeriodStart(table, month.atDay(1))) {
+            partitionManager.dropPartition(table, month);
+            return;
+        }
+
+        // 2: Export
+        long start = System.nanoTime();
+        Path staging = Files.createTempFile(stagingDir, partition + "-", ".jsonl.gz");
+        Path indexStaging = Files.createTempFile(stagingDir, partition + "-", INDEX_SUFFIX);
+        try {
+            List<String> ownerColumns = OWNER_COLUMNS.getOrDefault(table, List.of());
+            Map<String, Map<String, long[]>> index = new HashMap<>();
+            long rows = export(partition, ownerColumns, staging, index);
+            long sizeBytes = Files.size(staging);
+
+            // 3: Store, then record
+            String storageKey = ARCHIVE_PREFIX + table + "/" + partition + ".jsonl.gz";
+            String indexStorageKey = null;
+            if (!ownerColumns.isEmpty()) {
+                objectMapper.writeValue(indexStaging.toFile(), index);
+                indexStorageKey = storageKey + INDEX_SUFFIX;
+                objectStorage.put(indexStorageKey, indexStaging);
+            }
+            objectStorage.put(storageKey, staging);
+            partitionArchiveRepository.save(PartitionArchive.builder()
+                    .tableName(table)
+                    .periodStart(month.atDay(1))
+                    .storageKey(storageKey)
+                    .indexStorageKey(indexStorageKey)
+                    .rowCount(rows)
+                    .sizeBytes(sizeBytes)
+                    .archivedAt(LocalDateTime.now())
+                    .build());
+            log.info("Archived {}: {} rows, {} bytes in {} ms",
+                    partition, rows, sizeBytes, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            Files.deleteIfExists(staging);
+            Files.deleteIfExists(indexStaging);
+        }
+
+        // 4: Out of the live table
+        partitionManager.dropPartition(table, month);
+    }
+
+    /**
+     * Writes the partition's sections and fills the owner index
+     *
+     * @return rows in the first section (every row once); fails if it differs from the partition's row count
+     */
+    private long export(String partition, List<String> ownerColumns, Path target, Map<String, Map<String, long[]>> index) {
+        // Count and rows from one snapshot; the cursor only stays open inside a transaction on Postgres
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        Long written = snapshot.execute(status -> {
+            Long expected = streamingJdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class);
+            long count;
+            try (ArchiveOutputStream out = new ArchiveOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(target), 64 * 1024))) {
+                if (ownerColumns.isEmpty()) {
+                    count = writeSection(out, "SELECT NULL, row_to_json(p)::text FROM " + partition + " p", null);
+                } else {
+                    // 1: Every row, by the first owner; rows without one go last and are not indexed
+                    String first = ownerColumns.get(0);
+                    count = writeSection(out, "SELECT " + first + "::text, row_to_json(p)::text FROM " + partition
+                            + " p ORDER BY " + first + " NULLS LAST, created_at DESC", index.computeIfAbsent(first, c -> new HashMap<>()));
+                    // 2: The rows that have each further owner
+                    for (String column : ownerColumns.subList(1, ownerColumns.size())) {
+                        writeSection(out, "SELECT " + column + "::text, row_to_json(p)::text FROM " + partition
+                                + " p WHERE " + column + " IS NOT NULL ORDER BY " + column + ", created_at DESC",
+                                index.computeIfAbsent(column, c -> new HashMap<>()));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (expected == null || expected != count) {
+                throw new IllegalStateException("Exported " + count + " rows from " + partition + ", expected " + expected);
+            }
+            return count;
+        });
+        return written != null ? written : 0;
+    }
+
+    /**
+     * Streams (owner, row) pairs, starting a gzip member whenever the owner changes
+     *
+     * @param offsets owner → [offset, length] of its member; null to write one unindexed member
+     */
+    private long writeSection(ArchiveOutputStream out, String sql, Map<String, long[]> offsets) throws IOException {
+        SectionWriter section = new SectionWriter(out, offsets);
+        streamingJdbcTemplate.query(sql, section);
+        section.finishMember();
+        return section.rows;
+    }
+
+    private static final class SectionWriter implements RowCallbackHandler {
+        private final ArchiveOutputStream out;
+        private final Map<String, long[]> offsets;
+        private Writer member;
+        private String owner;
+        private long memberStart;
+        private long rows;
+
+        SectionWriter(ArchiveOutputStream out, Map<String, long[]> offsets) {
+            this.out = out;
+            this.offsets = offsets;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            String rowOwner = rs.getString(1);
+            try {
+                if (member == null || (offsets != null && !Objects.equals(rowOwner, owner))) {
+                    finishMember();
+                    owner = rowOwner;
+                    memberStart = out.position;
+                    member = new BufferedWriter(new OutputStreamWriter(
+                            new GZIPOutputStream(out.member(), 8 * 1024), StandardCharsets.UTF_8));
+                }
+                member.write(rs.getString(2));
+                member.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        void finishMember() throws IOException {
+            if (member == null) {
+                return;
+            }
+            // Closing writes the gzip trailer but leaves the file open
+            member.close();
+            member = null;
+            if (offsets != null && owner != null) {
+                offsets.put(owner, new long[]{memberStart, out.position - memberStart});
+            }
+        }
+    }
+
+    /**
+     * Tracks the file position so members can be indexed
+     */
+    private static final class ArchiveOutputStream extends FilterOutputStream {
+        private long position;
+
+        ArchiveOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            position += len;
+        }
+
+        /**
+         * A view for one gzip member; closing it does not close the file
+         */
+        OutputStream member() {
+            return new FilterOutputStream(this) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+    }
+}
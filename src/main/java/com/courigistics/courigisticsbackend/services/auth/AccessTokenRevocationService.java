@@ -0,0 +1,22 @@
+package com.courigistics.courigisticsbackend.services.auth;
+
+import java.time.Instant;
+
+/**
+ * Revocation of individual access tokens by jti
+ * Revocations are persisted and fanned out to every node's in-memory deny list
+ */
+public interface AccessTokenRevocationService {
+
+    /**
+     * Revokes an access token until it expires
+     * @param jti the token's ID claim
+     * @param expiresAt the token's exp claim
+     */
+    void revoke(String jti, Instant expiresAt);
+
+    /**
+     * Constant-time check used by the JWT filter on every request
+     */
+    boolean isRevoked(String jti, Instant expiresAt);
+}
@@ -0,0 +1,116 @@
+package com.courigistics.courigisticsbackend.services.auth;
+
+import com.courigistics.courigisticsbackend.config.security.AccessTokenDenyList;
+import com.courigistics.courigisticsbackend.entities.RevokedAccessToken;
+import com.courigistics.courigisticsbackend.repositories.RevokedAccessTokenRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Keeps the local {@link AccessTokenDenyList} in sync with the revoked_access_tokens table
+ *
+ * The table is the change feed: revoke() inserts a row and updates the local list at
+ * once; every node polls for rows with a higher id than it has seen, so other nodes
+ * pick the revocation up within one poll interval. No broker needed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccessTokenRevocationServiceImpl implements AccessTokenRevocationService {
+
+    private static final int FEED_BATCH_SIZE = 1000;
+    private static final Duration FEED_SETTLE = Duration.ofSeconds(10);
+
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final AccessTokenDenyList accessTokenDenyList;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    // Highest feed id applied locally; only the poller thread writes it
+    private volatile long lastSeenId = 0;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("auth.access_tokens.revoked", accessTokenDenyList, AccessTokenDenyList::size);
+    }
+
+    @Override
+    public void revoke(String jti, Instant expiresAt) {
+        if (jti == null || expiresAt == null || !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+
+        // 1: Effective on this node immediately
+        accessTokenDenyList.revoke(jti, expiresAt.toEpochMilli());
+
+        // 2: Published to the others through the feed
+        // Own transaction: a duplicate revocation must not roll back the caller (logout)
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            requiresNew.executeWithoutResult(status ->
+                    revokedAccessTokenRepository.save(RevokedAccessToken.builder()
+                            .jti(jti)
+                            .expiresAt(expiresAt)
+                            .revokedAt(LocalDateTime.now())
+                            .build()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Access token {} was already revoked", jti);
+        }
+    }
+
+    @Override
+    public boolean isRevoked(String jti, Instant expiresAt) {
+        return jti != null && expiresAt != null && accessTokenDenyList.isRevoked(jti, expiresAt.toEpochMilli());
+    }
+
+    /**
+     * Applies new revocations from the feed; the first run loads everything still unexpired
+     *
+     * Identity values are handed out before commit, so a lower id can become visible after a
+     * higher one. The cursor therefore only moves past rows older than FEED_SETTLE; newer rows
+     * are applied but read again next time (re-applying is harmless).
+     */
+    @Scheduled(fixedDelayString = "${app.access-token-revocation.poll-interval-ms}")
+    public void pollChangeFeed() {
+        LocalDateTime settledBefore = LocalDateTime.now().minus(FEED_SETTLE);
+        long cursor = lastSeenId;
+        boolean settled = true;
+        List<RevokedAccessToken> batch;
+        do {
+            batch = revokedAccessTokenRepository
+                    .findTop1000ByIdGreaterThanAndExpiresAtAfterOrderByIdAsc(cursor, Instant.now());
+            for (RevokedAccessToken revoked : batch) {
+                accessTokenDenyList.revoke(revoked.getJti(), revoked.getExpiresAt().toEpochMilli());
+                cursor = revoked.getId();
+                settled = settled && revoked.getRevokedAt().isBefore(settledBefore);
+                if (settled) {
+                    lastSeenId = cursor;
+                }
+            }
+        } while (batch.size() == FEED_BATCH_SIZE);
+    }
+
+    @Scheduled(fixedDelayString = "${app.access-token-revocation.cleanup-interval-ms}")
+    public void cleanup() {
+        accessTokenDenyList.evictExpired();
+        Integer deleted = new TransactionTemplate(transactionManager).execute(status ->
+                revokedAccessTokenRepository.deleteExpired(Instant.now()));
+        if (deleted != null && deleted > 0) {
+            log.debug("Deleted {} expired access token revocations", deleted);
+        }
+    }
+}
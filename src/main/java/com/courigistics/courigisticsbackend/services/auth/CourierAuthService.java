@@ -4,9 +4,13 @@ import com.courigistics.courigisticsbackend.dto.requests.auth.LoginRequest;
 import com.courigistics.courigisticsbackend.dto.requests.courier.CourierRegisterRequest;
 import com.courigistics.courigisticsbackend.dto.requests.courier.CourierSetupAccountRequest;
 import com.courigistics.courigisticsbackend.dto.responses.auth.AuthResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierBulkApprovalResponse;
 import com.courigistics.courigisticsbackend.dto.responses.courier.CourierRegistrationResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.PendingCourierPageResponse;
 import org.springframework.security.core.Authentication;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public interface CourierAuthService {
@@ -30,6 +34,19 @@ public interface CourierAuthService {
      */
     void approveCourier(UUID courierId, UUID adminId);
 
+    /**
+     * Approves many couriers in one transaction
+     * Couriers that are missing, already approved or unverified are skipped and reported, not failed
+     * Employee IDs are reserved as one block and setup emails are sent after commit
+     */
+    CourierBulkApprovalResponse approveCouriers(List<UUID> courierIds, UUID adminId);
+
+    /**
+     * Pending-approval queue, oldest first
+     * Pass the previous page's nextAfterRegisteredAt/nextAfterId to continue; both null for the first page
+     */
+    PendingCourierPageResponse getPendingApprovalQueue(LocalDateTime afterRegisteredAt, UUID afterId, int size);
+
     /**
      * Step 4: Courier sets up account (username + password)
      * Uses employeeId as identifier
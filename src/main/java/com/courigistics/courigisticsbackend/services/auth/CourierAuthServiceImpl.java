@@ -1,37 +1,57 @@
 package com.courigistics.courigisticsbackend.services.auth;
 
+import com.courigistics.courigisticsbackend.config.security.JwtAuthenticationDetails;
 import com.courigistics.courigisticsbackend.config.security.JwtService;
+import com.courigistics.courigisticsbackend.config.security.LoginAttemptTracker;
 import com.courigistics.courigisticsbackend.dto.requests.auth.LoginRequest;
 import com.courigistics.courigisticsbackend.dto.requests.courier.CourierRegisterRequest;
 import com.courigistics.courigisticsbackend.dto.requests.courier.CourierSetupAccountRequest;
 import com.courigistics.courigisticsbackend.dto.responses.auth.AuthResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierBulkApprovalResponse;
 import com.courigistics.courigisticsbackend.dto.responses.courier.CourierRegistrationResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.PendingCourierPageResponse;
+import com.courigistics.courigisticsbackend.dto.responses.courier.PendingCourierResponse;
 import com.courigistics.courigisticsbackend.entities.*;
 import com.courigistics.courigisticsbackend.entities.enums.*;
 import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
 import com.courigistics.courigisticsbackend.exceptions.DuplicateResourceException;
 import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
 import com.courigistics.courigisticsbackend.repositories.*;
+import com.courigistics.courigisticsbackend.services.depot.DepotLookupService;
 import com.courigistics.courigisticsbackend.services.email.EmailService;
+import com.courigistics.courigisticsbackend.services.refresh_token.RefreshTokenService;
 import com.courigistics.courigisticsbackend.services.verification_token.VerificationTokenService;
 import com.courigistics.courigisticsbackend.utils.CourierValidationUtils;
 import com.courigistics.courigisticsbackend.utils.EmployeeIdGenerator;
 import com.courigistics.courigisticsbackend.utils.PhoneNumberUtils;
 import com.courigistics.courigisticsbackend.utils.ValidationUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service("courierAuthService")
 @Slf4j
@@ -41,13 +61,19 @@ public class CourierAuthServiceImpl implements CourierAuthService {
     private final AccountRepository accountRepository;
     private final VehicleRepository vehicleRepository;
     private final DepotRepository depotRepository;
+    private final DepotLookupService depotLookupService;
     private final VerificationTokenService verificationTokenService;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
     private final EmployeeIdGenerator employeeIdGenerator;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final HttpServletRequest httpRequest;
+    private final LoginActivityBuffer loginActivityBuffer;
+    private final PlatformTransactionManager transactionManager;
 
     @Value("${app.courier.default-depot.code}")
     private String defaultDepotCode;
@@ -87,8 +113,9 @@ public class CourierAuthServiceImpl implements CourierAuthService {
         // 3: Find the default depot (Only if NOT a freelancer)
         Depot assignedDepot = null;
         if (request.employmentType() != EmploymentType.FREELANCER) {
-            assignedDepot = depotRepository.findByCode(defaultDepotCode)
-                    .orElseThrow(() -> new ResourceNotFoundException("Default depot not found"));
+            // Code -> id is cached; the reference is enough to set the foreign key
+            assignedDepot = depotRepository.getReferenceById(depotLookupService.findIdByCode(defaultDepotCode)
+                    .orElseThrow(() -> new ResourceNotFoundException("Default depot not found")));
         }
 
         Account account = Account.builder()
@@ -254,6 +281,102 @@ public class CourierAuthServiceImpl implements CourierAuthService {
         log.info("Courier approved: {}", courier.getAccount().getEmail());
     }
 
+    @Override
+    public CourierBulkApprovalResponse approveCouriers(List<UUID> courierIds, UUID adminId) {
+        List<UUID> distinctIds = courierIds.stream().distinct().toList();
+        log.info("Admin {} bulk approving {} couriers", adminId, distinctIds.size());
+
+        List<Runnable> emails = new ArrayList<>();
+        CourierBulkApprovalResponse response = new TransactionTemplate(transactionManager).execute(status -> {
+            // 1: Load every courier with its account in one query
+            Map<UUID, Courier> couriers = courierRepository.findAllWithAccountByIdIn(distinctIds).stream()
+                    .collect(Collectors.toMap(Courier::getId, Function.identity()));
+
+            // 2: Separate approvable couriers from the rest (same rules as approveCourier)
+            List<Courier> approvable = new ArrayList<>();
+            List<CourierBulkApprovalResponse.SkippedCourier> skipped = new ArrayList<>();
+            for (UUID courierId : distinctIds) {
+                Courier courier = couriers.get(courierId);
+                String reason = courier == null ? "Courier not found"
+                        : !Boolean.TRUE.equals(courier.getPendingApproval()) ? "Courier is not pending approval"
+                        : !Boolean.TRUE.equals(courier.getAccount().getEmailVerified()) ? "Courier email not yet verified"
+                        : null;
+                if (reason != null) {
+                    skipped.add(new CourierBulkApprovalResponse.SkippedCourier(courierId, reason));
+                } else {
+                    approvable.add(courier);
+                }
+            }
+            if (approvable.isEmpty()) {
+                return new CourierBulkApprovalResponse(distinctIds.size(), 0, List.of(), skipped);
+            }
+
+            // 3: Admin as a reference, no SELECT needed
+            Account admin = adminId != null ? accountRepository.getReferenceById(adminId) : null;
+
+            // 4: One employee ID block for every employee in the batch
+            int employeeCount = (int) approvable.stream()
+                    .filter(courier -> courier.getEmploymentType() == EmploymentType.EMPLOYEE)
+                    .count();
+            Iterator<String> employeeIds = employeeCount > 0
+                    ? employeeIdGenerator.generateEmployeeIds(employeeCount).iterator()
+                    : Collections.emptyIterator();
+
+            // 5: Update the managed couriers; flushed at commit as batched UPDATEs
+            LocalDateTime now = LocalDateTime.now();
+            for (Courier courier : approvable) {
+                courier.setPendingApproval(false);
+                courier.setApprovedAt(now);
+                courier.setStatus(CourierStatus.ACTIVE);
+                courier.setApprovedBy(admin);
+                if (courier.getEmploymentType() == EmploymentType.EMPLOYEE) {
+                    courier.setEmployeeId(employeeIds.next());
+                }
+            }
+
+            // 6: Setup tokens for all accounts at once: earlier ones are reissued in place (batched UPDATEs), the rest batched INSERTs
+            List<VerificationToken> setupTokens = verificationTokenService.createTokens(
+                    approvable.stream().map(Courier::getAccount).toList(), TokenType.ACCOUNT_SETUP);
+
+            List<CourierBulkApprovalResponse.ApprovedCourier> approved = new ArrayList<>(approvable.size());
+            for (int i = 0; i < approvable.size(); i++) {
+                Courier courier = approvable.get(i);
+                String email = courier.getAccount().getEmail();
+                String firstName = courier.getFirstName();
+                String employeeId = courier.getEmployeeId();
+                String setupToken = setupTokens.get(i).getToken();
+
+                approved.add(new CourierBulkApprovalResponse.ApprovedCourier(courier.getId(), email, employeeId));
+                emails.add(courier.getEmploymentType() == EmploymentType.EMPLOYEE
+                        ? () -> emailService.sendCourierEmployeeApprovalEmail(email, firstName, employeeId, setupToken)
+                        : () -> emailService.sendCourierFreelancerApprovalEmail(email, firstName, setupToken));
+            }
+            return new CourierBulkApprovalResponse(distinctIds.size(), approved.size(), approved, skipped);
+        });
+
+        // 7: Only after commit, hand every email to the async sender in one pass
+        emails.forEach(Runnable::run);
+
+        log.info("Bulk approval complete: {} approved, {} skipped",
+                response.approvedCount(), response.skipped().size());
+        return response;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PendingCourierPageResponse getPendingApprovalQueue(LocalDateTime afterRegisteredAt, UUID afterId, int size) {
+        Pageable page = PageRequest.of(0, size);
+        List<PendingCourierResponse> items = afterRegisteredAt == null || afterId == null
+                ? courierRepository.findPendingApprovalQueue(page)
+                : courierRepository.findPendingApprovalQueueAfter(afterRegisteredAt, afterId, page);
+
+        if (items.size() < size) {
+            return new PendingCourierPageResponse(items, null, null);
+        }
+        PendingCourierResponse last = items.get(items.size() - 1);
+        return new PendingCourierPageResponse(items, last.registeredAt(), last.courierId());
+    }
+
     @Override
     @Transactional
     public void setupAccount(CourierSetupAccountRequest request) {
@@ -309,40 +432,35 @@ public class CourierAuthServiceImpl implements CourierAuthService {
     public AuthResponse login(LoginRequest request) {
         log.info("Courier login attempt for : {}", request.usernameOrEmail());
 
-        // 1: Authenticate
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.usernameOrEmail(),
-                        request.password()
-                )
+        // 1: Reject throttled callers before any BCrypt work
+        String clientIp = httpRequest.getRemoteAddr();
+        loginAttemptTracker.checkAllowed(request.usernameOrEmail(), clientIp);
+
+        // 2: Authenticate, the client IP travels in the details for the failure/success listeners
+        UsernamePasswordAuthenticationToken authenticationRequest = new UsernamePasswordAuthenticationToken(
+                request.usernameOrEmail(),
+                request.password()
         );
+        authenticationRequest.setDetails(new WebAuthenticationDetails(clientIp, null));
+        Authentication authentication = authenticationManager.authenticate(authenticationRequest);
 
-        // 2: Get account
+        // 3: Get account
         Account account = (Account) authentication.getPrincipal();
 
-        // 3: Verify account type is COURIER
+        // 4: Verify account type is COURIER
         if (account.getAccountType() != AccountType.COURIER){
             throw new BadRequestException("Invalid account type for courier login");
         }
 
-        // 4: Generate tokens
+        // 5: Generate tokens
         String accessToken = jwtService.generateAccessToken(account);
         String refreshToken = jwtService.generateRefreshToken(account);
 
-        // Save the refresh token
-        RefreshToken refreshTokenEntity = RefreshToken.builder()
-                .account(account)
-                .token(refreshToken)
-                .expiryDate(Instant.now().plusMillis(jwtService.getRefreshTokenExpiration()))
-                .invalidated(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        refreshTokenRepository.save(refreshTokenEntity);
+        // 6: Store the refresh token (hash only, session cap enforced)
+        refreshTokenService.store(account, refreshToken);
 
-        // 6: Update last login
-        account.setLastLogin(LocalDateTime.now());
-        accountRepository.save(account);
+        // 7: Record login metadata, written behind in batches rather than a full account update
+        loginActivityBuffer.record(account.getId(), clientIp, httpRequest.getHeader(HttpHeaders.USER_AGENT));
 
         log.info("Courier login successful: {}", account.getUsername());
 
@@ -359,7 +477,10 @@ public class CourierAuthServiceImpl implements CourierAuthService {
     public void logout(Authentication authentication) {
         if (authentication != null && authentication.getPrincipal() instanceof Account account){
             log.info("Courier logout: {}", account.getUsername());
-            refreshTokenRepository.invalidateAllByAccount(account);
+            refreshTokenService.revokeAll(account);
+            if (authentication.getDetails() instanceof JwtAuthenticationDetails details){
+                accessTokenRevocationService.revoke(details.getJti(), details.getExpiresAt());
+            }
         }
     }
 }
@@ -1,6 +1,8 @@
 package com.courigistics.courigisticsbackend.services.auth;
 
+import com.courigistics.courigisticsbackend.config.security.JwtAuthenticationDetails;
 import com.courigistics.courigisticsbackend.config.security.JwtService;
+import com.courigistics.courigisticsbackend.config.security.LoginAttemptTracker;
 import com.courigistics.courigisticsbackend.dto.requests.common.AddressDTO;
 import com.courigistics.courigisticsbackend.dto.requests.auth.LoginRequest;
 import com.courigistics.courigisticsbackend.dto.requests.customer.CustomerRegisterRequest;
@@ -13,7 +15,7 @@ import com.courigistics.courigisticsbackend.events.OnRegistrationCompleteEvent;
 import com.courigistics.courigisticsbackend.exceptions.DuplicateResourceException;
 import com.courigistics.courigisticsbackend.repositories.AccountRepository;
 import com.courigistics.courigisticsbackend.repositories.CustomerRepository;
-import com.courigistics.courigisticsbackend.repositories.RefreshTokenRepository;
+import com.courigistics.courigisticsbackend.services.refresh_token.RefreshTokenService;
 import com.courigistics.courigisticsbackend.services.verification_token.VerificationTokenService;
 import com.courigistics.courigisticsbackend.utils.PhoneNumberUtils;
 import com.courigistics.courigisticsbackend.utils.ValidationUtils;
@@ -22,15 +24,16 @@ import jakarta.validation.constraints.NotBlank;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -48,7 +51,10 @@ public class CustomerAuthServiceImpl implements AuthService {
     private final AuthenticationManager authenticationManager;
     private final ApplicationEventPublisher eventPublisher;
     private final CustomerRepository customerRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenService refreshTokenService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final LoginActivityBuffer loginActivityBuffer;
     // TODO: add fingerprinting, Parsers(os family etc) , CacheManager(redis)
 
 
@@ -212,14 +218,18 @@ public class CustomerAuthServiceImpl implements AuthService {
     public AuthResponse login(LoginRequest request) {
         log.info("Login attempt for user: {}", request.usernameOrEmail());
 
+        // Throttled callers are turned away before any BCrypt work
+        String clientIp = this.request.getRemoteAddr();
+        loginAttemptTracker.checkAllowed(request.usernameOrEmail(), clientIp);
+
         try{
-            // Authenticate the user
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(
-                            request.usernameOrEmail(),
-                            request.password()
-                    )
+            // Authenticate the user, the client IP travels in the details for the failure/success listeners
+            UsernamePasswordAuthenticationToken authenticationRequest = new UsernamePasswordAuthenticationToken(
+                    request.usernameOrEmail(),
+                    request.password()
             );
+            authenticationRequest.setDetails(new WebAuthenticationDetails(clientIp, null));
+            Authentication authentication = authenticationManager.authenticate(authenticationRequest);
 
             // Get the authenticated account principal
             Account principalAccount = (Account) authentication.getPrincipal();
@@ -239,13 +249,13 @@ public class CustomerAuthServiceImpl implements AuthService {
             String refreshToken = jwtService.generateRefreshToken(account);
 
             /**
-             * Becuase we are saving the Refresh token to the DB, we have to build the entity
-             * - We associate the RefreshToken with an account
-             * - The actual token created by `jwtService.generateRefreshToken()` is stored in the RefreshToken entity
-             *      as the token string
-             * - Then we save the token
+             * The refresh token is stored by hash only (see RefreshTokenService)
+             * - Storing it also enforces the per-account session cap
              */
-            createAndSaveRefreshToken(account, refreshToken);
+            refreshTokenService.store(account, refreshToken);
+
+            // Login metadata is written behind in batches rather than a full account update
+            loginActivityBuffer.record(account.getId(), clientIp, this.request.getHeader(HttpHeaders.USER_AGENT));
 
             // TODO: Add device fingerprint for unknown login alerts to users
             log.info("Login successful for user:{}", account.getUsername());
@@ -259,19 +269,6 @@ public class CustomerAuthServiceImpl implements AuthService {
         }
     }
 
-    private void createAndSaveRefreshToken(Account account, String refreshToken) {
-        // create a new RefreshToken
-        RefreshToken newRefreshToken = RefreshToken.builder()
-                .account(account)
-                .token(refreshToken)
-                .expiryDate(Instant.now().plusMillis(jwtService.getRefreshTokenExpiration()))
-                .invalidated(false)
-                .createdAt(LocalDateTime.now())
-                .build();
-
-        refreshTokenRepository.save(newRefreshToken);
-    }
-
     @Override
     @Transactional
     public void logout(Authentication authentication) {
@@ -279,38 +276,29 @@ public class CustomerAuthServiceImpl implements AuthService {
             log.info("Logout requested for user:{}", account.getUsername());
 
             // Invalidate all refresh tokens for this account
-            refreshTokenRepository.invalidateAllByAccount(account);
+            refreshTokenService.revokeAll(account);
+
+            // Revoke the access token used for this request so it stops working before it expires
+            if (authentication.getDetails() instanceof JwtAuthenticationDetails details){
+                accessTokenRevocationService.revoke(details.getJti(), details.getExpiresAt());
+            }
             log.info("Logout successful for user:{}", account.getUsername());
         }
     }
 
     @Override
+    @Transactional
     public AuthResponse refreshToken(String refreshToken) {
         log.debug("Token refresh attempt for user");
 
-        // Find the refresh token in the database
-        RefreshToken storedToken = refreshTokenRepository.findByToken(refreshToken)
-                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
-
-        // Check if token is expired or invalidated
-        if (storedToken.isExpired() || storedToken.isInvalidated()){
-            log.warn("Expired or invalidated refresh token used");
-            throw new IllegalArgumentException("Refresh token expired or invalid");
-        }
-
-        // Invalidate the old token that was just used
-        storedToken.setInvalidated(true);
-        // save again so that the old token is marked as invalid
-        refreshTokenRepository.save(storedToken);
-
-        // Get the associated account from the token
-        Account account = storedToken.getAccount();
+        // Consume the presented token (rotation-on-use) and get its account
+        Account account = refreshTokenService.rotate(refreshToken);
 
         // Generate new tokens
         String newAccessToken = jwtService.generateAccessToken(account);
         String newRefreshToken = jwtService.generateRefreshToken(account);
 
-        createAndSaveRefreshToken(account, newRefreshToken);
+        refreshTokenService.store(account, newRefreshToken);
         log.info("New refresh token successfully saved to DB");
         log.info("Token refreshed successfully for user: {}", account.getUsername());
 
@@ -355,15 +343,16 @@ public class CustomerAuthServiceImpl implements AuthService {
         Account account = verificationToken.getAccount();
         log.info("Account :{} with associate token found",account.getUsername());
 
-        // TODO: Incase of cache, evict users
+        // The cached principal is evicted on save (see CacheEvictionEntityListener)
         // set the new password
         account.setPassword(passwordEncoder.encode(request.newPassword()));
         account.setAccountNonLocked(true);
-        // TODO: Set failed login attempts
+        account.setLockedAt(null);
         accountRepository.save(account);
+        loginAttemptTracker.clearAccount(account.getUsername(), account.getEmail());
 
         // Invalidate all refresh token for this user
-        refreshTokenRepository.invalidateAllByAccount(account);
+        refreshTokenService.revokeAll(account);
 
         // TODO: Add publisher for email sending
         log.info("Password reset successful for user: {}", account.getUsername());
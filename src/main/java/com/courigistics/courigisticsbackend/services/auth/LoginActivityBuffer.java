@@ -0,0 +1,125 @@
+package com.courigistics.courigisticsbackend.services.auth;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for login metadata (last login, login count, client IP and user agent)
+ *
+ * Logins only touch a map; a scheduled flush writes one batched UPDATE per interval instead
+ * of a full account update per login. Repeated logins of the same account between flushes
+ * collapse into one row update. The metadata is not part of the account's profile, so the
+ * flush deliberately leaves updated_at alone.
+ *
+ * Pending entries are flushed on graceful shutdown; a crash loses at most one interval of metadata.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LoginActivityBuffer {
+
+    private static final int USER_AGENT_MAX_LENGTH = 255;
+    private static final int IP_MAX_LENGTH = 45;
+
+    private static final String UPDATE_LOGIN_ACTIVITY =
+            "UPDATE accounts SET last_login = ?, login_count = login_count + ?, " +
+            "last_login_ip = ?, last_login_user_agent = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<UUID, PendingLogin> pending = new ConcurrentHashMap<>();
+
+    private Counter flushedRows;
+    private Counter flushFailures;
+
+    private record PendingLogin(LocalDateTime lastLogin, long count, String ip, String userAgent) {
+        PendingLogin merge(PendingLogin newer) {
+            return new PendingLogin(newer.lastLogin, count + newer.count, newer.ip, newer.userAgent);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        flushedRows = Counter.builder("auth.login.activity.flushed")
+                .description("Account rows updated by the login activity flush")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("auth.login.activity.flush.failures")
+                .description("Login activity flushes that failed and were re-queued")
+                .register(meterRegistry);
+        meterRegistry.gauge("auth.login.activity.pending", pending, Map::size);
+    }
+
+    public void record(UUID accountId, String clientIp, String userAgent) {
+        PendingLogin login = new PendingLogin(LocalDateTime.now(), 1,
+                truncate(clientIp, IP_MAX_LENGTH), truncate(userAgent, USER_AGENT_MAX_LENGTH));
+        pending.merge(accountId, login, PendingLogin::merge);
+    }
+
+    @Scheduled(fixedDelayString = "${app.login-activity.flush-interval-ms}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 1: Drain; remove() hands each entry to exactly one flush even while logins keep merging
+        List<Map.Entry<UUID, PendingLogin>> batch = new ArrayList<>(pending.size());
+        for (UUID accountId : pending.keySet()) {
+            PendingLogin login = pending.remove(accountId);
+            if (login != null) {
+                batch.add(Map.entry(accountId, login));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // 2: One batched statement for the whole drain
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LOGIN_ACTIVITY, batch, batch.size(), (ps, entry) -> {
+                PendingLogin login = entry.getValue();
+                ps.setTimestamp(1, Timestamp.valueOf(login.lastLogin()));
+                ps.setLong(2, login.count());
+                ps.setString(3, login.ip());
+                ps.setString(4, login.userAgent());
+                ps.setObject(5, entry.getKey());
+            });
+            flushedRows.increment(batch.size());
+            log.debug("Flushed login activity for {} accounts", batch.size());
+        } catch (RuntimeException e) {
+            // 3: Put the drained entries back, merged under anything recorded since, and retry next interval
+            flushFailures.increment();
+            for (Map.Entry<UUID, PendingLogin> entry : batch) {
+                pending.merge(entry.getKey(), entry.getValue(), (newer, older) -> older.merge(newer));
+            }
+            log.error("Login activity flush failed for {} accounts, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+        if (!pending.isEmpty()) {
+            log.warn("Shutting down with {} unflushed login activity entries", pending.size());
+        }
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,23 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations to the other nodes so they drop their in-process (L1) copies
+ * Delivery is at least once; applying an invalidation twice only costs a cache miss.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * @param key the invalidated key, or null when the whole cache was cleared
+     */
+    record Invalidation(String cacheName, String key) {
+    }
+
+    void publish(Invalidation invalidation);
+
+    /**
+     * Registers the receiver for invalidations published by any node, including this one
+     */
+    void subscribe(Consumer<Invalidation> listener);
+}
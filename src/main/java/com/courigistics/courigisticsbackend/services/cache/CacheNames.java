@@ -0,0 +1,17 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+/**
+ * Names of the {@link TwoTierCache}s; also the cache tag on their meters and the L2 key prefix
+ */
+public final class CacheNames {
+
+    // username or email -> PrincipalSnapshot (AccountDetailsService)
+    public static final String PRINCIPALS = "principals";
+    // depot code -> depot id (DepotLookupService)
+    public static final String DEPOT_IDS = "depot-ids";
+    // account id -> CourierProfileResponse (CourierServiceImpl)
+    public static final String COURIER_PROFILES = "courier-profiles";
+
+    private CacheNames() {
+    }
+}
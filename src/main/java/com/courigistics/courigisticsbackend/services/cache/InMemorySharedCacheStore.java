@@ -0,0 +1,55 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local stand-in for a shared cache store (app.cache.l2.type=memory)
+ * Exercises the L2 code path in tests and single-node setups without running Redis
+ */
+@Component
+@ConditionalOnProperty(name = "app.cache.l2.type", havingValue = "memory")
+public class InMemorySharedCacheStore implements SharedCacheStore {
+
+    private record Entry(String value, long expiresAtMillis) {
+    }
+
+    private final Map<String, Map<String, Entry>> caches = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(String cacheName, String key) {
+        Map<String, Entry> cache = caches.get(cacheName);
+        Entry entry = cache != null ? cache.get(key) : null;
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            cache.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public void put(String cacheName, String key, String value, Duration ttl) {
+        caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>())
+                .put(key, new Entry(value, System.currentTimeMillis() + ttl.toMillis()));
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        Map<String, Entry> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        caches.remove(cacheName);
+    }
+}
@@ -0,0 +1,120 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+import com.courigistics.courigisticsbackend.entities.CacheInvalidationEntry;
+import com.courigistics.courigisticsbackend.repositories.CacheInvalidationEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Invalidation bus over the cache_invalidations table, used when there is no Redis
+ *
+ * Same shape as the access token revocation feed: publish() inserts a row, every node polls
+ * for rows with a higher id than it has seen, so other nodes drop their copies within one
+ * poll interval.
+ */
+@Component
+@ConditionalOnExpression("'${app.cache.l2.type:none}' != 'redis'")
+@RequiredArgsConstructor
+@Slf4j
+public class JdbcCacheInvalidationBus implements CacheInvalidationBus {
+
+    private static final int FEED_BATCH_SIZE = 1000;
+    private static final Duration FEED_SETTLE = Duration.ofSeconds(10);
+
+    private final CacheInvalidationEntryRepository cacheInvalidationEntryRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.cache.invalidation.retention-minutes}")
+    private long retentionMinutes;
+
+    private final List<Consumer<Invalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    // Only the poller thread touches these; -1 until the first poll positions the cursor
+    private long lastSeenId = -1;
+    private final Set<Long> appliedUnsettled = new HashSet<>();
+
+    @Override
+    public void publish(Invalidation invalidation) {
+        // Own transaction: this runs after the caller's commit, when its transaction can no longer write
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            requiresNew.executeWithoutResult(status ->
+                    cacheInvalidationEntryRepository.save(CacheInvalidationEntry.builder()
+                            .cacheName(invalidation.cacheName())
+                            .cacheKey(invalidation.key())
+                            .createdAt(LocalDateTime.now())
+                            .build()));
+        } catch (RuntimeException e) {
+            // Other nodes keep their copy until its TTL runs out
+            log.error("Could not publish invalidation of {} in cache {}: {}",
+                    invalidation.key(), invalidation.cacheName(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Invalidation> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Applies new invalidations from the feed
+     *
+     * Identity values are handed out before commit, so a lower id can become visible after a
+     * higher one. The cursor only moves past rows older than FEED_SETTLE; newer rows are
+     * applied once and remembered until the cursor passes them.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.poll-interval-ms}")
+    public void pollChangeFeed() {
+        LocalDateTime settledBefore = LocalDateTime.now().minus(FEED_SETTLE);
+        if (lastSeenId < 0) {
+            lastSeenId = cacheInvalidationEntryRepository.findLatestSettledId(settledBefore);
+        }
+
+        long cursor = lastSeenId;
+        boolean settled = true;
+        List<CacheInvalidationEntry> batch;
+        do {
+            batch = cacheInvalidationEntryRepository.findTop1000ByIdGreaterThanOrderByIdAsc(cursor);
+            for (CacheInvalidationEntry entry : batch) {
+                if (appliedUnsettled.add(entry.getId())) {
+                    Invalidation invalidation = new Invalidation(entry.getCacheName(), entry.getCacheKey());
+                    listeners.forEach(listener -> listener.accept(invalidation));
+                }
+                cursor = entry.getId();
+                settled = settled && entry.getCreatedAt().isBefore(settledBefore);
+                if (settled) {
+                    lastSeenId = cursor;
+                }
+            }
+        } while (batch.size() == FEED_BATCH_SIZE);
+
+        long seen = lastSeenId;
+        appliedUnsettled.removeIf(id -> id <= seen);
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.invalidation.cleanup-interval-ms}")
+    public void cleanup() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        Integer deleted = new TransactionTemplate(transactionManager).execute(status ->
+                cacheInvalidationEntryRepository.deleteOlderThan(cutoff));
+        if (deleted != null && deleted > 0) {
+            log.debug("Deleted {} old cache invalidations", deleted);
+        }
+    }
+}
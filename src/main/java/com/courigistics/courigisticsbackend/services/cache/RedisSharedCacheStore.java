@@ -0,0 +1,66 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared cache tier in Redis; keys are {prefix}{cache}:{key} and expire with the cache's shared TTL
+ * Wired by RedisConfig when app.cache.l2.type=redis
+ */
+@RequiredArgsConstructor
+public class RedisSharedCacheStore implements SharedCacheStore {
+
+    private static final int CLEAR_BATCH_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+
+    @Override
+    public String get(String cacheName, String key) {
+        return redisTemplate.opsForValue().get(redisKey(cacheName, key));
+    }
+
+    @Override
+    public void put(String cacheName, String key, String value, Duration ttl) {
+        redisTemplate.opsForValue().set(redisKey(cacheName, key), value, ttl);
+    }
+
+    @Override
+    public void evict(String cacheName, String key) {
+        redisTemplate.delete(redisKey(cacheName, key));
+    }
+
+    /**
+     * SCAN rather than KEYS, so clearing a large cache does not block Redis
+     */
+    @Override
+    public void clear(String cacheName) {
+        ScanOptions options = ScanOptions.scanOptions()
+                .match(keyPrefix + cacheName + ":*")
+                .count(CLEAR_BATCH_SIZE)
+                .build();
+        List<String> batch = new ArrayList<>(CLEAR_BATCH_SIZE);
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                batch.add(keys.next());
+                if (batch.size() == CLEAR_BATCH_SIZE) {
+                    redisTemplate.delete(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            redisTemplate.delete(batch);
+        }
+    }
+
+    private String redisKey(String cacheName, String key) {
+        return keyPrefix + cacheName + ":" + key;
+    }
+}
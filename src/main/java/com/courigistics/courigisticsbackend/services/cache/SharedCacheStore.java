@@ -0,0 +1,24 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+import java.time.Duration;
+
+/**
+ * Shared (L2) tier of a {@link TwoTierCache}, seen by every node
+ *
+ * Values are JSON strings so any store that can hold text will do. Implementations should
+ * fail fast: a slow or unavailable store is treated as a miss and the value is loaded from
+ * the database instead.
+ */
+public interface SharedCacheStore {
+
+    /**
+     * @return the stored value, or null if absent or expired
+     */
+    String get(String cacheName, String key);
+
+    void put(String cacheName, String key, String value, Duration ttl);
+
+    void evict(String cacheName, String key);
+
+    void clear(String cacheName);
+}
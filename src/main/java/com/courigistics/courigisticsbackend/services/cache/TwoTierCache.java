@@ -0,0 +1,223 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache with a bounded in-process tier (L1) and an optional shared tier (L2)
+ *
+ * L1 is Caffeine (W-TinyLFU admission and eviction, so a scan of one-off keys does not flush
+ * the hot set). On an L1 miss, concurrent callers for the same key share one load: the first
+ * checks L2, then runs the loader, and the rest wait for its result. Invalidation drops the
+ * key here at once and, after the surrounding transaction commits, from L2 and on every
+ * other node via the {@link CacheInvalidationBus}.
+ *
+ * Null results are not cached. Created through {@link TwoTierCacheManager}.
+ */
+@Slf4j
+public class TwoTierCache<V> {
+
+    private final String name;
+    private final Class<V> valueType;
+    private final Cache<String, V> local;
+    private final SharedCacheStore shared;
+    private final Duration sharedTtl;
+    private final CacheInvalidationBus invalidationBus;
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    // Bumped on every invalidation; a load that started before one must not repopulate the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    private final Counter sharedErrors;
+
+    TwoTierCache(String name, Class<V> valueType, Cache<String, V> local,
+                 SharedCacheStore shared, Duration sharedTtl,
+                 CacheInvalidationBus invalidationBus, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.valueType = valueType;
+        this.local = local;
+        this.shared = shared;
+        this.sharedTtl = sharedTtl;
+        this.invalidationBus = invalidationBus;
+        this.objectMapper = objectMapper;
+        this.sharedHits = sharedCounter(meterRegistry, "hit");
+        this.sharedMisses = sharedCounter(meterRegistry, "miss");
+        this.sharedErrors = sharedCounter(meterRegistry, "error");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param loader reads the value from the source of truth; may return null for "absent"
+     * @return the cached or loaded value, or null if the loader found none
+     */
+    public V get(String key, Function<String, V> loader) {
+        V value = local.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+
+        // 1: Join a load already running for this key
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            return await(running);
+        }
+
+        // 2: Lead the load: shared tier first, then the loader
+        long startGeneration = generation.get();
+        try {
+            value = readShared(key);
+            if (value == null) {
+                value = loader.apply(key);
+                if (value != null && generation.get() == startGeneration) {
+                    writeShared(key, value);
+                }
+            }
+            if (value != null && generation.get() == startGeneration) {
+                local.put(key, value);
+            }
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Drops the key on every node and from the shared tier
+     * Inside a transaction the cluster-wide part runs after commit, so no node reloads the old row
+     */
+    public void invalidate(String key) {
+        evictLocal(key);
+        afterCommit(() -> {
+            evictLocal(key);
+            if (shared != null) {
+                try {
+                    shared.evict(name, key);
+                } catch (RuntimeException e) {
+                    log.warn("Could not evict {} from shared cache {}: {}", key, name, e.getMessage());
+                }
+            }
+            invalidationBus.publish(new CacheInvalidationBus.Invalidation(name, key));
+        });
+    }
+
+    /**
+     * Empties the cache on every node and in the shared tier
+     */
+    public void invalidateAll() {
+        evictLocal(null);
+        afterCommit(() -> {
+            evictLocal(null);
+            if (shared != null) {
+                try {
+                    shared.clear(name);
+                } catch (RuntimeException e) {
+                    log.warn("Could not clear shared cache {}: {}", name, e.getMessage());
+                }
+            }
+            invalidationBus.publish(new CacheInvalidationBus.Invalidation(name, null));
+        });
+    }
+
+    /**
+     * Drops the key (or everything, for null) from this node only; used for invalidations from the bus
+     */
+    void evictLocal(String key) {
+        generation.incrementAndGet();
+        if (key == null) {
+            local.invalidateAll();
+            inFlight.clear();
+        } else {
+            local.invalidate(key);
+            // Later callers start a fresh load instead of joining one that may return the old value
+            inFlight.remove(key);
+        }
+    }
+
+    private V readShared(String key) {
+        if (shared == null) {
+            return null;
+        }
+        try {
+            String json = shared.get(name, key);
+            if (json == null) {
+                sharedMisses.increment();
+                return null;
+            }
+            sharedHits.increment();
+            return objectMapper.readValue(json, valueType);
+        } catch (JsonProcessingException | RuntimeException e) {
+            // Unreadable entries (e.g. written by an older version) and store outages are misses
+            sharedErrors.increment();
+            log.debug("Shared cache {} read failed for {}: {}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeShared(String key, V value) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.put(name, key, objectMapper.writeValueAsString(value), sharedTtl);
+        } catch (JsonProcessingException | RuntimeException e) {
+            sharedErrors.increment();
+            log.debug("Shared cache {} write failed for {}: {}", name, key, e.getMessage());
+        }
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            // Followers see the leader's exception as if they had run the loader themselves
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Counter sharedCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("cache.shared.requests")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,89 @@
+package com.courigistics.courigisticsbackend.services.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link TwoTierCache}s and routes invalidations from the bus to them
+ *
+ * The shared tier is whatever {@link SharedCacheStore} bean app.cache.l2.type enabled
+ * (none by default, in which case each node only has its L1).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TwoTierCacheManager {
+
+    private final ObjectProvider<SharedCacheStore> sharedCacheStore;
+    private final CacheInvalidationBus invalidationBus;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, TwoTierCache<?>> caches = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    /**
+     * @param maxSize   L1 entries per node; Caffeine evicts by frequency and recency beyond this
+     * @param ttl       L1 lifetime, which also bounds staleness if an invalidation is missed
+     * @param sharedTtl L2 lifetime; zero keeps this cache out of the shared tier
+     */
+    public <V> TwoTierCache<V> create(String name, Class<V> valueType, long maxSize, Duration ttl, Duration sharedTtl) {
+        Cache<String, V> local = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name);
+
+        SharedCacheStore shared = sharedTtl.isPositive() ? sharedCacheStore.getIfAvailable() : null;
+        TwoTierCache<V> cache = new TwoTierCache<>(name, valueType, local, shared, sharedTtl,
+                invalidationBus, objectMapper, meterRegistry);
+        if (caches.putIfAbsent(name, cache) != null) {
+            throw new IllegalStateException("Cache " + name + " already exists");
+        }
+        log.info("Cache {} created (max {} entries, ttl {}, shared tier {})",
+                name, maxSize, ttl, shared != null ? sharedTtl : "off");
+        return cache;
+    }
+
+    /**
+     * Invalidates a key by cache name, for callers that do not hold the cache
+     * No-op for caches this node never created (nothing local to drop, and its owner does the rest)
+     */
+    public void invalidate(String name, String key) {
+        TwoTierCache<?> cache = caches.get(name);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll(String name) {
+        TwoTierCache<?> cache = caches.get(name);
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+    }
+
+    private void onInvalidation(CacheInvalidationBus.Invalidation invalidation) {
+        TwoTierCache<?> cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.evictLocal(invalidation.key());
+        }
+    }
+}
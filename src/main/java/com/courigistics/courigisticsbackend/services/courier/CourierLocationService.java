@@ -0,0 +1,13 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import java.util.UUID;
+
+public interface CourierLocationService {
+
+    /**
+     * Handles one location ping from a courier's device
+     *
+     * @param courierAccountId account of the courier sending the ping
+     */
+    void recordPing(UUID courierAccountId, double latitude, double longitude);
+}
@@ -0,0 +1,41 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.services.eta.EtaService;
+import com.courigistics.courigisticsbackend.services.geofence.GeofenceEngine;
+import com.courigistics.courigisticsbackend.services.trajectory.TrajectoryService;
+import com.courigistics.courigisticsbackend.utils.ValidationUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+/**
+ * Entry point for courier location pings
+ * Pings arrive at a high rate, so nothing here touches the database; positions are written behind
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourierLocationServiceImpl implements CourierLocationService {
+
+    private final GeofenceEngine geofenceEngine;
+    private final TrajectoryService trajectoryService;
+    private final EtaService etaService;
+    private final CourierPositionBuffer courierPositionBuffer;
+
+    @Override
+    public void recordPing(UUID courierAccountId, double latitude, double longitude) {
+        try {
+            ValidationUtils.validateCoordinates(latitude, longitude);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException(e.getMessage());
+        }
+
+        courierPositionBuffer.record(courierAccountId, latitude, longitude);
+        geofenceEngine.onLocation(courierAccountId, latitude, longitude);
+        trajectoryService.recordPing(courierAccountId, latitude, longitude);
+        etaService.onLocation(courierAccountId, latitude, longitude);
+    }
+}
@@ -0,0 +1,24 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierOnboardingResponse;
+
+import java.io.InputStream;
+
+/**
+ * Bulk onboarding of couriers for fleet partners
+ */
+public interface CourierOnboardingService {
+
+    /**
+     * Validates and creates couriers from a CSV upload
+     * Valid rows are created even when other rows fail; every row gets its own result
+     *
+     * Expected header: firstName, lastName, nationalId, email, phone, employmentType,
+     * driversLicenseNumber, licenseExpiryDate, and for freelancers vehicleType, vehicleMake,
+     * vehicleModel, licensePlate, vehicleYear, vehicleColor, capacityKg, capacityM3
+     *
+     * @param csv raw CSV body
+     * @throws com.courigistics.courigisticsbackend.exceptions.BadRequestException if the file is empty or too large
+     */
+    CourierOnboardingResponse onboard(InputStream csv);
+}
@@ -0,0 +1,490 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import com.courigistics.courigisticsbackend.dto.requests.courier.CourierRegisterRequest;
+import com.courigistics.courigisticsbackend.dto.requests.vehicles.VehiclesDetailsDTO;
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierOnboardingResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.Courier;
+import com.courigistics.courigisticsbackend.entities.Depot;
+import com.courigistics.courigisticsbackend.entities.VerificationToken;
+import com.courigistics.courigisticsbackend.entities.Vehicles;
+import com.courigistics.courigisticsbackend.entities.enums.AccountType;
+import com.courigistics.courigisticsbackend.entities.enums.CourierStatus;
+import com.courigistics.courigisticsbackend.entities.enums.EmploymentType;
+import com.courigistics.courigisticsbackend.entities.enums.TokenType;
+import com.courigistics.courigisticsbackend.entities.enums.VehicleStatus;
+import com.courigistics.courigisticsbackend.entities.enums.VehicleType;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.repositories.AccountRepository;
+import com.courigistics.courigisticsbackend.repositories.CourierRepository;
+import com.courigistics.courigisticsbackend.repositories.DepotRepository;
+import com.courigistics.courigisticsbackend.repositories.VehicleRepository;
+import com.courigistics.courigisticsbackend.services.depot.DepotLookupService;
+import com.courigistics.courigisticsbackend.services.email.EmailService;
+import com.courigistics.courigisticsbackend.services.verification_token.VerificationTokenService;
+import com.courigistics.courigisticsbackend.utils.CourierValidationUtils;
+import com.courigistics.courigisticsbackend.utils.CsvUtils;
+import com.courigistics.courigisticsbackend.utils.PhoneNumberUtils;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Bulk courier onboarding
+ *
+ * Pipeline:
+ * 1: Read the CSV (bounded row count)
+ * 2: Parse and validate rows in parallel (bean validation + courier rules, no I/O)
+ * 3: Reject duplicates inside the file, then against the database with one IN query per column and batch
+ * 4: Insert accounts, couriers, vehicles and verification tokens in chunked transactions; with
+ *    hibernate.jdbc.batch_size and order_inserts each chunk is a handful of JDBC batches per table
+ * 5: Send verification emails in the background, a bounded number in flight at a time
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourierOnboardingServiceImpl implements CourierOnboardingService {
+
+    // Keeps IN lists well below driver parameter limits
+    private static final int IN_CLAUSE_BATCH = 1000;
+
+    private final AccountRepository accountRepository;
+    private final CourierRepository courierRepository;
+    private final VehicleRepository vehicleRepository;
+    private final DepotRepository depotRepository;
+    private final DepotLookupService depotLookupService;
+    private final VerificationTokenService verificationTokenService;
+    private final EmailService emailService;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+
+    @Qualifier("importTaskExecutor")
+    private final Executor importTaskExecutor;
+
+    @Value("${app.courier.default-depot.code}")
+    private String defaultDepotCode;
+
+    @Value("${app.courier.onboarding.max-rows}")
+    private int maxRows;
+
+    @Value("${app.courier.onboarding.chunk-size}")
+    private int chunkSize;
+
+    @Value("${app.courier.onboarding.email-concurrency}")
+    private int emailConcurrency;
+
+    /**
+     * A CSV row moving through the pipeline; errors accumulate and only error-free rows are persisted
+     */
+    private static final class OnboardingRow {
+        private final int rowNumber;
+        private final Map<String, String> fields;
+        private final List<String> errors = new ArrayList<>();
+        private CourierRegisterRequest request;
+        private String normalizedPhone;
+        private UUID courierId;
+
+        private OnboardingRow(int rowNumber, Map<String, String> fields) {
+            this.rowNumber = rowNumber;
+            this.fields = fields;
+        }
+
+        private boolean valid() {
+            return errors.isEmpty();
+        }
+
+        private String email() {
+            return request != null ? request.email() : fields.get("email");
+        }
+    }
+
+    private record PendingEmail(String email, String token, String firstName) {
+    }
+
+    @Override
+    public CourierOnboardingResponse onboard(InputStream csv) {
+        long startedAt = System.nanoTime();
+
+        // 1: Read rows
+        List<OnboardingRow> rows = readRows(csv);
+        log.info("Bulk courier onboarding started: {} rows", rows.size());
+
+        // 2: Parse and validate in parallel
+        rows.parallelStream().forEach(this::parseAndValidate);
+
+        // 3: Uniqueness, in the file first so the database is only asked about surviving rows
+        rejectDuplicatesInFile(rows);
+        rejectExistingInDatabase(rows.stream().filter(OnboardingRow::valid).toList());
+
+        // 4: Persist in chunks
+        List<OnboardingRow> validRows = rows.stream().filter(OnboardingRow::valid).toList();
+        UUID depotId = validRows.stream().anyMatch(row -> row.request.employmentType() != EmploymentType.FREELANCER)
+                ? resolveDefaultDepotId()
+                : null;
+        List<PendingEmail> emails = new ArrayList<>(validRows.size());
+        for (int from = 0; from < validRows.size(); from += chunkSize) {
+            emails.addAll(persistChunk(validRows.subList(from, Math.min(from + chunkSize, validRows.size())), depotId));
+        }
+
+        // 5: Verification emails in the background
+        if (!emails.isEmpty()) {
+            importTaskExecutor.execute(() -> sendVerificationEmails(emails));
+        }
+
+        // 6: Report
+        long durationMillis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        List<CourierOnboardingResponse.RowResult> results = rows.stream()
+                .map(row -> new CourierOnboardingResponse.RowResult(
+                        row.rowNumber, row.email(), row.courierId != null, row.courierId, List.copyOf(row.errors)))
+                .toList();
+        int created = (int) results.stream().filter(CourierOnboardingResponse.RowResult::created).count();
+        double rowsPerSecond = rows.size() * 1000.0 / durationMillis;
+
+        log.info("Bulk courier onboarding finished: {} created, {} failed in {} ms ({} rows/s)",
+                created, rows.size() - created, durationMillis, String.format("%.1f", rowsPerSecond));
+        return new CourierOnboardingResponse(rows.size(), created, rows.size() - created,
+                durationMillis, rowsPerSecond, results);
+    }
+
+    private List<OnboardingRow> readRows(InputStream csv) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new BadRequestException("CSV file is empty");
+            }
+            List<String> columns = CsvUtils.parseLine(CsvUtils.stripBom(header));
+
+            List<OnboardingRow> rows = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (rows.size() >= maxRows) {
+                    throw new BadRequestException("At most " + maxRows + " couriers can be onboarded per upload");
+                }
+                List<String> values = CsvUtils.parseLine(line);
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < columns.size() && i < values.size(); i++) {
+                    fields.put(columns.get(i), values.get(i).isEmpty() ? null : values.get(i));
+                }
+                rows.add(new OnboardingRow(rows.size() + 1, fields));
+            }
+            return rows;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read onboarding upload", e);
+        }
+    }
+
+    private void parseAndValidate(OnboardingRow row) {
+        Map<String, String> fields = row.fields;
+
+        // 1: Typed request (reuses the single-registration DTO and its constraints)
+        try {
+            VehiclesDetailsDTO vehicle = fields.get("vehicleType") == null && fields.get("licensePlate") == null
+                    ? null
+                    : new VehiclesDetailsDTO(
+                            parseEnum(VehicleType.class, fields.get("vehicleType"), "vehicleType"),
+                            fields.get("vehicleMake"),
+                            fields.get("vehicleModel"),
+                            fields.get("licensePlate"),
+                            parseInteger(fields.get("vehicleYear"), "vehicleYear"),
+                            fields.get("vehicleColor"),
+                            parseDouble(fields.get("capacityKg"), "capacityKg"),
+                            parseDouble(fields.get("capacityM3"), "capacityM3")
+                    );
+            row.request = new CourierRegisterRequest(
+                    fields.get("firstName"),
+                    fields.get("lastName"),
+                    fields.get("nationalId"),
+                    fields.get("email"),
+                    fields.get("phone"),
+                    parseEnum(EmploymentType.class, fields.get("employmentType"), "employmentType"),
+                    fields.get("driversLicenseNumber"),
+                    parseDate(fields.get("licenseExpiryDate"), "licenseExpiryDate"),
+                    vehicle
+            );
+        } catch (IllegalArgumentException e) {
+            row.errors.add(e.getMessage());
+            return;
+        }
+
+        // 2: Bean validation
+        validator.validate(row.request).forEach(violation ->
+                row.errors.add(violation.getPropertyPath() + ": " + violation.getMessage()));
+        if (!row.valid()) {
+            return;
+        }
+
+        // 3: Courier rules shared with single registration
+        try {
+            CourierValidationUtils.validateVehicleRequired(row.request.employmentType(), row.request.vehicleDetails());
+            CourierValidationUtils.validateLicenseNotExpired(row.request.licenseExpiryDate());
+            row.normalizedPhone = PhoneNumberUtils.normalizePhoneNumber(row.request.phone());
+        } catch (BadRequestException e) {
+            row.errors.add(e.getMessage());
+        }
+    }
+
+    private void rejectDuplicatesInFile(List<OnboardingRow> rows) {
+        Map<String, Integer> emails = new HashMap<>();
+        Map<String, Integer> phones = new HashMap<>();
+        Map<String, Integer> nationalIds = new HashMap<>();
+        Map<String, Integer> licenseNumbers = new HashMap<>();
+        Map<String, Integer> plates = new HashMap<>();
+
+        for (OnboardingRow row : rows) {
+            if (!row.valid()) {
+                continue;
+            }
+            String plate = row.request.vehicleDetails() != null ? row.request.vehicleDetails().licensePlate() : null;
+            checkInFile(emails, row.request.email(), "email", row);
+            checkInFile(phones, row.normalizedPhone, "phone number", row);
+            checkInFile(nationalIds, row.request.nationalId(), "national ID", row);
+            checkInFile(licenseNumbers, row.request.driversLicenseNumber(), "driver's license number", row);
+            checkInFile(plates, plate, "license plate", row);
+
+            // Only a row that will be created claims its values
+            if (row.valid()) {
+                emails.put(row.request.email(), row.rowNumber);
+                phones.put(row.normalizedPhone, row.rowNumber);
+                nationalIds.put(row.request.nationalId(), row.rowNumber);
+                licenseNumbers.put(row.request.driversLicenseNumber(), row.rowNumber);
+                if (plate != null) {
+                    plates.put(plate, row.rowNumber);
+                }
+            }
+        }
+    }
+
+    private static void checkInFile(Map<String, Integer> claimed, String value, String label, OnboardingRow row) {
+        Integer firstRow = value != null ? claimed.get(value) : null;
+        if (firstRow != null) {
+            row.errors.add("Duplicate " + label + " in file (already used on row " + firstRow + ")");
+        }
+    }
+
+    private void rejectExistingInDatabase(List<OnboardingRow> rows) {
+        Set<String> emails = findExisting(rows, row -> row.request.email(), accountRepository::findExistingEmails);
+        Set<String> phones = findExisting(rows, row -> row.normalizedPhone, accountRepository::findExistingPhones);
+        Set<String> nationalIds = findExisting(rows, row -> row.request.nationalId(),
+                courierRepository::findExistingNationalIds);
+        Set<String> licenseNumbers = findExisting(rows, row -> row.request.driversLicenseNumber(),
+                courierRepository::findExistingDriversLicenseNumbers);
+        Set<String> plates = findExisting(rows,
+                row -> row.request.vehicleDetails() != null ? row.request.vehicleDetails().licensePlate() : null,
+                vehicleRepository::findExistingLicencePlates);
+
+        // Same messages as single registration
+        for (OnboardingRow row : rows) {
+            if (emails.contains(row.request.email())) {
+                row.errors.add("Email already registered");
+            }
+            if (phones.contains(row.normalizedPhone)) {
+                row.errors.add("Phone number already registered");
+            }
+            if (licenseNumbers.contains(row.request.driversLicenseNumber())) {
+                row.errors.add("Driver's license number already registered");
+            }
+            if (nationalIds.contains(row.request.nationalId())) {
+                row.errors.add("National ID already registered");
+            }
+            if (row.request.vehicleDetails() != null && plates.contains(row.request.vehicleDetails().licensePlate())) {
+                row.errors.add("Vehicle license plate already registered");
+            }
+        }
+    }
+
+    private static Set<String> findExisting(
+            List<OnboardingRow> rows,
+            Function<OnboardingRow, String> column,
+            Function<Collection<String>, List<String>> query
+    ) {
+        List<String> candidates = rows.stream().map(column).filter(Objects::nonNull).distinct().toList();
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += IN_CLAUSE_BATCH) {
+            existing.addAll(query.apply(candidates.subList(from, Math.min(from + IN_CLAUSE_BATCH, candidates.size()))));
+        }
+        return existing;
+    }
+
+    private UUID resolveDefaultDepotId() {
+        return depotLookupService.findIdByCode(defaultDepotCode)
+                .orElseThrow(() -> new ResourceNotFoundException("Default depot not found"));
+    }
+
+    /**
+     * Inserts a chunk in one transaction; if a concurrent registration took a value after the
+     * uniqueness checks, the chunk is retried row by row so only the conflicting rows fail
+     */
+    private List<PendingEmail> persistChunk(List<OnboardingRow> chunk, UUID depotId) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            return transaction.execute(status -> insertRows(chunk, depotId));
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Onboarding chunk starting at row {} hit a constraint, retrying row by row", chunk.get(0).rowNumber);
+            chunk.forEach(row -> row.courierId = null);
+        }
+
+        List<PendingEmail> emails = new ArrayList<>();
+        for (OnboardingRow row : chunk) {
+            try {
+                emails.addAll(transaction.execute(status -> insertRows(List.of(row), depotId)));
+            } catch (DataIntegrityViolationException e) {
+                row.courierId = null;
+                row.errors.add("Email, phone, national ID, license or plate was registered by another request");
+            }
+        }
+        return emails;
+    }
+
+    private List<PendingEmail> insertRows(List<OnboardingRow> rows, UUID depotId) {
+        Depot depot = depotId != null ? depotRepository.getReferenceById(depotId) : null;
+
+        List<Account> accounts = new ArrayList<>(rows.size());
+        List<Courier> couriers = new ArrayList<>(rows.size());
+        List<Vehicles> vehicles = new ArrayList<>();
+
+        for (OnboardingRow row : rows) {
+            CourierRegisterRequest request = row.request;
+            boolean freelancer = request.employmentType() == EmploymentType.FREELANCER;
+
+            Account account = Account.builder()
+                    .email(request.email())
+                    .phone(row.normalizedPhone)
+                    .accountType(AccountType.COURIER)
+                    .enabled(false)
+                    .emailVerified(false)
+                    .accountNonLocked(true)
+                    .build();
+            accounts.add(account);
+
+            Courier courier = Courier.builder()
+                    .account(account)
+                    .firstName(request.firstName())
+                    .lastName(request.lastName())
+                    .nationalId(request.nationalId())
+                    .employmentType(request.employmentType())
+                    .driversLicenseNumber(request.driversLicenseNumber())
+                    .licenseExpiryDate(request.licenseExpiryDate())
+                    .depot(freelancer ? null : depot)
+                    .status(CourierStatus.PENDING)
+                    .pendingApproval(true)
+                    .build();
+            couriers.add(courier);
+
+            if (freelancer) {
+                VehiclesDetailsDTO details = request.vehicleDetails();
+                vehicles.add(Vehicles.builder()
+                        .courier(courier)
+                        .vehicleType(details.vehicleType())
+                        .make(details.make())
+                        .model(details.model())
+                        .licencePlate(details.licensePlate())
+                        .manufactureYear(String.valueOf(details.year()))
+                        .vehicleColor(details.color())
+                        .vehicleCapacityKg(details.capacityKg())
+                        .vehicleCapacityM3(details.capacityM3())
+                        .status(VehicleStatus.ACTIVE)
+                        .build());
+            }
+        }
+
+        // IDs are generated in memory (UUID), so Hibernate can batch every insert
+        accountRepository.saveAll(accounts);
+        courierRepository.saveAll(couriers);
+        vehicleRepository.saveAll(vehicles);
+        List<VerificationToken> tokens = verificationTokenService.createTokens(
+                accounts, TokenType.EMAIL_VERIFICATION);
+        // Flush inside the transaction so constraint violations surface here, translated
+        accountRepository.flush();
+
+        List<PendingEmail> emails = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.get(i).courierId = couriers.get(i).getId();
+            emails.add(new PendingEmail(accounts.get(i).getEmail(), tokens.get(i).getToken(),
+                    couriers.get(i).getFirstName()));
+        }
+        return emails;
+    }
+
+    /**
+     * Sends in windows of {@code emailConcurrency} so a large upload does not flood the mail server
+     */
+    private void sendVerificationEmails(List<PendingEmail> emails) {
+        int sent = 0;
+        for (int from = 0; from < emails.size(); from += emailConcurrency) {
+            List<CompletableFuture<Boolean>> window = emails.subList(from, Math.min(from + emailConcurrency, emails.size()))
+                    .stream()
+                    .map(email -> emailService.sendCourierVerificationEmail(email.email(), email.token(), email.firstName())
+                            .handle((ignored, error) -> error == null))
+                    .toList();
+            CompletableFuture.allOf(window.toArray(CompletableFuture[]::new)).join();
+            sent += (int) window.stream().filter(CompletableFuture::join).count();
+        }
+        log.info("Bulk onboarding verification emails: {} sent, {} failed", sent, emails.size() - sent);
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String value, String column) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static LocalDate parseDate(String value, String column) {
+        try {
+            return value == null ? null : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid " + column + " (expected yyyy-MM-dd): " + value);
+        }
+    }
+
+    private static Integer parseInteger(String value, String column) {
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static Double parseDouble(String value, String column) {
+        try {
+            return value == null ? null : Double.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for courier positions from location pings
+ *
+ * Only the latest position per courier is kept between flushes, so a courier pinging every
+ * few seconds costs one row update per interval. Dispatch reads the positions back from the
+ * couriers table on every matching pass, whichever node the pings arrived on.
+ *
+ * On PostgreSQL the geography column is kept in step with the lat/lon columns; the entity's
+ * lifecycle hooks do not run for JDBC updates.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourierPositionBuffer {
+
+    private static final String UPDATE_POSITION =
+            "UPDATE couriers SET curent_lat = ?, current_lon = ? WHERE account_id = ?";
+    private static final String UPDATE_POSITION_WITH_GEOGRAPHY =
+            "UPDATE couriers SET curent_lat = ?, current_lon = ?, " +
+            "current_location = ST_SetSRID(ST_MakePoint(?, ?), 4326)::geography WHERE account_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<UUID, double[]> pending = new ConcurrentHashMap<>();
+
+    private boolean postgres;
+    private Counter flushedRows;
+    private Counter flushFailures;
+
+    @PostConstruct
+    void init() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equalsIgnoreCase(product);
+
+        flushedRows = Counter.builder("courier.position.flushed")
+                .description("Courier rows updated by the position flush")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("courier.position.flush.failures")
+                .description("Position flushes that failed and were re-queued")
+                .register(meterRegistry);
+        meterRegistry.gauge("courier.position.pending", pending, Map::size);
+    }
+
+    public void record(UUID courierAccountId, double latitude, double longitude) {
+        pending.put(courierAccountId, new double[]{latitude, longitude});
+    }
+
+    @Scheduled(fixedDelayString = "${app.courier.position.flush-interval-ms}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 1: Drain; remove() hands each position to exactly one flush while pings keep arriving
+        List<Map.Entry<UUID, double[]>> batch = new ArrayList<>(pending.size());
+        for (UUID accountId : pending.keySet()) {
+            double[] position = pending.remove(accountId);
+            if (position != null) {
+                batch.add(Map.entry(accountId, position));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        // 2: One batched statement for the whole drain
+        try {
+            jdbcTemplate.batchUpdate(postgres ? UPDATE_POSITION_WITH_GEOGRAPHY : UPDATE_POSITION,
+                    batch, batch.size(), (ps, entry) -> {
+                        double[] position = entry.getValue();
+                        int i = 1;
+                        ps.setDouble(i++, position[0]);
+                        ps.setDouble(i++, position[1]);
+                        if (postgres) {
+                            // ST_MakePoint takes longitude first
+                            ps.setDouble(i++, position[1]);
+                            ps.setDouble(i++, position[0]);
+                        }
+                        ps.setObject(i, entry.getKey());
+                    });
+            flushedRows.increment(batch.size());
+        } catch (RuntimeException e) {
+            // 3: Re-queue unless a newer position arrived meanwhile
+            flushFailures.increment();
+            for (Map.Entry<UUID, double[]> entry : batch) {
+                pending.putIfAbsent(entry.getKey(), entry.getValue());
+            }
+            log.error("Courier position flush failed for {} couriers, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,87 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierProfileResponse;
+import com.courigistics.courigisticsbackend.entities.enums.CourierStatus;
+import com.courigistics.courigisticsbackend.entities.enums.EmploymentType;
+import com.courigistics.courigisticsbackend.entities.enums.VehicleStatus;
+import com.courigistics.courigisticsbackend.entities.enums.VehicleType;
+import com.courigistics.courigisticsbackend.utils.PhoneNumberUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * One row of CourierRepository.findProfileByAccountId: account, courier, depot and vehicle
+ * columns of a profile in a single query. Depot and vehicle columns are null when absent.
+ */
+public record CourierProfileRow(
+        String firstName,
+        String lastName,
+        String email,
+        String phone,
+        String nationalId,
+        EmploymentType employmentType,
+        String employeeId,
+        CourierStatus status,
+        String depotName,
+        String depotCode,
+        UUID vehicleId,
+        VehicleType vehicleType,
+        String make,
+        String model,
+        String licencePlate,
+        String vehicleColor,
+        Double vehicleCapacityKg,
+        Double vehicleCapacityM3,
+        VehicleStatus vehicleStatus,
+        LocalDateTime accountUpdatedAt,
+        LocalDateTime courierUpdatedAt,
+        LocalDateTime depotUpdatedAt,
+        LocalDateTime vehicleUpdatedAt
+) {
+
+    public CourierProfileResponse toResponse() {
+        CourierProfileResponse.VehicleDTO vehicle = null;
+        // Only freelancers bring their own vehicle; the query leaves the columns null for everyone else
+        if (vehicleId != null) {
+            vehicle = new CourierProfileResponse.VehicleDTO(
+                    vehicleType != null ? vehicleType.name() : null,
+                    make,
+                    model,
+                    licencePlate,
+                    vehicleColor,
+                    vehicleCapacityKg,
+                    vehicleCapacityM3,
+                    vehicleStatus != null ? vehicleStatus.name() : null
+            );
+        }
+
+        return new CourierProfileResponse(
+                firstName,
+                lastName,
+                email,
+                PhoneNumberUtils.formatForDisplay(phone),
+                nationalId,
+                employmentType,
+                employeeId,
+                status,
+                depotName,
+                depotCode,
+                vehicle
+        );
+    }
+
+    /**
+     * Latest change to any row the profile is built from, in epoch millis (0 if none is stamped)
+     */
+    public long lastModifiedMillis() {
+        return Stream.of(accountUpdatedAt, courierUpdatedAt, depotUpdatedAt, vehicleUpdatedAt)
+                .filter(Objects::nonNull)
+                .mapToLong(time -> time.toInstant(ZoneOffset.UTC).toEpochMilli())
+                .max()
+                .orElse(0);
+    }
+}
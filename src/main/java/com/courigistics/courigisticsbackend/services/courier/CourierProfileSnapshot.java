@@ -0,0 +1,12 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierProfileResponse;
+
+/**
+ * A courier profile with the ETag of the version it was read at, as cached by CourierServiceImpl
+ */
+public record CourierProfileSnapshot(
+        CourierProfileResponse profile,
+        String etag
+) {
+}
@@ -0,0 +1,57 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Claims couriers for deliveries without ever handing one courier to two deliveries
+ *
+ * A reservation starts as an offer that lapses unless the courier accepts it in time, or is made
+ * outright by direct dispatch. Either way it ends when the delivery does: couriers reserved for a
+ * delivered, failed or cancelled delivery are freed by a periodic sweep.
+ */
+public interface CourierReservationService {
+
+    /**
+     * Offers a delivery to a courier, if the courier is still free
+     *
+     * @return false if someone else reserved the courier first
+     */
+    boolean reserve(UUID courierId, UUID deliveryId);
+
+    /**
+     * Reserves a courier with no offer to accept (direct dispatch)
+     * Joins the caller's transaction, so rolling it back gives the courier back
+     *
+     * @return false if someone else reserved the courier first
+     */
+    boolean reserveOutright(UUID courierId, UUID deliveryId);
+
+    /**
+     * Reserves the first candidate still free, in the given order (e.g. nearest first)
+     */
+    Optional<UUID> reserveFirstAvailable(List<UUID> candidateCourierIds, UUID deliveryId);
+
+    /**
+     * Accepts an offer
+     *
+     * @return false if the offer already lapsed or was released
+     */
+    boolean confirm(UUID courierId, UUID deliveryId);
+
+    /**
+     * Frees a courier from a declined or lapsed offer
+     *
+     * @return false if the courier was no longer reserved for this delivery
+     */
+    boolean release(UUID courierId, UUID deliveryId);
+
+    /**
+     * Frees whichever couriers are reserved for the given deliveries (declined offers, finished or cancelled deliveries)
+     *
+     * @return couriers freed
+     */
+    int releaseForDeliveries(Collection<UUID> deliveryIds);
+}
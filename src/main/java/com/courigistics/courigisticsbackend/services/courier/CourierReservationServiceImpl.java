@@ -0,0 +1,164 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.repositories.CourierRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Courier reservations as single conditional UPDATEs
+ *
+ * Reading availableForAssignment and saving the courier back lets two concurrent assignments
+ * both take the same courier. Here the check and the claim are one statement, so the database
+ * decides the winner and the loser sees 0 rows updated. No row locks are held between calls.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourierReservationServiceImpl implements CourierReservationService {
+
+    // A courier reserved for a delivery in one of these has nothing left to do for it
+    private static final Set<DeliveryStatus> ENDED_STATUSES =
+            EnumSet.of(DeliveryStatus.DELIVERED, DeliveryStatus.FAILED, DeliveryStatus.CANCELLED);
+
+    private final CourierRepository courierRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.courier.reservation.offer-ttl-seconds}")
+    private long offerTtlSeconds;
+
+    @Value("${app.courier.reservation.release-batch-size}")
+    private int releaseBatchSize;
+
+    private Counter reserved;
+    private Counter contended;
+    private Counter expired;
+    private Counter finished;
+
+    @PostConstruct
+    void init() {
+        reserved = reservationCounter("reserved");
+        contended = reservationCounter("contended");
+        expired = reservationCounter("expired");
+        finished = reservationCounter("finished");
+    }
+
+    @Override
+    @Transactional
+    public boolean reserve(UUID courierId, UUID deliveryId) {
+        boolean won = courierRepository.reserve(courierId, deliveryId, offerExpiry()) == 1;
+        (won ? reserved : contended).increment();
+        return won;
+    }
+
+    @Override
+    @Transactional
+    public boolean reserveOutright(UUID courierId, UUID deliveryId) {
+        boolean won = courierRepository.reserve(courierId, deliveryId, null) == 1;
+        (won ? reserved : contended).increment();
+        return won;
+    }
+
+    @Override
+    public Optional<UUID> reserveFirstAvailable(List<UUID> candidateCourierIds, UUID deliveryId) {
+        // Each attempt commits on its own, so a lost race never holds locks while the next candidate is tried
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        for (UUID courierId : candidateCourierIds) {
+            Boolean won = tx.execute(status -> courierRepository.reserve(courierId, deliveryId, offerExpiry()) == 1);
+            if (Boolean.TRUE.equals(won)) {
+                reserved.increment();
+                return Optional.of(courierId);
+            }
+            contended.increment();
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    @Transactional
+    public boolean confirm(UUID courierId, UUID deliveryId) {
+        return courierRepository.confirmReservation(courierId, deliveryId, LocalDateTime.now()) == 1;
+    }
+
+    @Override
+    @Transactional
+    public boolean release(UUID courierId, UUID deliveryId) {
+        return courierRepository.releaseReservation(courierId, deliveryId) == 1;
+    }
+
+    @Override
+    public int releaseForDeliveries(Collection<UUID> deliveryIds) {
+        if (deliveryIds.isEmpty()) {
+            return 0;
+        }
+
+        // One UPDATE per chunk keeps the IN list and each transaction short
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        List<UUID> ids = new ArrayList<>(deliveryIds);
+        int released = 0;
+        for (int from = 0; from < ids.size(); from += releaseBatchSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + releaseBatchSize, ids.size()));
+            Integer freed = tx.execute(status -> courierRepository.releaseReservations(chunk));
+            released += freed == null ? 0 : freed;
+        }
+        log.debug("Released {} couriers for {} deliveries", released, ids.size());
+        return released;
+    }
+
+    /**
+     * Frees couriers whose offers were not accepted in time
+     */
+    @Scheduled(fixedDelayString = "${app.courier.reservation.expiry-interval-ms}")
+    @Transactional
+    public void releaseExpired() {
+        int released = courierRepository.releaseExpiredReservations(LocalDateTime.now());
+        if (released > 0) {
+            expired.increment(released);
+            log.info("Released {} couriers whose offers lapsed", released);
+        }
+    }
+
+    /**
+     * Frees couriers still reserved for a delivery that ended (or no longer exists)
+     * Accepted offers and direct dispatch never expire, so this is what makes those couriers available again
+     */
+    @Scheduled(fixedDelayString = "${app.courier.reservation.finished-sweep-interval-ms}")
+    @Transactional
+    public void releaseFinished() {
+        int released = courierRepository.releaseReservationsOfEndedDeliveries(ENDED_STATUSES);
+        if (released > 0) {
+            finished.increment(released);
+            log.info("Released {} couriers whose deliveries ended", released);
+        }
+    }
+
+    private LocalDateTime offerExpiry() {
+        return LocalDateTime.now().plusSeconds(offerTtlSeconds);
+    }
+
+    private Counter reservationCounter(String outcome) {
+        return Counter.builder("courier.reservations")
+                .description("Courier reservation attempts, lapsed offers and reservations of ended deliveries")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
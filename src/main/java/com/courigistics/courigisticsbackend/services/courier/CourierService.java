@@ -1,7 +1,5 @@
 package com.courigistics.courigisticsbackend.services.courier;
 
-import com.courigistics.courigisticsbackend.dto.responses.courier.CourierProfileResponse;
-
 import java.util.UUID;
 
 public interface CourierService {
@@ -10,7 +8,7 @@ public interface CourierService {
      * Retrieves the full profile of a courier, including vehicle details if applicable.
      *
      * @param accountId The UUID of the courier's account.
-     * @return CourierProfileResponse containing personal, employment, and vehicle details.
+     * @return the profile (personal, employment, and vehicle details) with the ETag of its current version
      */
-    CourierProfileResponse getCourierProfile(UUID accountId);
+    CourierProfileSnapshot getCourierProfile(UUID accountId);
 }
@@ -1,20 +1,17 @@
 package com.courigistics.courigisticsbackend.services.courier;
 
-import com.courigistics.courigisticsbackend.dto.responses.courier.CourierProfileResponse;
-import com.courigistics.courigisticsbackend.entities.Account;
-import com.courigistics.courigisticsbackend.entities.Courier;
-import com.courigistics.courigisticsbackend.entities.Vehicles;
-import com.courigistics.courigisticsbackend.entities.enums.EmploymentType;
 import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
-import com.courigistics.courigisticsbackend.repositories.AccountRepository;
 import com.courigistics.courigisticsbackend.repositories.CourierRepository;
-import com.courigistics.courigisticsbackend.repositories.VehicleRepository;
-import com.courigistics.courigisticsbackend.utils.PhoneNumberUtils;
+import com.courigistics.courigisticsbackend.services.cache.CacheNames;
+import com.courigistics.courigisticsbackend.services.cache.TwoTierCache;
+import com.courigistics.courigisticsbackend.services.cache.TwoTierCacheManager;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.UUID;
 
 @Service
@@ -22,57 +19,44 @@ import java.util.UUID;
 @Slf4j
 public class CourierServiceImpl implements CourierService {
 
-    private final AccountRepository accountRepository;
     private final CourierRepository courierRepository;
-    private final VehicleRepository vehicleRepository;
+    private final TwoTierCacheManager cacheManager;
 
-    @Override
-    @Transactional(readOnly = true)
-    public CourierProfileResponse getCourierProfile(UUID accountId) {
-        log.info("Fetching courier profile for accountId: {}", accountId);
+    @Value("${app.cache.courier-profiles.max-size}")
+    private long maxSize;
 
-        Account account = accountRepository.findById(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+    @Value("${app.cache.courier-profiles.ttl-seconds}")
+    private long ttlSeconds;
 
-        Courier courier = courierRepository.findByAccount_Id(accountId)
-                .orElseThrow(() -> new ResourceNotFoundException("Courier profile not found"));
+    @Value("${app.cache.courier-profiles.shared-ttl-seconds}")
+    private long sharedTtlSeconds;
 
-        String depotName = courier.getDepot() != null ? courier.getDepot().getName() : null;
-        String depotCode = courier.getDepot() != null ? courier.getDepot().getCode() : null;
+    private TwoTierCache<CourierProfileSnapshot> profiles;
 
-        CourierProfileResponse.VehicleDTO vehicleDTO = null;
+    @PostConstruct
+    void init() {
+        profiles = cacheManager.create(CacheNames.COURIER_PROFILES, CourierProfileSnapshot.class,
+                maxSize, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(sharedTtlSeconds));
+    }
 
-        // Only fetch vehicle for freelancers
-        if (courier.getEmploymentType() == EmploymentType.FREELANCER) {
-            Vehicles vehicle = vehicleRepository.findByCourier_id(courier.getId())
-                    .orElse(null);
+    /**
+     * Cached per account; edits to the account, courier, vehicle or depot evict it
+     * (see CacheEvictionEntityListener). A miss is a single query.
+     */
+    @Override
+    public CourierProfileSnapshot getCourierProfile(UUID accountId) {
+        log.debug("Fetching courier profile for accountId: {}", accountId);
+        return profiles.get(accountId.toString(), key -> loadProfile(accountId));
+    }
 
-            if (vehicle != null) {
-                vehicleDTO = new CourierProfileResponse.VehicleDTO(
-                        vehicle.getVehicleType() != null ? vehicle.getVehicleType().name() : null,
-                        vehicle.getMake(),
-                        vehicle.getModel(),
-                        vehicle.getLicencePlate(),
-                        vehicle.getVehicleColor(),
-                        vehicle.getVehicleCapacityKg(),
-                        vehicle.getVehicleCapacityM3(),
-                        vehicle.getStatus() != null ? vehicle.getStatus().name() : null
-                );
-            }
-        }
+    private CourierProfileSnapshot loadProfile(UUID accountId) {
+        CourierProfileRow row = courierRepository.findProfileByAccountId(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Courier profile not found"));
 
-        return new CourierProfileResponse(
-                courier.getFirstName(),
-                courier.getLastName(),
-                account.getEmail(),
-                PhoneNumberUtils.formatForDisplay(account.getPhone()),
-                courier.getNationalId(),
-                courier.getEmploymentType(),
-                courier.getEmployeeId(),
-                courier.getStatus(),
-                depotName,
-                depotCode,
-                vehicleDTO
-        );
+        // Changes whenever any row behind the profile is updated; the account part keeps
+        // two couriers' profiles from sharing one if they were last touched in the same millisecond
+        String etag = "\"" + Integer.toHexString(accountId.hashCode())
+                + "-" + Long.toHexString(row.lastModifiedMillis()) + "\"";
+        return new CourierProfileSnapshot(row.toResponse(), etag);
     }
 }
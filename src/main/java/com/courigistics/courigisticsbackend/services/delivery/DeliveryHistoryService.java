@@ -0,0 +1,18 @@
+package com.courigistics.courigisticsbackend.services.delivery;
+
+import com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryHistoryEntry;
+import com.courigistics.courigisticsbackend.entities.Account;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DeliveryHistoryService {
+
+    /**
+     * Deliveries created in [from, to): those a customer sent, or those a courier carried
+     * Months already moved out of the database are read from their archive
+     *
+     * @return newest first, at most app.delivery-history.max-results entries
+     */
+    List<DeliveryHistoryEntry> findHistory(Account account, LocalDate from, LocalDate to);
+}
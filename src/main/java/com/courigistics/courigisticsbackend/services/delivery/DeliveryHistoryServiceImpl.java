@@ -0,0 +1,137 @@
+package com.courigistics.courigisticsbackend.services.delivery;
+
+import com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryHistoryEntry;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.PartitionArchive;
+import com.courigistics.courigisticsbackend.entities.enums.AccountType;
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentStatus;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.repositories.CourierRepository;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.courigistics.courigisticsbackend.repositories.PartitionArchiveRepository;
+import com.courigistics.courigisticsbackend.services.archive.PartitionArchiveReader;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivery history across the live table and the partition archives
+ *
+ * Archived months have no rows left in deliveries, so one bounded query covers the live part
+ * of any range and each archived month in it is read from its archive file. Archived months are
+ * older than every live one, so archives only fill what the live query left, newest month first.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeliveryHistoryServiceImpl implements DeliveryHistoryService {
+
+    private static final String DELIVERIES_TABLE = "deliveries";
+
+    private final DeliveryRepository deliveryRepository;
+    private final CourierRepository courierRepository;
+    private final PartitionArchiveRepository partitionArchiveRepository;
+    private final PartitionArchiveReader partitionArchiveReader;
+
+    @Value("${app.delivery-history.max-range-days}")
+    private int maxRangeDays;
+
+    @Value("${app.delivery-history.max-results}")
+    private int maxResults;
+
+    @Override
+    public List<DeliveryHistoryEntry> findHistory(Account account, LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new BadRequestException("'from' must be before 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) > maxRangeDays) {
+            throw new BadRequestException("History can be read at most " + maxRangeDays + " days at a time");
+        }
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.atStartOfDay();
+
+        // 1: Whose history: a courier's carried deliveries, anyone else's sent ones
+        UUID ownerId;
+        String ownerColumn;
+        List<DeliveryHistoryEntry> history;
+        if (account.getAccountType() == AccountType.COURIER) {
+            ownerId = courierRepository.findByAccount_Id(account.getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Courier profile not found"))
+                    .getId();
+            ownerColumn = "courier_id";
+            history = new ArrayList<>(deliveryRepository.findCourierHistory(ownerId, start, end, PageRequest.of(0, maxResults)));
+        } else {
+            ownerId = account.getId();
+            ownerColumn = "sender_acc_id";
+            history = new ArrayList<>(deliveryRepository.findSenderHistory(ownerId, start, end, PageRequest.of(0, maxResults)));
+        }
+
+        // 2: Archived months in the range, until the results are full
+        List<PartitionArchive> archives = history.size() < maxResults
+                ? partitionArchiveRepository.findByTableNameAndPeriodStartBetweenOrderByPeriodStartDesc(
+                        DELIVERIES_TABLE, YearMonth.from(from).atDay(1), YearMonth.from(to.minusDays(1)).atDay(1))
+                : List.of();
+        String owner = ownerId.toString();
+        int read = 0;
+        for (PartitionArchive archive : archives) {
+            if (history.size() >= maxResults) {
+                break;
+            }
+            history.addAll(partitionArchiveReader.readOwner(archive, ownerColumn, owner,
+                    row -> isWithin(row, start, end),
+                    DeliveryHistoryServiceImpl::fromArchiveRow,
+                    maxResults - history.size()));
+            read++;
+        }
+        if (read > 0) {
+            log.debug("History for {} read {} archived months", account.getId(), read);
+        }
+
+        // 3: Newest first, capped
+        history.sort(Comparator.comparing(DeliveryHistoryEntry::createdAt).reversed());
+        return history.size() > maxResults ? history.subList(0, maxResults) : history;
+    }
+
+    private static boolean isWithin(JsonNode row, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime createdAt = dateTime(row, "created_at");
+        return createdAt != null && !createdAt.isBefore(start) && createdAt.isBefore(end);
+    }
+
+    // Archive rows carry the table's column names
+    private static DeliveryHistoryEntry fromArchiveRow(JsonNode row) {
+        return new DeliveryHistoryEntry(
+                UUID.fromString(row.path("id").asText()),
+                row.path("delivery_number").asText(null),
+                row.hasNonNull("delivery_status") ? DeliveryStatus.valueOf(row.get("delivery_status").asText()) : null,
+                row.hasNonNull("payment_status") ? PaymentStatus.valueOf(row.get("payment_status").asText()) : null,
+                row.path("recipient_name").asText(null),
+                decimal(row, "estimated_price"),
+                decimal(row, "final_price"),
+                dateTime(row, "created_at"),
+                dateTime(row, "actual_delivery_time")
+        );
+    }
+
+    private static BigDecimal decimal(JsonNode row, String column) {
+        return row.hasNonNull(column) ? row.get(column).decimalValue() : null;
+    }
+
+    private static LocalDateTime dateTime(JsonNode row, String column) {
+        return row.hasNonNull(column) ? LocalDateTime.parse(row.get(column).asText()) : null;
+    }
+}
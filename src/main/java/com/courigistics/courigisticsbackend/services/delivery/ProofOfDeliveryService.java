@@ -0,0 +1,38 @@
+package com.courigistics.courigisticsbackend.services.delivery;
+
+import com.courigistics.courigisticsbackend.dto.requests.delivery.ProofOfDeliveryUploadRequest;
+import com.courigistics.courigisticsbackend.dto.responses.delivery.UploadSessionResponse;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Resumable, chunked proof-of-delivery image uploads
+ *
+ * Protocol:
+ * 1. createUpload → upload ID and offset 0
+ * 2. appendChunk with the current offset, repeated until all bytes are committed
+ * 3. after a dropped connection, getUpload returns the committed offset to resume from
+ * 4. if finalizing failed after the last chunk, appendChunk at the end offset (empty body) retries it
+ * The delivery's proofOfDeliveryUrl is set only after the last chunk is committed to storage.
+ * Chunks are staged on the server that received the first one, so the load balancer must route an
+ * upload's requests to one server (sticky on the upload ID); chunks reaching another server are refused.
+ */
+public interface ProofOfDeliveryService {
+
+    UploadSessionResponse createUpload(UUID accountId, UUID deliveryId, ProofOfDeliveryUploadRequest request);
+
+    UploadSessionResponse getUpload(UUID accountId, UUID deliveryId, UUID uploadId);
+
+    /**
+     * Streams one chunk from the request body to the upload's staging file
+     *
+     * @param offset byte offset the chunk starts at; must equal the committed offset
+     * @param body   raw request body, read through a channel and never buffered whole
+     * @throws com.courigistics.courigisticsbackend.exceptions.BadRequestException on offset mismatch,
+     *         oversized chunk, expired session or checksum failure
+     */
+    UploadSessionResponse appendChunk(UUID accountId, UUID deliveryId, UUID uploadId, long offset, InputStream body);
+
+    void abortUpload(UUID accountId, UUID deliveryId, UUID uploadId);
+}
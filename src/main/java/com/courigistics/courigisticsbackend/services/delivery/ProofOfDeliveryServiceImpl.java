@@ -0,0 +1,372 @@
+package com.courigistics.courigisticsbackend.services.delivery;
+
+import com.courigistics.courigisticsbackend.dto.requests.delivery.ProofOfDeliveryUploadRequest;
+import com.courigistics.courigisticsbackend.dto.responses.delivery.UploadSessionResponse;
+import com.courigistics.courigisticsbackend.entities.UploadSession;
+import com.courigistics.courigisticsbackend.entities.enums.UploadSessionStatus;
+import com.courigistics.courigisticsbackend.events.ProofOfDeliveryUploadedEvent;
+import com.courigistics.courigisticsbackend.exceptions.AccessDeniedException;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.repositories.AccountRepository;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.courigistics.courigisticsbackend.repositories.UploadSessionRepository;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProofOfDeliveryServiceImpl implements ProofOfDeliveryService {
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "image/jpeg", ".jpg",
+            "image/png", ".png",
+            "image/webp", ".webp"
+    );
+    private static final int HASH_BUFFER_BYTES = 64 * 1024;
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final AccountRepository accountRepository;
+    private final ObjectStorage objectStorage;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.storage.pod.staging-dir}")
+    private String stagingDir;
+
+    @Value("${app.storage.pod.max-bytes}")
+    private long maxBytes;
+
+    @Value("${app.storage.pod.max-chunk-bytes}")
+    private long maxChunkBytes;
+
+    @Value("${app.storage.pod.session-ttl-hours}")
+    private long sessionTtlHours;
+
+    private Path stagingRoot;
+
+    @PostConstruct
+    void init() throws IOException {
+        stagingRoot = Paths.get(stagingDir).toAbsolutePath();
+        Files.createDirectories(stagingRoot);
+    }
+
+    @Override
+    public UploadSessionResponse createUpload(UUID accountId, UUID deliveryId, ProofOfDeliveryUploadRequest request) {
+        // 1: Only the assigned courier may attach proof of delivery
+        if (!deliveryRepository.existsByIdAndCourier_Account_Id(deliveryId, accountId)) {
+            throw new AccessDeniedException("Delivery is not assigned to you");
+        }
+
+        // 2: Validate what is about to be uploaded
+        if (!EXTENSIONS.containsKey(request.contentType())) {
+            throw new BadRequestException("Unsupported image type: " + request.contentType());
+        }
+        if (request.sizeBytes() > maxBytes) {
+            throw new BadRequestException("Image exceeds the " + maxBytes + " byte limit");
+        }
+
+        // 3: Open the session
+        UploadSession session = uploadSessionRepository.save(UploadSession.builder()
+                .delivery(deliveryRepository.getReferenceById(deliveryId))
+                .account(accountRepository.getReferenceById(accountId))
+                .contentType(request.contentType())
+                .totalBytes(request.sizeBytes())
+                .expectedSha256(request.sha256() != null ? request.sha256().toLowerCase() : null)
+                .status(UploadSessionStatus.OPEN)
+                .expiresAt(LocalDateTime.now().plusHours(sessionTtlHours))
+                .build());
+
+        log.info("Opened proof-of-delivery upload {} for delivery {} ({} bytes)", session.getId(), deliveryId, request.sizeBytes());
+        return toResponse(session, deliveryId);
+    }
+
+    @Override
+    public UploadSessionResponse getUpload(UUID accountId, UUID deliveryId, UUID uploadId) {
+        return toResponse(findOwned(accountId, deliveryId, uploadId), deliveryId);
+    }
+
+    @Override
+    public UploadSessionResponse appendChunk(UUID accountId, UUID deliveryId, UUID uploadId, long offset, InputStream body) {
+        UploadSession session = findOwned(accountId, deliveryId, uploadId);
+
+        // 1: The chunk must continue exactly where the last committed one ended
+        if (session.getStatus() != UploadSessionStatus.OPEN) {
+            throw new BadRequestException("Upload is " + session.getStatus());
+        }
+        if (session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw new BadRequestException("Upload session has expired");
+        }
+        if (offset != session.getReceivedBytes()) {
+            throw new BadRequestException("Offset mismatch: upload is at byte " + session.getReceivedBytes());
+        }
+        if (offset == session.getTotalBytes()) {
+            // All bytes arrived but finalizing failed; the client retries it at the end offset
+            retryComplete(session, deliveryId);
+            return toResponse(session, deliveryId);
+        }
+
+        // 2: One writer per upload; a concurrent chunk is turned away before it touches the file
+        try (FileChannel out = FileChannel.open(partFile(uploadId), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = lockForWrite(out)) {
+
+            // 3: Re-check under the lock: a racing request may have committed since step 1
+            UploadSession current = uploadSessionRepository.findById(uploadId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Upload not found"));
+            if (current.getStatus() != UploadSessionStatus.OPEN || offset != current.getReceivedBytes()) {
+                throw new BadRequestException("Offset mismatch: upload is at byte " + current.getReceivedBytes());
+            }
+            // Staging is local to the server; without the earlier chunks the image would come out with a hole
+            if (out.size() < offset) {
+                throw new BadRequestException("Earlier chunks of this upload were received by another server");
+            }
+
+            // 4: Stream the body into the staging file at the offset
+            long limit = Math.min(maxChunkBytes, session.getTotalBytes() - offset);
+            long written = writeChunk(out, offset, limit, body);
+            if (written == 0) {
+                throw new BadRequestException("Empty chunk");
+            }
+
+            // 5: Commit the new offset while still holding the lock
+            long newOffset = offset + written;
+            Integer advanced = new TransactionTemplate(transactionManager).execute(status ->
+                    uploadSessionRepository.advanceOffset(uploadId, offset, newOffset, LocalDateTime.now()));
+            if (advanced == null || advanced == 0) {
+                throw new BadRequestException("Chunk at offset " + offset + " was already committed by another request");
+            }
+            session.setReceivedBytes(newOffset);
+
+            // 6: Last chunk: hash, dedup, move into storage, then record the URL
+            if (newOffset == session.getTotalBytes()) {
+                complete(session, deliveryId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write upload chunk", e);
+        }
+        return toResponse(session, deliveryId);
+    }
+
+    @Override
+    public void abortUpload(UUID accountId, UUID deliveryId, UUID uploadId) {
+        UploadSession session = findOwned(accountId, deliveryId, uploadId);
+        if (session.getStatus() == UploadSessionStatus.OPEN) {
+            abort(session);
+        }
+    }
+
+    /**
+     * Aborts uploads that were abandoned part-way and frees their staging files
+     */
+    @Scheduled(fixedDelayString = "${app.storage.pod.cleanup-interval-ms}")
+    public void abortExpiredUploads() {
+        List<UploadSession> expired = uploadSessionRepository
+                .findTop500ByStatusAndExpiresAtBefore(UploadSessionStatus.OPEN, LocalDateTime.now());
+        expired.forEach(this::abort);
+        if (!expired.isEmpty()) {
+            log.info("Aborted {} expired proof-of-delivery uploads", expired.size());
+        }
+    }
+
+    private UploadSession findOwned(UUID accountId, UUID deliveryId, UUID uploadId) {
+        UploadSession session = uploadSessionRepository.findByIdAndAccount_Id(uploadId, accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Upload not found"));
+        if (!session.getDelivery().getId().equals(deliveryId)) {
+            throw new ResourceNotFoundException("Upload not found");
+        }
+        return session;
+    }
+
+    /**
+     * Exclusive lock on the staging file, held from the write until the offset is committed
+     * Never waits: a second writer means a client retried before its first request finished.
+     */
+    private static FileLock lockForWrite(FileChannel out) throws IOException {
+        FileLock lock;
+        try {
+            lock = out.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another request in this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            throw new BadRequestException("Another chunk of this upload is being written");
+        }
+        return lock;
+    }
+
+    /**
+     * Writes at most {@code limit} bytes from the body at {@code offset}
+     * Anything past the committed offset from an earlier broken attempt is truncated first.
+     * Only called with the file lock held.
+     */
+    private static long writeChunk(FileChannel out, long offset, long limit, InputStream body) throws IOException {
+        try (ReadableByteChannel in = Channels.newChannel(body)) {
+            out.truncate(offset);
+
+            long written = 0;
+            while (written < limit) {
+                long n = out.transferFrom(in, offset + written, limit - written);
+                if (n <= 0) {
+                    break;
+                }
+                written += n;
+            }
+
+            // More data than allowed: reject the chunk, the offset is not advanced
+            if (written == limit && in.read(ByteBuffer.allocate(1)) > 0) {
+                throw new BadRequestException("Chunk exceeds " + limit + " bytes");
+            }
+
+            out.force(false);
+            return written;
+        }
+    }
+
+    /**
+     * Finalizes an upload whose bytes all arrived, under the same lock as chunk writes
+     */
+    private void retryComplete(UploadSession session, UUID deliveryId) {
+        Path part = partFile(session.getId());
+        if (!Files.exists(part)) {
+            // Already moved into storage by the failed attempt (or staged on another server)
+            complete(session, deliveryId);
+            return;
+        }
+        try (FileChannel out = FileChannel.open(part, StandardOpenOption.WRITE);
+             FileLock lock = lockForWrite(out)) {
+            complete(session, deliveryId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to finalize upload", e);
+        }
+    }
+
+    /**
+     * Hashes the staged image, moves it into storage and points the delivery at it
+     * Safe to repeat after a failure at any step: the storage key is recorded before the move,
+     * so a retry whose staging file is gone finds the image in storage instead.
+     */
+    private void complete(UploadSession session, UUID deliveryId) {
+        Path part = partFile(session.getId());
+        String key = session.getStorageKey();
+        try {
+            if (key == null) {
+                if (!Files.exists(part)) {
+                    throw new BadRequestException("Upload data is not on this server");
+                }
+                String sha256 = sha256(part);
+                if (session.getExpectedSha256() != null && !session.getExpectedSha256().equals(sha256)) {
+                    abort(session);
+                    throw new BadRequestException("Checksum mismatch; upload aborted");
+                }
+
+                // Content-addressed key: identical images are stored once
+                key = "pod/" + sha256.substring(0, 2) + "/" + sha256 + EXTENSIONS.get(session.getContentType());
+                session.setStorageKey(key);
+                uploadSessionRepository.save(session);
+            }
+
+            if (Files.exists(part)) {
+                if (objectStorage.exists(key)) {
+                    Files.deleteIfExists(part);
+                    log.info("Proof-of-delivery upload {} deduplicated to existing object {}", session.getId(), key);
+                } else {
+                    objectStorage.put(key, part);
+                }
+            } else if (!objectStorage.exists(key)) {
+                abort(session);
+                throw new BadRequestException("Upload data was lost; upload aborted");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to commit proof-of-delivery image", e);
+        }
+
+        // The object is durable in storage; only now does the delivery point at it
+        String url = objectStorage.urlFor(key);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            session.setStatus(UploadSessionStatus.COMPLETED);
+            uploadSessionRepository.save(session);
+            deliveryRepository.updateProofOfDeliveryUrl(deliveryId, url, LocalDateTime.now());
+        });
+        log.info("Proof-of-delivery for delivery {} committed as {}", deliveryId, key);
+
+        // Thumbnails and web variants are generated off the request path
+        eventPublisher.publishEvent(new ProofOfDeliveryUploadedEvent(deliveryId, key, session.getContentType()));
+    }
+
+    private void abort(UploadSession session) {
+        try {
+            Files.deleteIfExists(partFile(session.getId()));
+        } catch (IOException e) {
+            log.warn("Could not delete staging file for upload {}: {}", session.getId(), e.getMessage());
+        }
+        session.setStatus(UploadSessionStatus.ABORTED);
+        uploadSessionRepository.save(session);
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_BYTES);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Path partFile(UUID uploadId) {
+        return stagingRoot.resolve(uploadId + ".part");
+    }
+
+    private UploadSessionResponse toResponse(UploadSession session, UUID deliveryId) {
+        return new UploadSessionResponse(
+                session.getId(),
+                deliveryId,
+                session.getStatus(),
+                session.getTotalBytes(),
+                session.getReceivedBytes(),
+                maxChunkBytes,
+                session.getStatus() == UploadSessionStatus.COMPLETED ? objectStorage.urlFor(session.getStorageKey()) : null,
+                session.getExpiresAt()
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.courigistics.courigisticsbackend.services.depot;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface DepotLookupService {
+
+    /**
+     * Resolves a depot code (e.g. the default depot for new couriers) to its id
+     * Cached; renaming or deleting a depot evicts its code on every node
+     */
+    Optional<UUID> findIdByCode(String code);
+}
@@ -0,0 +1,48 @@
+package com.courigistics.courigisticsbackend.services.depot;
+
+import com.courigistics.courigisticsbackend.entities.Depot;
+import com.courigistics.courigisticsbackend.repositories.DepotRepository;
+import com.courigistics.courigisticsbackend.services.cache.CacheNames;
+import com.courigistics.courigisticsbackend.services.cache.TwoTierCache;
+import com.courigistics.courigisticsbackend.services.cache.TwoTierCacheManager;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DepotLookupServiceImpl implements DepotLookupService {
+
+    private final DepotRepository depotRepository;
+    private final TwoTierCacheManager cacheManager;
+
+    @Value("${app.cache.depot-ids.max-size}")
+    private long maxSize;
+
+    @Value("${app.cache.depot-ids.ttl-seconds}")
+    private long ttlSeconds;
+
+    @Value("${app.cache.depot-ids.shared-ttl-seconds}")
+    private long sharedTtlSeconds;
+
+    private TwoTierCache<UUID> depotIds;
+
+    @PostConstruct
+    void init() {
+        depotIds = cacheManager.create(CacheNames.DEPOT_IDS, UUID.class,
+                maxSize, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(sharedTtlSeconds));
+    }
+
+    @Override
+    public Optional<UUID> findIdByCode(String code) {
+        return Optional.ofNullable(depotIds.get(code, key ->
+                depotRepository.findByCode(key).map(Depot::getId).orElse(null)));
+    }
+}
@@ -0,0 +1,84 @@
+package com.courigistics.courigisticsbackend.services.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A city shard owned by this node at a given lease epoch, running matching passes on a fixed delay
+ *
+ * Stopping waits for a pass in progress to finish, so a shard is only released once nothing on
+ * this node can still be writing for it.
+ */
+@Slf4j
+final class CityDispatchShard {
+
+    private final String shardKey;
+    private final long epoch;
+    private final String nodeId;
+    private final DispatchMatcher matcher;
+    private final ReentrantLock passLock = new ReentrantLock();
+
+    private volatile boolean stopped;
+    private ScheduledFuture<?> passes;
+
+    CityDispatchShard(String shardKey, long epoch, String nodeId, DispatchMatcher matcher) {
+        this.shardKey = shardKey;
+        this.epoch = epoch;
+        this.nodeId = nodeId;
+        this.matcher = matcher;
+    }
+
+    String shardKey() {
+        return shardKey;
+    }
+
+    long epoch() {
+        return epoch;
+    }
+
+    boolean isStopped() {
+        return stopped;
+    }
+
+    void start(ScheduledExecutorService workers, long intervalMs) {
+        passes = workers.scheduleWithFixedDelay(this::runPass, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops matching and returns once no pass is running
+     */
+    void stop() {
+        stopped = true;
+        if (passes != null) {
+            passes.cancel(false);
+        }
+        passLock.lock();
+        passLock.unlock();
+    }
+
+    private void runPass() {
+        if (stopped) {
+            return;
+        }
+        passLock.lock();
+        try {
+            if (stopped) {
+                return;
+            }
+            if (matcher.matchShard(shardKey, nodeId, epoch) == DispatchMatcher.LEASE_LOST) {
+                // The lease manager notices on its next renewal and lets the shard go
+                stopped = true;
+                passes.cancel(false);
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule alive; the next pass retries
+            log.error("Dispatch pass for {} failed: {}", shardKey, e.getMessage());
+        } finally {
+            passLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package com.courigistics.courigisticsbackend.services.dispatch;
+
+import com.courigistics.courigisticsbackend.dto.responses.courier.CourierOfferMessage;
+import com.courigistics.courigisticsbackend.entities.Courier;
+import com.courigistics.courigisticsbackend.events.DeliveryAssignedEvent;
+import com.courigistics.courigisticsbackend.repositories.CourierRepository;
+import com.courigistics.courigisticsbackend.services.courier.CourierReservationService;
+import com.courigistics.courigisticsbackend.utils.GeoUtils;
+import com.courigistics.courigisticsbackend.utils.HashedWheelTimer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Offers deliveries to nearby couriers and assigns the first one to accept
+ *
+ * Each delivery gets a round: the nearest connected couriers, freelancers from the spatial search
+ * and depot employees of the city, offered fan-out at a time. Every offer reserves its courier
+ * (so nobody holds two offers at once) and arms a timeout on a timer wheel. A decline, timeout or
+ * dropped connection frees that courier and offers the next candidate; the first accept assigns the delivery and withdraws the rest.
+ * A round that runs out of candidates ends, and the delivery is retried after a back-off.
+ *
+ * Nothing waits on a courier: state is a couple of objects per outstanding offer, replies arrive
+ * on the WebSocket threads, and timeouts run on a fixed two-thread executor. Reservations carry
+ * their own expiry, so a node that dies mid-round frees its couriers through the reservation sweep.
+ *
+ * Offers only reach couriers connected to this node, so the load balancer must route a city's
+ * courier WebSockets to the node owning that city's shard (see app.dispatch.offers in the config).
+ * The accepting assignment is fenced on the shard lease like direct dispatch, so a node that lost
+ * the city meanwhile cannot assign.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourierOfferDispatcher {
+
+    private static final String TAKEN = "TAKEN";
+    private static final String EXPIRED = "EXPIRED";
+    private static final String CANCELLED = "CANCELLED";
+    private static final int MAX_BACKED_OFF = 10_000;
+
+    private enum Resolution { DECLINED, TIMED_OUT, DISCONNECTED }
+
+    private enum AcceptOutcome { ASSIGNED, OFFER_LAPSED, DELIVERY_TAKEN, LEASE_LOST }
+
+    private record Candidate(UUID courierId, UUID accountId) {}
+
+    private record RankedCandidate(Candidate candidate, double distanceKm) {}
+
+    /**
+     * The shard lease the round was started under; the assignment is fenced on it
+     */
+    record ShardLease(String shardKey, String nodeId, long epoch) {}
+
+    /**
+     * One delivery's offers; all state is guarded by the round's monitor
+     * The monitor is never held across the accepting transaction: an accept takes its offer out of the
+     * round under the monitor, assigns without it, and takes it again to apply the outcome.
+     */
+    private static final class OfferRound {
+        final UUID deliveryId;
+        final double pickupLat;
+        final double pickupLon;
+        final ShardLease lease;
+        final Deque<Candidate> remaining;
+        final Map<UUID, Offer> outstanding = new LinkedHashMap<>();
+        // Accepts whose assignment is in flight; the round neither tops up nor ends meanwhile
+        int accepting;
+        boolean finished;
+
+        OfferRound(UUID deliveryId, double pickupLat, double pickupLon, ShardLease lease, Deque<Candidate> remaining) {
+            this.deliveryId = deliveryId;
+            this.pickupLat = pickupLat;
+            this.pickupLon = pickupLon;
+            this.lease = lease;
+            this.remaining = remaining;
+        }
+    }
+
+    private static final class Offer {
+        final UUID offerId = UUID.randomUUID();
+        final OfferRound round;
+        final Candidate candidate;
+        HashedWheelTimer.Timeout timeout;
+
+        Offer(OfferRound round, Candidate candidate) {
+            this.round = round;
+            this.candidate = candidate;
+        }
+    }
+
+    private final CourierRepository courierRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CourierReservationService courierReservationService;
+    private final CourierOfferSessions courierOfferSessions;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("offerTimeoutExecutor")
+    private final Executor offerTimeoutExecutor;
+
+    @Value("${app.dispatch.offers.fan-out}")
+    private int fanOut;
+
+    @Value("${app.dispatch.offers.max-candidates}")
+    private int maxCandidates;
+
+    @Value("${app.dispatch.offers.search-radius-km}")
+    private double searchRadiusKm;
+
+    @Value("${app.dispatch.offers.timeout-seconds}")
+    private long offerTimeoutSeconds;
+
+    @Value("${app.dispatch.offers.retry-backoff-seconds}")
+    private long retryBackoffSeconds;
+
+    @Value("${app.dispatch.offers.timer-tick-ms}")
+    private long timerTickMs;
+
+    private final ConcurrentHashMap<UUID, OfferRound> rounds = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Offer> offers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Long> retryNotBefore = new ConcurrentHashMap<>();
+
+    private HashedWheelTimer timer;
+    private Counter offersSent;
+    private Counter offersAccepted;
+    private Counter offersDeclined;
+    private Counter offersTimedOut;
+    private Counter offersDisconnected;
+    private Counter roundsExhausted;
+
+    @PostConstruct
+    void init() {
+        // One turn of the wheel covers an offer timeout, so most offers never wait out extra rounds
+        int ticksPerWheel = (int) Math.max(64, offerTimeoutSeconds * 1000 / timerTickMs);
+        timer = new HashedWheelTimer("offer-timer", Duration.ofMillis(timerTickMs), ticksPerWheel, offerTimeoutExecutor);
+
+        offersSent = offerCounter("sent");
+        offersAccepted = offerCounter("accepted");
+        offersDeclined = offerCounter("declined");
+        offersTimedOut = offerCounter("timed_out");
+        offersDisconnected = offerCounter("disconnected");
+        roundsExhausted = Counter.builder("dispatch.offers.rounds.exhausted")
+                .description("Deliveries no offered courier accepted")
+                .register(meterRegistry);
+        meterRegistry.gauge("dispatch.offers.outstanding", offers, Map::size);
+    }
+
+    /**
+     * Starts offering a delivery to the couriers nearest its pickup
+     *
+     * @param city the pickup city as stored on couriers' operational city
+     * @param lease the shard lease the caller is dispatching under
+     * @return false if the delivery is already being offered, backing off, or nobody is available
+     */
+    public boolean startOffers(UUID deliveryId, double pickupLat, double pickupLon, String city, ShardLease lease) {
+        if (rounds.containsKey(deliveryId)) {
+            return false;
+        }
+        Long notBefore = retryNotBefore.get(deliveryId);
+        if (notBefore != null) {
+            if (System.nanoTime() - notBefore < 0) {
+                return false;
+            }
+            retryNotBefore.remove(deliveryId, notBefore);
+        }
+
+        // 1: Nearest first over freelancers and the city's employees, keeping couriers who can actually be reached
+        Deque<Candidate> candidates = new ArrayDeque<>();
+        for (RankedCandidate ranked : rankCandidates(pickupLat, pickupLon, city)) {
+            candidates.add(ranked.candidate());
+            if (candidates.size() >= maxCandidates) {
+                break;
+            }
+        }
+        if (candidates.isEmpty()) {
+            backOff(deliveryId);
+            return false;
+        }
+
+        // 2: Open the round and send the first offers
+        OfferRound round = new OfferRound(deliveryId, pickupLat, pickupLon, lease, candidates);
+        if (rounds.putIfAbsent(deliveryId, round) != null) {
+            return false;
+        }
+        synchronized (round) {
+            offerNext(round);
+        }
+        return true;
+    }
+
+    public void accept(UUID courierAccountId, UUID offerId) {
+        Offer offer = offers.get(offerId);
+        if (offer == null || !offer.candidate.accountId().equals(courierAccountId)) {
+            courierOfferSessions.send(courierAccountId, CourierOfferMessage.withdrawn(offerId, EXPIRED));
+            return;
+        }
+
+        OfferRound round = offer.round;
+        // 1: Claim the offer, so its timeout and a disconnect no longer pass on it
+        synchronized (round) {
+            if (round.finished || round.outstanding.remove(offerId) == null) {
+                courierOfferSessions.send(courierAccountId, CourierOfferMessage.withdrawn(offerId, EXPIRED));
+                return;
+            }
+            offers.remove(offerId);
+            offer.timeout.cancel();
+            round.accepting++;
+        }
+
+        // 2: Assign outside the monitor; concurrent accepts in the round are settled by the fenced UPDATE
+        AcceptOutcome outcome;
+        try {
+            outcome = assign(offer);
+        } catch (RuntimeException e) {
+            log.warn("Could not assign delivery {} to courier {}: {}", round.deliveryId, offer.candidate.courierId(), e.getMessage());
+            outcome = AcceptOutcome.OFFER_LAPSED;
+            courierReservationService.release(offer.candidate.courierId(), round.deliveryId);
+        }
+
+        // 3: Apply the outcome to the round
+        synchronized (round) {
+            round.accepting--;
+            switch (outcome) {
+                case ASSIGNED -> {
+                    offersAccepted.increment();
+                    courierOfferSessions.send(courierAccountId, CourierOfferMessage.confirmed(offerId, round.deliveryId));
+                    finish(round, TAKEN);
+                    retryNotBefore.remove(round.deliveryId);
+                    log.info("Delivery {} accepted by courier {}", round.deliveryId, offer.candidate.courierId());
+                }
+                case DELIVERY_TAKEN -> {
+                    // Assigned elsewhere meanwhile (another node, an admin); nothing left to offer
+                    courierReservationService.release(offer.candidate.courierId(), round.deliveryId);
+                    courierOfferSessions.send(courierAccountId, CourierOfferMessage.withdrawn(offerId, TAKEN));
+                    finish(round, TAKEN);
+                }
+                case LEASE_LOST -> {
+                    // The city moved to another node, which offers the delivery again from scratch
+                    courierReservationService.release(offer.candidate.courierId(), round.deliveryId);
+                    courierOfferSessions.send(courierAccountId, CourierOfferMessage.withdrawn(offerId, CANCELLED));
+                    finish(round, CANCELLED);
+                    log.warn("Dispatch lease for {} lost before delivery {} was accepted", round.lease.shardKey(), round.deliveryId);
+                }
+                case OFFER_LAPSED -> {
+                    courierOfferSessions.send(courierAccountId, CourierOfferMessage.withdrawn(offerId, EXPIRED));
+                    if (!round.finished) {
+                        offerNext(round);
+                    }
+                }
+            }
+        }
+        if (outcome == AcceptOutcome.ASSIGNED) {
+            eventPublisher.publishEvent(new DeliveryAssignedEvent(
+                    round.deliveryId, offer.candidate.courierId(), courierAccountId));
+        }
+    }
+
+    public void decline(UUID courierAccountId, UUID offerId) {
+        Offer offer = offers.get(offerId);
+        if (offer != null && offer.candidate.accountId().equals(courierAccountId)) {
+            resolve(offer, Resolution.DECLINED);
+        }
+    }
+
+    /**
+     * Passes on every offer held by a courier whose connection closed
+     */
+    public void courierDisconnected(UUID courierAccountId) {
+        List<Offer> held = new ArrayList<>();
+        for (Offer offer : offers.values()) {
+            if (offer.candidate.accountId().equals(courierAccountId)) {
+                held.add(offer);
+            }
+        }
+        held.forEach(offer -> resolve(offer, Resolution.DISCONNECTED));
+    }
+
+    /**
+     * Whether the delivery currently has offers out
+     */
+    public boolean isOffering(UUID deliveryId) {
+        return rounds.containsKey(deliveryId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.close();
+        // Free every courier holding an offer now rather than when the reservations lapse
+        List<UUID> open = new ArrayList<>(rounds.keySet());
+        for (UUID deliveryId : open) {
+            OfferRound round = rounds.get(deliveryId);
+            if (round != null) {
+                synchronized (round) {
+                    round.outstanding.values().forEach(offer -> courierOfferSessions.send(
+                            offer.candidate.accountId(), CourierOfferMessage.withdrawn(offer.offerId, CANCELLED)));
+                    round.outstanding.clear();
+                    round.finished = true;
+                }
+            }
+        }
+        try {
+            courierReservationService.releaseForDeliveries(open);
+        } catch (RuntimeException e) {
+            log.warn("Could not release offered couriers on shutdown, their reservations will lapse: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Tops the round up to fan-out outstanding offers; ends it when nobody is left to ask
+     * Caller holds the round's monitor; a round with an accept in flight waits for its outcome
+     */
+    private void offerNext(OfferRound round) {
+        if (round.accepting > 0) {
+            return;
+        }
+        while (round.outstanding.size() < fanOut && !round.remaining.isEmpty()) {
+            Candidate candidate = round.remaining.poll();
+            if (!courierOfferSessions.isConnected(candidate.accountId())
+                    || !courierReservationService.reserve(candidate.courierId(), round.deliveryId)) {
+                // Went offline or was reserved for another delivery since the search
+                continue;
+            }
+
+            Offer offer = new Offer(round, candidate);
+            LocalDateTime expiresAt = LocalDateTime.now().plusSeconds(offerTimeoutSeconds);
+            round.outstanding.put(offer.offerId, offer);
+            offers.put(offer.offerId, offer);
+            offer.timeout = timer.schedule(() -> resolve(offer, Resolution.TIMED_OUT), Duration.ofSeconds(offerTimeoutSeconds));
+
+            CourierOfferMessage message = CourierOfferMessage.offer(
+                    offer.offerId, round.deliveryId, round.pickupLat, round.pickupLon, expiresAt);
+            if (courierOfferSessions.send(candidate.accountId(), message)) {
+                offersSent.increment();
+            } else {
+                drop(offer);
+            }
+        }
+
+        if (round.outstanding.isEmpty()) {
+            roundsExhausted.increment();
+            finish(round, EXPIRED);
+            backOff(round.deliveryId);
+            log.debug("No courier accepted delivery {}, retrying in {}s", round.deliveryId, retryBackoffSeconds);
+        }
+    }
+
+    private void resolve(Offer offer, Resolution resolution) {
+        OfferRound round = offer.round;
+        synchronized (round) {
+            if (round.finished || round.outstanding.get(offer.offerId) != offer) {
+                return;
+            }
+            drop(offer);
+            switch (resolution) {
+                case DECLINED -> offersDeclined.increment();
+                case TIMED_OUT -> {
+                    offersTimedOut.increment();
+                    courierOfferSessions.send(offer.candidate.accountId(), CourierOfferMessage.withdrawn(offer.offerId, EXPIRED));
+                }
+                case DISCONNECTED -> offersDisconnected.increment();
+            }
+            offerNext(round);
+        }
+    }
+
+    /**
+     * Takes an offer out of the round and frees its courier; caller holds the round's monitor
+     */
+    private void drop(Offer offer) {
+        offer.round.outstanding.remove(offer.offerId);
+        offers.remove(offer.offerId);
+        if (offer.timeout != null) {
+            offer.timeout.cancel();
+        }
+        courierReservationService.release(offer.candidate.courierId(), offer.round.deliveryId);
+    }
+
+    /**
+     * Ends the round, withdrawing any offers still out; caller holds the round's monitor
+     */
+    private void finish(OfferRound round, String reason) {
+        round.finished = true;
+        for (Offer offer : new ArrayList<>(round.outstanding.values())) {
+            drop(offer);
+            courierOfferSessions.send(offer.candidate.accountId(), CourierOfferMessage.withdrawn(offer.offerId, reason));
+        }
+        rounds.remove(round.deliveryId, round);
+    }
+
+    /**
+     * Available couriers who are connected to this node, nearest to the pickup first
+     * Freelancers come from the spatial search; employees serve the whole city, so they are ranked by their
+     * last known position when they have one and offered after everyone nearer otherwise
+     */
+    private List<RankedCandidate> rankCandidates(double pickupLat, double pickupLon, String city) {
+        List<RankedCandidate> ranked = new ArrayList<>();
+        List<Courier> freelancers = courierRepository.findAvailableFreelancersNearPoint(
+                pickupLat, pickupLon, searchRadiusKm * 1000, city);
+        List<Courier> employees = courierRepository.findAvailableEmployeesInCity(city);
+        for (List<Courier> couriers : List.of(freelancers, employees)) {
+            for (Courier courier : couriers) {
+                UUID accountId = courier.getAccount().getId();
+                if (!courierOfferSessions.isConnected(accountId)) {
+                    continue;
+                }
+                double distanceKm = courier.getCurrentLat() != null && courier.getCurrentLon() != null
+                        ? GeoUtils.haversineDistance(pickupLat, pickupLon, courier.getCurrentLat(), courier.getCurrentLon())
+                        : Double.MAX_VALUE;
+                ranked.add(new RankedCandidate(new Candidate(courier.getId(), accountId), distanceKm));
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(RankedCandidate::distanceKm));
+        return ranked;
+    }
+
+    /**
+     * Confirms the courier's reservation and assigns the delivery, or neither
+     * Uses direct dispatch's fenced UPDATE, so the assignment only lands while the round's shard lease is held
+     */
+    private AcceptOutcome assign(Offer offer) {
+        UUID courierId = offer.candidate.courierId();
+        UUID deliveryId = offer.round.deliveryId;
+        ShardLease lease = offer.round.lease;
+        AcceptOutcome outcome = new TransactionTemplate(transactionManager).execute(status -> {
+            if (!courierReservationService.confirm(courierId, deliveryId)) {
+                return AcceptOutcome.OFFER_LAPSED;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            if (jdbcTemplate.update(DispatchMatcher.ASSIGN_DELIVERY, courierId, now, deliveryId,
+                    lease.shardKey(), lease.nodeId(), lease.epoch(), now) == 1) {
+                return AcceptOutcome.ASSIGNED;
+            }
+            status.setRollbackOnly();
+            Integer held = jdbcTemplate.queryForObject(DispatchMatcher.LEASE_STILL_HELD, Integer.class,
+                    lease.shardKey(), lease.nodeId(), lease.epoch(), now);
+            return held != null && held > 0 ? AcceptOutcome.DELIVERY_TAKEN : AcceptOutcome.LEASE_LOST;
+        });
+        return outcome == null ? AcceptOutcome.DELIVERY_TAKEN : outcome;
+    }
+
+    private void backOff(UUID deliveryId) {
+        long now = System.nanoTime();
+        if (retryNotBefore.size() > MAX_BACKED_OFF) {
+            // Deliveries assigned elsewhere never come back to clear their entry
+            retryNotBefore.values().removeIf(notBefore -> now - notBefore > 0);
+        }
+        retryNotBefore.put(deliveryId, now + Duration.ofSeconds(retryBackoffSeconds).toNanos());
+    }
+
+    private Counter offerCounter(String outcome) {
+        return Counter.builder("dispatch.offers")
+                .description("Courier offers by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
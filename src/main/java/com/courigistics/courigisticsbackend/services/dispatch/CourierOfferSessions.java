@@ -0,0 +1,122 @@
+package com.courigistics.courigisticsbackend.services.dispatch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Couriers connected to this node's offers WebSocket, one session per courier
+ *
+ * Sessions are wrapped so sends from different threads are serialised, and a courier on a
+ * stalled connection is disconnected instead of blocking the sender.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourierOfferSessions {
+
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.dispatch.offers.send-time-limit-ms}")
+    private int sendTimeLimitMs;
+
+    @Value("${app.dispatch.offers.send-buffer-bytes}")
+    private int sendBufferBytes;
+
+    private final ConcurrentHashMap<UUID, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("dispatch.offers.sessions", sessions, Map::size);
+    }
+
+    void register(UUID courierAccountId, WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs, sendBufferBytes);
+        WebSocketSession previous = sessions.put(courierAccountId, decorated);
+        if (previous != null) {
+            // Reconnected from a new connection; the old one is dead or about to be
+            closeQuietly(previous, CloseStatus.POLICY_VIOLATION.withReason("Replaced by a newer connection"));
+        }
+    }
+
+    /**
+     * @return true if this was the courier's current session
+     */
+    boolean unregister(UUID courierAccountId, WebSocketSession session) {
+        boolean[] removed = new boolean[1];
+        sessions.computeIfPresent(courierAccountId, (id, current) -> {
+            if (current.getId().equals(session.getId())) {
+                removed[0] = true;
+                return null;
+            }
+            return current;
+        });
+        return removed[0];
+    }
+
+    boolean isConnected(UUID courierAccountId) {
+        WebSocketSession session = sessions.get(courierAccountId);
+        return session != null && session.isOpen();
+    }
+
+    /**
+     * Closes every session matching the predicate; the close callback unregisters them
+     * @return how many were closed
+     */
+    int closeWhere(Predicate<WebSocketSession> predicate, CloseStatus status) {
+        int closed = 0;
+        for (WebSocketSession session : sessions.values()) {
+            if (predicate.test(session)) {
+                closeQuietly(session, status);
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * @return false if the courier is not connected here or the message could not be sent
+     */
+    boolean send(UUID courierAccountId, Object message) {
+        WebSocketSession session = sessions.get(courierAccountId);
+        if (session == null || !session.isOpen()) {
+            return false;
+        }
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(message)));
+            return true;
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialise offer message: {}", e.getMessage());
+            return false;
+        } catch (IOException | IllegalStateException e) {
+            // Send limits exceeded or the connection broke; the close callback cleans up
+            log.debug("Offer message to courier {} failed: {}", courierAccountId, e.getMessage());
+            closeQuietly(session, CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+    }
+
+    private static void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.courigistics.courigisticsbackend.services.dispatch;
+
+import com.courigistics.courigisticsbackend.config.security.JwtAuthenticationDetails;
+import com.courigistics.courigisticsbackend.dto.requests.courier.CourierOfferReply;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.enums.AccountType;
+import com.courigistics.courigisticsbackend.exceptions.AccessDeniedException;
+import com.courigistics.courigisticsbackend.services.auth.AccessTokenRevocationService;
+import com.courigistics.courigisticsbackend.utils.SecurityUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Courier side of the offers WebSocket
+ *
+ * The handshake is an ordinary request under /api/v1/courier/**, so JwtAuthFilter has already
+ * authenticated the courier by the time the connection opens. Couriers receive offers and reply
+ * with {"type": "ACCEPT" | "DECLINE", "offerId": ...}.
+ *
+ * A connection outlives the request that opened it, so the access token it was opened with is
+ * rechecked: every reply is refused once the token has expired or been revoked, and a periodic
+ * sweep closes such sessions even when the courier is silent. The courier reconnects with a fresh token.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CourierOfferSocketHandler extends TextWebSocketHandler {
+
+    private static final String ACCOUNT_ID = "courierAccountId";
+    private static final String TOKEN_ID = "accessTokenJti";
+    private static final String TOKEN_EXPIRES_AT = "accessTokenExpiresAt";
+    private static final CloseStatus TOKEN_INVALID = CloseStatus.POLICY_VIOLATION.withReason("Access token expired or revoked");
+
+    private final CourierOfferSessions courierOfferSessions;
+    private final CourierOfferDispatcher courierOfferDispatcher;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+        UUID accountId = courierAccountId(session);
+        if (accountId == null) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Courier account required"));
+            return;
+        }
+        if (!(((Authentication) session.getPrincipal()).getDetails() instanceof JwtAuthenticationDetails token)) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("Access token required"));
+            return;
+        }
+        session.getAttributes().put(ACCOUNT_ID, accountId);
+        session.getAttributes().put(TOKEN_ID, token.getJti());
+        session.getAttributes().put(TOKEN_EXPIRES_AT, token.getExpiresAt());
+        courierOfferSessions.register(accountId, session);
+        log.debug("Courier {} connected for offers", accountId);
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) {
+        UUID accountId = (UUID) session.getAttributes().get(ACCOUNT_ID);
+        if (accountId == null) {
+            return;
+        }
+        if (!tokenStillValid(session)) {
+            log.debug("Courier {} replied with an expired or revoked token, closing", accountId);
+            try {
+                session.close(TOKEN_INVALID);
+            } catch (IOException ignored) {
+                // Already gone
+            }
+            return;
+        }
+
+        CourierOfferReply reply;
+        try {
+            reply = objectMapper.readValue(message.getPayload(), CourierOfferReply.class);
+        } catch (JsonProcessingException e) {
+            log.debug("Unreadable offer reply from courier {}: {}", accountId, e.getMessage());
+            return;
+        }
+        if (reply.offerId() == null || reply.type() == null) {
+            return;
+        }
+
+        switch (reply.type()) {
+            case CourierOfferReply.ACCEPT -> courierOfferDispatcher.accept(accountId, reply.offerId());
+            case CourierOfferReply.DECLINE -> courierOfferDispatcher.decline(accountId, reply.offerId());
+            default -> log.debug("Unknown offer reply type {} from courier {}", reply.type(), accountId);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        UUID accountId = (UUID) session.getAttributes().get(ACCOUNT_ID);
+        // A session replaced by a reconnect must not take the courier's offers with it
+        if (accountId != null && courierOfferSessions.unregister(accountId, session)) {
+            courierOfferDispatcher.courierDisconnected(accountId);
+        }
+    }
+
+    /**
+     * Closes sessions whose token expired or was revoked (revocations from other nodes arrive with the revocation poll)
+     */
+    @Scheduled(fixedDelayString = "${app.dispatch.offers.token-check-interval-ms}")
+    public void closeInvalidTokenSessions() {
+        int closed = courierOfferSessions.closeWhere(session -> !tokenStillValid(session), TOKEN_INVALID);
+        if (closed > 0) {
+            log.info("Closed {} offer sessions with expired or revoked tokens", closed);
+        }
+    }
+
+    private boolean tokenStillValid(WebSocketSession session) {
+        String jti = (String) session.getAttributes().get(TOKEN_ID);
+        Instant expiresAt = (Instant) session.getAttributes().get(TOKEN_EXPIRES_AT);
+        return jti != null && expiresAt != null
+                && Instant.now().isBefore(expiresAt)
+                && !accessTokenRevocationService.isRevoked(jti, expiresAt);
+    }
+
+    private static UUID courierAccountId(WebSocketSession session) {
+        if (!(session.getPrincipal() instanceof Authentication authentication)) {
+            return null;
+        }
+        try {
+            Account account = SecurityUtils.getAuthenticatedAccount(authentication);
+            return account.getAccountType() == AccountType.COURIER ? account.getId() : null;
+        } catch (AccessDeniedException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.courigistics.courigisticsbackend.services.dispatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spreads city dispatch shards over the running nodes through a lease table
+ *
+ * Every node heartbeats into dispatch_nodes and, on the same beat:
+ * - renews the leases it holds, dropping any it can no longer renew
+ * - works out its fair share: floor(shards / live nodes), plus one for as many nodes as the
+ *   remainder allows
+ * - takes free or expired shards up to that share; a dead node's shards come free when its
+ *   leases expire
+ * - hands one shard back while over the share, or while above the floor and another live node
+ *   is below it (e.g. after a node joined), so splits such as 3/3/1 do not settle; the shard
+ *   finishes its current pass before the lease is released
+ *
+ * Waiting deliveries live in the database, so a shard changing hands drops nothing: the new
+ * owner picks them up on its first pass. Each owner change bumps the lease epoch, and every
+ * assignment is fenced on (owner, epoch), so two nodes can never assign for the same city.
+ * Lease times come from node clocks, which must stay well within the lease TTL of each other.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchLeaseManager {
+
+    private static final String UPDATE_NODE_HEARTBEAT =
+            "UPDATE dispatch_nodes SET heartbeat_at = ? WHERE node_id = ?";
+    private static final String INSERT_NODE =
+            "INSERT INTO dispatch_nodes (node_id, heartbeat_at, started_at) VALUES (?, ?, ?)";
+    private static final String DELETE_NODE =
+            "DELETE FROM dispatch_nodes WHERE node_id = ?";
+    private static final String DELETE_DEAD_NODES =
+            "DELETE FROM dispatch_nodes WHERE heartbeat_at < ?";
+    // Live leases held by each live node, including nodes that hold none
+    private static final String SELECT_LIVE_NODE_LOADS = """
+            SELECT n.node_id, COUNT(l.shard_key)
+            FROM dispatch_nodes n
+            LEFT JOIN dispatch_shard_leases l ON l.owner_node_id = n.node_id AND l.lease_expires_at > ?
+            WHERE n.heartbeat_at > ?
+            GROUP BY n.node_id
+            """;
+
+    private static final String SELECT_DEPOT_CITIES =
+            "SELECT DISTINCT LOWER(city) FROM depot WHERE status = 'ACTIVE' AND city IS NOT NULL";
+    private static final String SELECT_SHARD_KEYS =
+            "SELECT shard_key FROM dispatch_shard_leases";
+    private static final String INSERT_SHARD =
+            "INSERT INTO dispatch_shard_leases (shard_key, epoch, updated_at) VALUES (?, 0, ?)";
+
+    private static final String RENEW_LEASE = """
+            UPDATE dispatch_shard_leases SET lease_expires_at = ?, updated_at = ?
+            WHERE shard_key = ? AND owner_node_id = ? AND epoch = ? AND lease_expires_at > ?
+            """;
+    private static final String SELECT_CLAIMABLE = """
+            SELECT shard_key, epoch FROM dispatch_shard_leases
+            WHERE owner_node_id IS NULL OR lease_expires_at IS NULL OR lease_expires_at <= ?
+            ORDER BY shard_key
+            """;
+    private static final String CLAIM_LEASE = """
+            UPDATE dispatch_shard_leases
+            SET owner_node_id = ?, epoch = epoch + 1, lease_expires_at = ?, updated_at = ?
+            WHERE shard_key = ? AND epoch = ?
+              AND (owner_node_id IS NULL OR lease_expires_at IS NULL OR lease_expires_at <= ?)
+            """;
+    private static final String RELEASE_LEASE = """
+            UPDATE dispatch_shard_leases SET owner_node_id = NULL, lease_expires_at = NULL, updated_at = ?
+            WHERE shard_key = ? AND owner_node_id = ? AND epoch = ?
+            """;
+
+    private record ClaimableShard(String shardKey, long epoch) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DispatchMatcher dispatchMatcher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.dispatch.node-id}")
+    private String configuredNodeId;
+
+    @Value("${app.dispatch.lease-ttl-seconds}")
+    private long leaseTtlSeconds;
+
+    @Value("${app.dispatch.node-ttl-seconds}")
+    private long nodeTtlSeconds;
+
+    @Value("${app.dispatch.match-interval-ms}")
+    private long matchIntervalMs;
+
+    @Value("${app.dispatch.workers}")
+    private int workers;
+
+    private final ConcurrentHashMap<String, CityDispatchShard> ownedShards = new ConcurrentHashMap<>();
+
+    private String nodeId;
+    private LocalDateTime startedAt;
+    private ScheduledExecutorService matchingWorkers;
+    private Counter leasesAcquired;
+    private Counter leasesLost;
+    private Counter leasesHandedOff;
+
+    @PostConstruct
+    void init() {
+        nodeId = configuredNodeId == null || configuredNodeId.isBlank() ? defaultNodeId() : configuredNodeId;
+        startedAt = LocalDateTime.now();
+        matchingWorkers = Executors.newScheduledThreadPool(
+                workers > 0 ? workers : Runtime.getRuntime().availableProcessors(),
+                Thread.ofPlatform().name("dispatch-", 0).daemon(true).factory());
+
+        leasesAcquired = leaseCounter("acquired");
+        leasesLost = leaseCounter("lost");
+        leasesHandedOff = leaseCounter("handed_off");
+        meterRegistry.gauge("dispatch.shards.owned", ownedShards, Map::size);
+        log.info("Dispatch node {} started", nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Cities this node is currently dispatching for
+     */
+    public Set<String> getOwnedShardKeys() {
+        return new TreeSet<>(ownedShards.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${app.dispatch.heartbeat-interval-ms}")
+    public void heartbeat() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            beat(now);
+            registerShards(now);
+            renewLeases(now);
+            rebalance(now);
+        } catch (RuntimeException e) {
+            // Leases we could not renew simply expire; the next beat starts over
+            log.error("Dispatch heartbeat failed on {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Hand everything back straight away instead of making the others wait for expiry
+        for (CityDispatchShard shard : new ArrayList<>(ownedShards.values())) {
+            release(shard, LocalDateTime.now());
+        }
+        matchingWorkers.shutdown();
+        try {
+            jdbcTemplate.update(DELETE_NODE, nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Could not deregister dispatch node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private void beat(LocalDateTime now) {
+        Timestamp ts = Timestamp.valueOf(now);
+        if (jdbcTemplate.update(UPDATE_NODE_HEARTBEAT, ts, nodeId) == 0) {
+            try {
+                jdbcTemplate.update(INSERT_NODE, nodeId, ts, Timestamp.valueOf(startedAt));
+            } catch (DuplicateKeyException ignored) {
+                // Inserted by a concurrent beat of this node
+            }
+        }
+        jdbcTemplate.update(DELETE_DEAD_NODES, Timestamp.valueOf(now.minusSeconds(nodeTtlSeconds * 10)));
+    }
+
+    /**
+     * One shard per city with an active depot
+     */
+    private void registerShards(LocalDateTime now) {
+        Set<String> known = new HashSet<>(jdbcTemplate.queryForList(SELECT_SHARD_KEYS, String.class));
+        for (String city : jdbcTemplate.queryForList(SELECT_DEPOT_CITIES, String.class)) {
+            if (known.contains(city)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update(INSERT_SHARD, city, Timestamp.valueOf(now));
+                log.info("Registered dispatch shard {}", city);
+            } catch (DuplicateKeyException ignored) {
+                // Another node registered it first
+            }
+        }
+    }
+
+    private void renewLeases(LocalDateTime now) {
+        Timestamp ts = Timestamp.valueOf(now);
+        Timestamp expiry = Timestamp.valueOf(now.plusSeconds(leaseTtlSeconds));
+        for (CityDispatchShard shard : new ArrayList<>(ownedShards.values())) {
+            boolean renewed = !shard.isStopped() && jdbcTemplate.update(RENEW_LEASE,
+                    expiry, ts, shard.shardKey(), nodeId, shard.epoch(), ts) == 1;
+            if (!renewed) {
+                shard.stop();
+                ownedShards.remove(shard.shardKey(), shard);
+                leasesLost.increment();
+                log.warn("Dispatch node {} lost shard {} (epoch {})", nodeId, shard.shardKey(), shard.epoch());
+            }
+        }
+    }
+
+    private void rebalance(LocalDateTime now) {
+        Timestamp ts = Timestamp.valueOf(now);
+        Map<String, Integer> loads = new HashMap<>();
+        jdbcTemplate.query(SELECT_LIVE_NODE_LOADS, rs -> { loads.put(rs.getString(1), rs.getInt(2)); },
+                ts, Timestamp.valueOf(now.minusSeconds(nodeTtlSeconds)));
+        // Our own count is exact even if this beat's heartbeat row is not visible yet
+        loads.put(nodeId, ownedShards.size());
+        int shardCount = jdbcTemplate.queryForList(SELECT_SHARD_KEYS, String.class).size();
+
+        // floor for everyone, one more for `remainder` of the nodes
+        int floor = shardCount / loads.size();
+        int ceiling = shardCount % loads.size() == 0 ? floor : floor + 1;
+        boolean otherBelowFloor = loads.entrySet().stream()
+                .anyMatch(load -> !load.getKey().equals(nodeId) && load.getValue() < floor);
+        int fairShare = otherBelowFloor ? floor : ceiling;
+
+        if (ownedShards.size() > fairShare) {
+            // One per beat, so a joining node is not swamped by a burst of free shards
+            String last = new TreeSet<>(ownedShards.keySet()).last();
+            CityDispatchShard shard = ownedShards.get(last);
+            if (shard != null) {
+                release(shard, now);
+                leasesHandedOff.increment();
+            }
+            return;
+        }
+
+        if (ownedShards.size() < fairShare) {
+            claim(now, fairShare);
+        }
+    }
+
+    private void claim(LocalDateTime now, int fairShare) {
+        Timestamp ts = Timestamp.valueOf(now);
+        Timestamp expiry = Timestamp.valueOf(now.plusSeconds(leaseTtlSeconds));
+        List<ClaimableShard> claimable = jdbcTemplate.query(SELECT_CLAIMABLE,
+                (rs, i) -> new ClaimableShard(rs.getString(1), rs.getLong(2)), ts);
+
+        for (ClaimableShard candidate : claimable) {
+            if (ownedShards.size() >= fairShare) {
+                return;
+            }
+            // Conditional on the epoch we read, so of several nodes racing for a shard exactly one wins
+            if (jdbcTemplate.update(CLAIM_LEASE, nodeId, expiry, ts, candidate.shardKey(), candidate.epoch(), ts) != 1) {
+                continue;
+            }
+            CityDispatchShard shard = new CityDispatchShard(
+                    candidate.shardKey(), candidate.epoch() + 1, nodeId, dispatchMatcher);
+            ownedShards.put(shard.shardKey(), shard);
+            shard.start(matchingWorkers, matchIntervalMs);
+            leasesAcquired.increment();
+            log.info("Dispatch node {} took shard {} (epoch {})", nodeId, shard.shardKey(), shard.epoch());
+        }
+    }
+
+    private void release(CityDispatchShard shard, LocalDateTime now) {
+        shard.stop();
+        ownedShards.remove(shard.shardKey(), shard);
+        try {
+            jdbcTemplate.update(RELEASE_LEASE, Timestamp.valueOf(now), shard.shardKey(), nodeId, shard.epoch());
+            log.info("Dispatch node {} handed off shard {} (epoch {})", nodeId, shard.shardKey(), shard.epoch());
+        } catch (RuntimeException e) {
+            // Matching already stopped; the lease just runs out instead
+            log.warn("Could not release shard {}: {}", shard.shardKey(), e.getMessage());
+        }
+    }
+
+    private Counter leaseCounter(String outcome) {
+        return Counter.builder("dispatch.leases")
+                .description("Dispatch shard lease changes on this node")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,219 @@
+package com.courigistics.courigisticsbackend.services.dispatch;
+
+import com.courigistics.courigisticsbackend.events.DeliveryAssignedEvent;
+import com.courigistics.courigisticsbackend.services.courier.CourierReservationService;
+import com.courigistics.courigisticsbackend.utils.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One matching pass over a city shard: waiting deliveries are paired with the nearest available courier
+ *
+ * The courier index is rebuilt from the database at the start of every pass, so courier positions
+ * and availability written by any node are picked up. Each assignment is its own short transaction.
+ * The delivery UPDATE only succeeds while the caller still holds the shard lease at the given epoch,
+ * so a node that lost its shard can never assign anything, even if it has not noticed yet.
+ *
+ * With courier offers enabled the pass only starts offer rounds; the courier who accepts is assigned
+ * by CourierOfferDispatcher, conditional on the delivery still being unassigned.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DispatchMatcher {
+
+    /**
+     * Result of a pass that found its lease gone; the shard must stop
+     */
+    static final int LEASE_LOST = -1;
+
+    private static final String SELECT_WAITING_DELIVERIES = """
+            SELECT d.id, d.pickup_lat, d.pickup_lon, o.city
+            FROM deliveries d
+            JOIN depot o ON o.id = d.origin_depot_id
+            WHERE LOWER(o.city) = ?
+              AND d.courier_id IS NULL
+              AND (d.delivery_status = 'PAID' OR (d.delivery_status = 'CREATED' AND d.payment_method = 'COD'))
+              AND d.pickup_lat IS NOT NULL AND d.pickup_lon IS NOT NULL
+            ORDER BY d.created_at
+            LIMIT ?
+            """;
+
+    private static final String SELECT_AVAILABLE_COURIERS = """
+            SELECT c.id, c.account_id, c.curent_lat, c.current_lon
+            FROM couriers c
+            WHERE LOWER(c.operational_city) = ?
+              AND c.status = 'ACTIVE'
+              AND c.available_for_assignment = TRUE
+              AND c.curent_lat IS NOT NULL AND c.current_lon IS NOT NULL
+            """;
+
+    // Shared with CourierOfferDispatcher, whose accepted offers are fenced the same way
+    static final String ASSIGN_DELIVERY = """
+            UPDATE deliveries SET courier_id = ?, delivery_status = 'ASSIGNED', updated_at = ?
+            WHERE id = ?
+              AND courier_id IS NULL
+              AND EXISTS (SELECT 1 FROM dispatch_shard_leases l
+                          WHERE l.shard_key = ? AND l.owner_node_id = ? AND l.epoch = ? AND l.lease_expires_at > ?)
+            """;
+
+    static final String LEASE_STILL_HELD = """
+            SELECT COUNT(*) FROM dispatch_shard_leases
+            WHERE shard_key = ? AND owner_node_id = ? AND epoch = ? AND lease_expires_at > ?
+            """;
+
+    private record WaitingDelivery(UUID id, double pickupLat, double pickupLon, String city) {}
+
+    private record AvailableCourier(UUID id, UUID accountId, double lat, double lon) {}
+
+    private enum Outcome { ASSIGNED, COURIER_TAKEN, DELIVERY_TAKEN, LEASE_LOST }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final CourierOfferDispatcher courierOfferDispatcher;
+    private final CourierReservationService courierReservationService;
+
+    @Value("${app.dispatch.offers.enabled}")
+    private boolean offersEnabled;
+
+    @Value("${app.dispatch.match-batch-size}")
+    private int matchBatchSize;
+
+    @Value("${app.dispatch.max-pickup-distance-km}")
+    private double maxPickupDistanceKm;
+
+    private Counter assignments;
+    private Counter conflicts;
+    private Timer passTimer;
+
+    @PostConstruct
+    void init() {
+        assignments = Counter.builder("dispatch.assignments")
+                .description("Deliveries assigned to a courier by dispatch")
+                .register(meterRegistry);
+        conflicts = Counter.builder("dispatch.conflicts")
+                .description("Assignments skipped because the courier or delivery was taken meanwhile")
+                .register(meterRegistry);
+        passTimer = Timer.builder("dispatch.match.pass")
+                .description("Time for one matching pass over a city shard")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return deliveries assigned, or {@link #LEASE_LOST}
+     */
+    int matchShard(String shardKey, String nodeId, long epoch) {
+        return passTimer.record(() -> doMatch(shardKey, nodeId, epoch));
+    }
+
+    private int doMatch(String shardKey, String nodeId, long epoch) {
+        // 1: Oldest waiting deliveries and the city's courier index
+        List<WaitingDelivery> waiting = jdbcTemplate.query(SELECT_WAITING_DELIVERIES,
+                (rs, i) -> new WaitingDelivery(rs.getObject(1, UUID.class), rs.getDouble(2), rs.getDouble(3), rs.getString(4)),
+                shardKey, matchBatchSize);
+        if (waiting.isEmpty()) {
+            return 0;
+        }
+        if (offersEnabled) {
+            return offer(waiting, new CourierOfferDispatcher.ShardLease(shardKey, nodeId, epoch));
+        }
+        List<AvailableCourier> couriers = jdbcTemplate.query(SELECT_AVAILABLE_COURIERS,
+                (rs, i) -> new AvailableCourier(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                        rs.getDouble(3), rs.getDouble(4)),
+                shardKey);
+        boolean[] taken = new boolean[couriers.size()];
+
+        // 2: First come, first served; each delivery gets the nearest courier still free
+        int assigned = 0;
+        for (WaitingDelivery delivery : waiting) {
+            int best = -1;
+            double bestKm = maxPickupDistanceKm;
+            for (int i = 0; i < couriers.size(); i++) {
+                if (taken[i]) {
+                    continue;
+                }
+                AvailableCourier courier = couriers.get(i);
+                double km = GeoUtils.haversineDistance(delivery.pickupLat(), delivery.pickupLon(), courier.lat(), courier.lon());
+                if (km <= bestKm) {
+                    best = i;
+                    bestKm = km;
+                }
+            }
+            if (best < 0) {
+                continue;
+            }
+
+            // 3: Fenced write; the courier is either assigned or no longer free, either way skip it
+            taken[best] = true;
+            AvailableCourier courier = couriers.get(best);
+            Outcome outcome = assign(delivery.id(), courier.id(), shardKey, nodeId, epoch);
+            switch (outcome) {
+                case ASSIGNED -> {
+                    assigned++;
+                    assignments.increment();
+                    eventPublisher.publishEvent(new DeliveryAssignedEvent(delivery.id(), courier.id(), courier.accountId()));
+                }
+                case LEASE_LOST -> {
+                    log.warn("Lost dispatch lease for {} (epoch {}) during matching", shardKey, epoch);
+                    return LEASE_LOST;
+                }
+                default -> conflicts.increment();
+            }
+        }
+
+        if (assigned > 0) {
+            log.debug("Dispatch {}: assigned {} of {} waiting deliveries", shardKey, assigned, waiting.size());
+        }
+        return assigned;
+    }
+
+    /**
+     * Hands waiting deliveries to the offer dispatcher; couriers accept before they are assigned
+     */
+    private int offer(List<WaitingDelivery> waiting, CourierOfferDispatcher.ShardLease lease) {
+        int started = 0;
+        for (WaitingDelivery delivery : waiting) {
+            if (!courierOfferDispatcher.isOffering(delivery.id())
+                    && courierOfferDispatcher.startOffers(delivery.id(), delivery.pickupLat(), delivery.pickupLon(),
+                    delivery.city(), lease)) {
+                started++;
+            }
+        }
+        return started;
+    }
+
+    private Outcome assign(UUID deliveryId, UUID courierId, String shardKey, String nodeId, long epoch) {
+        Outcome outcome = new TransactionTemplate(transactionManager).execute(status -> {
+            // Joins this transaction: the rollback below gives the courier back
+            if (!courierReservationService.reserveOutright(courierId, deliveryId)) {
+                return Outcome.COURIER_TAKEN;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            if (jdbcTemplate.update(ASSIGN_DELIVERY, courierId, now, deliveryId, shardKey, nodeId, epoch, now) == 1) {
+                return Outcome.ASSIGNED;
+            }
+            // Give the courier back and find out why the delivery was refused
+            status.setRollbackOnly();
+            Integer held = jdbcTemplate.queryForObject(LEASE_STILL_HELD, Integer.class, shardKey, nodeId, epoch, now);
+            return held != null && held > 0 ? Outcome.DELIVERY_TAKEN : Outcome.LEASE_LOST;
+        });
+        return outcome == null ? Outcome.DELIVERY_TAKEN : outcome;
+    }
+}
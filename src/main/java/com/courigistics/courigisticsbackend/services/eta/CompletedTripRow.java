@@ -0,0 +1,20 @@
+package com.courigistics.courigisticsbackend.services.eta;
+
+import com.courigistics.courigisticsbackend.entities.enums.VehicleType;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A delivered trip the speed profiles learn from
+ * Built directly by a JPQL constructor expression, no entities are loaded
+ */
+public record CompletedTripRow(
+        UUID deliveryId,
+        String city,
+        VehicleType vehicleType,
+        Double actualDistanceKm,
+        LocalDateTime actualPickupTime,
+        LocalDateTime actualDeliveryTime
+) {
+}
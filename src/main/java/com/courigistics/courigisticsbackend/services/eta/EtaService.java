@@ -0,0 +1,21 @@
+package com.courigistics.courigisticsbackend.services.eta;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.UUID;
+
+public interface EtaService {
+
+    /**
+     * Re-estimates the arrival of every delivery the courier is working on from their new position
+     */
+    void onLocation(UUID courierAccountId, double latitude, double longitude);
+
+    /**
+     * Opens a live ETA stream for a delivery
+     *
+     * @param accountId sender of the delivery
+     * @throws com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException if the account did not send it
+     */
+    SseEmitter trackEta(UUID accountId, UUID deliveryId);
+}
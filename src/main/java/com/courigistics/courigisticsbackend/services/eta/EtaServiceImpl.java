@@ -0,0 +1,311 @@
+package com.courigistics.courigisticsbackend.services.eta;
+
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.courigistics.courigisticsbackend.utils.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delivery ETAs from straight-line distance and learned speed profiles
+ *
+ * Each in-flight delivery keeps its coordinates and its {@link SpeedProfile} bucket resolved ahead
+ * of time, so a location ping re-estimates each of the courier's deliveries with one haversine and
+ * one array read, without touching the database. An ETA that moves by more than the threshold is
+ * pushed to live trackers and queued for a batched write to estimated_delivery_time.
+ *
+ * Straight-line distance is stretched by a fixed road factor; the profiles learn from delivered
+ * trips (measured trajectory distance over pickup-to-delivery time) as they leave the in-flight set,
+ * and are warmed up from recent history at startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EtaServiceImpl implements EtaService {
+
+    private static final Set<DeliveryStatus> IN_FLIGHT_STATUSES = EnumSet.of(
+            DeliveryStatus.ASSIGNED, DeliveryStatus.PICKED_UP,
+            DeliveryStatus.IN_TRANSIT, DeliveryStatus.OUT_FOR_DELIVERY);
+
+    // Trips outside these bounds are bad data (unrecorded legs, forgotten status updates), not traffic
+    private static final double MIN_LEARNED_SPEED_KMH = 2;
+    private static final double MAX_LEARNED_SPEED_KMH = 120;
+    private static final long MIN_LEARNED_TRIP_SECONDS = 120;
+
+    private static final String UPDATE_ESTIMATED_DELIVERY_TIME =
+            "UPDATE deliveries SET estimated_delivery_time = ? WHERE id = ?";
+
+    private final DeliveryRepository deliveryRepository;
+    private final EtaTrackerRegistry etaTrackerRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.eta.route-factor}")
+    private double routeFactor;
+
+    @Value("${app.eta.pickup-handling-minutes}")
+    private long pickupHandlingMinutes;
+
+    @Value("${app.eta.min-change-seconds}")
+    private long minChangeSeconds;
+
+    @Value("${app.eta.profile.decay}")
+    private double profileDecay;
+
+    @Value("${app.eta.profile.max-cities}")
+    private int profileMaxCities;
+
+    @Value("${app.eta.profile.warmup-days}")
+    private int warmupDays;
+
+    @Value("${app.eta.profile.warmup-max-trips}")
+    private int warmupMaxTrips;
+
+    private final ConcurrentHashMap<UUID, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, InFlight[]> inFlightByCourier = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, Long> pendingWrites = new ConcurrentHashMap<>();
+
+    private SpeedProfile speedProfile;
+    // Local time zone offset, refreshed with the in-flight set so the ping path needs no calendar
+    private volatile int zoneOffsetSeconds;
+    private Counter etaChanges;
+    private Counter tripsLearned;
+
+    /**
+     * One delivery on its way; everything the ping path needs is precomputed
+     */
+    private final class InFlight {
+        final UUID deliveryId;
+        final boolean awaitingPickup;
+        final double pickupLat;
+        final double pickupLon;
+        final double dropOffLat;
+        final double dropOffLon;
+        final double pickupToDropOffKm;
+        final int profileBucket;
+        // Guarded by this
+        long publishedEta;
+
+        InFlight(InFlightDeliveryRow row, long publishedEta) {
+            this.deliveryId = row.deliveryId();
+            this.awaitingPickup = row.status() == DeliveryStatus.ASSIGNED;
+            this.pickupLat = row.pickupLat() == null ? 0 : row.pickupLat();
+            this.pickupLon = row.pickupLon() == null ? 0 : row.pickupLon();
+            this.dropOffLat = row.dropOffLat();
+            this.dropOffLon = row.dropOffLon();
+            this.pickupToDropOffKm = awaitingPickup
+                    ? GeoUtils.haversineDistance(pickupLat, pickupLon, dropOffLat, dropOffLon)
+                    : 0;
+            this.profileBucket = speedProfile.bucketBase(row.city(), row.vehicleType());
+            this.publishedEta = publishedEta;
+        }
+
+        void update(double latitude, double longitude, long now, int hour) {
+            double straightKm = awaitingPickup
+                    ? GeoUtils.haversineDistance(latitude, longitude, pickupLat, pickupLon) + pickupToDropOffKm
+                    : GeoUtils.haversineDistance(latitude, longitude, dropOffLat, dropOffLon);
+            double hours = straightKm * routeFactor / speedProfile.speedKmh(profileBucket, hour);
+            long eta = now + (long) (hours * 3600) + (awaitingPickup ? pickupHandlingMinutes * 60 : 0);
+
+            synchronized (this) {
+                if (Math.abs(eta - publishedEta) < minChangeSeconds) {
+                    return;
+                }
+                publishedEta = eta;
+            }
+            etaChanged(deliveryId, eta);
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        speedProfile = new SpeedProfile(profileMaxCities, profileDecay);
+        zoneOffsetSeconds = currentZoneOffsetSeconds();
+        etaChanges = Counter.builder("eta.changes")
+                .description("ETAs that moved by more than the publish threshold")
+                .register(meterRegistry);
+        tripsLearned = Counter.builder("eta.profile.trips.learned")
+                .description("Delivered trips folded into the speed profiles")
+                .register(meterRegistry);
+        meterRegistry.gauge("eta.deliveries.in_flight", inFlight, Map::size);
+        meterRegistry.gauge("eta.profile.cities", speedProfile, SpeedProfile::trackedCities);
+    }
+
+    /**
+     * Warms the speed profiles up from recently delivered trips
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpProfiles() {
+        List<CompletedTripRow> trips = deliveryRepository.findCompletedTripsSince(
+                LocalDateTime.now().minusDays(warmupDays), PageRequest.of(0, warmupMaxTrips));
+        trips.forEach(this::learn);
+        log.info("Speed profiles warmed up from {} delivered trips", trips.size());
+    }
+
+    @Override
+    public void onLocation(UUID courierAccountId, double latitude, double longitude) {
+        InFlight[] deliveries = inFlightByCourier.get(courierAccountId);
+        if (deliveries == null) {
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        int hour = (int) Math.floorMod((now + zoneOffsetSeconds) / 3600, 24L);
+        for (InFlight delivery : deliveries) {
+            delivery.update(latitude, longitude, now, hour);
+        }
+    }
+
+    @Override
+    public SseEmitter trackEta(UUID accountId, UUID deliveryId) {
+        if (!deliveryRepository.existsByIdAndSender_Id(deliveryId, accountId)) {
+            throw new ResourceNotFoundException("Delivery not found");
+        }
+        InFlight delivery = inFlight.get(deliveryId);
+        LocalDateTime currentEta = null;
+        if (delivery != null) {
+            synchronized (delivery) {
+                currentEta = delivery.publishedEta > 0 ? toLocalDateTime(delivery.publishedEta) : null;
+            }
+        }
+        return etaTrackerRegistry.subscribe(deliveryId, currentEta);
+    }
+
+    /**
+     * Re-reads in-flight deliveries; the ones that left learn the profiles and close their trackers
+     */
+    @Scheduled(fixedDelayString = "${app.eta.refresh-interval-ms}")
+    public void refreshInFlight() {
+        zoneOffsetSeconds = currentZoneOffsetSeconds();
+
+        // 1: Rebuild, carrying the published ETA over so unchanged estimates are not pushed again
+        Map<UUID, InFlight> next = new HashMap<>();
+        Map<UUID, List<InFlight>> byCourier = new HashMap<>();
+        for (InFlightDeliveryRow row : deliveryRepository.findInFlightForEta(IN_FLIGHT_STATUSES)) {
+            if (row.dropOffLat() == null || row.dropOffLon() == null
+                    || (row.status() == DeliveryStatus.ASSIGNED && (row.pickupLat() == null || row.pickupLon() == null))) {
+                continue;
+            }
+            InFlight previous = inFlight.get(row.deliveryId());
+            long publishedEta = 0;
+            if (previous != null) {
+                synchronized (previous) {
+                    publishedEta = previous.publishedEta;
+                }
+            }
+            InFlight delivery = new InFlight(row, publishedEta);
+            next.put(row.deliveryId(), delivery);
+            byCourier.computeIfAbsent(row.courierAccountId(), id -> new ArrayList<>()).add(delivery);
+        }
+
+        // 2: Swap in
+        List<UUID> departed = new ArrayList<>();
+        for (UUID deliveryId : inFlight.keySet()) {
+            if (!next.containsKey(deliveryId)) {
+                departed.add(deliveryId);
+            }
+        }
+        inFlight.putAll(next);
+        departed.forEach(inFlight::remove);
+        byCourier.forEach((courierAccountId, list) ->
+                inFlightByCourier.put(courierAccountId, list.toArray(InFlight[]::new)));
+        inFlightByCourier.keySet().removeIf(courierAccountId -> !byCourier.containsKey(courierAccountId));
+
+        // 3: Learn from the ones that were delivered
+        if (!departed.isEmpty()) {
+            departed.forEach(etaTrackerRegistry::complete);
+            for (int from = 0; from < departed.size(); from += 1000) {
+                List<UUID> batch = departed.subList(from, Math.min(departed.size(), from + 1000));
+                deliveryRepository.findCompletedTrips(batch).forEach(this::learn);
+            }
+        }
+    }
+
+    /**
+     * Writes changed ETAs in one batch; only the latest ETA per delivery is written
+     */
+    @Scheduled(fixedDelayString = "${app.eta.flush-interval-ms}")
+    public void flushEstimatedDeliveryTimes() {
+        if (pendingWrites.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, Long>> batch = new ArrayList<>(pendingWrites.size());
+        for (UUID deliveryId : pendingWrites.keySet()) {
+            Long eta = pendingWrites.remove(deliveryId);
+            if (eta != null) {
+                batch.add(Map.entry(deliveryId, eta));
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_ESTIMATED_DELIVERY_TIME, batch, batch.size(), (ps, entry) -> {
+                ps.setTimestamp(1, Timestamp.valueOf(toLocalDateTime(entry.getValue())));
+                ps.setObject(2, entry.getKey());
+            });
+        } catch (RuntimeException e) {
+            // Newer ETAs recorded meanwhile win over the ones being put back
+            batch.forEach(entry -> pendingWrites.putIfAbsent(entry.getKey(), entry.getValue()));
+            log.error("Writing {} ETAs failed, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushEstimatedDeliveryTimes();
+    }
+
+    private void etaChanged(UUID deliveryId, long eta) {
+        etaChanges.increment();
+        pendingWrites.put(deliveryId, eta);
+        etaTrackerRegistry.publish(deliveryId, toLocalDateTime(eta));
+    }
+
+    private void learn(CompletedTripRow trip) {
+        long seconds = Duration.between(trip.actualPickupTime(), trip.actualDeliveryTime()).toSeconds();
+        if (seconds < MIN_LEARNED_TRIP_SECONDS) {
+            return;
+        }
+        double speedKmh = trip.actualDistanceKm() / (seconds / 3600.0);
+        if (speedKmh < MIN_LEARNED_SPEED_KMH || speedKmh > MAX_LEARNED_SPEED_KMH) {
+            return;
+        }
+        // Observed speed is over the travelled path, predictions stretch the straight line by the route factor
+        speedProfile.learn(speedProfile.bucketBase(trip.city(), trip.vehicleType()),
+                trip.actualPickupTime().getHour(), speedKmh);
+        tripsLearned.increment();
+    }
+
+    private static int currentZoneOffsetSeconds() {
+        return ZoneId.systemDefault().getRules().getOffset(Instant.now()).getTotalSeconds();
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,112 @@
+package com.courigistics.courigisticsbackend.services.eta;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Server-sent event streams of ETA changes, per delivery
+ *
+ * Pushes are handed to a small executor so a slow tracker never holds up the ping that changed
+ * the ETA; deliveries nobody is watching cost one map lookup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class EtaTrackerRegistry {
+
+    private static final String EVENT_NAME = "eta";
+
+    @Qualifier("trackerPushExecutor")
+    private final Executor trackerPushExecutor;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.eta.tracker-timeout-minutes}")
+    private long trackerTimeoutMinutes;
+
+    private final ConcurrentHashMap<UUID, List<SseEmitter>> trackers = new ConcurrentHashMap<>();
+
+    private record EtaMessage(UUID deliveryId, LocalDateTime estimatedDeliveryTime) {}
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("eta.trackers.deliveries", trackers, Map::size);
+    }
+
+    /**
+     * Opens a stream for a delivery, starting with its current ETA if there is one
+     */
+    public SseEmitter subscribe(UUID deliveryId, LocalDateTime currentEta) {
+        SseEmitter emitter = new SseEmitter(Duration.ofMinutes(trackerTimeoutMinutes).toMillis());
+        trackers.compute(deliveryId, (id, emitters) -> {
+            List<SseEmitter> list = emitters == null ? new CopyOnWriteArrayList<>() : emitters;
+            list.add(emitter);
+            return list;
+        });
+
+        Runnable remove = () -> removeEmitter(deliveryId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        if (currentEta != null) {
+            send(deliveryId, emitter, new EtaMessage(deliveryId, currentEta));
+        }
+        return emitter;
+    }
+
+    public void publish(UUID deliveryId, LocalDateTime estimatedDeliveryTime) {
+        List<SseEmitter> emitters = trackers.get(deliveryId);
+        if (emitters == null || emitters.isEmpty()) {
+            return;
+        }
+        EtaMessage message = new EtaMessage(deliveryId, estimatedDeliveryTime);
+        trackerPushExecutor.execute(() -> {
+            for (SseEmitter emitter : emitters) {
+                send(deliveryId, emitter, message);
+            }
+        });
+    }
+
+    /**
+     * Closes every stream of a delivery that is no longer on its way
+     */
+    public void complete(UUID deliveryId) {
+        List<SseEmitter> emitters = trackers.remove(deliveryId);
+        if (emitters != null) {
+            emitters.forEach(SseEmitter::complete);
+        }
+    }
+
+    private void send(UUID deliveryId, SseEmitter emitter, EtaMessage message) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(message));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; the emitter callbacks may not fire for a broken connection
+            removeEmitter(deliveryId, emitter);
+            log.debug("Dropped ETA tracker for delivery {}: {}", deliveryId, e.getMessage());
+        }
+    }
+
+    private void removeEmitter(UUID deliveryId, SseEmitter emitter) {
+        trackers.computeIfPresent(deliveryId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package com.courigistics.courigisticsbackend.services.eta;
+
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.entities.enums.VehicleType;
+
+import java.util.UUID;
+
+/**
+ * What the ETA service needs to know about a delivery on its way
+ * Built directly by a JPQL constructor expression, no entities are loaded
+ *
+ * @param vehicleType null when the courier has no registered vehicle
+ */
+public record InFlightDeliveryRow(
+        UUID deliveryId,
+        UUID courierAccountId,
+        DeliveryStatus status,
+        Double pickupLat,
+        Double pickupLon,
+        Double dropOffLat,
+        Double dropOffLon,
+        String city,
+        VehicleType vehicleType
+) {
+}
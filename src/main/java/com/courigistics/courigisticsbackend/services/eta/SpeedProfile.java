@@ -0,0 +1,106 @@
+package com.courigistics.courigisticsbackend.services.eta;
+
+import com.courigistics.courigisticsbackend.entities.enums.VehicleType;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Learned average trip speed per city, vehicle type and hour of day
+ *
+ * One flat primitive array indexed by [city][vehicle][hour]; each bucket is an exponentially
+ * decaying average of the speeds of completed trips that started in that hour, so recent traffic
+ * patterns outweigh old ones. Buckets start at a per-vehicle default and drift towards what is
+ * observed. Reads are lock-free; writes (one per completed trip) are rare.
+ *
+ * Cities get a slot the first time they are seen, up to a fixed number; the rest share slot 0.
+ */
+final class SpeedProfile {
+
+    private static final int HOURS = 24;
+    // Slot 0 is for couriers without a registered vehicle
+    private static final int VEHICLE_SLOTS = VehicleType.values().length + 1;
+
+    private final int maxCities;
+    private final double decay;
+    // double bits, so readers never see a torn value
+    private final AtomicLongArray speedKmh;
+    private final ConcurrentHashMap<String, Integer> citySlots = new ConcurrentHashMap<>();
+
+    SpeedProfile(int maxCities, double decay) {
+        this.maxCities = maxCities;
+        this.decay = decay;
+        this.speedKmh = new AtomicLongArray(maxCities * VEHICLE_SLOTS * HOURS);
+        for (int city = 0; city < maxCities; city++) {
+            for (int vehicle = 0; vehicle < VEHICLE_SLOTS; vehicle++) {
+                double initial = defaultSpeedKmh(vehicle == 0 ? null : VehicleType.values()[vehicle - 1]);
+                for (int hour = 0; hour < HOURS; hour++) {
+                    speedKmh.set(index(city * VEHICLE_SLOTS + vehicle, hour), Double.doubleToRawLongBits(initial));
+                }
+            }
+        }
+    }
+
+    /**
+     * Start of the 24 hourly buckets for a city and vehicle; resolved once per delivery, not per ping
+     */
+    int bucketBase(String city, VehicleType vehicleType) {
+        int vehicle = vehicleType == null ? 0 : vehicleType.ordinal() + 1;
+        return (citySlot(city) * VEHICLE_SLOTS + vehicle) * HOURS;
+    }
+
+    double speedKmh(int bucketBase, int hour) {
+        return Double.longBitsToDouble(speedKmh.get(bucketBase + hour));
+    }
+
+    /**
+     * Folds one completed trip into its bucket
+     */
+    synchronized void learn(int bucketBase, int hour, double observedKmh) {
+        int i = bucketBase + hour;
+        double current = Double.longBitsToDouble(speedKmh.get(i));
+        speedKmh.set(i, Double.doubleToRawLongBits(current + decay * (observedKmh - current)));
+    }
+
+    int trackedCities() {
+        return citySlots.size();
+    }
+
+    private int citySlot(String city) {
+        if (city == null || city.isBlank()) {
+            return 0;
+        }
+        String key = city.trim().toLowerCase(Locale.ROOT);
+        Integer slot = citySlots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        synchronized (citySlots) {
+            int next = citySlots.size() + 1;
+            if (next >= maxCities) {
+                return 0;
+            }
+            return citySlots.computeIfAbsent(key, k -> next);
+        }
+    }
+
+    private static int index(int vehicleBucket, int hour) {
+        return vehicleBucket * HOURS + hour;
+    }
+
+    /**
+     * Urban door-to-door averages (stops and traffic included), used until trips are learned
+     */
+    private static double defaultSpeedKmh(VehicleType vehicleType) {
+        if (vehicleType == null) {
+            return 20;
+        }
+        return switch (vehicleType) {
+            case BIKE -> 22;   // filters through traffic
+            case CAR -> 25;
+            case VAN -> 22;
+            case TRUCK -> 18;
+        };
+    }
+}
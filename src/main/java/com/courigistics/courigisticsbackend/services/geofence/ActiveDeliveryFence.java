@@ -0,0 +1,20 @@
+package com.courigistics.courigisticsbackend.services.geofence;
+
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+
+import java.util.UUID;
+
+/**
+ * Coordinates of an active delivery, as loaded for the geofence engine
+ * Built directly by a JPQL constructor expression, no entities are loaded
+ */
+public record ActiveDeliveryFence(
+        UUID deliveryId,
+        UUID courierAccountId,
+        DeliveryStatus status,
+        Double pickupLat,
+        Double pickupLon,
+        Double dropOffLat,
+        Double dropOffLon
+) {
+}
@@ -0,0 +1,146 @@
+package com.courigistics.courigisticsbackend.services.geofence;
+
+import com.courigistics.courigisticsbackend.events.GeofenceTransitionEvent.FenceType;
+import com.courigistics.courigisticsbackend.events.GeofenceTransitionEvent.Transition;
+import com.courigistics.courigisticsbackend.utils.GeoUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Precomputed fences of one courier's active deliveries, plus whether the courier is inside each
+ *
+ * Geometry is laid out in parallel primitive arrays and the bounding box of every fence is worked
+ * out once here, so evaluating a ping is a loop over doubles: pings outside every box (the common
+ * case while driving) never reach the haversine formula and nothing is allocated.
+ *
+ * Fences use hysteresis: a courier arrives inside the arrival radius and only departs beyond the
+ * larger departure radius, so GPS jitter at the edge does not flap between the two.
+ */
+final class CourierFences {
+
+    // Length of one degree of latitude along a meridian (km), same earth radius as GeoUtils
+    private static final double KM_PER_DEGREE_LATITUDE = 6371.0 * Math.PI / 180.0;
+    // Keeps longitude boxes finite near the poles; they just get wider, never wrong
+    private static final double MIN_COS_LATITUDE = 0.01;
+
+    interface TransitionSink {
+        void onTransition(UUID courierAccountId, UUID deliveryId, FenceType fenceType, Transition transition);
+    }
+
+    record Fence(UUID deliveryId, FenceType type, double latitude, double longitude) {}
+
+    private final UUID courierAccountId;
+    private final UUID[] deliveryIds;
+    private final FenceType[] types;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] minLat;
+    private final double[] maxLat;
+    private final double[] minLon;
+    private final double[] maxLon;
+    private final double arrivalKm;
+    private final double departureKm;
+
+    // Guarded by this
+    private final boolean[] inside;
+    private boolean retired;
+
+    CourierFences(UUID courierAccountId, List<Fence> fences, double arrivalKm, double departureKm) {
+        int n = fences.size();
+        this.courierAccountId = courierAccountId;
+        this.arrivalKm = arrivalKm;
+        this.departureKm = departureKm;
+        this.deliveryIds = new UUID[n];
+        this.types = new FenceType[n];
+        this.latitudes = new double[n];
+        this.longitudes = new double[n];
+        this.minLat = new double[n];
+        this.maxLat = new double[n];
+        this.minLon = new double[n];
+        this.maxLon = new double[n];
+        this.inside = new boolean[n];
+
+        for (int i = 0; i < n; i++) {
+            Fence fence = fences.get(i);
+            deliveryIds[i] = fence.deliveryId();
+            types[i] = fence.type();
+            latitudes[i] = fence.latitude();
+            longitudes[i] = fence.longitude();
+
+            // Box around the departure radius, the larger of the two circles
+            double latDelta = departureKm / KM_PER_DEGREE_LATITUDE;
+            double cosLat = Math.max(MIN_COS_LATITUDE, Math.cos(Math.toRadians(fence.latitude())));
+            double lonDelta = latDelta / cosLat;
+            minLat[i] = fence.latitude() - latDelta;
+            maxLat[i] = fence.latitude() + latDelta;
+            minLon[i] = fence.longitude() - lonDelta;
+            maxLon[i] = fence.longitude() + lonDelta;
+            if (minLon[i] < -180 || maxLon[i] > 180) {
+                // Crosses the antimeridian: do not bother splitting the box, just never reject on longitude
+                minLon[i] = -180;
+                maxLon[i] = 180;
+            }
+        }
+    }
+
+    int size() {
+        return deliveryIds.length;
+    }
+
+    /**
+     * Evaluates one ping against every fence and reports arrivals and departures to the sink
+     *
+     * @return false if this instance was replaced by a refresh; the caller should re-read the current one
+     */
+    synchronized boolean evaluate(double latitude, double longitude, TransitionSink sink) {
+        if (retired) {
+            return false;
+        }
+        for (int i = 0; i < deliveryIds.length; i++) {
+            // 1: Cheap rejection; outside the box means outside both circles
+            boolean inBox = latitude >= minLat[i] && latitude <= maxLat[i]
+                    && longitude >= minLon[i] && longitude <= maxLon[i];
+            if (!inBox) {
+                if (inside[i]) {
+                    inside[i] = false;
+                    sink.onTransition(courierAccountId, deliveryIds[i], types[i], Transition.DEPARTED);
+                }
+                continue;
+            }
+
+            // 2: Exact distance only near the fence
+            double distanceKm = GeoUtils.haversineDistance(latitude, longitude, latitudes[i], longitudes[i]);
+            if (!inside[i] && distanceKm <= arrivalKm) {
+                inside[i] = true;
+                sink.onTransition(courierAccountId, deliveryIds[i], types[i], Transition.ARRIVED);
+            } else if (inside[i] && distanceKm > departureKm) {
+                inside[i] = false;
+                sink.onTransition(courierAccountId, deliveryIds[i], types[i], Transition.DEPARTED);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Carries the inside/outside state of fences that survive a refresh over from the instance
+     * being replaced, and retires it so late pings on the old instance go to this one instead
+     */
+    void inheritFrom(CourierFences previous) {
+        synchronized (previous) {
+            for (int i = 0; i < deliveryIds.length; i++) {
+                for (int j = 0; j < previous.deliveryIds.length; j++) {
+                    if (types[i] == previous.types[j] && deliveryIds[i].equals(previous.deliveryIds[j])) {
+                        inside[i] = previous.inside[j];
+                        break;
+                    }
+                }
+            }
+            previous.retired = true;
+        }
+    }
+
+    synchronized void retire() {
+        retired = true;
+    }
+}
@@ -0,0 +1,180 @@
+package com.courigistics.courigisticsbackend.services.geofence;
+
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.events.DeliveryAssignedEvent;
+import com.courigistics.courigisticsbackend.events.GeofenceTransitionEvent;
+import com.courigistics.courigisticsbackend.events.GeofenceTransitionEvent.FenceType;
+import com.courigistics.courigisticsbackend.events.GeofenceTransitionEvent.Transition;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects couriers arriving at and leaving the pickup and dropoff points of their active deliveries
+ *
+ * Every location ping is checked against a per-courier {@link CourierFences} built ahead of time from
+ * the courier's active deliveries; the ping path is a map lookup and a loop over primitive arrays,
+ * with no database access and no allocation unless a fence is crossed. Crossings are published as
+ * {@link GeofenceTransitionEvent}s.
+ *
+ * Fences are rebuilt from the database on a fixed interval and can be refreshed for one courier
+ * straight after their deliveries change. Fence state is per node, so pings of a courier should
+ * reach the same node.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GeofenceEngine {
+
+    // Pickup fence stays up while the parcel may still be collected, so leaving it after PICKED_UP is seen
+    static final Set<DeliveryStatus> PICKUP_FENCE_STATUSES = EnumSet.of(
+            DeliveryStatus.ASSIGNED, DeliveryStatus.PICKED_UP);
+    static final Set<DeliveryStatus> DROPOFF_FENCE_STATUSES = EnumSet.of(
+            DeliveryStatus.PICKED_UP, DeliveryStatus.IN_TRANSIT, DeliveryStatus.OUT_FOR_DELIVERY);
+    private static final Set<DeliveryStatus> ACTIVE_STATUSES = EnumSet.of(
+            DeliveryStatus.ASSIGNED, DeliveryStatus.PICKED_UP,
+            DeliveryStatus.IN_TRANSIT, DeliveryStatus.OUT_FOR_DELIVERY);
+
+    private final DeliveryRepository deliveryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.geofence.arrival-radius-meters}")
+    private double arrivalRadiusMeters;
+
+    @Value("${app.geofence.departure-radius-meters}")
+    private double departureRadiusMeters;
+
+    private final ConcurrentHashMap<UUID, CourierFences> fencesByCourier = new ConcurrentHashMap<>();
+
+    // Created once so the ping path does not allocate a lambda per call
+    private final CourierFences.TransitionSink sink = this::publishTransition;
+
+    private Counter pings;
+    private Counter[][] transitions;
+
+    @PostConstruct
+    void init() {
+        if (departureRadiusMeters < arrivalRadiusMeters) {
+            throw new IllegalStateException("app.geofence.departure-radius-meters must not be below the arrival radius");
+        }
+        pings = Counter.builder("geofence.pings")
+                .description("Location pings evaluated against geofences")
+                .register(meterRegistry);
+        transitions = new Counter[FenceType.values().length][Transition.values().length];
+        for (FenceType fenceType : FenceType.values()) {
+            for (Transition transition : Transition.values()) {
+                transitions[fenceType.ordinal()][transition.ordinal()] = Counter.builder("geofence.transitions")
+                        .description("Geofence arrivals and departures")
+                        .tag("fence", fenceType.name().toLowerCase())
+                        .tag("transition", transition.name().toLowerCase())
+                        .register(meterRegistry);
+            }
+        }
+        meterRegistry.gauge("geofence.couriers", fencesByCourier, Map::size);
+    }
+
+    /**
+     * Evaluates one location ping; coordinates are expected to be validated by the caller
+     */
+    public void onLocation(UUID courierAccountId, double latitude, double longitude) {
+        pings.increment();
+        CourierFences fences = fencesByCourier.get(courierAccountId);
+        // A refresh may retire the instance between the lookup and the lock; retry on its replacement
+        while (fences != null && !fences.evaluate(latitude, longitude, sink)) {
+            fences = fencesByCourier.get(courierAccountId);
+        }
+    }
+
+    /**
+     * Rebuilds the fences of every courier with active deliveries
+     */
+    @Scheduled(fixedDelayString = "${app.geofence.refresh-interval-ms}")
+    public void refreshAll() {
+        Map<UUID, List<CourierFences.Fence>> byCourier = new HashMap<>();
+        for (ActiveDeliveryFence row : deliveryRepository.findActiveFences(ACTIVE_STATUSES)) {
+            addFences(row, byCourier.computeIfAbsent(row.courierAccountId(), id -> new ArrayList<>()));
+        }
+
+        byCourier.forEach(this::install);
+        for (UUID courierAccountId : fencesByCourier.keySet()) {
+            if (!byCourier.containsKey(courierAccountId)) {
+                install(courierAccountId, List.of());
+            }
+        }
+        log.debug("Geofences refreshed for {} couriers", byCourier.size());
+    }
+
+    /**
+     * Rebuilds one courier's fences, e.g. right after a delivery is assigned to them or changes status
+     */
+    public void refreshCourier(UUID courierAccountId) {
+        List<CourierFences.Fence> fences = new ArrayList<>();
+        for (ActiveDeliveryFence row : deliveryRepository.findActiveFencesByCourierAccountId(courierAccountId, ACTIVE_STATUSES)) {
+            addFences(row, fences);
+        }
+        install(courierAccountId, fences);
+    }
+
+    /**
+     * Fences a newly assigned courier straight away instead of on the next full refresh
+     */
+    @EventListener
+    public void onDeliveryAssigned(DeliveryAssignedEvent event) {
+        refreshCourier(event.getCourierAccountId());
+    }
+
+    private void install(UUID courierAccountId, List<CourierFences.Fence> fences) {
+        if (fences.isEmpty()) {
+            CourierFences removed = fencesByCourier.remove(courierAccountId);
+            if (removed != null) {
+                removed.retire();
+            }
+            return;
+        }
+
+        double arrivalKm = arrivalRadiusMeters / 1000;
+        double departureKm = departureRadiusMeters / 1000;
+        CourierFences next = new CourierFences(courierAccountId, fences, arrivalKm, departureKm);
+        fencesByCourier.compute(courierAccountId, (id, previous) -> {
+            if (previous != null) {
+                next.inheritFrom(previous);
+            }
+            return next;
+        });
+    }
+
+    private static void addFences(ActiveDeliveryFence row, List<CourierFences.Fence> fences) {
+        if (PICKUP_FENCE_STATUSES.contains(row.status()) && row.pickupLat() != null && row.pickupLon() != null) {
+            fences.add(new CourierFences.Fence(row.deliveryId(), FenceType.PICKUP, row.pickupLat(), row.pickupLon()));
+        }
+        if (DROPOFF_FENCE_STATUSES.contains(row.status()) && row.dropOffLat() != null && row.dropOffLon() != null) {
+            fences.add(new CourierFences.Fence(row.deliveryId(), FenceType.DROPOFF, row.dropOffLat(), row.dropOffLon()));
+        }
+    }
+
+    private void publishTransition(UUID courierAccountId, UUID deliveryId, FenceType fenceType, Transition transition) {
+        transitions[fenceType.ordinal()][transition.ordinal()].increment();
+        log.debug("Courier {} {} {} fence of delivery {}", courierAccountId, transition, fenceType, deliveryId);
+        eventPublisher.publishEvent(new GeofenceTransitionEvent(
+                deliveryId, courierAccountId, fenceType, transition, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.courigistics.courigisticsbackend.services.imports;
+
+import com.courigistics.courigisticsbackend.dto.responses.imports.ImportJobProgressResponse;
+import com.courigistics.courigisticsbackend.entities.enums.ImportFormat;
+
+import java.io.InputStream;
+import java.util.UUID;
+
+/**
+ * Bulk import of external marketplace orders (Amazon, Jumia, ...) into
+ * Packages (type EXTERNAL_ORDER) and their ExternalProducts rows
+ */
+public interface ExternalOrderImportService {
+
+    /**
+     * Stages the uploaded file on disk and queues it for background import
+     *
+     * @param accountId merchant account the packages are created for
+     * @param format    CSV or NDJSON
+     * @param content   raw request body; streamed to disk, never fully buffered
+     * @return initial progress snapshot containing the job ID
+     */
+    ImportJobProgressResponse startImport(UUID accountId, ImportFormat format, InputStream content);
+
+    /**
+     * Restarts a failed or interrupted job from its last committed checkpoint
+     *
+     * @throws com.courigistics.courigisticsbackend.exceptions.BadRequestException if the job is running or completed
+     */
+    ImportJobProgressResponse resumeImport(UUID accountId, UUID jobId);
+
+    /**
+     * Returns progress counters and current throughput for a job
+     */
+    ImportJobProgressResponse getProgress(UUID accountId, UUID jobId);
+}
@@ -0,0 +1,462 @@
+package com.courigistics.courigisticsbackend.services.imports;
+
+import com.courigistics.courigisticsbackend.dto.requests.imports.ExternalOrderRow;
+import com.courigistics.courigisticsbackend.dto.responses.imports.ImportJobProgressResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.ExternalImportJob;
+import com.courigistics.courigisticsbackend.entities.ExternalProducts;
+import com.courigistics.courigisticsbackend.entities.enums.ImportFormat;
+import com.courigistics.courigisticsbackend.entities.enums.ImportJobStatus;
+import com.courigistics.courigisticsbackend.entities.enums.PackageCategory;
+import com.courigistics.courigisticsbackend.entities.enums.PackageType;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.repositories.AccountRepository;
+import com.courigistics.courigisticsbackend.repositories.ExternalImportJobRepository;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupKey;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupService;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import com.courigistics.courigisticsbackend.utils.TrackingNumberGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Streaming import pipeline for external marketplace orders
+ *
+ * Pipeline per chunk:
+ * 1. Read up to chunk-size records from the staged file (bounded memory)
+ * 2. Validate and type the records in parallel
+ * 3. Reserve one block of tracking numbers for the valid records
+ * 4. In one transaction: JDBC batch insert packages, batch insert external_products,
+ *    add the packages to the analytics rollups, and move the job checkpoint forward
+ *
+ * Because the checkpoint commits with the data, a resumed job skips exactly the
+ * records that are already in the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExternalOrderImportServiceImpl implements ExternalOrderImportService {
+
+    private static final String INSERT_PACKAGE = """
+        INSERT INTO packages (id, tracking_number, sender_acc_id, description, package_type,
+                              package_category, is_fragile, is_insured, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    // The product name column is resolved from the entity mapping (see init)
+    private static final String INSERT_EXTERNAL_PRODUCT = """
+        INSERT INTO external_products (id, package_id, source_platform, %s, quantity,
+                                       price, currency, expected_arrival_date, created_at)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final String DEFAULT_CURRENCY = "KES";
+    private static final String STAGED_PREFIX = "imports/";
+
+    private final ExternalImportJobRepository importJobRepository;
+    private final AccountRepository accountRepository;
+    private final TrackingNumberGenerator trackingNumberGenerator;
+    private final PackageRollupService packageRollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectStorage objectStorage;
+
+    @Qualifier("importTaskExecutor")
+    private final Executor importTaskExecutor;
+
+    @Value("${app.imports.external-orders.chunk-size}")
+    private int chunkSize;
+
+    @Value("${app.imports.external-orders.staging-dir}")
+    private String stagingDir;
+
+    @Value("${app.imports.external-orders.heartbeat-ttl-seconds}")
+    private long heartbeatTtlSeconds;
+
+    private String insertExternalProductSql;
+
+    /**
+     * Jobs running on this node: jobId → (start time, checkpoint at start)
+     * Used for throughput reporting and to refuse resuming a job that is still running
+     */
+    private final Map<UUID, RunStats> activeRuns = new ConcurrentHashMap<>();
+
+    private record RunStats(long startNanos, long startRecord) {
+    }
+
+    private record ValidationResult(long recordNumber, ExternalOrderRow row, String error) {
+    }
+
+    @PostConstruct
+    void init() {
+        // productName is mapped to an explicit column name, which the naming strategies treat differently
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(ExternalProducts.class);
+        insertExternalProductSql = INSERT_EXTERNAL_PRODUCT.formatted(persister.getPropertyColumnNames("productName")[0]);
+    }
+
+    @Override
+    public ImportJobProgressResponse startImport(UUID accountId, ImportFormat format, InputStream content) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Account not found"));
+
+        // 1: Stream the body to disk, then into object storage, so a resume on any node can re-read it
+        String stagedKey = STAGED_PREFIX + UUID.randomUUID() + "." + format.name().toLowerCase(Locale.ROOT);
+        Path localCopy = null;
+        try {
+            Path dir = Paths.get(stagingDir);
+            Files.createDirectories(dir);
+            localCopy = Files.createTempFile(dir, "upload-", ".tmp");
+            long bytes = Files.copy(content, localCopy, StandardCopyOption.REPLACE_EXISTING);
+            objectStorage.put(stagedKey, localCopy);
+            log.info("Staged external order file for account {}: {} ({} bytes)", accountId, stagedKey, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to stage import file", e);
+        } finally {
+            deleteLocalCopy(localCopy);
+        }
+
+        // 2: Register the job
+        ExternalImportJob job = importJobRepository.save(ExternalImportJob.builder()
+                .account(account)
+                .format(format)
+                .status(ImportJobStatus.QUEUED)
+                .stagedFileKey(stagedKey)
+                .build());
+
+        // 3: Hand off to the import pool
+        submit(job.getId());
+        return toResponse(job);
+    }
+
+    @Override
+    public ImportJobProgressResponse resumeImport(UUID accountId, UUID jobId) {
+        ExternalImportJob job = findOwnedJob(accountId, jobId);
+        if (activeRuns.containsKey(jobId)) {
+            throw new BadRequestException("Import is still running");
+        }
+
+        // A RUNNING job only counts as interrupted once its node has stopped heartbeating
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = new TransactionTemplate(transactionManager).execute(status ->
+                importJobRepository.claimForResume(jobId, now.minusSeconds(heartbeatTtlSeconds), now));
+        if (claimed == null || claimed != 1) {
+            throw new BadRequestException("Only failed or interrupted imports can be resumed (status: " + job.getStatus() + ")");
+        }
+
+        log.info("Resuming import job {} from record {}", jobId, job.getCheckpointRecord());
+        submit(jobId);
+        return toResponse(findOwnedJob(accountId, jobId));
+    }
+
+    @Scheduled(fixedDelayString = "${app.imports.external-orders.heartbeat-interval-ms}")
+    public void heartbeat() {
+        if (activeRuns.isEmpty()) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                importJobRepository.touchHeartbeat(List.copyOf(activeRuns.keySet()), LocalDateTime.now()));
+    }
+
+    @Override
+    public ImportJobProgressResponse getProgress(UUID accountId, UUID jobId) {
+        return toResponse(findOwnedJob(accountId, jobId));
+    }
+
+    private ExternalImportJob findOwnedJob(UUID accountId, UUID jobId) {
+        return importJobRepository.findByIdAndAccount_Id(jobId, accountId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+    }
+
+    private void submit(UUID jobId) {
+        importTaskExecutor.execute(() -> runJob(jobId));
+    }
+
+    private void runJob(UUID jobId) {
+        ExternalImportJob job = importJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Import job not found"));
+        UUID senderId = job.getAccount().getId();
+        // Every package of a job has the same sender, so the same rollup city
+        String senderCity = packageRollupService.resolveCity(senderId);
+
+        activeRuns.put(jobId, new RunStats(System.nanoTime(), job.getCheckpointRecord()));
+        job.setStatus(ImportJobStatus.RUNNING);
+        job.setStartedAt(LocalDateTime.now());
+        job.setHeartbeatAt(job.getStartedAt());
+        job.setRunStartRecord(job.getCheckpointRecord());
+        job.setFinishedAt(null);
+        importJobRepository.save(job);
+
+        try (ExternalOrderRecordReader reader = new ExternalOrderRecordReader(
+                Channels.newInputStream(objectStorage.open(job.getStagedFileKey())), job.getFormat(), objectMapper)) {
+
+            // Skip what a previous run already committed
+            reader.skip(job.getCheckpointRecord());
+
+            List<ExternalOrderRecordReader.RawRecord> chunk = new ArrayList<>(chunkSize);
+            ExternalOrderRecordReader.RawRecord record;
+            while ((record = reader.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    writeChunk(jobId, senderId, senderCity, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(jobId, senderId, senderCity, chunk);
+            }
+
+            finish(jobId, ImportJobStatus.COMPLETED, null);
+            log.info("Import job {} completed", jobId);
+            deleteStagedFile(job.getStagedFileKey());
+        } catch (Exception e) {
+            log.error("Import job {} failed: {}", jobId, e.getMessage(), e);
+            finish(jobId, ImportJobStatus.FAILED, truncate(e.getMessage()));
+        } finally {
+            activeRuns.remove(jobId);
+        }
+    }
+
+    private void writeChunk(UUID jobId, UUID senderId, String senderCity, List<ExternalOrderRecordReader.RawRecord> chunk) {
+        // 1: Validate in parallel; the reader has already done the sequential I/O
+        List<ValidationResult> results = chunk.parallelStream()
+                .map(this::validate)
+                .toList();
+
+        List<ExternalOrderRow> valid = new ArrayList<>(results.size());
+        long rejected = 0;
+        for (ValidationResult result : results) {
+            if (result.error() == null) {
+                valid.add(result.row());
+            } else {
+                rejected++;
+                log.warn("Import job {} rejected record {}: {}", jobId, result.recordNumber(), result.error());
+            }
+        }
+
+        // 2: One sequence round trip for the whole chunk
+        List<String> trackingNumbers = trackingNumberGenerator.nextBlock(valid.size());
+
+        long lastRecord = chunk.get(chunk.size() - 1).recordNumber();
+        long rejectedCount = rejected;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        // 3: Data and checkpoint commit together
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<UUID> packageIds = new ArrayList<>(valid.size());
+            List<Object[]> packageArgs = new ArrayList<>(valid.size());
+            List<Object[]> productArgs = new ArrayList<>(valid.size());
+            Map<PackageRollupKey, Long> rollupCounts = new HashMap<>();
+
+            for (int i = 0; i < valid.size(); i++) {
+                ExternalOrderRow row = valid.get(i);
+                UUID packageId = UUID.randomUUID();
+                packageIds.add(packageId);
+
+                packageArgs.add(new Object[]{
+                        packageId, trackingNumbers.get(i), senderId, row.description(),
+                        PackageType.EXTERNAL_ORDER.name(), row.packageCategory().name(),
+                        row.isFragile(), false, now
+                });
+                productArgs.add(new Object[]{
+                        UUID.randomUUID(), packageId, row.sourcePlatform(), row.productName(), row.quantity(),
+                        row.price(), row.currency(),
+                        row.expectedArrivalDate() != null ? Timestamp.valueOf(row.expectedArrivalDate()) : null,
+                        now
+                });
+                rollupCounts.merge(PackageRollupKey.of(row.packageCategory(), PackageType.EXTERNAL_ORDER,
+                        row.isFragile(), false, senderCity), 1L, Long::sum);
+            }
+
+            if (!packageArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_PACKAGE, packageArgs);
+                jdbcTemplate.batchUpdate(insertExternalProductSql, productArgs);
+                packageRollupService.recordCreated(now.toLocalDateTime(), rollupCounts);
+            }
+            importJobRepository.advanceCheckpoint(jobId, lastRecord, valid.size(), rejectedCount, now.toLocalDateTime());
+        });
+
+        log.debug("Import job {} committed chunk up to record {} ({} imported, {} rejected)",
+                jobId, lastRecord, valid.size(), rejectedCount);
+    }
+
+    private ValidationResult validate(ExternalOrderRecordReader.RawRecord raw) {
+        Map<String, String> fields = raw.fields();
+        try {
+            if (fields.containsKey("_parseError")) {
+                throw new IllegalArgumentException("Malformed JSON: " + fields.get("_parseError"));
+            }
+
+            String sourcePlatform = required(fields, "sourcePlatform");
+            String productName = required(fields, "productName");
+
+            int quantity = Integer.parseInt(required(fields, "quantity"));
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("quantity must be positive");
+            }
+
+            BigDecimal price = new BigDecimal(required(fields, "price"));
+            if (price.signum() < 0) {
+                throw new IllegalArgumentException("price cannot be negative");
+            }
+
+            String currency = optional(fields, "currency");
+            String category = optional(fields, "packageCategory");
+            String description = optional(fields, "description");
+
+            ExternalOrderRow row = new ExternalOrderRow(
+                    raw.recordNumber(),
+                    sourcePlatform,
+                    productName,
+                    quantity,
+                    price,
+                    currency != null ? currency.toUpperCase(Locale.ROOT) : DEFAULT_CURRENCY,
+                    parseArrivalDate(optional(fields, "expectedArrivalDate")),
+                    description != null ? description : productName,
+                    category != null ? PackageCategory.valueOf(category.toUpperCase(Locale.ROOT)) : PackageCategory.SMALL,
+                    Boolean.parseBoolean(optional(fields, "isFragile"))
+            );
+            return new ValidationResult(raw.recordNumber(), row, null);
+        } catch (RuntimeException e) {
+            return new ValidationResult(raw.recordNumber(), null, e.getMessage());
+        }
+    }
+
+    private static String required(Map<String, String> fields, String key) {
+        String value = optional(fields, key);
+        if (value == null) {
+            throw new IllegalArgumentException(key + " is required");
+        }
+        return value;
+    }
+
+    private static String optional(Map<String, String> fields, String key) {
+        String value = fields.get(key);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Accepts either an ISO date (2026-03-01) or an ISO date-time (2026-03-01T10:00:00)
+     */
+    private static LocalDateTime parseArrivalDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("expectedArrivalDate is not an ISO date: " + value);
+        }
+    }
+
+    // Failed jobs keep their file for a resume; a completed job never reads it again
+    private void deleteStagedFile(String key) {
+        try {
+            objectStorage.delete(key);
+        } catch (IOException e) {
+            log.warn("Could not delete staged import file {}: {}", key, e.getMessage());
+        }
+    }
+
+    // put() moves the file, so this only matters when staging failed part way
+    private static void deleteLocalCopy(Path localCopy) {
+        if (localCopy == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(localCopy);
+        } catch (IOException e) {
+            log.warn("Could not delete local import upload {}: {}", localCopy, e.getMessage());
+        }
+    }
+
+    private void finish(UUID jobId, ImportJobStatus status, String error) {
+        importJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(status);
+            job.setLastError(error);
+            job.setFinishedAt(LocalDateTime.now());
+            importJobRepository.save(job);
+        });
+    }
+
+    private ImportJobProgressResponse toResponse(ExternalImportJob job) {
+        long processed = job.getImportedCount() + job.getRejectedCount();
+        return new ImportJobProgressResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getFormat(),
+                processed,
+                job.getImportedCount(),
+                job.getRejectedCount(),
+                throughput(job),
+                job.getLastError(),
+                job.getStartedAt(),
+                job.getFinishedAt()
+        );
+    }
+
+    /**
+     * Records per second for the current run, or for the last run once it has finished
+     */
+    private double throughput(ExternalImportJob job) {
+        RunStats stats = activeRuns.get(job.getId());
+        if (stats != null) {
+            double seconds = (System.nanoTime() - stats.startNanos()) / 1_000_000_000.0;
+            long done = job.getCheckpointRecord() - stats.startRecord();
+            return seconds > 0 ? done / seconds : 0;
+        }
+        if (job.getStartedAt() != null && job.getFinishedAt() != null) {
+            double seconds = Duration.between(job.getStartedAt(), job.getFinishedAt()).toMillis() / 1000.0;
+            long done = job.getCheckpointRecord() - (job.getRunStartRecord() != null ? job.getRunStartRecord() : 0);
+            return seconds > 0 ? done / seconds : 0;
+        }
+        return 0;
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
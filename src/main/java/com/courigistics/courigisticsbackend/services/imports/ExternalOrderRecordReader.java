@@ -0,0 +1,114 @@
+package com.courigistics.courigisticsbackend.services.imports;
+
+import com.courigistics.courigisticsbackend.entities.enums.ImportFormat;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.utils.CsvUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Incremental reader for staged import files
+ *
+ * Reads one line at a time, so memory use is bounded by the caller's chunk size and
+ * not by the file size. Records are returned as raw field maps; typing and validation
+ * happen later (in parallel) in the import service.
+ */
+class ExternalOrderRecordReader implements Closeable {
+
+    /**
+     * A raw record and its 1-based position in the file (header excluded)
+     */
+    record RawRecord(long recordNumber, Map<String, String> fields) {
+    }
+
+    private final BufferedReader reader;
+    private final ImportFormat format;
+    private final ObjectMapper objectMapper;
+    private List<String> csvHeader;
+    private long recordNumber = 0;
+
+    /**
+     * @param content the staged upload; closed with the reader
+     */
+    ExternalOrderRecordReader(InputStream content, ImportFormat format, ObjectMapper objectMapper) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8), 64 * 1024);
+        this.format = format;
+        this.objectMapper = objectMapper;
+
+        if (format == ImportFormat.CSV) {
+            String header = reader.readLine();
+            if (header == null) {
+                throw new BadRequestException("CSV file is empty");
+            }
+            this.csvHeader = CsvUtils.parseLine(CsvUtils.stripBom(header));
+        }
+    }
+
+    /**
+     * Skips records that were already committed by a previous run
+     */
+    void skip(long records) throws IOException {
+        while (recordNumber < records && next() != null) {
+            // discard
+        }
+    }
+
+    /**
+     * @return the next record, or null at end of file
+     */
+    RawRecord next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        recordNumber++;
+        Map<String, String> fields = format == ImportFormat.CSV ? csvFields(line) : ndjsonFields(line);
+        return new RawRecord(recordNumber, fields);
+    }
+
+    private Map<String, String> csvFields(String line) {
+        List<String> values = CsvUtils.parseLine(line);
+        Map<String, String> fields = new HashMap<>(csvHeader.size() * 2);
+        for (int i = 0; i < csvHeader.size() && i < values.size(); i++) {
+            fields.put(csvHeader.get(i), values.get(i));
+        }
+        return fields;
+    }
+
+    private Map<String, String> ndjsonFields(String line) {
+        Map<String, String> fields = new HashMap<>();
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                fields.put(entry.getKey(), entry.getValue().isNull() ? null : entry.getValue().asText());
+            }
+        } catch (JsonProcessingException e) {
+            // Malformed line: hand back an empty record so validation rejects it with its record number
+            fields.put("_parseError", e.getOriginalMessage());
+        }
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
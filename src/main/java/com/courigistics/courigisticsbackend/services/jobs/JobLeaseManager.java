@@ -0,0 +1,94 @@
+package com.courigistics.courigisticsbackend.services.jobs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Cluster-wide exclusive runs of scheduled jobs, through the job_leases table (see JobLease)
+ *
+ * Every node schedules the same jobs; the one that claims the lease runs and the others skip.
+ * A holder renews the lease while it works and clears it when done; a holder that died lets it
+ * expire. Runs outside a transaction, so a claim is visible to other nodes at once.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class JobLeaseManager {
+
+    private static final String CLAIM = """
+        UPDATE job_leases SET holder = ?, lease_expires_at = ?, updated_at = ?
+        WHERE job_name = ? AND (lease_expires_at IS NULL OR lease_expires_at <= ?)
+        """;
+    private static final String INSERT =
+            "INSERT INTO job_leases (job_name, holder, lease_expires_at, updated_at) VALUES (?, ?, ?, ?)";
+    private static final String RENEW = """
+        UPDATE job_leases SET lease_expires_at = ?, updated_at = ?
+        WHERE job_name = ? AND holder = ? AND lease_expires_at > ?
+        """;
+    private static final String RELEASE =
+            "UPDATE job_leases SET lease_expires_at = NULL, updated_at = ? WHERE job_name = ? AND holder = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return the holder token for renew/release, or null if another run holds the lease
+     */
+    public String tryClaim(String jobName, Duration ttl) {
+        String holder = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp ts = Timestamp.valueOf(now);
+        Timestamp expiry = Timestamp.valueOf(now.plus(ttl));
+        if (jdbcTemplate.update(CLAIM, holder, expiry, ts, jobName, ts) == 1) {
+            return holder;
+        }
+        try {
+            // First run ever; of two nodes inserting at once one wins
+            jdbcTemplate.update(INSERT, jobName, holder, expiry, ts);
+            return holder;
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return false if the lease expired or was taken over; the holder must stop writing
+     */
+    public boolean renew(String jobName, String holder, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(RENEW, Timestamp.valueOf(now.plus(ttl)), Timestamp.valueOf(now),
+                jobName, holder, Timestamp.valueOf(now)) == 1;
+    }
+
+    public void release(String jobName, String holder) {
+        jdbcTemplate.update(RELEASE, Timestamp.valueOf(LocalDateTime.now()), jobName, holder);
+    }
+
+    /**
+     * Runs the job if this node claims its lease, releasing it afterwards
+     *
+     * @param job receives the holder token, for renewing during long runs
+     * @return false if another node holds the lease and the job was skipped
+     */
+    public boolean runExclusively(String jobName, Duration ttl, Consumer<String> job) {
+        String holder = tryClaim(jobName, ttl);
+        if (holder == null) {
+            log.debug("Job {} is running on another node, skipping", jobName);
+            return false;
+        }
+        try {
+            job.accept(holder);
+            return true;
+        } finally {
+            release(jobName, holder);
+        }
+    }
+}
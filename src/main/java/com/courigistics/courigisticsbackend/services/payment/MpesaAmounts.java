@@ -0,0 +1,29 @@
+package com.courigistics.courigisticsbackend.services.payment;
+
+import com.courigistics.courigisticsbackend.entities.Delivery;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * What an M-Pesa payment for a delivery must be
+ * STK push only takes whole shillings, so the price is rounded up.
+ */
+final class MpesaAmounts {
+
+    private MpesaAmounts() {
+    }
+
+    /**
+     * Final price, or the estimate until a final price is set; null if neither is known
+     */
+    static BigDecimal amountDue(Delivery delivery) {
+        BigDecimal price = delivery.getFinalPrice() != null ? delivery.getFinalPrice() : delivery.getEstimatedPrice();
+        return price != null ? price.setScale(0, RoundingMode.CEILING) : null;
+    }
+
+    static boolean matches(Delivery delivery, BigDecimal paid) {
+        BigDecimal due = amountDue(delivery);
+        return due != null && paid != null && due.compareTo(paid) == 0;
+    }
+}
@@ -0,0 +1,63 @@
+package com.courigistics.courigisticsbackend.services.payment;
+
+import com.courigistics.courigisticsbackend.exceptions.AccessDeniedException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Decides whether an M-Pesa callback really comes from Daraja
+ *
+ * Daraja does not sign callbacks, so the callback URL we hand it carries a per-deployment
+ * secret as its last path segment (see MpesaStkPushServiceImpl). Optionally the source address
+ * must also be on Safaricom's published list; the address is the client address as resolved
+ * from the trusted proxy's forwarded headers.
+ */
+@Component
+@Slf4j
+public class MpesaCallbackAuthenticator {
+
+    @Value("${app.payments.mpesa.callback.token}")
+    private String callbackToken;
+
+    @Value("${app.payments.mpesa.callback.allowed-ips}")
+    private String allowedIpsValue;
+
+    private byte[] expectedToken;
+    private Set<String> allowedIps;
+
+    @PostConstruct
+    void init() {
+        expectedToken = callbackToken.getBytes(StandardCharsets.UTF_8);
+        allowedIps = Arrays.stream(allowedIpsValue.split(","))
+                .map(String::trim)
+                .filter(ip -> !ip.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        if (callbackToken.isBlank()) {
+            log.warn("app.payments.mpesa.callback.token is not set; all M-Pesa callbacks will be refused");
+        }
+    }
+
+    /**
+     * @throws AccessDeniedException if the token is wrong or the source is not allowed
+     */
+    public void authenticate(String token, String remoteAddress) {
+        boolean tokenValid = !callbackToken.isBlank() && token != null
+                && MessageDigest.isEqual(expectedToken, token.getBytes(StandardCharsets.UTF_8));
+        if (!tokenValid) {
+            log.warn("Refused M-Pesa callback with an invalid token from {}", remoteAddress);
+            throw new AccessDeniedException("Invalid callback token");
+        }
+        if (!allowedIps.isEmpty() && !allowedIps.contains(remoteAddress)) {
+            log.warn("Refused M-Pesa callback from {} (not in the allowed addresses)", remoteAddress);
+            throw new AccessDeniedException("Callback source not allowed");
+        }
+    }
+}
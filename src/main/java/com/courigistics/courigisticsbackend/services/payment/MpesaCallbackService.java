@@ -0,0 +1,24 @@
+package com.courigistics.courigisticsbackend.services.payment;
+
+import com.courigistics.courigisticsbackend.dto.requests.payment.MpesaCallbackRequest;
+
+/**
+ * Ingestion of M-Pesa STK push result callbacks
+ */
+public interface MpesaCallbackService {
+
+    /**
+     * Acknowledge-fast entry point: deduplicates against the in-memory cache and queues the
+     * callback for asynchronous processing. Never blocks on the database.
+     *
+     * @return true if the callback was queued, false if it was a recent duplicate
+     * @throws com.courigistics.courigisticsbackend.exceptions.BadRequestException if the payload has no CheckoutRequestID or ResultCode
+     */
+    boolean accept(MpesaCallbackRequest callback);
+
+    /**
+     * Applies callbacks that arrived before their checkout was linked to a delivery
+     * Called once the STK push has stored the checkout request ID on the delivery.
+     */
+    void reevaluateUnmatched(String checkoutRequestId);
+}
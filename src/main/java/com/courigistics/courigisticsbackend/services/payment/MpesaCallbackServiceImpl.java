@@ -0,0 +1,256 @@
+package com.courigistics.courigisticsbackend.services.payment;
+
+import com.courigistics.courigisticsbackend.dto.requests.payment.MpesaCallbackRequest;
+import com.courigistics.courigisticsbackend.entities.Delivery;
+import com.courigistics.courigisticsbackend.entities.Payment;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentCallbackOutcome;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentMethod;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentStatus;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.courigistics.courigisticsbackend.repositories.PaymentRepository;
+import com.courigistics.courigisticsbackend.utils.IdempotencyCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Callback pipeline:
+ * 1. HTTP thread: validate shape, check the idempotency cache, enqueue, return
+ * 2. Worker: record the callback and transition Delivery.paymentStatus in one transaction
+ *
+ * Duplicates are stopped twice: by the in-memory cache on the hot path and by the
+ * (checkout_request_id, result_code) unique constraint for anything the cache misses
+ * (other nodes, restarts, evictions). Status transitions are conditional updates, so
+ * callbacks for the same checkout may be processed in any order:
+ * PENDING → PAID, PENDING → FAILED, FAILED → PAID; PAID is final.
+ *
+ * A success only counts if its Amount equals the delivery's amount due. A callback that
+ * matches no delivery (UNMATCHED) is recorded but never treated as a duplicate: a retry
+ * re-evaluates it, and so does linking the checkout to its delivery after the STK push.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MpesaCallbackServiceImpl implements MpesaCallbackService {
+
+    private static final int RESULT_SUCCESS = 0;
+    private static final DateTimeFormatter MPESA_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final Set<PaymentStatus> PAYABLE_FROM = EnumSet.of(PaymentStatus.PENDING, PaymentStatus.FAILED);
+    private static final Set<PaymentStatus> FAILABLE_FROM = EnumSet.of(PaymentStatus.PENDING);
+
+    private final PaymentRepository paymentRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("paymentCallbackExecutor")
+    private final Executor paymentCallbackExecutor;
+
+    @Value("${app.payments.mpesa.idempotency-cache.ttl-minutes}")
+    private long cacheTtlMinutes;
+
+    @Value("${app.payments.mpesa.idempotency-cache.max-entries}")
+    private int cacheMaxEntries;
+
+    private IdempotencyCache idempotencyCache;
+    private Counter duplicateInMemory;
+    private Counter duplicateInDatabase;
+    private Counter processingFailures;
+    private final Map<PaymentCallbackOutcome, Counter> outcomeCounters = new EnumMap<>(PaymentCallbackOutcome.class);
+
+    @PostConstruct
+    void init() {
+        idempotencyCache = new IdempotencyCache(Duration.ofMinutes(cacheTtlMinutes), cacheMaxEntries);
+
+        duplicateInMemory = callbackCounter("duplicate_cache");
+        duplicateInDatabase = callbackCounter("duplicate_db");
+        processingFailures = callbackCounter("error");
+        for (PaymentCallbackOutcome outcome : PaymentCallbackOutcome.values()) {
+            outcomeCounters.put(outcome, callbackCounter(outcome.name().toLowerCase()));
+        }
+        meterRegistry.gauge("payments.mpesa.idempotency_cache.size", idempotencyCache, IdempotencyCache::size);
+    }
+
+    @Override
+    public boolean accept(MpesaCallbackRequest callback) {
+        MpesaCallbackRequest.StkCallback stk = callback.stkCallback();
+        if (stk == null || stk.checkoutRequestId() == null || stk.resultCode() == null) {
+            throw new BadRequestException("Callback is missing CheckoutRequestID or ResultCode");
+        }
+
+        String key = stk.checkoutRequestId() + ":" + stk.resultCode();
+        if (!idempotencyCache.markIfAbsent(key)) {
+            duplicateInMemory.increment();
+            log.debug("Duplicate M-Pesa callback dropped in memory: {}", key);
+            return false;
+        }
+
+        LocalDateTime receivedAt = LocalDateTime.now();
+        paymentCallbackExecutor.execute(() -> process(callback, key, receivedAt));
+        return true;
+    }
+
+    @Override
+    public void reevaluateUnmatched(String checkoutRequestId) {
+        List<PaymentCallbackOutcome> outcomes = new TransactionTemplate(transactionManager).execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            Optional<Delivery> delivery = deliveryRepository.findByMpesaCheckoutRequestId(checkoutRequestId);
+            return paymentRepository.findByCheckoutRequestIdAndOutcome(checkoutRequestId, PaymentCallbackOutcome.UNMATCHED)
+                    .stream()
+                    .map(payment -> {
+                        PaymentCallbackOutcome outcome = evaluate(
+                                checkoutRequestId, delivery, payment.getResultCode(), payment.getAmount(), now);
+                        payment.setDelivery(delivery.orElse(null));
+                        payment.setOutcome(outcome);
+                        payment.setProcessedAt(now);
+                        return outcome;
+                    })
+                    .toList();
+        });
+        if (outcomes != null && !outcomes.isEmpty()) {
+            outcomes.forEach(outcome -> outcomeCounters.get(outcome).increment());
+            log.info("Re-evaluated {} early M-Pesa callbacks for checkout {}: {}", outcomes.size(), checkoutRequestId, outcomes);
+        }
+    }
+
+    private void process(MpesaCallbackRequest callback, String key, LocalDateTime receivedAt) {
+        try {
+            PaymentCallbackOutcome outcome = new TransactionTemplate(transactionManager)
+                    .execute(status -> apply(callback, receivedAt));
+            if (outcome == null) {
+                duplicateInDatabase.increment();
+                log.debug("Duplicate M-Pesa callback already recorded: {}", key);
+                return;
+            }
+            outcomeCounters.get(outcome).increment();
+            if (outcome == PaymentCallbackOutcome.UNMATCHED) {
+                // Let a retry through, in case the delivery has been linked by then
+                idempotencyCache.remove(key);
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Recorded earlier by another node or before a restart; the whole transaction rolled back
+            duplicateInDatabase.increment();
+            log.debug("Duplicate M-Pesa callback rejected by unique constraint: {}", key);
+        } catch (Exception e) {
+            // Let the provider's next retry through the cache
+            idempotencyCache.remove(key);
+            processingFailures.increment();
+            log.error("Failed to process M-Pesa callback {}: {}", key, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return the outcome, or null if this callback was already recorded and settled
+     */
+    private PaymentCallbackOutcome apply(MpesaCallbackRequest callback, LocalDateTime receivedAt) {
+        MpesaCallbackRequest.StkCallback stk = callback.stkCallback();
+        LocalDateTime now = LocalDateTime.now();
+
+        // 1: Only an UNMATCHED record may be processed again
+        Optional<Payment> recorded = paymentRepository.findByCheckoutRequestIdAndResultCode(
+                stk.checkoutRequestId(), stk.resultCode());
+        if (recorded.isPresent() && recorded.get().getOutcome() != PaymentCallbackOutcome.UNMATCHED) {
+            return null;
+        }
+
+        // 2: Match the delivery and move its payment status if the transition is allowed
+        BigDecimal amount = asAmount(callback.metadataValue("Amount"));
+        Optional<Delivery> delivery = deliveryRepository.findByMpesaCheckoutRequestId(stk.checkoutRequestId());
+        PaymentCallbackOutcome outcome = evaluate(stk.checkoutRequestId(), delivery, stk.resultCode(), amount, now);
+
+        // 3: Record the callback; a concurrent first insert of the same one fails here and rolls back step 2
+        Payment payment = recorded.orElseGet(() -> Payment.builder()
+                .checkoutRequestId(stk.checkoutRequestId())
+                .paymentMethod(PaymentMethod.MPESA)
+                .resultCode(stk.resultCode())
+                .receivedAt(receivedAt)
+                .build());
+        payment.setMerchantRequestId(stk.merchantRequestId());
+        payment.setDelivery(delivery.orElse(null));
+        payment.setResultDesc(stk.resultDesc());
+        payment.setReceiptNumber(asString(callback.metadataValue("MpesaReceiptNumber")));
+        payment.setAmount(amount);
+        payment.setPhoneNumber(asString(callback.metadataValue("PhoneNumber")));
+        payment.setTransactionDate(asTimestamp(callback.metadataValue("TransactionDate")));
+        payment.setOutcome(outcome);
+        payment.setProcessedAt(now);
+        paymentRepository.saveAndFlush(payment);
+
+        log.info("M-Pesa callback {} (result {}) processed: {}", stk.checkoutRequestId(), stk.resultCode(), outcome);
+        return outcome;
+    }
+
+    private PaymentCallbackOutcome evaluate(String checkoutRequestId, Optional<Delivery> delivery, int resultCode,
+                                           BigDecimal amount, LocalDateTime now) {
+        if (delivery.isEmpty()) {
+            log.warn("M-Pesa callback for unknown checkout {}", checkoutRequestId);
+            return PaymentCallbackOutcome.UNMATCHED;
+        }
+        Delivery matched = delivery.get();
+        if (matched.getPaymentMethod() != PaymentMethod.MPESA) {
+            log.warn("M-Pesa callback for delivery {} which is not paid by M-Pesa", matched.getDeliveryNumber());
+            return PaymentCallbackOutcome.IGNORED;
+        }
+        boolean paid = resultCode == RESULT_SUCCESS;
+        if (paid && !MpesaAmounts.matches(matched, amount)) {
+            log.warn("M-Pesa payment of {} for delivery {} does not match the amount due {}",
+                    amount, matched.getDeliveryNumber(), MpesaAmounts.amountDue(matched));
+            return PaymentCallbackOutcome.AMOUNT_MISMATCH;
+        }
+        int updated = deliveryRepository.transitionPaymentStatus(
+                matched.getId(),
+                paid ? PaymentStatus.PAID : PaymentStatus.FAILED,
+                paid ? PAYABLE_FROM : FAILABLE_FROM,
+                now
+        );
+        return updated == 1 ? PaymentCallbackOutcome.APPLIED : PaymentCallbackOutcome.IGNORED;
+    }
+
+    private Counter callbackCounter(String result) {
+        return Counter.builder("payments.mpesa.callbacks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String asString(Object value) {
+        return value != null ? value.toString() : null;
+    }
+
+    private static BigDecimal asAmount(Object value) {
+        return value != null ? new BigDecimal(value.toString()) : null;
+    }
+
+    private static LocalDateTime asTimestamp(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value.toString(), MPESA_TIMESTAMP);
+        } catch (DateTimeParseException e) {
+            log.warn("Unparseable M-Pesa TransactionDate: {}", value);
+            return null;
+        }
+    }
+}
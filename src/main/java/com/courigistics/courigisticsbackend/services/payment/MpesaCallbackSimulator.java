@@ -0,0 +1,130 @@
+package com.courigistics.courigisticsbackend.services.payment;
+
+import com.courigistics.courigisticsbackend.dto.requests.payment.CallbackSimulationRequest;
+import com.courigistics.courigisticsbackend.dto.requests.payment.MpesaCallbackRequest;
+import com.courigistics.courigisticsbackend.dto.responses.payment.CallbackSimulationResponse;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local load generator for callback ingestion (dev/test only)
+ *
+ * Builds a success callback per checkout, optionally a failure callback for the same
+ * checkout, duplicates every callback, shuffles the lot and fires it concurrently at
+ * {@link MpesaCallbackService#accept}, which is what the HTTP callback endpoint calls.
+ * Afterwards every checkout should have exactly one PAID delivery and one row per result code.
+ */
+@Component
+@Profile({"dev", "test"})
+@RequiredArgsConstructor
+@Slf4j
+public class MpesaCallbackSimulator {
+
+    private static final DateTimeFormatter MPESA_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final int RESULT_CANCELLED_BY_USER = 1032;
+
+    private final MpesaCallbackService mpesaCallbackService;
+    private final DeliveryRepository deliveryRepository;
+
+    public CallbackSimulationResponse replay(CallbackSimulationRequest request) throws InterruptedException {
+        // 1: Resolve the checkouts to pay
+        List<String> checkouts = new ArrayList<>();
+        if (request.checkoutRequestIds() != null && !request.checkoutRequestIds().isEmpty()) {
+            checkouts.addAll(request.checkoutRequestIds());
+        } else {
+            int synthetic = request.syntheticCount() != null ? request.syntheticCount() : 1_000;
+            for (int i = 0; i < synthetic; i++) {
+                checkouts.add("ws_CO_SIM_" + UUID.randomUUID());
+            }
+        }
+
+        int duplicates = request.duplicates() != null ? request.duplicates() : 3;
+        double failureRatio = request.failureRatio() != null ? request.failureRatio() : 0.2;
+        int threads = request.threads() != null ? request.threads() : 16;
+
+        // 2: Build the storm: success (+ maybe failure) per checkout, each delivered `duplicates` times
+        List<MpesaCallbackRequest> storm = new ArrayList<>(checkouts.size() * duplicates * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (String checkout : checkouts) {
+            // Pay exactly what is due, or the callback is recorded as AMOUNT_MISMATCH
+            BigDecimal amount = deliveryRepository.findByMpesaCheckoutRequestId(checkout)
+                    .map(MpesaAmounts::amountDue)
+                    .orElse(BigDecimal.ONE);
+            MpesaCallbackRequest success = callback(checkout, 0, "The service request is processed successfully.", amount);
+            for (int i = 0; i < duplicates; i++) {
+                storm.add(success);
+            }
+            if (random.nextDouble() < failureRatio) {
+                MpesaCallbackRequest failure = callback(checkout, RESULT_CANCELLED_BY_USER, "Request cancelled by user", null);
+                for (int i = 0; i < duplicates; i++) {
+                    storm.add(failure);
+                }
+            }
+        }
+        Collections.shuffle(storm);
+
+        // 3: Fire concurrently
+        AtomicInteger enqueued = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        ExecutorService senders = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        try {
+            for (MpesaCallbackRequest callback : storm) {
+                senders.execute(() -> {
+                    if (mpesaCallbackService.accept(callback)) {
+                        enqueued.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                });
+            }
+        } finally {
+            senders.shutdown();
+            senders.awaitTermination(5, TimeUnit.MINUTES);
+        }
+        long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        log.info("Replayed {} M-Pesa callbacks for {} checkouts in {} ms ({} queued, {} dropped as duplicates)",
+                storm.size(), checkouts.size(), elapsedMillis, enqueued.get(), rejected.get());
+
+        return new CallbackSimulationResponse(
+                checkouts.size(),
+                storm.size(),
+                enqueued.get(),
+                rejected.get(),
+                elapsedMillis,
+                storm.size() * 1000.0 / elapsedMillis
+        );
+    }
+
+    private static MpesaCallbackRequest callback(String checkoutRequestId, int resultCode, String resultDesc, BigDecimal amount) {
+        MpesaCallbackRequest.CallbackMetadata metadata = null;
+        if (resultCode == 0) {
+            metadata = new MpesaCallbackRequest.CallbackMetadata(List.of(
+                    new MpesaCallbackRequest.Item("Amount", amount.doubleValue()),
+                    new MpesaCallbackRequest.Item("MpesaReceiptNumber", "SIM" + Long.toString(System.nanoTime(), 36).toUpperCase()),
+                    new MpesaCallbackRequest.Item("TransactionDate", Long.parseLong(LocalDateTime.now().format(MPESA_TIMESTAMP))),
+                    new MpesaCallbackRequest.Item("PhoneNumber", 254700000000L)
+            ));
+        }
+        return new MpesaCallbackRequest(new MpesaCallbackRequest.Body(new MpesaCallbackRequest.StkCallback(
+                "SIM-" + checkoutRequestId, checkoutRequestId, resultCode, resultDesc, metadata
+        )));
+    }
+}
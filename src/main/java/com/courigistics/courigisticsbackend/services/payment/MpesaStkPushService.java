@@ -0,0 +1,21 @@
+package com.courigistics.courigisticsbackend.services.payment;
+
+import com.courigistics.courigisticsbackend.dto.responses.payment.StkPushResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+
+import java.util.UUID;
+
+/**
+ * Starts M-Pesa payments (Daraja STK push) for deliveries
+ */
+public interface MpesaStkPushService {
+
+    /**
+     * Prompts the sender's phone for the delivery's amount due and links the returned
+     * CheckoutRequestID to the delivery, so the result callback can be matched
+     *
+     * @param phoneNumber number to prompt; null uses the account's phone
+     * @throws com.courigistics.courigisticsbackend.exceptions.PaymentProcessingException if Daraja rejects the push
+     */
+    StkPushResponse initiate(Account sender, UUID deliveryId, String phoneNumber);
+}
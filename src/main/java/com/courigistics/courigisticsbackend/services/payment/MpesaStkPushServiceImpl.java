@@ -0,0 +1,238 @@
+package com.courigistics.courigisticsbackend.services.payment;
+
+import com.courigistics.courigisticsbackend.dto.responses.payment.StkPushResponse;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.Delivery;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentMethod;
+import com.courigistics.courigisticsbackend.entities.enums.PaymentStatus;
+import com.courigistics.courigisticsbackend.exceptions.AccessDeniedException;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.PaymentProcessingException;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Daraja STK push client
+ *
+ * 1. Validates the delivery (sender, M-Pesa, not yet paid) and computes the amount due
+ * 2. Sends the push with a callback URL carrying the callback secret (see MpesaCallbackAuthenticator)
+ * 3. Links the returned CheckoutRequestID to the delivery
+ * 4. Re-evaluates any callback that beat step 3 and was recorded as UNMATCHED
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MpesaStkPushServiceImpl implements MpesaStkPushService {
+
+    private static final DateTimeFormatter MPESA_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final ZoneId DARAJA_ZONE = ZoneId.of("Africa/Nairobi");
+    private static final Set<PaymentStatus> PAYABLE_FROM = EnumSet.of(PaymentStatus.PENDING, PaymentStatus.FAILED);
+    private static final int ACCOUNT_REFERENCE_MAX = 12;
+
+    private final DeliveryRepository deliveryRepository;
+    private final MpesaCallbackService mpesaCallbackService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.payments.mpesa.daraja.base-url}")
+    private String baseUrl;
+
+    @Value("${app.payments.mpesa.daraja.consumer-key}")
+    private String consumerKey;
+
+    @Value("${app.payments.mpesa.daraja.consumer-secret}")
+    private String consumerSecret;
+
+    @Value("${app.payments.mpesa.daraja.shortcode}")
+    private String shortcode;
+
+    @Value("${app.payments.mpesa.daraja.passkey}")
+    private String passkey;
+
+    @Value("${app.payments.mpesa.daraja.timeout-ms}")
+    private int timeoutMs;
+
+    @Value("${app.payments.mpesa.callback.token}")
+    private String callbackToken;
+
+    @Value("${app.backend-base-url}")
+    private String backendBaseUrl;
+
+    private RestClient restClient;
+    private String callbackUrl;
+
+    // Daraja access tokens last an hour; refreshed a minute early
+    private String accessToken;
+    private long accessTokenExpiresAt;
+
+    private record AccessTokenResponse(
+            @JsonProperty("access_token") String accessToken,
+            @JsonProperty("expires_in") String expiresIn
+    ) {
+    }
+
+    private record StkPushPayload(
+            @JsonProperty("BusinessShortCode") String businessShortCode,
+            @JsonProperty("Password") String password,
+            @JsonProperty("Timestamp") String timestamp,
+            @JsonProperty("TransactionType") String transactionType,
+            @JsonProperty("Amount") long amount,
+            @JsonProperty("PartyA") String partyA,
+            @JsonProperty("PartyB") String partyB,
+            @JsonProperty("PhoneNumber") String phoneNumber,
+            @JsonProperty("CallBackURL") String callBackUrl,
+            @JsonProperty("AccountReference") String accountReference,
+            @JsonProperty("TransactionDesc") String transactionDesc
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    private record StkPushResult(
+            @JsonProperty("MerchantRequestID") String merchantRequestId,
+            @JsonProperty("CheckoutRequestID") String checkoutRequestId,
+            @JsonProperty("ResponseCode") String responseCode,
+            @JsonProperty("ResponseDescription") String responseDescription,
+            @JsonProperty("CustomerMessage") String customerMessage
+    ) {
+    }
+
+    @PostConstruct
+    void init() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMs);
+        requestFactory.setReadTimeout(timeoutMs);
+        restClient = RestClient.builder()
+                .baseUrl(baseUrl)
+                .requestFactory(requestFactory)
+                .build();
+        callbackUrl = backendBaseUrl + "/api/v1/payments/mpesa/callback/" + callbackToken;
+    }
+
+    @Override
+    public StkPushResponse initiate(Account sender, UUID deliveryId, String phoneNumber) {
+        // 1: Only the sender pays, and only while payment is still open
+        Delivery delivery = deliveryRepository.findById(deliveryId)
+                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found"));
+        if (!delivery.getSender().getId().equals(sender.getId())) {
+            throw new AccessDeniedException("Not your delivery");
+        }
+        if (delivery.getPaymentMethod() != PaymentMethod.MPESA) {
+            throw new BadRequestException("Delivery is not paid by M-Pesa");
+        }
+        if (!PAYABLE_FROM.contains(delivery.getPaymentStatus())) {
+            throw new BadRequestException("Delivery payment is " + delivery.getPaymentStatus());
+        }
+        BigDecimal amount = MpesaAmounts.amountDue(delivery);
+        if (amount == null || amount.signum() <= 0) {
+            throw new BadRequestException("Delivery has no price yet");
+        }
+        String msisdn = normalizePhone(phoneNumber != null ? phoneNumber : sender.getPhone());
+
+        // 2: Push
+        String timestamp = LocalDateTime.now(DARAJA_ZONE).format(MPESA_TIMESTAMP);
+        String password = Base64.getEncoder().encodeToString(
+                (shortcode + passkey + timestamp).getBytes(StandardCharsets.UTF_8));
+        String reference = delivery.getDeliveryNumber().length() > ACCOUNT_REFERENCE_MAX
+                ? delivery.getDeliveryNumber().substring(delivery.getDeliveryNumber().length() - ACCOUNT_REFERENCE_MAX)
+                : delivery.getDeliveryNumber();
+        StkPushPayload payload = new StkPushPayload(shortcode, password, timestamp, "CustomerPayBillOnline",
+                amount.longValueExact(), msisdn, shortcode, msisdn, callbackUrl, reference,
+                "Delivery " + delivery.getDeliveryNumber());
+
+        StkPushResult result;
+        try {
+            result = restClient.post()
+                    .uri("/mpesa/stkpush/v1/processrequest")
+                    .header("Authorization", "Bearer " + accessToken())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(payload)
+                    .retrieve()
+                    .body(StkPushResult.class);
+        } catch (RestClientException e) {
+            log.error("STK push for delivery {} failed: {}", delivery.getDeliveryNumber(), e.getMessage());
+            throw new PaymentProcessingException("Could not start the M-Pesa payment, please try again");
+        }
+        if (result == null || !"0".equals(result.responseCode()) || result.checkoutRequestId() == null) {
+            log.warn("STK push for delivery {} rejected: {}", delivery.getDeliveryNumber(),
+                    result != null ? result.responseDescription() : "empty response");
+            throw new PaymentProcessingException("M-Pesa rejected the payment request");
+        }
+
+        // 3: Link the checkout so its callback can be matched
+        LocalDateTime now = LocalDateTime.now();
+        Integer linked = new TransactionTemplate(transactionManager).execute(status ->
+                deliveryRepository.linkMpesaCheckout(deliveryId, result.checkoutRequestId(), PAYABLE_FROM, now));
+        if (linked == null || linked != 1) {
+            log.warn("STK push {} not linked to delivery {}: paid meanwhile, or the checkout is linked elsewhere",
+                    result.checkoutRequestId(), delivery.getDeliveryNumber());
+        }
+
+        // 4: A callback may already have arrived
+        mpesaCallbackService.reevaluateUnmatched(result.checkoutRequestId());
+
+        log.info("STK push {} started for delivery {} ({} KES)", result.checkoutRequestId(),
+                delivery.getDeliveryNumber(), amount);
+        return new StkPushResponse(deliveryId, result.checkoutRequestId(), amount, result.customerMessage());
+    }
+
+    private synchronized String accessToken() {
+        if (accessToken != null && System.currentTimeMillis() < accessTokenExpiresAt) {
+            return accessToken;
+        }
+        String credentials = Base64.getEncoder().encodeToString(
+                (consumerKey + ":" + consumerSecret).getBytes(StandardCharsets.UTF_8));
+        AccessTokenResponse response = restClient.get()
+                .uri("/oauth/v1/generate?grant_type=client_credentials")
+                .header("Authorization", "Basic " + credentials)
+                .retrieve()
+                .body(AccessTokenResponse.class);
+        if (response == null || response.accessToken() == null) {
+            throw new PaymentProcessingException("Could not authenticate with M-Pesa");
+        }
+        long expiresInSeconds = response.expiresIn() != null ? Long.parseLong(response.expiresIn()) : 3599;
+        accessToken = response.accessToken();
+        accessTokenExpiresAt = System.currentTimeMillis() + (expiresInSeconds - 60) * 1000;
+        return accessToken;
+    }
+
+    /**
+     * 07XXXXXXXX, 7XXXXXXXX, +2547XXXXXXXX → 2547XXXXXXXX
+     */
+    private static String normalizePhone(String phone) {
+        if (phone == null || phone.isBlank()) {
+            throw new BadRequestException("A phone number is required for M-Pesa payments");
+        }
+        String digits = phone.replaceAll("[^0-9]", "");
+        if (digits.startsWith("0")) {
+            digits = "254" + digits.substring(1);
+        } else if (digits.length() == 9) {
+            digits = "254" + digits;
+        }
+        if (!digits.matches("^254[0-9]{9}$")) {
+            throw new BadRequestException("Not a Kenyan mobile number: " + phone);
+        }
+        return digits;
+    }
+}
@@ -0,0 +1,25 @@
+package com.courigistics.courigisticsbackend.services.reconciliation;
+
+import com.courigistics.courigisticsbackend.dto.responses.reconciliation.CodReconciliationRunResponse;
+
+import java.time.LocalDate;
+
+/**
+ * Reconciles cash-on-delivery takings per courier per day
+ */
+public interface CodReconciliationService {
+
+    /**
+     * Aggregates the day's delivered COD deliveries per courier and (re)writes one
+     * summary row per courier. Safe to re-run for the same date.
+     *
+     * @param businessDate day to reconcile, by actual delivery time
+     * @return run statistics
+     */
+    CodReconciliationRunResponse reconcile(LocalDate businessDate);
+
+    /**
+     * Nightly entry point: reconciles yesterday
+     */
+    void reconcileYesterday();
+}
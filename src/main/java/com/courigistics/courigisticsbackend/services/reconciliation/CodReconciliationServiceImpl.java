@@ -0,0 +1,242 @@
+package com.courigistics.courigisticsbackend.services.reconciliation;
+
+import com.courigistics.courigisticsbackend.dto.responses.reconciliation.CodReconciliationRunResponse;
+import com.courigistics.courigisticsbackend.entities.CodReconciliation;
+import com.courigistics.courigisticsbackend.exceptions.ServiceUnavailableException;
+import com.courigistics.courigisticsbackend.repositories.CodReconciliationRepository;
+import com.courigistics.courigisticsbackend.repositories.CourierRepository;
+import com.courigistics.courigisticsbackend.services.jobs.JobLeaseManager;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Nightly COD reconciliation
+ *
+ * The run is partitioned by courier operational city. Each partition, on a fork-join pool:
+ * 1. Streams the city's delivered COD deliveries for the day through a server-side cursor
+ * 2. Folds them into a {@link CourierCodTally} (primitive arrays, amounts in cents)
+ * 3. Replaces the city's summary rows for the day in one transaction
+ * Every node schedules the nightly run; a run holds the job lease, so only one node reconciles a day.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CodReconciliationServiceImpl implements CodReconciliationService {
+
+    private static final String RECONCILIATION_JOB = "cod-reconciliation";
+
+    private static final String SELECT_CITIES = """
+        SELECT DISTINCT COALESCE(c.operational_city, 'UNASSIGNED')
+        FROM couriers c
+        """;
+
+    // Amounts come back as whole cents so the row handler never builds a BigDecimal
+    private static final String STREAM_COD_DELIVERIES = """
+        SELECT d.courier_id,
+               CAST(ROUND(d.final_price * 100) AS BIGINT)     AS final_cents,
+               CAST(ROUND(d.estimated_price * 100) AS BIGINT) AS estimated_cents
+        FROM deliveries d
+        JOIN couriers c ON c.id = d.courier_id
+        WHERE d.payment_method = 'COD'
+          AND d.delivery_status = 'DELIVERED'
+          AND d.actual_delivery_time >= ?
+          AND d.actual_delivery_time < ?
+          AND d.created_at >= ?
+          AND d.created_at < ?
+          AND COALESCE(c.operational_city, 'UNASSIGNED') = ?
+        """;
+
+    private final CodReconciliationRepository codReconciliationRepository;
+    private final CourierRepository courierRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DataSource dataSource;
+    private final JobLeaseManager jobLeaseManager;
+
+    @Value("${app.reconciliation.cod.parallelism}")
+    private int parallelism;
+
+    @Value("${app.reconciliation.cod.fetch-size}")
+    private int fetchSize;
+
+    // Bounds created_at as well, so a partitioned deliveries table only reads the recent months
+    @Value("${app.reconciliation.cod.max-delivery-age-days}")
+    private int maxDeliveryAgeDays;
+
+    @Value("${app.reconciliation.cod.mismatch-tolerance}")
+    private BigDecimal mismatchTolerance;
+
+    @Value("${app.reconciliation.cod.lease-minutes}")
+    private long leaseMinutes;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    private record CityResult(String city, int couriers, long deliveries, int mismatches) {
+    }
+
+    @PostConstruct
+    void init() {
+        streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        streamingJdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    @Override
+    @Scheduled(cron = "${app.reconciliation.cod.cron}")
+    public void reconcileYesterday() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        if (!jobLeaseManager.runExclusively(RECONCILIATION_JOB, Duration.ofMinutes(leaseMinutes),
+                holder -> reconcileDay(yesterday))) {
+            log.info("COD reconciliation already running on another node, skipping");
+        }
+    }
+
+    @Override
+    public CodReconciliationRunResponse reconcile(LocalDate businessDate) {
+        CodReconciliationRunResponse[] run = new CodReconciliationRunResponse[1];
+        if (!jobLeaseManager.runExclusively(RECONCILIATION_JOB, Duration.ofMinutes(leaseMinutes),
+                holder -> run[0] = reconcileDay(businessDate))) {
+            throw new ServiceUnavailableException("A COD reconciliation is already running", 60);
+        }
+        return run[0];
+    }
+
+    private CodReconciliationRunResponse reconcileDay(LocalDate businessDate) {
+        long start = System.nanoTime();
+        List<String> cities = streamingJdbcTemplate.queryForList(SELECT_CITIES, String.class);
+        log.info("Starting COD reconciliation for {} across {} cities", businessDate, cities.size());
+
+        // 1: One task per city
+        List<Callable<CityResult>> tasks = new ArrayList<>(cities.size());
+        for (String city : cities) {
+            tasks.add(() -> reconcileCity(businessDate, city));
+        }
+
+        // 2: Run them on a dedicated pool so a long run never competes with the common pool
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        int couriers = 0;
+        long deliveries = 0;
+        int mismatches = 0;
+        try {
+            for (Future<CityResult> future : pool.invokeAll(tasks)) {
+                CityResult result = future.get();
+                couriers += result.couriers();
+                deliveries += result.deliveries();
+                mismatches += result.mismatches();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("COD reconciliation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("COD reconciliation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("COD reconciliation for {} finished in {} ms: {} couriers, {} deliveries, {} mismatches",
+                businessDate, elapsedMillis, couriers, deliveries, mismatches);
+
+        return new CodReconciliationRunResponse(businessDate, cities.size(), couriers, deliveries, mismatches, elapsedMillis);
+    }
+
+    private CityResult reconcileCity(LocalDate businessDate, String city) {
+        Timestamp from = Timestamp.valueOf(businessDate.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(businessDate.plusDays(1).atStartOfDay());
+        Timestamp createdFrom = Timestamp.valueOf(businessDate.minusDays(maxDeliveryAgeDays).atStartOfDay());
+
+        // 1: Stream and aggregate; the cursor only stays open inside a transaction on Postgres
+        CourierCodTally tally = new CourierCodTally();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> streamingJdbcTemplate.query(STREAM_COD_DELIVERIES, rs -> {
+            UUID courierId = rs.getObject(1, UUID.class);
+            long finalCents = rs.getLong(2);
+            if (rs.wasNull()) {
+                finalCents = -1;
+            }
+            long estimatedCents = rs.getLong(3);
+            if (rs.wasNull()) {
+                estimatedCents = -1;
+            }
+            tally.add(courierId, finalCents, estimatedCents);
+        }, from, to, createdFrom, to, city));
+
+        // 2: Build summary rows
+        long toleranceCents = mismatchTolerance.movePointRight(2).longValue();
+        LocalDateTime now = LocalDateTime.now();
+        List<CodReconciliation> rows = new ArrayList<>(tally.size());
+        long deliveries = 0;
+        int mismatches = 0;
+
+        for (int slot = 0; slot < tally.size(); slot++) {
+            String reason = mismatchReason(tally, slot, toleranceCents);
+            if (reason != null) {
+                mismatches++;
+            }
+            deliveries += tally.deliveryCount(slot);
+
+            rows.add(CodReconciliation.builder()
+                    .courier(courierRepository.getReferenceById(tally.courierId(slot)))
+                    .businessDate(businessDate)
+                    .operationalCity(city)
+                    .deliveryCount(tally.deliveryCount(slot))
+                    .amountOwed(BigDecimal.valueOf(tally.owedCents(slot), 2))
+                    .estimatedAmount(BigDecimal.valueOf(tally.estimatedCents(slot), 2))
+                    .missingFinalPriceCount(tally.missingFinalPriceCount(slot))
+                    .mismatch(reason != null)
+                    .mismatchReason(reason)
+                    .createdAt(now)
+                    .build());
+        }
+
+        // 3: Replace the city's rows for the day atomically, by city (couriers who left it or have no
+        // deliveries any more) and by courier (the unique key, in case a courier was filed under another city)
+        List<UUID> courierIds = new ArrayList<>(tally.size());
+        for (int slot = 0; slot < tally.size(); slot++) {
+            courierIds.add(tally.courierId(slot));
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            codReconciliationRepository.deleteByBusinessDateAndOperationalCity(businessDate, city);
+            if (!courierIds.isEmpty()) {
+                codReconciliationRepository.deleteByBusinessDateAndCourierIds(businessDate, courierIds);
+            }
+            codReconciliationRepository.saveAll(rows);
+        });
+
+        log.debug("COD reconciliation {} {}: {} couriers, {} deliveries, {} mismatches",
+                businessDate, city, rows.size(), deliveries, mismatches);
+        return new CityResult(city, rows.size(), deliveries, mismatches);
+    }
+
+    private static String mismatchReason(CourierCodTally tally, int slot, long toleranceCents) {
+        List<String> reasons = new ArrayList<>(2);
+        if (tally.missingFinalPriceCount(slot) > 0) {
+            reasons.add(tally.missingFinalPriceCount(slot) + " deliveries without a final price");
+        }
+        if (tally.finalVsEstimateDeltaCents(slot) > toleranceCents) {
+            reasons.add("final prices differ from estimates by "
+                    + BigDecimal.valueOf(tally.finalVsEstimateDeltaCents(slot), 2));
+        }
+        return reasons.isEmpty() ? null : String.join("; ", reasons);
+    }
+}
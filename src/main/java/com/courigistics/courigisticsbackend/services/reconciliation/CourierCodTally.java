@@ -0,0 +1,98 @@
+package com.courigistics.courigisticsbackend.services.reconciliation;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-courier COD totals for one city and one day
+ *
+ * Each courier gets a dense int slot the first time it is seen; all totals live in
+ * primitive arrays indexed by that slot and amounts are kept in cents, so streaming a
+ * day of deliveries allocates nothing per row beyond the courier lookup.
+ * Not thread-safe: one tally per city partition.
+ */
+class CourierCodTally {
+
+    private final Map<UUID, Integer> slots = new HashMap<>();
+    private UUID[] courierIds = new UUID[16];
+    private long[] owedCents = new long[16];
+    private long[] estimatedCents = new long[16];
+    private long[] finalVsEstimateDeltaCents = new long[16];
+    private int[] deliveryCounts = new int[16];
+    private int[] missingFinalPriceCounts = new int[16];
+
+    /**
+     * @param finalCents     final price in cents, or -1 when not recorded
+     * @param estimatedCents estimated price in cents, or -1 when not recorded
+     */
+    void add(UUID courierId, long finalCents, long estimatedCents) {
+        int slot = slotFor(courierId);
+        long estimate = Math.max(estimatedCents, 0);
+
+        deliveryCounts[slot]++;
+        this.estimatedCents[slot] += estimate;
+        if (finalCents < 0) {
+            missingFinalPriceCounts[slot]++;
+            owedCents[slot] += estimate;
+        } else {
+            owedCents[slot] += finalCents;
+            if (estimatedCents >= 0) {
+                finalVsEstimateDeltaCents[slot] += Math.abs(finalCents - estimatedCents);
+            }
+        }
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    UUID courierId(int slot) {
+        return courierIds[slot];
+    }
+
+    long owedCents(int slot) {
+        return owedCents[slot];
+    }
+
+    long estimatedCents(int slot) {
+        return estimatedCents[slot];
+    }
+
+    long finalVsEstimateDeltaCents(int slot) {
+        return finalVsEstimateDeltaCents[slot];
+    }
+
+    int deliveryCount(int slot) {
+        return deliveryCounts[slot];
+    }
+
+    int missingFinalPriceCount(int slot) {
+        return missingFinalPriceCounts[slot];
+    }
+
+    private int slotFor(UUID courierId) {
+        Integer existing = slots.get(courierId);
+        if (existing != null) {
+            return existing;
+        }
+        int slot = slots.size();
+        if (slot == courierIds.length) {
+            grow();
+        }
+        slots.put(courierId, slot);
+        courierIds[slot] = courierId;
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = courierIds.length * 2;
+        courierIds = Arrays.copyOf(courierIds, capacity);
+        owedCents = Arrays.copyOf(owedCents, capacity);
+        estimatedCents = Arrays.copyOf(estimatedCents, capacity);
+        finalVsEstimateDeltaCents = Arrays.copyOf(finalVsEstimateDeltaCents, capacity);
+        deliveryCounts = Arrays.copyOf(deliveryCounts, capacity);
+        missingFinalPriceCounts = Arrays.copyOf(missingFinalPriceCounts, capacity);
+    }
+}
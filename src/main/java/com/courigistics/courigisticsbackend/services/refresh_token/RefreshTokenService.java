@@ -0,0 +1,35 @@
+package com.courigistics.courigisticsbackend.services.refresh_token;
+
+import com.courigistics.courigisticsbackend.entities.Account;
+
+public interface RefreshTokenService {
+
+    /**
+     * Stores a newly issued refresh token (by hash) and enforces the per-account session cap,
+     * invalidating the oldest live sessions beyond it
+     * @param account the account the token was issued to
+     * @param refreshToken the refresh token JWT handed to the client
+     */
+    void store(Account account, String refreshToken);
+
+    /**
+     * Consumes a refresh token so it can never be used again
+     * Presenting an already rotated token is treated as theft and revokes every session of the account
+     * @param refreshToken the refresh token presented by the client
+     * @return the account the token belongs to
+     * @throws IllegalArgumentException if the token is unknown, expired, revoked or already used
+     */
+    Account rotate(String refreshToken);
+
+    /**
+     * Invalidates all live refresh tokens of an account (logout, password reset)
+     * @param account the account whose sessions should end
+     */
+    void revokeAll(Account account);
+
+    /**
+     * Deletes expired and long-invalidated tokens in bounded batches
+     * @return number of rows deleted
+     */
+    int purgeDeadTokens();
+}
@@ -0,0 +1,138 @@
+package com.courigistics.courigisticsbackend.services.refresh_token;
+
+import com.courigistics.courigisticsbackend.config.security.JwtService;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.RefreshToken;
+import com.courigistics.courigisticsbackend.repositories.RefreshTokenRepository;
+import com.courigistics.courigisticsbackend.utils.HashUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    // A client that fires two refreshes at once must not be mistaken for a stolen token
+    private static final Duration REUSE_GRACE = Duration.ofSeconds(10);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtService jwtService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.refresh-token.max-sessions-per-account}")
+    private int maxSessionsPerAccount;
+
+    @Value("${app.refresh-token.purge.batch-size}")
+    private int purgeBatchSize;
+
+    @Value("${app.refresh-token.purge.max-batches}")
+    private int purgeMaxBatches;
+
+    @Value("${app.refresh-token.purge.invalidated-retention-days}")
+    private int invalidatedRetentionDays;
+
+    @Override
+    @Transactional
+    public void store(Account account, String refreshToken) {
+        LocalDateTime now = LocalDateTime.now();
+        Instant instant = Instant.now();
+
+        // 1: Persist the hash only
+        refreshTokenRepository.save(RefreshToken.builder()
+                .account(account)
+                .tokenHash(HashUtils.sha256Hex(refreshToken))
+                // refresh-token-expiration is configured in seconds
+                .expiryDate(instant.plusSeconds(jwtService.getRefreshTokenExpiration()))
+                .invalidated(false)
+                .createdAt(now)
+                .build());
+
+        // 2: Enforce the session cap: everything after the newest N live sessions is invalidated
+        List<UUID> overflow = refreshTokenRepository.findActiveIdsByAccount(
+                account.getId(), instant, PageRequest.of(1, maxSessionsPerAccount));
+        if (!overflow.isEmpty()) {
+            refreshTokenRepository.invalidateByIds(overflow, now);
+            log.info("Session cap reached for {}: invalidated {} oldest sessions", account.getUsername(), overflow.size());
+        }
+    }
+
+    @Override
+    @Transactional
+    public Account rotate(String refreshToken) {
+        String tokenHash = HashUtils.sha256Hex(refreshToken);
+
+        // 1: Consume; only one concurrent caller can win
+        int consumed = refreshTokenRepository.consume(tokenHash, LocalDateTime.now(), Instant.now());
+
+        RefreshToken storedToken = refreshTokenRepository.findByTokenHash(tokenHash)
+                .orElseThrow(() -> new IllegalArgumentException("Invalid refresh token"));
+
+        if (consumed == 1) {
+            return storedToken.getAccount();
+        }
+
+        // 2: Lost the race, expired, or reused after rotation
+        boolean reused = storedToken.isInvalidated()
+                && !storedToken.isExpired()
+                && storedToken.getInvalidatedAt() != null
+                && storedToken.getInvalidatedAt().isBefore(LocalDateTime.now().minus(REUSE_GRACE));
+        if (reused) {
+            log.warn("Refresh token reuse detected for {}; revoking all sessions", storedToken.getAccount().getUsername());
+            // Own transaction: the exception below rolls back the caller's, the revocation must survive it
+            TransactionTemplate revocation = new TransactionTemplate(transactionManager);
+            revocation.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            Account account = storedToken.getAccount();
+            revocation.executeWithoutResult(status -> revokeAll(account));
+        } else {
+            log.warn("Expired or invalidated refresh token used");
+        }
+        throw new IllegalArgumentException("Refresh token expired or invalid");
+    }
+
+    @Override
+    @Transactional
+    public void revokeAll(Account account) {
+        int revoked = refreshTokenRepository.invalidateAllByAccount(account, LocalDateTime.now());
+        log.debug("Invalidated {} refresh tokens for {}", revoked, account.getUsername());
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.refresh-token.purge.interval-ms}")
+    public int purgeDeadTokens() {
+        Instant instant = Instant.now();
+        LocalDateTime invalidatedBefore = LocalDateTime.now().minusDays(invalidatedRetentionDays);
+        TransactionTemplate perBatch = new TransactionTemplate(transactionManager);
+
+        // Each batch commits on its own so locks are held only for one short DELETE
+        int total = 0;
+        for (int batch = 0; batch < purgeMaxBatches; batch++) {
+            Integer deleted = perBatch.execute(status ->
+                    refreshTokenRepository.deleteDeadBatch(instant, invalidatedBefore, purgeBatchSize));
+            int count = deleted != null ? deleted : 0;
+            total += count;
+            if (count < purgeBatchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Purged {} expired or invalidated refresh tokens", total);
+        }
+        return total;
+    }
+}
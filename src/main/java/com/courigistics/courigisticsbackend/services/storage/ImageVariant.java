@@ -0,0 +1,44 @@
+package com.courigistics.courigisticsbackend.services.storage;
+
+import java.util.Locale;
+
+/**
+ * Derived renditions of a stored image
+ * Variants are always JPEG and live next to the original: pod/ab/<sha>.png → pod/ab/<sha>_thumb.jpg
+ */
+public enum ImageVariant {
+    THUMB(240, 0.70f),
+    WEB(1280, 0.82f);
+
+    private final int maxDimension;
+    private final float jpegQuality;
+
+    ImageVariant(int maxDimension, float jpegQuality) {
+        this.maxDimension = maxDimension;
+        this.jpegQuality = jpegQuality;
+    }
+
+    public int getMaxDimension() {
+        return maxDimension;
+    }
+
+    public float getJpegQuality() {
+        return jpegQuality;
+    }
+
+    public String keyFor(String originalKey) {
+        int dot = originalKey.lastIndexOf('.');
+        String base = dot > 0 ? originalKey.substring(0, dot) : originalKey;
+        return base + "_" + name().toLowerCase(Locale.ROOT) + ".jpg";
+    }
+
+    /**
+     * @return the variant for a ?variant= query value, or null for the original
+     */
+    public static ImageVariant fromParam(String value) {
+        if (value == null || value.isBlank() || value.equalsIgnoreCase("original")) {
+            return null;
+        }
+        return ImageVariant.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}
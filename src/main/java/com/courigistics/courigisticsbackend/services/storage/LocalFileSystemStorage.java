@@ -0,0 +1,88 @@
+package com.courigistics.courigisticsbackend.services.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * {@link ObjectStorage} backed by a directory on the local filesystem
+ * Objects are written once: put() is an atomic rename, so readers never see partial files.
+ */
+@Slf4j
+public class LocalFileSystemStorage implements ObjectStorage {
+
+    private final Path root;
+    private final String publicBaseUrl;
+
+    public LocalFileSystemStorage(Path root, String publicBaseUrl) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.publicBaseUrl = publicBaseUrl.endsWith("/") ? publicBaseUrl.substring(0, publicBaseUrl.length() - 1) : publicBaseUrl;
+        Files.createDirectories(this.root);
+        log.info("Local object storage rooted at {}", this.root);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Different filesystem: copy next to the target, then rename
+            Path staging = target.resolveSibling(target.getFileName() + ".tmp");
+            Files.copy(source, staging, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(source);
+        } catch (FileAlreadyExistsException e) {
+            // Same content was committed concurrently; keys are content hashes
+            Files.deleteIfExists(source);
+        }
+    }
+
+    @Override
+    public FileChannel open(String key) throws IOException {
+        return FileChannel.open(resolve(key), StandardOpenOption.READ);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    @Override
+    public String urlFor(String key) {
+        return publicBaseUrl + "/" + key;
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Storage key escapes the storage root: " + key);
+        }
+        return path;
+    }
+}
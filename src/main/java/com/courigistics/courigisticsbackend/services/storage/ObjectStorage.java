@@ -0,0 +1,54 @@
+package com.courigistics.courigisticsbackend.services.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content store for uploaded files (proof-of-delivery images, ...)
+ *
+ * Keys are opaque, slash-separated paths (e.g. "pod/ab/abcdef....jpg"). The local
+ * filesystem implementation is the default; an object storage implementation can be
+ * plugged in through {@link com.courigistics.courigisticsbackend.config.StorageConfig}.
+ */
+public interface ObjectStorage {
+
+    /**
+     * @return true if an object is already stored under the key
+     */
+    boolean exists(String key);
+
+    /**
+     * Moves a fully written, durable local file into the store under the key
+     * The source file no longer exists afterwards.
+     */
+    void put(String key, Path source) throws IOException;
+
+    /**
+     * Opens a stored object for reading
+     *
+     * @throws java.nio.file.NoSuchFileException if there is no object under the key
+     */
+    FileChannel open(String key) throws IOException;
+
+    /**
+     * @return object size in bytes
+     */
+    long size(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Public URL clients use to fetch the object
+     */
+    String urlFor(String key);
+
+    /**
+     * Local file behind a key, when the store is filesystem based
+     * Lets callers hand the file to the container for zero-copy (sendfile) transfer
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+}
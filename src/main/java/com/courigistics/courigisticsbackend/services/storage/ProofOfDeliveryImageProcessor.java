@@ -0,0 +1,228 @@
+package com.courigistics.courigisticsbackend.services.storage;
+
+import com.courigistics.courigisticsbackend.events.ProofOfDeliveryUploadedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Generates thumbnail and web-optimized JPEG variants of proof-of-delivery images
+ *
+ * Fed by {@link ProofOfDeliveryUploadedEvent}; the listener only enqueues, decoding and
+ * resizing run on the bounded imageProcessingExecutor. Variants are keyed off the
+ * content-addressed original, so reprocessing the same image is a no-op.
+ *
+ * Dimensions are read from the header before decoding: images above max-image-pixels are
+ * refused (a small PNG can declare a huge canvas), and the rest are decoded subsampled down
+ * to roughly the largest variant, so a 48MP photo never becomes a full-size bitmap.
+ *
+ * Metrics: pod.images.queue.depth, pod.images.processing (timer), pod.images.tasks{result}
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProofOfDeliveryImageProcessor {
+
+    // ImageIO has no WebP reader out of the box; WebP originals are served as-is
+    private static final Set<String> DECODABLE_TYPES = Set.of("image/jpeg", "image/png");
+
+    private static final int LARGEST_VARIANT = Arrays.stream(ImageVariant.values())
+            .mapToInt(ImageVariant::getMaxDimension)
+            .max()
+            .orElseThrow();
+
+    private final ObjectStorage objectStorage;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("imageProcessingExecutor")
+    private final ThreadPoolTaskExecutor imageProcessingExecutor;
+
+    @Value("${app.storage.pod.max-image-pixels}")
+    private long maxImagePixels;
+
+    private Timer processingTimer;
+    private Counter processed;
+    private Counter failed;
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        processingTimer = Timer.builder("pod.images.processing")
+                .description("Time to decode an image and write all its variants")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        processed = taskCounter("processed");
+        failed = taskCounter("failed");
+        rejected = taskCounter("rejected");
+        meterRegistry.gauge("pod.images.queue.depth", imageProcessingExecutor,
+                executor -> executor.getThreadPoolExecutor().getQueue().size());
+    }
+
+    @EventListener
+    public void onProofOfDeliveryUploaded(ProofOfDeliveryUploadedEvent event) {
+        if (!DECODABLE_TYPES.contains(event.getContentType())) {
+            log.debug("Skipping variants for {} ({})", event.getStorageKey(), event.getContentType());
+            return;
+        }
+        try {
+            imageProcessingExecutor.execute(() -> process(event.getStorageKey()));
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            log.warn("Image queue full, {} will be served without variants", event.getStorageKey());
+        }
+    }
+
+    /**
+     * Key to serve for a request: the variant if it has been generated, otherwise the original
+     */
+    public String resolveServedKey(String originalKey, ImageVariant variant) {
+        if (variant == null) {
+            return originalKey;
+        }
+        String variantKey = variant.keyFor(originalKey);
+        return objectStorage.exists(variantKey) ? variantKey : originalKey;
+    }
+
+    private void process(String originalKey) {
+        processingTimer.record(() -> {
+            try {
+                generateVariants(originalKey);
+                processed.increment();
+            } catch (Exception e) {
+                failed.increment();
+                log.error("Failed to generate variants for {}: {}", originalKey, e.getMessage(), e);
+            }
+        });
+    }
+
+    private void generateVariants(String originalKey) throws IOException {
+        // 1: Decode once, after checking the declared size
+        BufferedImage original;
+        try (FileChannel channel = objectStorage.open(originalKey);
+             InputStream in = Channels.newInputStream(channel);
+             ImageInputStream iis = ImageIO.createImageInputStream(in)) {
+            original = decodeBounded(iis);
+        }
+
+        // 2: Write each missing variant through a temp file so storage only ever sees complete files
+        for (ImageVariant variant : ImageVariant.values()) {
+            String variantKey = variant.keyFor(originalKey);
+            if (objectStorage.exists(variantKey)) {
+                continue;
+            }
+            Path temp = Files.createTempFile("pod-variant-", ".jpg");
+            try {
+                writeJpeg(resize(original, variant.getMaxDimension()), variant.getJpegQuality(), temp);
+                objectStorage.put(variantKey, temp);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+        log.debug("Generated variants for {}", originalKey);
+    }
+
+    /**
+     * Reads width/height from the header, refuses anything over maxImagePixels, then decodes
+     * with source subsampling so the bitmap is no larger than about twice the largest variant
+     */
+    private BufferedImage decodeBounded(ImageInputStream iis) throws IOException {
+        if (iis == null) {
+            throw new IOException("Unreadable image");
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+        if (!readers.hasNext()) {
+            throw new IOException("Unreadable image");
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(iis, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            if (width <= 0 || height <= 0 || (long) width * height > maxImagePixels) {
+                throw new IOException("Image too large to process: " + width + "x" + height);
+            }
+
+            ImageReadParam param = reader.getDefaultReadParam();
+            int subsampling = Math.max(1, Math.max(width, height) / (LARGEST_VARIANT * 2));
+            if (subsampling > 1) {
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            }
+            return reader.read(0, param);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Scales to fit within maxDimension (never upscales), flattening transparency onto white for JPEG
+     */
+    private static BufferedImage resize(BufferedImage source, int maxDimension) {
+        double scale = Math.min(1.0, (double) maxDimension / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, float quality, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Counter taskCounter(String result) {
+        return Counter.builder("pod.images.tasks")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,241 @@
+package com.courigistics.courigisticsbackend.services.trajectory;
+
+import com.courigistics.courigisticsbackend.utils.GeoUtils;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Records one delivery's path from raw location pings
+ *
+ * Two things happen per ping:
+ * - distance: the haversine distance from the previous accepted ping is added to the trip total.
+ *   Moves shorter than the jitter threshold are ignored (a parked phone drifts a few metres) and
+ *   physically impossible jumps are dropped until the position has repeated a few times.
+ * - simplification: an opening-window Douglas-Peucker keeps a point only once the path stops being
+ *   a straight line within the tolerance, so a courier driving down a road stores two points, not
+ *   two hundred. The window is bounded in size and time so dwell times still show up on replay.
+ *
+ * Kept points pile up here until the flush takes them as a segment. All state is primitive arrays
+ * allocated up front; the ping path only allocates when the pending buffer has to grow.
+ */
+final class DeliveryTrajectoryRecorder {
+
+    // Length of one degree of latitude along a meridian (m), same earth radius as GeoUtils
+    private static final double METERS_PER_DEGREE = 6_371_000.0 * Math.PI / 180.0;
+    // Consecutive "impossible" pings after which the new position is believed (the old one was the bad fix)
+    private static final int MAX_CONSECUTIVE_JUMPS = 3;
+
+    record Settings(double toleranceMeters, int maxWindowPoints, long maxWindowSeconds,
+                    double minMoveMeters, double maxSpeedKmh) {}
+
+    record Segment(UUID deliveryId, int seq, int pointCount, long startedAt, long endedAt,
+                   double cumulativeDistanceKm, byte[] encodedPoints) {}
+
+    private final UUID deliveryId;
+    private final Settings settings;
+
+    // Kept points waiting for the next flush
+    private double[] pendingLat = new double[64];
+    private double[] pendingLon = new double[64];
+    private long[] pendingTime = new long[64];
+    private int pendingCount;
+    private int nextSeq;
+
+    // Opening window: points after the anchor that may still be simplified away
+    private final double[] windowLat;
+    private final double[] windowLon;
+    private final long[] windowTime;
+    private int windowSize;
+    private boolean hasAnchor;
+    private double anchorLat;
+    private double anchorLon;
+    private long anchorTime;
+
+    // Distance
+    private boolean hasLast;
+    private double lastLat;
+    private double lastLon;
+    private long lastTime;
+    private int consecutiveJumps;
+    private double distanceKm;
+
+    private boolean finished;
+    private int failedWrites;
+
+    /**
+     * @param resumeFrom last stored point when the trip was already partly recorded (e.g. before a restart), else null
+     */
+    DeliveryTrajectoryRecorder(UUID deliveryId, Settings settings, int nextSeq, double distanceKm, TrajectoryPoint resumeFrom) {
+        this.deliveryId = deliveryId;
+        this.settings = settings;
+        this.nextSeq = nextSeq;
+        this.distanceKm = distanceKm;
+        this.windowLat = new double[settings.maxWindowPoints()];
+        this.windowLon = new double[settings.maxWindowPoints()];
+        this.windowTime = new long[settings.maxWindowPoints()];
+        if (resumeFrom != null) {
+            // Already stored: continue from it without storing it twice
+            hasAnchor = true;
+            anchorLat = resumeFrom.latitude();
+            anchorLon = resumeFrom.longitude();
+            anchorTime = resumeFrom.epochSecond();
+            hasLast = true;
+            lastLat = anchorLat;
+            lastLon = anchorLon;
+            lastTime = anchorTime;
+        }
+    }
+
+    UUID deliveryId() {
+        return deliveryId;
+    }
+
+    synchronized boolean isFinished() {
+        return finished;
+    }
+
+    synchronized boolean isDrained() {
+        return pendingCount == 0;
+    }
+
+    synchronized void record(double latitude, double longitude, long epochSecond) {
+        if (finished) {
+            return;
+        }
+
+        // 1: Distance over raw pings, filtering jitter and GPS jumps
+        if (hasLast) {
+            double stepKm = GeoUtils.haversineDistance(lastLat, lastLon, latitude, longitude);
+            if (stepKm * 1000 < settings.minMoveMeters()) {
+                return;
+            }
+            double hours = Math.max(1, epochSecond - lastTime) / 3600.0;
+            if (stepKm / hours > settings.maxSpeedKmh() && ++consecutiveJumps < MAX_CONSECUTIVE_JUMPS) {
+                return;
+            }
+            if (consecutiveJumps < MAX_CONSECUTIVE_JUMPS) {
+                distanceKm += stepKm;
+            }
+        }
+        consecutiveJumps = 0;
+        hasLast = true;
+        lastLat = latitude;
+        lastLon = longitude;
+        lastTime = epochSecond;
+
+        // 2: Simplification
+        if (!hasAnchor) {
+            setAnchor(latitude, longitude, epochSecond);
+            return;
+        }
+        if (windowSize > 0 && !windowStillFits(latitude, longitude, epochSecond)) {
+            // The path bent: the last point that still fitted becomes the new anchor
+            int last = windowSize - 1;
+            setAnchor(windowLat[last], windowLon[last], windowTime[last]);
+            windowSize = 0;
+        }
+        windowLat[windowSize] = latitude;
+        windowLon[windowSize] = longitude;
+        windowTime[windowSize] = epochSecond;
+        windowSize++;
+    }
+
+    /**
+     * Keeps the last buffered point; nothing is recorded afterwards
+     */
+    synchronized void finish() {
+        if (windowSize > 0) {
+            int last = windowSize - 1;
+            setAnchor(windowLat[last], windowLon[last], windowTime[last]);
+            windowSize = 0;
+        }
+        finished = true;
+    }
+
+    /**
+     * Encodes the pending points as the next segment, without removing them
+     *
+     * @param force take whatever is pending (trip finished) instead of waiting for a full segment
+     * @return null when there is nothing worth writing yet
+     */
+    synchronized Segment takeSegment(long now, int maxPoints, long maxAgeSeconds, boolean force) {
+        if (pendingCount == 0) {
+            return null;
+        }
+        if (!force && pendingCount < maxPoints && now - pendingTime[0] < maxAgeSeconds) {
+            return null;
+        }
+        byte[] encoded = TrajectoryCodec.encode(pendingLat, pendingLon, pendingTime, pendingCount);
+        return new Segment(deliveryId, nextSeq, pendingCount, pendingTime[0], pendingTime[pendingCount - 1],
+                distanceKm, encoded);
+    }
+
+    /**
+     * Drops the points of a segment once it is stored; points kept since takeSegment stay pending
+     */
+    synchronized void acknowledge(Segment segment) {
+        int remaining = pendingCount - segment.pointCount();
+        System.arraycopy(pendingLat, segment.pointCount(), pendingLat, 0, remaining);
+        System.arraycopy(pendingLon, segment.pointCount(), pendingLon, 0, remaining);
+        System.arraycopy(pendingTime, segment.pointCount(), pendingTime, 0, remaining);
+        pendingCount = remaining;
+        nextSeq = segment.seq() + 1;
+        failedWrites = 0;
+    }
+
+    /**
+     * Another writer already stored this seq: continue after the stored one, keeping the pending points
+     */
+    synchronized void rebase(int nextSeq) {
+        this.nextSeq = nextSeq;
+    }
+
+    /**
+     * @return consecutive failed writes, including this one
+     */
+    synchronized int writeFailed() {
+        return ++failedWrites;
+    }
+
+    private boolean windowStillFits(double latitude, double longitude, long epochSecond) {
+        if (windowSize == settings.maxWindowPoints() || epochSecond - anchorTime > settings.maxWindowSeconds()) {
+            return false;
+        }
+        // Local flat projection around the anchor, plenty accurate over a few hundred metres
+        double metersPerDegreeLon = METERS_PER_DEGREE * Math.cos(Math.toRadians(anchorLat));
+        double endX = (longitude - anchorLon) * metersPerDegreeLon;
+        double endY = (latitude - anchorLat) * METERS_PER_DEGREE;
+        double lengthSquared = endX * endX + endY * endY;
+
+        for (int i = 0; i < windowSize; i++) {
+            double x = (windowLon[i] - anchorLon) * metersPerDegreeLon;
+            double y = (windowLat[i] - anchorLat) * METERS_PER_DEGREE;
+            double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (x * endX + y * endY) / lengthSquared));
+            double dx = x - t * endX;
+            double dy = y - t * endY;
+            if (dx * dx + dy * dy > settings.toleranceMeters() * settings.toleranceMeters()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void setAnchor(double latitude, double longitude, long epochSecond) {
+        hasAnchor = true;
+        anchorLat = latitude;
+        anchorLon = longitude;
+        anchorTime = epochSecond;
+
+        if (pendingCount == pendingLat.length) {
+            int capacity = pendingLat.length * 2;
+            pendingLat = Arrays.copyOf(pendingLat, capacity);
+            pendingLon = Arrays.copyOf(pendingLon, capacity);
+            pendingTime = Arrays.copyOf(pendingTime, capacity);
+        }
+        pendingLat[pendingCount] = latitude;
+        pendingLon[pendingCount] = longitude;
+        pendingTime[pendingCount] = epochSecond;
+        pendingCount++;
+    }
+}
@@ -0,0 +1,118 @@
+package com.courigistics.courigisticsbackend.services.trajectory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of a run of trajectory points
+ *
+ * Layout: varint point count, then per point zigzag varints of latitude and longitude in 1e-5
+ * degrees (about 1.1 m) and the time in seconds. The first point is absolute, every following one
+ * is a delta from its predecessor, so consecutive pings of a moving courier take 3 to 6 bytes.
+ */
+final class TrajectoryCodec {
+
+    private static final double SCALE = 1e5;
+
+    private TrajectoryCodec() {
+    }
+
+    static byte[] encode(double[] latitudes, double[] longitudes, long[] epochSeconds, int count) {
+        Writer out = new Writer(5 + count * 9);
+        out.writeVarint(count);
+
+        long prevLat = 0;
+        long prevLon = 0;
+        long prevTime = 0;
+        for (int i = 0; i < count; i++) {
+            long lat = Math.round(latitudes[i] * SCALE);
+            long lon = Math.round(longitudes[i] * SCALE);
+            out.writeVarint(zigzag(lat - prevLat));
+            out.writeVarint(zigzag(lon - prevLon));
+            out.writeVarint(zigzag(epochSeconds[i] - prevTime));
+            prevLat = lat;
+            prevLon = lon;
+            prevTime = epochSeconds[i];
+        }
+        return out.toByteArray();
+    }
+
+    static List<TrajectoryPoint> decode(byte[] data) {
+        Reader in = new Reader(data);
+        int count = (int) in.readVarint();
+        List<TrajectoryPoint> points = new ArrayList<>(count);
+
+        long lat = 0;
+        long lon = 0;
+        long time = 0;
+        for (int i = 0; i < count; i++) {
+            lat += unzigzag(in.readVarint());
+            lon += unzigzag(in.readVarint());
+            time += unzigzag(in.readVarint());
+            points.add(new TrajectoryPoint(lat / SCALE, lon / SCALE, time));
+        }
+        return points;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+        private byte[] buffer;
+        private int size;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            put((byte) value);
+        }
+
+        private void put(byte b) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = b;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        long readVarint() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= data.length || shift > 63) {
+                    throw new IllegalArgumentException("Corrupt trajectory segment");
+                }
+                byte b = data[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+    }
+}
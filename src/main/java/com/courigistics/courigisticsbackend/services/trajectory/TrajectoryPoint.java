@@ -0,0 +1,9 @@
+package com.courigistics.courigisticsbackend.services.trajectory;
+
+/**
+ * A recorded courier position
+ *
+ * @param epochSecond when the ping was received
+ */
+record TrajectoryPoint(double latitude, double longitude, long epochSecond) {
+}
@@ -0,0 +1,20 @@
+package com.courigistics.courigisticsbackend.services.trajectory;
+
+import com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryTrajectoryResponse;
+
+import java.util.UUID;
+
+public interface TrajectoryService {
+
+    /**
+     * Adds a location ping to the path of every delivery the courier is currently carrying
+     */
+    void recordPing(UUID courierAccountId, double latitude, double longitude);
+
+    /**
+     * Replays a delivery's recorded path
+     *
+     * @throws com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException if the delivery does not exist
+     */
+    DeliveryTrajectoryResponse getTrajectory(UUID deliveryId);
+}
@@ -0,0 +1,287 @@
+package com.courigistics.courigisticsbackend.services.trajectory;
+
+import com.courigistics.courigisticsbackend.dto.responses.delivery.DeliveryTrajectoryResponse;
+import com.courigistics.courigisticsbackend.entities.DeliveryTrajectorySegment;
+import com.courigistics.courigisticsbackend.entities.enums.DeliveryStatus;
+import com.courigistics.courigisticsbackend.exceptions.ResourceNotFoundException;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.courigistics.courigisticsbackend.repositories.DeliveryTrajectorySegmentRepository;
+import com.courigistics.courigisticsbackend.services.geofence.ActiveDeliveryFence;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-delivery trajectory recording and replay
+ *
+ * Pings only touch in-memory {@link DeliveryTrajectoryRecorder}s. A scheduled flush writes the
+ * points they kept as append-only segments, together with the running actual distance, one short
+ * transaction per segment so a bad row only holds back its own delivery. Which deliveries a courier is carrying is re-read on an interval; deliveries
+ * that leave the carrying statuses get their last point written and are dropped.
+ *
+ * Recording state is per node, so pings of a courier should reach the same node (as for geofencing).
+ * A crash loses at most the points kept since the last flush; recording resumes from the last segment.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrajectoryServiceImpl implements TrajectoryService {
+
+    // The parcel is with the courier
+    private static final Set<DeliveryStatus> RECORDING_STATUSES = EnumSet.of(
+            DeliveryStatus.PICKED_UP, DeliveryStatus.IN_TRANSIT, DeliveryStatus.OUT_FOR_DELIVERY);
+
+    private static final String INSERT_SEGMENT =
+            "INSERT INTO delivery_trajectory_segments (id, delivery_id, seq, point_count, started_at, ended_at, " +
+            "cumulative_distance_km, encoded_points, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_ACTUAL_DISTANCE =
+            "UPDATE deliveries SET actual_distance_km = ? WHERE id = ?";
+
+    private final DeliveryRepository deliveryRepository;
+    private final DeliveryTrajectorySegmentRepository segmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.trajectory.simplify-tolerance-meters}")
+    private double simplifyToleranceMeters;
+
+    @Value("${app.trajectory.max-window-points}")
+    private int maxWindowPoints;
+
+    @Value("${app.trajectory.max-window-seconds}")
+    private long maxWindowSeconds;
+
+    @Value("${app.trajectory.min-move-meters}")
+    private double minMoveMeters;
+
+    @Value("${app.trajectory.max-speed-kmh}")
+    private double maxSpeedKmh;
+
+    @Value("${app.trajectory.segment-max-points}")
+    private int segmentMaxPoints;
+
+    @Value("${app.trajectory.segment-max-age-seconds}")
+    private long segmentMaxAgeSeconds;
+
+    @Value("${app.trajectory.max-write-attempts}")
+    private int maxWriteAttempts;
+
+    private final ConcurrentHashMap<UUID, DeliveryTrajectoryRecorder> recorders = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<UUID, DeliveryTrajectoryRecorder[]> recordersByCourier = new ConcurrentHashMap<>();
+
+    private DeliveryTrajectoryRecorder.Settings settings;
+    private Counter segmentsWritten;
+    private Counter bytesWritten;
+    private Counter flushFailures;
+
+    @PostConstruct
+    void init() {
+        settings = new DeliveryTrajectoryRecorder.Settings(
+                simplifyToleranceMeters, maxWindowPoints, maxWindowSeconds, minMoveMeters, maxSpeedKmh);
+        segmentsWritten = Counter.builder("trajectory.segments.written")
+                .description("Trajectory segments stored")
+                .register(meterRegistry);
+        bytesWritten = Counter.builder("trajectory.bytes.written")
+                .description("Encoded trajectory bytes stored")
+                .register(meterRegistry);
+        flushFailures = Counter.builder("trajectory.flush.failures")
+                .description("Trajectory segment writes that failed")
+                .register(meterRegistry);
+        meterRegistry.gauge("trajectory.recording.deliveries", recorders, Map::size);
+    }
+
+    @Override
+    public void recordPing(UUID courierAccountId, double latitude, double longitude) {
+        DeliveryTrajectoryRecorder[] carrying = recordersByCourier.get(courierAccountId);
+        if (carrying == null) {
+            return;
+        }
+        long now = System.currentTimeMillis() / 1000;
+        for (DeliveryTrajectoryRecorder recorder : carrying) {
+            recorder.record(latitude, longitude, now);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DeliveryTrajectoryResponse getTrajectory(UUID deliveryId) {
+        List<DeliveryTrajectorySegment> segments = segmentRepository.findByDelivery_IdOrderBySeqAsc(deliveryId);
+        if (segments.isEmpty() && !deliveryRepository.existsById(deliveryId)) {
+            throw new ResourceNotFoundException("Delivery not found");
+        }
+
+        List<DeliveryTrajectoryResponse.Point> points = new ArrayList<>();
+        int encodedBytes = 0;
+        for (DeliveryTrajectorySegment segment : segments) {
+            encodedBytes += segment.getEncodedPoints().length;
+            for (TrajectoryPoint point : TrajectoryCodec.decode(segment.getEncodedPoints())) {
+                points.add(new DeliveryTrajectoryResponse.Point(
+                        point.latitude(), point.longitude(), toLocalDateTime(point.epochSecond())));
+            }
+        }
+        double distanceKm = segments.isEmpty() ? 0 : segments.get(segments.size() - 1).getCumulativeDistanceKm();
+
+        return new DeliveryTrajectoryResponse(deliveryId, distanceKm, encodedBytes, points);
+    }
+
+    /**
+     * Re-reads which deliveries each courier is carrying
+     */
+    @Scheduled(fixedDelayString = "${app.trajectory.refresh-interval-ms}")
+    public void refreshCarriedDeliveries() {
+        // 1: Recorders for every carried delivery, reusing the ones already recording
+        Map<UUID, List<DeliveryTrajectoryRecorder>> byCourier = new HashMap<>();
+        Set<UUID> carried = new HashSet<>();
+        for (ActiveDeliveryFence row : deliveryRepository.findActiveFences(RECORDING_STATUSES)) {
+            DeliveryTrajectoryRecorder recorder = recorders.get(row.deliveryId());
+            if (recorder != null && recorder.isFinished()) {
+                if (!recorder.isDrained()) {
+                    // Carried again before its last points were written; reopen once the flush has them
+                    continue;
+                }
+                recorder = null;
+            }
+            if (recorder == null) {
+                recorder = openRecorder(row.deliveryId());
+                recorders.put(row.deliveryId(), recorder);
+            }
+            carried.add(row.deliveryId());
+            byCourier.computeIfAbsent(row.courierAccountId(), id -> new ArrayList<>()).add(recorder);
+        }
+
+        // 2: Swap in the new courier -> deliveries view
+        byCourier.forEach((courierAccountId, list) ->
+                recordersByCourier.put(courierAccountId, list.toArray(DeliveryTrajectoryRecorder[]::new)));
+        recordersByCourier.keySet().removeIf(courierAccountId -> !byCourier.containsKey(courierAccountId));
+
+        // 3: Deliveries no longer carried keep their last point; the flush writes it and drops them
+        for (DeliveryTrajectoryRecorder recorder : recorders.values()) {
+            if (!carried.contains(recorder.deliveryId())) {
+                recorder.finish();
+            }
+        }
+    }
+
+    /**
+     * Writes kept points as segments and the running distances, each segment in its own transaction
+     */
+    @Scheduled(fixedDelayString = "${app.trajectory.flush-interval-ms}")
+    public void flush() {
+        long now = System.currentTimeMillis() / 1000;
+        LocalDateTime createdAt = LocalDateTime.now();
+        TransactionTemplate perSegment = new TransactionTemplate(transactionManager);
+
+        // 1: Write segments that are full, old enough, or belong to a finished trip
+        int written = 0;
+        for (DeliveryTrajectoryRecorder recorder : recorders.values()) {
+            DeliveryTrajectoryRecorder.Segment segment = recorder.takeSegment(
+                    now, segmentMaxPoints, segmentMaxAgeSeconds, recorder.isFinished());
+            if (segment == null) {
+                continue;
+            }
+            try {
+                perSegment.executeWithoutResult(status -> writeSegment(segment, createdAt));
+            } catch (DuplicateKeyException e) {
+                // The seq is taken (a second node recorded the trip, or an earlier write did land); move past it
+                int nextSeq = segmentRepository.findFirstByDelivery_IdOrderBySeqDesc(segment.deliveryId())
+                        .map(last -> last.getSeq() + 1)
+                        .orElse(segment.seq() + 1);
+                recorder.rebase(nextSeq);
+                flushFailures.increment();
+                log.warn("Trajectory segment {} of delivery {} already stored, continuing at {}",
+                        segment.seq(), segment.deliveryId(), nextSeq);
+                continue;
+            } catch (RuntimeException e) {
+                // Points stay pending and go out with the next flush, unless this segment keeps failing
+                flushFailures.increment();
+                int attempts = recorder.writeFailed();
+                if (attempts >= maxWriteAttempts) {
+                    recorders.remove(segment.deliveryId(), recorder);
+                    log.error("Dropping {} trajectory points of delivery {} after {} failed writes: {}",
+                            segment.pointCount(), segment.deliveryId(), attempts, e.getMessage());
+                } else {
+                    log.warn("Trajectory segment of delivery {} failed, will retry: {}",
+                            segment.deliveryId(), e.getMessage());
+                }
+                continue;
+            }
+
+            // 2: Only now forget the stored points
+            recorder.acknowledge(segment);
+            bytesWritten.increment(segment.encodedPoints().length);
+            written++;
+        }
+        if (written > 0) {
+            segmentsWritten.increment(written);
+            log.debug("Flushed {} trajectory segments", written);
+        }
+
+        // 3: Finished trips with nothing left to write are done
+        recorders.values().removeIf(recorder -> recorder.isFinished() && recorder.isDrained());
+    }
+
+    private void writeSegment(DeliveryTrajectoryRecorder.Segment segment, LocalDateTime createdAt) {
+        jdbcTemplate.update(INSERT_SEGMENT, ps -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, segment.deliveryId());
+            ps.setInt(3, segment.seq());
+            ps.setInt(4, segment.pointCount());
+            ps.setTimestamp(5, Timestamp.valueOf(toLocalDateTime(segment.startedAt())));
+            ps.setTimestamp(6, Timestamp.valueOf(toLocalDateTime(segment.endedAt())));
+            ps.setDouble(7, segment.cumulativeDistanceKm());
+            ps.setBytes(8, segment.encodedPoints());
+            ps.setTimestamp(9, Timestamp.valueOf(createdAt));
+        });
+        jdbcTemplate.update(UPDATE_ACTUAL_DISTANCE, segment.cumulativeDistanceKm(), segment.deliveryId());
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        recorders.values().forEach(DeliveryTrajectoryRecorder::finish);
+        flush();
+    }
+
+    /**
+     * Starts recording a delivery, continuing from its last stored segment if it has one
+     */
+    private DeliveryTrajectoryRecorder openRecorder(UUID deliveryId) {
+        return segmentRepository.findFirstByDelivery_IdOrderBySeqDesc(deliveryId)
+                .map(last -> {
+                    List<TrajectoryPoint> points = TrajectoryCodec.decode(last.getEncodedPoints());
+                    TrajectoryPoint lastPoint = points.isEmpty() ? null : points.get(points.size() - 1);
+                    return new DeliveryTrajectoryRecorder(deliveryId, settings, last.getSeq() + 1,
+                            last.getCumulativeDistanceKm(), lastPoint);
+                })
+                .orElseGet(() -> new DeliveryTrajectoryRecorder(deliveryId, settings, 0, 0, null));
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSecond) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneId.systemDefault());
+    }
+}
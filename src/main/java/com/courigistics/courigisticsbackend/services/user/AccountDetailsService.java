@@ -2,35 +2,101 @@ package com.courigistics.courigisticsbackend.services.user;
 
 import com.courigistics.courigisticsbackend.entities.Account;
 import com.courigistics.courigisticsbackend.repositories.AccountRepository;
+import com.courigistics.courigisticsbackend.services.cache.CacheNames;
+import com.courigistics.courigisticsbackend.services.cache.TwoTierCache;
+import com.courigistics.courigisticsbackend.services.cache.TwoTierCacheManager;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+
+/**
+ * Principal lookup for logins and every JWT-authenticated request
+ * Principals are cached by the username or email they were looked up with; any change to an
+ * account evicts both (see CacheEvictionEntityListener), as does a lock or rehash here.
+ */
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 @Slf4j
-public class AccountDetailsService implements UserDetailsService {
+public class AccountDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    private final AccountRepository accountRepository;
+    private final TwoTierCacheManager cacheManager;
+
+    @Value("${app.cache.principals.max-size}")
+    private long maxSize;
+
+    @Value("${app.cache.principals.ttl-seconds}")
+    private long ttlSeconds;
 
-    private AccountRepository accountRepository;
+    @Value("${app.cache.principals.shared-ttl-seconds}")
+    private long sharedTtlSeconds;
 
+    private TwoTierCache<PrincipalSnapshot> principals;
+
+    @PostConstruct
+    void init() {
+        principals = cacheManager.create(CacheNames.PRINCIPALS, PrincipalSnapshot.class,
+                maxSize, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(sharedTtlSeconds));
+    }
+
+    /**
+     * Not transactional: a cache hit must not check out a connection
+     */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
         log.debug("Loading user details for: {}", usernameOrEmail);
 
-        // We try to find the username first then by email
-        Account account = accountRepository.findByUsername(usernameOrEmail)
-                .orElseGet(() -> accountRepository.findByEmail(usernameOrEmail)
-                        .orElseThrow(() -> new UsernameNotFoundException(
-                                "user not found with username or email: " + usernameOrEmail
-                        ))
-                );
+        PrincipalSnapshot principal = principals.get(usernameOrEmail, this::findPrincipal);
+        if (principal == null) {
+            throw new UsernameNotFoundException("user not found with username or email: " + usernameOrEmail);
+        }
 
-        log.debug("User found: {}", account.getUsername());
+        log.debug("User found: {}", principal.username());
+        return principal.toAccount();
+    }
+
+    /**
+     * Drops a cached principal under both identifiers it can be looked up by
+     */
+    public void evict(String username, String email) {
+        if (username != null) {
+            principals.invalidate(username);
+        }
+        if (email != null) {
+            principals.invalidate(email);
+        }
+    }
+
+    /**
+     * Called by DaoAuthenticationProvider after a successful login whose stored hash used a lower BCrypt cost
+     * Single UPDATE on the password column, the rest of the account is left untouched
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Account account = (Account) user;
+        accountRepository.updatePassword(account.getId(), newPassword);
+        account.setPassword(newPassword);
+        // Bulk UPDATE, so the entity listener does not see it
+        evict(account.getUsername(), account.getEmail());
+        log.info("Rehashed password for {} with the current BCrypt cost", account.getUsername());
         return account;
     }
+
+    // We try to find the username first then by email
+    private PrincipalSnapshot findPrincipal(String usernameOrEmail) {
+        return accountRepository.findByUsername(usernameOrEmail)
+                .or(() -> accountRepository.findByEmail(usernameOrEmail))
+                .map(PrincipalSnapshot::of)
+                .orElse(null);
+    }
 }
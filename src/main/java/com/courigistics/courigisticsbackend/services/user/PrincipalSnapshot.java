@@ -0,0 +1,54 @@
+package com.courigistics.courigisticsbackend.services.user;
+
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.enums.AccountType;
+
+import java.util.UUID;
+
+/**
+ * The account columns authentication needs, as cached by AccountDetailsService
+ * Relationships are left out; code that changes an account loads the managed entity by id.
+ */
+public record PrincipalSnapshot(
+        UUID id,
+        String username,
+        String email,
+        String phone,
+        String password,
+        AccountType accountType,
+        Boolean enabled,
+        Boolean emailVerified,
+        boolean accountNonLocked
+) {
+
+    public static PrincipalSnapshot of(Account account) {
+        return new PrincipalSnapshot(
+                account.getId(),
+                account.getUsername(),
+                account.getEmail(),
+                account.getPhone(),
+                account.getPassword(),
+                account.getAccountType(),
+                account.getEnabled(),
+                account.getEmailVerified(),
+                account.isAccountNonLocked()
+        );
+    }
+
+    /**
+     * A detached account carrying just these columns
+     */
+    public Account toAccount() {
+        return Account.builder()
+                .id(id)
+                .username(username)
+                .email(email)
+                .phone(phone)
+                .password(password)
+                .accountType(accountType)
+                .enabled(enabled)
+                .emailVerified(emailVerified)
+                .accountNonLocked(accountNonLocked)
+                .build();
+    }
+}
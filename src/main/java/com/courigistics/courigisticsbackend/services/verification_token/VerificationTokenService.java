@@ -4,6 +4,7 @@ import com.courigistics.courigisticsbackend.entities.Account;
 import com.courigistics.courigisticsbackend.entities.VerificationToken;
 import com.courigistics.courigisticsbackend.entities.enums.TokenType;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface VerificationTokenService {
@@ -12,10 +13,20 @@ public interface VerificationTokenService {
      * Creates a verificaion token for a specific account
      * @param account the account to create the token for
      * @param tokenType the type of token to create (VERIFICATION, PASSWORD_RESET)
-     * @return the created verification token entity
+     * Replaces the value of any previous token of the same type, so only the newest one works
+     * @return the persisted verification token entity
      */
     VerificationToken createToken(Account account, TokenType tokenType);
 
+    /**
+     * Creates tokens for many accounts at once (bulk onboarding and approval)
+     * Existing tokens of the same type are reissued in place (batched updates), the rest are batched inserts
+     * @param accounts the accounts to create tokens for
+     * @param tokenType the type of token to create
+     * @return the created tokens, in the same order as the accounts
+     */
+    List<VerificationToken> createTokens(List<Account> accounts, TokenType tokenType);
+
     /**
      * Verifies is a token is valid and not expired
      * @param token The token string to validate
@@ -43,4 +54,10 @@ public interface VerificationTokenService {
      * @param token the token to be deleted
      */
     void deleteToken(VerificationToken token);
+
+    /**
+     * Deletes expired tokens (mostly abandoned registrations) in bounded batches
+     * @return the number of tokens removed
+     */
+    int purgeExpiredTokens();
 }
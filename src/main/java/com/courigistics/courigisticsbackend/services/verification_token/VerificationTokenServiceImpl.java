@@ -3,17 +3,26 @@ package com.courigistics.courigisticsbackend.services.verification_token;
 import com.courigistics.courigisticsbackend.entities.Account;
 import com.courigistics.courigisticsbackend.entities.VerificationToken;
 import com.courigistics.courigisticsbackend.entities.enums.TokenType;
+import com.courigistics.courigisticsbackend.repositories.AccountRepository;
 import com.courigistics.courigisticsbackend.repositories.VerificationTokenRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +30,8 @@ import java.util.Optional;
 public class VerificationTokenServiceImpl implements VerificationTokenService {
 
     private final VerificationTokenRepository verificationTokenRepository;
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
 
     @Value("${app.verification-token.expiration-minutes}")
     private int expirationInMinutes;
@@ -28,26 +39,53 @@ public class VerificationTokenServiceImpl implements VerificationTokenService {
     @Value("${app.verification-token.token-length}")
     private int tokenLength;
 
+    @Value("${app.verification-token.purge.batch-size}")
+    private int purgeBatchSize;
+
+    @Value("${app.verification-token.purge.max-batches}")
+    private int purgeMaxBatches;
+
     // to generate cryptographically strong random numbers
     private final SecureRandom secureRandom = new SecureRandom();
 
     @Override
     @Transactional
     public VerificationToken createToken(Account account, TokenType tokenType) {
-        // First we invalidate any existing tokens of the same type for this account
-        invalidateTokens(account, tokenType);
+        LocalDateTime now = LocalDateTime.now();
 
-        // create a new token with a secure random value and expiration time
-        VerificationToken verificationToken = VerificationToken.builder()
-                .account(account)
-                .token(generateSecureToken())
-                .tokenType(tokenType)
-                .expiryDate(LocalDateTime.now().plusMinutes(expirationInMinutes))
-                .used(false) // Explicitly set the value
-                .build();
+        // 1: Serialise token creation per account, so two concurrent requests cannot both insert
+        accountRepository.findByIdForUpdate(account.getId());
+
+        // 2: Reissue the previous token of this type in place (UPDATE), or create the first one (INSERT)
+        VerificationToken verificationToken = verificationTokenRepository.findByAccountAndTokenType(account, tokenType)
+                .orElseGet(() -> newToken(account, tokenType, now));
+        reissue(verificationToken, now);
         return verificationTokenRepository.save(verificationToken);
     }
 
+    @Override
+    @Transactional
+    public List<VerificationToken> createTokens(List<Account> accounts, TokenType tokenType) {
+        LocalDateTime now = LocalDateTime.now();
+
+        // Same upsert as createToken: existing tokens are reissued in place, the rest inserted (both batched)
+        Map<UUID, VerificationToken> existing = verificationTokenRepository.findByAccountInAndTokenType(accounts, tokenType)
+                .stream()
+                .collect(Collectors.toMap(token -> token.getAccount().getId(), Function.identity()));
+
+        List<VerificationToken> tokens = accounts.stream()
+                .map(account -> {
+                    VerificationToken token = existing.get(account.getId());
+                    if (token == null) {
+                        token = newToken(account, tokenType, now);
+                    }
+                    reissue(token, now);
+                    return token;
+                })
+                .toList();
+        return verificationTokenRepository.saveAll(tokens);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<VerificationToken> validateToken(String token, TokenType expectedType) {
@@ -59,13 +97,10 @@ public class VerificationTokenServiceImpl implements VerificationTokenService {
     }
 
     @Override
+    @Transactional
     public void invalidateTokens(Account account, TokenType tokenType) {
-        // First we find any existing token for this account and type
-        Optional<VerificationToken> existingToken = verificationTokenRepository
-                .findByAccountAndTokenType(account, tokenType);
-
-        // If found, delete
-        existingToken.ifPresent(verificationTokenRepository::delete); // '::' is a pointer to the repository's delete method
+        // Single DELETE, no need to load the token first
+        verificationTokenRepository.deleteByAccountAndTokenType(account, tokenType);
     }
 
     @Override
@@ -78,6 +113,45 @@ public class VerificationTokenServiceImpl implements VerificationTokenService {
         verificationTokenRepository.delete(token);
     }
 
+    @Override
+    @Scheduled(fixedDelayString = "${app.verification-token.purge.interval-ms}")
+    public int purgeExpiredTokens() {
+        LocalDateTime now = LocalDateTime.now();
+        TransactionTemplate perBatch = new TransactionTemplate(transactionManager);
+
+        // Each batch commits on its own so locks are held only for one short DELETE
+        int total = 0;
+        for (int batch = 0; batch < purgeMaxBatches; batch++) {
+            Integer deleted = perBatch.execute(status ->
+                    verificationTokenRepository.deleteExpiredBatch(now, purgeBatchSize));
+            int count = deleted != null ? deleted : 0;
+            total += count;
+            if (count < purgeBatchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Purged {} expired verification tokens", total);
+        }
+        return total;
+    }
+
+    private static VerificationToken newToken(Account account, TokenType tokenType, LocalDateTime now) {
+        return VerificationToken.builder()
+                .account(account)
+                .tokenType(tokenType)
+                .createdAt(now)
+                .build();
+    }
+
+    // A fresh secure random value and expiration time; the previous value stops working
+    private void reissue(VerificationToken token, LocalDateTime now) {
+        token.setToken(generateSecureToken());
+        token.setExpiryDate(now.plusMinutes(expirationInMinutes));
+        token.setUsed(false); // Explicitly set the value
+    }
+
     private String generateSecureToken() {
         // Using secure random ensures tokens aren't predictable
 
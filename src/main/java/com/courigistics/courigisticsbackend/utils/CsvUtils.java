@@ -0,0 +1,50 @@
+package com.courigistics.courigisticsbackend.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * CSV helpers shared by the bulk import paths
+ */
+public class CsvUtils {
+
+    private CsvUtils() {
+    }
+
+    /**
+     * Minimal RFC 4180 line parser: commas, double-quoted fields and "" escapes
+     * Multi-line quoted fields are not supported (merchant and fleet exports don't use them)
+     */
+    public static List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inQuotes = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    inQuotes = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                inQuotes = true;
+            } else if (c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+
+    public static String stripBom(String header) {
+        return header.startsWith("\uFEFF") ? header.substring(1) : header;
+    }
+}
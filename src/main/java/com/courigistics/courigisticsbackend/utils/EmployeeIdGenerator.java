@@ -6,16 +6,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Year;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Generates unique employee IDs for couriers
  * Format: COU-YYYY-XXXX (e.g., COU-2025-0001)
+ *
+ * Sequence numbers come from a per-year SequenceBlockAllocator counter, so concurrent
+ * approvals never hand out the same number and a bulk approval reserves its whole block at once
  */
 @Component
 @RequiredArgsConstructor
 public class EmployeeIdGenerator {
 
+    private static final String SEQUENCE_NAME_PREFIX = "courier-employee-id-";
+
     private final CourierRepository courierRepository;
+    private final SequenceBlockAllocator sequenceBlockAllocator;
 
     @Value("${app.courier.employee-id.prefix}")
     private String prefix;
@@ -24,17 +32,31 @@ public class EmployeeIdGenerator {
     private int sequenceLength;
 
     public String generateEmployeeId(){
-        int currentYear = Year.now().getValue();
-
-        // count couriers created this year
-        long count = courierRepository.countByCreatedAtYear(currentYear);
-
-        // Next sequence number (1-based)
-        long nextSequence = count + 1;
+        return generateEmployeeIds(1).get(0);
+    }
 
-        // Format: COU-2025-0001
-        String sequenceStr = String.format("%0" + sequenceLength + "d", nextSequence);
+    /**
+     * Reserves {@code count} consecutive employee IDs in one allocation
+     */
+    public List<String> generateEmployeeIds(int count){
+        int currentYear = Year.now().getValue();
+        String yearPrefix = String.format("%s-%d-", prefix, currentYear);
+
+        // The counter starts after the highest ID issued this year before it existed
+        long start = sequenceBlockAllocator.reserve(SEQUENCE_NAME_PREFIX + currentYear, count,
+                () -> nextSequenceAfterExisting(yearPrefix));
+
+        List<String> employeeIds = new ArrayList<>(count);
+        for (long sequence = start; sequence < start + count; sequence++) {
+            // Format: COU-2025-0001
+            employeeIds.add(yearPrefix + String.format("%0" + sequenceLength + "d", sequence));
+        }
+        return employeeIds;
+    }
 
-        return String.format("%s-%d-%s", prefix, currentYear, sequenceStr);
+    private long nextSequenceAfterExisting(String yearPrefix){
+        return courierRepository.findMaxEmployeeIdStartingWith(yearPrefix)
+                .map(employeeId -> Long.parseLong(employeeId.substring(yearPrefix.length())) + 1)
+                .orElse(1L);
     }
 }
@@ -0,0 +1,187 @@
+package com.courigistics.courigisticsbackend.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Timer for large numbers of short, mostly cancelled timeouts
+ *
+ * Timeouts are hashed into a ring of buckets by deadline; one thread advances the ring a bucket
+ * per tick and only looks at the bucket under it. Scheduling and cancelling are O(1) and no
+ * thread or heap entry is held per timeout, so tens of thousands cost a few objects each.
+ * Deadlines are only as precise as the tick. Expired tasks are handed to the given executor,
+ * never run on the wheel thread.
+ */
+@Slf4j
+public class HashedWheelTimer implements AutoCloseable {
+
+    /**
+     * Handle to a scheduled task
+     */
+    public interface Timeout {
+
+        /**
+         * @return true if the task had not run yet and now never will
+         */
+        boolean cancel();
+    }
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Entry>> wheel;
+    private final Queue<Entry> newTimeouts = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Executor taskExecutor;
+    private final Thread worker;
+    private final long startNanos;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param tick          deadline precision
+     * @param ticksPerWheel buckets in the ring, rounded up to a power of two; timeouts further out
+     *                      than one turn just wait out extra rounds
+     */
+    public HashedWheelTimer(String name, Duration tick, int ticksPerWheel, Executor taskExecutor) {
+        this.tickNanos = tick.toNanos();
+        int size = Integer.highestOneBit(Math.max(1, ticksPerWheel - 1)) << 1;
+        this.mask = size - 1;
+        this.wheel = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        this.taskExecutor = taskExecutor;
+        this.startNanos = System.nanoTime();
+        this.worker = Thread.ofPlatform().name(name).daemon(true).start(this::run);
+    }
+
+    public Timeout schedule(Runnable task, Duration delay) {
+        if (!running) {
+            throw new IllegalStateException("Timer is stopped");
+        }
+        Entry entry = new Entry(task, System.nanoTime() - startNanos + Math.max(0, delay.toNanos()));
+        pendingCount.incrementAndGet();
+        newTimeouts.add(entry);
+        return entry;
+    }
+
+    /**
+     * Timeouts scheduled and neither run nor cancelled yet
+     */
+    public int pending() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Stops the wheel; pending timeouts never run
+     */
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long tick = 0;
+        while (running) {
+            // 1: Sleep until the next tick is due
+            long deadline = tickNanos * (tick + 1);
+            long sleepNanos = deadline - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+
+            // 2: Place timeouts scheduled since the last tick, then expire the current bucket
+            transferNewTimeouts(tick);
+            expireBucket(wheel.get((int) (tick & mask)), deadline);
+            tick++;
+        }
+    }
+
+    private void transferNewTimeouts(long currentTick) {
+        Entry entry;
+        while ((entry = newTimeouts.poll()) != null) {
+            if (entry.state.get() == CANCELLED) {
+                continue;
+            }
+            long dueTick = entry.deadlineNanos / tickNanos;
+            entry.remainingRounds = (dueTick - currentTick) / wheel.size();
+            // Already overdue timeouts go in the current bucket and fire on this tick
+            long ticks = Math.max(dueTick, currentTick);
+            wheel.get((int) (ticks & mask)).add(entry);
+        }
+    }
+
+    private void expireBucket(List<Entry> bucket, long deadline) {
+        Iterator<Entry> it = bucket.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.state.get() == CANCELLED) {
+                it.remove();
+            } else if (entry.remainingRounds <= 0 && entry.deadlineNanos <= deadline) {
+                it.remove();
+                entry.expire();
+            } else {
+                entry.remainingRounds--;
+            }
+        }
+    }
+
+    private final class Entry implements Timeout {
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // Only touched by the wheel thread
+        private long remainingRounds;
+
+        private Entry(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            // The wheel drops the entry when it next passes its bucket
+            pendingCount.decrementAndGet();
+            return true;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            pendingCount.decrementAndGet();
+            try {
+                taskExecutor.execute(task);
+            } catch (RejectedExecutionException e) {
+                log.error("Timeout task rejected by its executor: {}", e.getMessage());
+            }
+        }
+    }
+}
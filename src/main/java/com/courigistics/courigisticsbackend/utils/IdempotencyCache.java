@@ -0,0 +1,67 @@
+package com.courigistics.courigisticsbackend.utils;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded in-memory "seen recently" set with a TTL
+ *
+ * This is a fast path only: it absorbs retry storms on a single node without touching
+ * the database. Correctness always comes from a unique index behind it, so dropping
+ * entries (TTL, overflow, restart) only costs an extra database round trip.
+ */
+public class IdempotencyCache {
+
+    private final ConcurrentHashMap<String, Long> expiries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    public IdempotencyCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Records the key as seen
+     *
+     * @return true if the key was not seen within the TTL (caller should process it),
+     *         false if it is a duplicate
+     */
+    public boolean markIfAbsent(String key) {
+        long now = System.nanoTime();
+        long expiry = now + ttlNanos;
+
+        Long previous = expiries.putIfAbsent(key, expiry);
+        if (previous == null) {
+            evictIfFull(now);
+            return true;
+        }
+        if (previous - now > 0) {
+            return false;
+        }
+        // Expired entry: only one racing caller wins the replace
+        return expiries.replace(key, previous, expiry);
+    }
+
+    /**
+     * Forgets a key, e.g. when processing failed and a retry must be let through
+     */
+    public void remove(String key) {
+        expiries.remove(key);
+    }
+
+    public int size() {
+        return expiries.size();
+    }
+
+    private void evictIfFull(long now) {
+        if (expiries.size() <= maxEntries) {
+            return;
+        }
+        expiries.values().removeIf(expiry -> expiry - now <= 0);
+        if (expiries.size() > maxEntries) {
+            // Still full of live keys: start over, the unique index keeps us correct
+            expiries.clear();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.courigistics.courigisticsbackend.utils;
+
+import com.courigistics.courigisticsbackend.entities.SequenceBlock;
+import com.courigistics.courigisticsbackend.repositories.SequenceBlockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Reserves blocks of values from a named database counter
+ *
+ * Each reservation runs in its own short transaction (REQUIRES_NEW) so the row lock
+ * is released immediately and never held for the lifetime of the caller's work.
+ * Values inside a returned block are owned exclusively by the caller.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SequenceBlockAllocator {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final SequenceBlockRepository sequenceBlockRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Reserves {@code size} consecutive values for the given sequence
+     *
+     * @param name sequence name (e.g. "package-tracking")
+     * @param size number of values to reserve
+     * @return the first value of the reserved block; the block is [start, start + size)
+     */
+    public long reserve(String name, int size) {
+        return reserve(name, size, () -> 1L);
+    }
+
+    /**
+     * Same as {@link #reserve(String, int)}, for sequences that take over values issued before the counter existed
+     *
+     * @param initialValue first value of the sequence, only evaluated when the counter row is created
+     */
+    public long reserve(String name, int size, LongSupplier initialValue) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Long start = tx.execute(status -> {
+                    SequenceBlock block = sequenceBlockRepository.findByNameForUpdate(name)
+                            .orElseGet(() -> sequenceBlockRepository.saveAndFlush(
+                                    SequenceBlock.builder().name(name).nextValue(initialValue.getAsLong()).build()
+                            ));
+                    long first = block.getNextValue();
+                    block.setNextValue(first + size);
+                    return first;
+                });
+                log.debug("Reserved block [{}, {}) for sequence {}", start, start + size, name);
+                return start;
+            } catch (DataIntegrityViolationException e) {
+                // Two nodes created the counter row at the same time; the loser retries and locks the winner's row
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Sequence {} row created concurrently, retrying reservation", name);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.courigistics.courigisticsbackend.utils;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates unique package tracking numbers in blocks
+ * Format: COU-PKG-YYYYMMDD-XXXX (e.g., COU-PKG-20260223-0001)
+ *
+ * The numeric suffix comes from a global sequence, so numbers stay unique across days
+ * and nodes. Bulk callers ask for a whole block at once instead of one round trip
+ * (and one existsByTrackingNumber check) per package.
+ */
+@Component
+@RequiredArgsConstructor
+public class TrackingNumberGenerator {
+
+    private static final String SEQUENCE_NAME = "package-tracking";
+    private static final String PREFIX = "COU-PKG";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final SequenceBlockAllocator sequenceBlockAllocator;
+
+    /**
+     * Reserves and formats {@code count} tracking numbers
+     *
+     * @param count how many tracking numbers are needed
+     * @return tracking numbers in ascending sequence order
+     */
+    public List<String> nextBlock(int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        long start = sequenceBlockAllocator.reserve(SEQUENCE_NAME, count);
+        String date = LocalDate.now().format(DATE_FORMAT);
+
+        List<String> numbers = new ArrayList<>(count);
+        for (long seq = start; seq < start + count; seq++) {
+            numbers.add(String.format("%s-%s-%04d", PREFIX, date, seq));
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,6 @@
+-- Adds the owner index key to partition_archives (see PartitionArchiver)
+--
+-- Only needed where ddl-auto=update does not run (prod validates). Archives recorded before this
+-- keep a NULL key and are read by scanning the whole month. Safe to re-run.
+
+ALTER TABLE partition_archives ADD COLUMN IF NOT EXISTS index_storage_key varchar(255);
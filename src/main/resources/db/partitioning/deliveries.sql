@@ -0,0 +1,113 @@
+-- Converts deliveries into a table range-partitioned by month on created_at (PostgreSQL 14+)
+--
+-- Run once, in a maintenance window with the application stopped: every row is copied.
+-- From then on MonthlyPartitionManager keeps partitions created ahead of time and
+-- PartitionArchiver moves expired ones to the archive. The application detects the
+-- partitioned table by itself; nothing needs to be configured.
+--
+-- What changes in the schema:
+-- * The primary key becomes (id, created_at): PostgreSQL requires the partition key in every
+--   unique constraint. delivery_number, package_id and mpesa_checkout_request_id get
+--   (column, created_at) unique constraints, matching the entity, and stay globally unique
+--   through delivery_unique_keys: a plain table keyed by (key_name, key_value) that a trigger
+--   fills on every insert and update, so a duplicate fails the delivery's write. Archiving
+--   drops partitions without firing it, so archived deliveries keep their keys reserved.
+-- * Foreign keys from other tables to deliveries(id) are dropped, as no unique constraint on id
+--   alone can exist any more. The referencing columns and their indexes stay.
+-- * Run the application with ddl-auto=validate (as in prod) against the converted schema;
+--   "update" would try to re-add the unique constraints.
+
+BEGIN;
+
+-- 1: Foreign keys pointing at deliveries
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN
+        SELECT conrelid::regclass AS referencing_table, conname
+        FROM pg_constraint
+        WHERE contype = 'f' AND confrelid = 'deliveries'::regclass
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.referencing_table, fk.conname);
+    END LOOP;
+END $$;
+
+-- 2: The partition key may not be null
+ALTER TABLE deliveries RENAME TO deliveries_unpartitioned;
+UPDATE deliveries_unpartitioned SET created_at = COALESCE(updated_at, now()) WHERE created_at IS NULL;
+
+CREATE TABLE deliveries (LIKE deliveries_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+ALTER TABLE deliveries ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE deliveries ADD PRIMARY KEY (id, created_at);
+
+-- 3: One partition per month from the oldest row to three months ahead (named deliveries_pYYYYMM)
+DO $$
+DECLARE
+    month_start date := date_trunc('month', COALESCE((SELECT min(created_at) FROM deliveries_unpartitioned), now()));
+    last_month  date := date_trunc('month', now() + interval '3 months');
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF deliveries FOR VALUES FROM (%L) TO (%L)',
+                       'deliveries_p' || to_char(month_start, 'YYYYMM'),
+                       month_start, (month_start + interval '1 month')::date);
+        month_start := (month_start + interval '1 month')::date;
+    END LOOP;
+END $$;
+
+-- 4: Move the rows
+INSERT INTO deliveries SELECT * FROM deliveries_unpartitioned;
+DROP TABLE deliveries_unpartitioned;
+
+-- 5: Unique keys and indexes from the entity, now created on every partition
+ALTER TABLE deliveries ADD CONSTRAINT uk_delivery_number UNIQUE (delivery_number, created_at);
+ALTER TABLE deliveries ADD CONSTRAINT uk_delivery_package UNIQUE (package_id, created_at);
+ALTER TABLE deliveries ADD CONSTRAINT uk_delivery_mpesa_checkout UNIQUE (mpesa_checkout_request_id, created_at);
+CREATE INDEX idx_sender_acc_id ON deliveries (sender_acc_id, created_at);
+CREATE INDEX idx_courier_id ON deliveries (courier_id, created_at);
+CREATE INDEX idx_created_at ON deliveries (created_at);
+CREATE INDEX idx_delivery_cod_reconciliation ON deliveries (payment_method, delivery_status, actual_delivery_time);
+CREATE INDEX idx_delivery_status_courier ON deliveries (delivery_status, courier_id);
+
+-- 6: Global uniqueness of the columns above, across partitions
+CREATE TABLE delivery_unique_keys (
+    key_name    varchar(32)  NOT NULL,
+    key_value   varchar(255) NOT NULL,
+    delivery_id uuid         NOT NULL,
+    PRIMARY KEY (key_name, key_value)
+);
+CREATE INDEX idx_delivery_unique_keys_delivery ON delivery_unique_keys (delivery_id);
+
+INSERT INTO delivery_unique_keys (key_name, key_value, delivery_id)
+SELECT k.key_name, k.key_value, d.id
+FROM deliveries d
+CROSS JOIN LATERAL (VALUES ('delivery_number', d.delivery_number),
+                           ('package_id', d.package_id::text),
+                           ('mpesa_checkout_request_id', d.mpesa_checkout_request_id)) AS k(key_name, key_value)
+WHERE k.key_value IS NOT NULL;
+
+CREATE FUNCTION deliveries_unique_keys() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM delivery_unique_keys WHERE delivery_id = OLD.id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        -- A value another delivery holds fails here with a unique violation
+        INSERT INTO delivery_unique_keys (key_name, key_value, delivery_id)
+        SELECT k.key_name, k.key_value, NEW.id
+        FROM (VALUES ('delivery_number', NEW.delivery_number),
+                     ('package_id', NEW.package_id::text),
+                     ('mpesa_checkout_request_id', NEW.mpesa_checkout_request_id)) AS k(key_name, key_value)
+        WHERE k.key_value IS NOT NULL;
+    END IF;
+    RETURN NULL;
+END $$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_deliveries_unique_keys
+    AFTER INSERT OR DELETE OR UPDATE OF delivery_number, package_id, mpesa_checkout_request_id ON deliveries
+    FOR EACH ROW EXECUTE FUNCTION deliveries_unique_keys();
+
+COMMIT;
+
+ANALYZE deliveries;
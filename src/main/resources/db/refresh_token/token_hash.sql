@@ -0,0 +1,39 @@
+-- Moves refresh_token from the plain JWT column (token) to its SHA-256 (token_hash) (PostgreSQL 11+)
+--
+-- Run once before starting a build that maps token_hash: ddl-auto=update cannot add a NOT NULL
+-- column to a table that already has rows, and prod runs with validate. Live sessions survive:
+-- the hash is computed exactly as HashUtils.sha256Hex does (hex SHA-256 of the UTF-8 token).
+-- Safe to re-run; every step checks whether it is still needed.
+
+BEGIN;
+
+-- 1: Backfill the hash from the stored token
+ALTER TABLE refresh_token ADD COLUMN IF NOT EXISTS token_hash varchar(64);
+ALTER TABLE refresh_token ADD COLUMN IF NOT EXISTS invalidated_at timestamp(6);
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = 'refresh_token' AND column_name = 'token') THEN
+        UPDATE refresh_token
+        SET token_hash = encode(sha256(convert_to(token, 'UTF8')), 'hex')
+        WHERE token_hash IS NULL;
+    END IF;
+END $$;
+
+-- 2: Tokens issued in the same second without a jti were identical; keep one row per token
+DELETE FROM refresh_token rt
+USING refresh_token keep
+WHERE rt.token_hash = keep.token_hash
+  AND (COALESCE(rt.created_at, '-infinity'), rt.id::text)
+    < (COALESCE(keep.created_at, '-infinity'), keep.id::text);
+
+-- 3: Anything still without a hash cannot be looked up any more
+DELETE FROM refresh_token WHERE token_hash IS NULL;
+
+-- 4: Stop keeping usable tokens in the database
+ALTER TABLE refresh_token DROP COLUMN IF EXISTS token;
+ALTER TABLE refresh_token ALTER COLUMN token_hash SET NOT NULL;
+CREATE UNIQUE INDEX IF NOT EXISTS idx_refresh_token_hash ON refresh_token (token_hash);
+
+COMMIT;
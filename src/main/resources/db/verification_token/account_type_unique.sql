@@ -0,0 +1,19 @@
+-- Keeps one verification token per (account_id, token_type) so the unique index can be built
+--
+-- Run once before starting a build that declares idx_verification_token_account_type: older
+-- builds could leave several tokens of one type per account, and ddl-auto=update cannot create
+-- a unique index over duplicates (prod runs with validate). The newest token of each pair is
+-- kept, the one most recently emailed. Safe to re-run.
+
+BEGIN;
+
+DELETE FROM verification_tokens vt
+USING verification_tokens newer
+WHERE vt.account_id = newer.account_id
+  AND vt.token_type = newer.token_type
+  AND (vt.expiry_date, vt.id::text) < (newer.expiry_date, newer.id::text);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_verification_token_account_type
+    ON verification_tokens (account_id, token_type);
+
+COMMIT;
@@ -0,0 +1,68 @@
+package com.courigistics.courigisticsbackend;
+
+import org.springframework.test.context.ActiveProfilesResolver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Database for the concurrency and multi-node integration tests
+ *
+ * PostgreSQL with PostGIS when DISPATCH_IT_DB_URL is set, e.g. jdbc:postgresql://localhost:5432/courigistics_it,
+ * with DISPATCH_IT_DB_USERNAME and DISPATCH_IT_DB_PASSWORD. Otherwise a named in-memory H2 database in
+ * PostgreSQL mode under the test profile, kept open so every node started in the JVM shares it. The lease,
+ * fencing and reservation SQL these tests exercise is plain SQL; only the spatial searches need PostGIS.
+ */
+public final class ItDatabase {
+
+    private static final String POSTGRES_URL = System.getenv("DISPATCH_IT_DB_URL");
+
+    private ItDatabase() {
+    }
+
+    public static boolean isPostgres() {
+        return POSTGRES_URL != null && !POSTGRES_URL.isBlank();
+    }
+
+    public static String profile() {
+        return isPostgres() ? "dev" : "test";
+    }
+
+    /**
+     * Datasource and schema settings; every context given the same name reaches the same database
+     *
+     * @param h2Name in-memory database name, used when not on PostgreSQL
+     */
+    public static Map<String, String> properties(String h2Name) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        if (isPostgres()) {
+            properties.put("spring.datasource.url", POSTGRES_URL);
+            properties.put("spring.datasource.username", env("DISPATCH_IT_DB_USERNAME", "postgres"));
+            properties.put("spring.datasource.password", env("DISPATCH_IT_DB_PASSWORD", ""));
+            return properties;
+        }
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + h2Name
+                + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH");
+        // update, not the profile's create-drop, so a second node does not drop the first one's schema
+        properties.put("spring.jpa.hibernate.ddl-auto", "update");
+        properties.put("spring.sql.init.mode", "never");
+        properties.put("spring.mail.username", "it");
+        properties.put("spring.mail.password", "it");
+        return properties;
+    }
+
+    /**
+     * For @ActiveProfiles(resolver = ...): dev on PostgreSQL, test on H2
+     */
+    public static class Profiles implements ActiveProfilesResolver {
+        @Override
+        public String[] resolve(Class<?> testClass) {
+            return new String[] {profile()};
+        }
+    }
+
+    private static String env(String name, String fallback) {
+        String value = System.getenv(name);
+        return value == null ? fallback : value;
+    }
+}
@@ -0,0 +1,152 @@
+package com.courigistics.courigisticsbackend.services.courier;
+
+import com.courigistics.courigisticsbackend.ItDatabase;
+import com.courigistics.courigisticsbackend.entities.Account;
+import com.courigistics.courigisticsbackend.entities.Courier;
+import com.courigistics.courigisticsbackend.entities.enums.AccountType;
+import com.courigistics.courigisticsbackend.entities.enums.CourierStatus;
+import com.courigistics.courigisticsbackend.repositories.AccountRepository;
+import com.courigistics.courigisticsbackend.repositories.CourierRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 64 threads race for 100 couriers; every courier must end up with exactly one delivery
+ *
+ * Runs on PostgreSQL when DISPATCH_IT_DB_URL is set and on in-memory H2 otherwise; see ItDatabase.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.maximum-pool-size=64",
+        "spring.jpa.show-sql=false",
+        "jwt.secret-key=kkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkkk",
+        "jwt.signing-key=ssssssssssssssssssssssssssssssssssssssssssssssssssssssssssssssss",
+        "jwt.access-token-expiration=900000",
+        "jwt.refresh-token-expiration=86400000"
+})
+@ActiveProfiles(resolver = ItDatabase.Profiles.class)
+class CourierReservationConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final int COURIERS = 100;
+    private static final int DELIVERIES_PER_THREAD = 5;
+
+    @Autowired
+    CourierReservationService courierReservationService;
+
+    @Autowired
+    CourierRepository courierRepository;
+
+    @Autowired
+    AccountRepository accountRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final List<UUID> courierIds = new ArrayList<>();
+    private final List<UUID> accountIds = new ArrayList<>();
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        ItDatabase.properties("reservation-it").forEach((key, value) -> registry.add(key, () -> value));
+    }
+
+    @BeforeEach
+    void createCouriers() {
+        String run = UUID.randomUUID().toString().substring(0, 8);
+        for (int i = 0; i < COURIERS; i++) {
+            Account account = accountRepository.save(Account.builder()
+                    .email("reservation-it-" + run + "-" + i + "@example.com")
+                    .phone("+254-" + run + "-" + i)
+                    .accountType(AccountType.COURIER)
+                    .enabled(true)
+                    .emailVerified(true)
+                    .build());
+            Courier courier = courierRepository.save(Courier.builder()
+                    .firstName("Reservation")
+                    .lastName("Courier " + i)
+                    .account(account)
+                    .status(CourierStatus.ACTIVE)
+                    .driversLicenseNumber("IT-" + run + "-" + i)
+                    .licenseExpiryDate(LocalDate.now().plusYears(1))
+                    .pendingApproval(false)
+                    .build());
+            accountIds.add(account.getId());
+            courierIds.add(courier.getId());
+        }
+    }
+
+    @AfterEach
+    void deleteCouriers() {
+        courierRepository.deleteAllById(courierIds);
+        accountRepository.deleteAllById(accountIds);
+    }
+
+    @Test
+    void neverReservesOneCourierTwice() throws Exception {
+        Map<UUID, UUID> winnerByCourier = new ConcurrentHashMap<>();
+        AtomicInteger doubleAssignments = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        // 1: 320 deliveries from 64 threads chase 100 couriers, each trying them in a random order
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(pool.submit(() -> {
+                start.await();
+                for (int d = 0; d < DELIVERIES_PER_THREAD; d++) {
+                    UUID deliveryId = UUID.randomUUID();
+                    List<UUID> candidates = new ArrayList<>(courierIds);
+                    Collections.shuffle(candidates, ThreadLocalRandom.current());
+                    Optional<UUID> courier = courierReservationService.reserveFirstAvailable(candidates, deliveryId);
+                    if (courier.isPresent() && winnerByCourier.putIfAbsent(courier.get(), deliveryId) != null) {
+                        doubleAssignments.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        // 2: Every courier went to exactly one delivery, and the database agrees on which
+        assertThat(doubleAssignments.get()).isZero();
+        assertThat(winnerByCourier).hasSize(COURIERS);
+
+        Map<UUID, UUID> stored = new HashMap<>();
+        jdbcTemplate.query("SELECT id, reserved_delivery_id FROM couriers WHERE available_for_assignment = FALSE",
+                rs -> { stored.put(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class)); });
+        assertThat(stored).containsAllEntriesOf(winnerByCourier);
+
+        // 3: The batched release frees them all again
+        assertThat(courierReservationService.releaseForDeliveries(winnerByCourier.values())).isEqualTo(COURIERS);
+    }
+}
@@ -0,0 +1,215 @@
+package com.courigistics.courigisticsbackend.services.dispatch;
+
+import com.courigistics.courigisticsbackend.CourigisticsBackendApplication;
+import com.courigistics.courigisticsbackend.ItDatabase;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.scheduling.config.ScheduledTaskHolder;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs several application nodes against one database and checks that city shards are spread
+ * evenly, never owned twice, move on when a node crashes or joins, and that a crashed node is
+ * fenced out of the cities it lost.
+ *
+ * Runs on PostgreSQL when DISPATCH_IT_DB_URL is set and on in-memory H2 otherwise; see ItDatabase.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DispatchShardingMultiNodeTest {
+
+    private static final int CITY_COUNT = 7;
+    private static final int LEASE_TTL_SECONDS = 6;
+    private static final String CITY_PREFIX = "dispatch-it-";
+
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void startCluster() {
+        for (int i = 0; i < 3; i++) {
+            nodes.add(startNode("it-node-" + i));
+        }
+        jdbcTemplate = nodes.getFirst().getBean(JdbcTemplate.class);
+        for (int i = 0; i < CITY_COUNT; i++) {
+            jdbcTemplate.update("INSERT INTO depot (id, name, code, address, city, country, depot_type, status, coverage_radius_km, created_at) " +
+                            "VALUES (?, ?, ?, 'n/a', ?, 'Kenya', 'STANDALONE', 'ACTIVE', 50, now())",
+                    UUID.randomUUID(), "IT depot " + i, "IT-" + i, CITY_PREFIX + i);
+        }
+    }
+
+    @AfterAll
+    void stopCluster() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+        if (jdbcTemplate != null) {
+            jdbcTemplate.update("DELETE FROM dispatch_shard_leases WHERE shard_key LIKE ?", CITY_PREFIX + "%");
+            jdbcTemplate.update("DELETE FROM depot WHERE city LIKE ?", CITY_PREFIX + "%");
+        }
+    }
+
+    @Test
+    @Order(1)
+    void spreadsShardsEvenlyWithoutOverlap() {
+        assertThat(waitUntil(Duration.ofSeconds(30), this::balanced)).isTrue();
+    }
+
+    @Test
+    @Order(2)
+    void survivorsTakeOverShardsOfACrashedNodeAfterTheLeaseTtlAndFenceItOut() throws InterruptedException {
+        ConfigurableApplicationContext crashed = nodes.remove(nodes.size() - 1);
+        DispatchLeaseManager crashedLeases = crashed.getBean(DispatchLeaseManager.class);
+        String crashedNodeId = crashedLeases.getNodeId();
+        Set<String> stranded = crashedLeases.getOwnedShardKeys();
+        assertThat(stranded).isNotEmpty();
+        Map<String, Long> epochsBefore = epochs();
+
+        // 1: Crash: the heartbeat stops without handing anything back (close() would release gracefully)
+        stopScheduling(crashed);
+
+        // 2: Nobody takes a lease that has not expired yet
+        Thread.sleep(Duration.ofSeconds(LEASE_TTL_SECONDS / 3));
+        for (String shard : stranded) {
+            assertThat(owner(shard)).isEqualTo(crashedNodeId);
+        }
+
+        // 3: Once the leases run out the survivors take them over under new epochs
+        assertThat(waitUntil(Duration.ofSeconds(LEASE_TTL_SECONDS * 3L), this::balanced)).isTrue();
+        Map<String, Long> epochsAfter = epochs();
+        for (String shard : stranded) {
+            assertThat(owner(shard)).isNotEqualTo(crashedNodeId);
+            assertThat(epochsAfter.get(shard)).isGreaterThan(epochsBefore.get(shard));
+        }
+
+        // 4: The crashed node's assignments are fenced out: the lease check every assignment makes fails
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (String shard : stranded) {
+            assertThat(jdbcTemplate.queryForObject(DispatchMatcher.LEASE_STILL_HELD, Integer.class,
+                    shard, crashedNodeId, epochsBefore.get(shard), now)).isZero();
+        }
+
+        // 5: Should it come back (a long pause rather than a crash), its renewals are refused and it drops the shards
+        double lostBefore = lostLeases(crashed);
+        crashedLeases.heartbeat();
+        assertThat(lostLeases(crashed) - lostBefore).isEqualTo(stranded.size());
+        Map<String, Long> epochsAfterReturn = epochs();
+        for (String shard : stranded) {
+            assertThat(owner(shard)).isNotEqualTo(crashedNodeId);
+            assertThat(epochsAfterReturn.get(shard)).isEqualTo(epochsAfter.get(shard));
+        }
+        crashed.close();
+    }
+
+    @Test
+    @Order(3)
+    void rebalancesOntoAJoiningNode() {
+        ConfigurableApplicationContext joining = startNode("it-node-late");
+        nodes.add(joining);
+
+        assertThat(waitUntil(Duration.ofSeconds(LEASE_TTL_SECONDS * 4L), this::balanced)).isTrue();
+        assertThat(joining.getBean(DispatchLeaseManager.class).getOwnedShardKeys()).isNotEmpty();
+    }
+
+    private ConfigurableApplicationContext startNode(String nodeId) {
+        // As command-line arguments, so they win over the profile's datasource settings
+        List<String> args = new ArrayList<>();
+        ItDatabase.properties("dispatch-it").forEach((key, value) -> args.add("--" + key + "=" + value));
+        args.addAll(List.of(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--jwt.secret-key=" + "k".repeat(64),
+                "--jwt.signing-key=" + "s".repeat(64),
+                "--jwt.access-token-expiration=900000",
+                "--jwt.refresh-token-expiration=86400000",
+                "--app.dispatch.node-id=" + nodeId,
+                "--app.dispatch.heartbeat-interval-ms=1000",
+                "--app.dispatch.lease-ttl-seconds=" + LEASE_TTL_SECONDS,
+                "--app.dispatch.node-ttl-seconds=" + LEASE_TTL_SECONDS));
+        return new SpringApplicationBuilder(CourigisticsBackendApplication.class)
+                .profiles(ItDatabase.profile())
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Cancels every scheduled task of the node, the heartbeat included, without running any shutdown hooks
+     */
+    private static void stopScheduling(ConfigurableApplicationContext node) {
+        node.getBeansOfType(ScheduledTaskHolder.class).values()
+                .forEach(holder -> holder.getScheduledTasks().forEach(ScheduledTask::cancel));
+    }
+
+    private static double lostLeases(ConfigurableApplicationContext node) {
+        return node.getBean(MeterRegistry.class).get("dispatch.leases").tag("outcome", "lost").counter().count();
+    }
+
+    private String owner(String shard) {
+        return jdbcTemplate.queryForObject("SELECT owner_node_id FROM dispatch_shard_leases WHERE shard_key = ?",
+                String.class, shard);
+    }
+
+    /**
+     * Every shard has exactly one owner, and no node owns more than one shard more than another
+     */
+    private boolean balanced() {
+        Set<String> shards = new HashSet<>(jdbcTemplate.queryForList("SELECT shard_key FROM dispatch_shard_leases", String.class));
+        Set<String> owned = new HashSet<>();
+        int min = Integer.MAX_VALUE;
+        int max = 0;
+        for (ConfigurableApplicationContext node : nodes) {
+            Set<String> mine = node.getBean(DispatchLeaseManager.class).getOwnedShardKeys();
+            for (String shard : mine) {
+                if (!owned.add(shard)) {
+                    return false;
+                }
+            }
+            min = Math.min(min, mine.size());
+            max = Math.max(max, mine.size());
+        }
+        return owned.equals(shards) && max - min <= 1;
+    }
+
+    private Map<String, Long> epochs() {
+        Map<String, Long> epochs = new HashMap<>();
+        jdbcTemplate.query("SELECT shard_key, epoch FROM dispatch_shard_leases",
+                rs -> { epochs.put(rs.getString(1), rs.getLong(2)); });
+        return epochs;
+    }
+
+    private static boolean waitUntil(Duration timeout, BooleanSupplier condition) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            try {
+                Thread.sleep(250);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -0,0 +1,104 @@
+package com.courigistics.courigisticsbackend.services.imports;
+
+import com.courigistics.courigisticsbackend.entities.enums.ImportFormat;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The reader is package-private, so these live next to it rather than under services/unit
+ * 1. CSV and NDJSON parsing, record numbering and blank lines
+ * 2. Resuming after already committed records
+ */
+public class ExternalOrderRecordReaderTests {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ExternalOrderRecordReader reader(String content, ImportFormat format) throws IOException {
+        return new ExternalOrderRecordReader(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), format, objectMapper);
+    }
+
+    @Test
+    @DisplayName("CSV rows are mapped onto the header, quotes and a BOM included")
+    public void next_withCsv_shouldMapFieldsOntoHeader() throws IOException {
+        String csv = "﻿external_id,recipient_name,notes\n"
+                + "A-1,\"Doe, Jane\",\"Leave at \"\"gate\"\"\"\n"
+                + "\n"
+                + "A-2,John,\n";
+
+        try (ExternalOrderRecordReader reader = reader(csv, ImportFormat.CSV)) {
+            ExternalOrderRecordReader.RawRecord first = reader.next();
+            assertEquals(1, first.recordNumber());
+            assertEquals("A-1", first.fields().get("external_id"));
+            assertEquals("Doe, Jane", first.fields().get("recipient_name"));
+            assertEquals("Leave at \"gate\"", first.fields().get("notes"));
+
+            // The blank line is skipped and does not count as a record
+            ExternalOrderRecordReader.RawRecord second = reader.next();
+            assertEquals(2, second.recordNumber());
+            assertEquals("A-2", second.fields().get("external_id"));
+            assertEquals("", second.fields().get("notes"));
+
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void constructor_withEmptyCsv_shouldThrowBadRequest() {
+        assertThrows(BadRequestException.class, () -> reader("", ImportFormat.CSV));
+    }
+
+    @Test
+    @DisplayName("NDJSON objects become text fields; a malformed line keeps its record number")
+    public void next_withNdjson_shouldParseEachLineAndFlagMalformedOnes() throws IOException {
+        String ndjson = "{\"external_id\":\"B-1\",\"weight_kg\":2.5,\"notes\":null}\n"
+                + "{not json\n"
+                + "{\"external_id\":\"B-3\"}\n";
+
+        try (ExternalOrderRecordReader reader = reader(ndjson, ImportFormat.NDJSON)) {
+            ExternalOrderRecordReader.RawRecord first = reader.next();
+            assertEquals("B-1", first.fields().get("external_id"));
+            assertEquals("2.5", first.fields().get("weight_kg"));
+            assertTrue(first.fields().containsKey("notes"));
+            assertNull(first.fields().get("notes"));
+
+            ExternalOrderRecordReader.RawRecord malformed = reader.next();
+            assertEquals(2, malformed.recordNumber());
+            assertNotNull(malformed.fields().get("_parseError"));
+
+            assertEquals(3, reader.next().recordNumber());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    @DisplayName("A resumed run skips the records a previous run committed")
+    public void skip_withCommittedRecords_shouldResumeAtTheNextOne() throws IOException {
+        String csv = "external_id\nC-1\nC-2\nC-3\n";
+
+        try (ExternalOrderRecordReader reader = reader(csv, ImportFormat.CSV)) {
+            reader.skip(2);
+
+            ExternalOrderRecordReader.RawRecord next = reader.next();
+            assertEquals(3, next.recordNumber());
+            assertEquals("C-3", next.fields().get("external_id"));
+        }
+    }
+
+    @Test
+    public void skip_pastEndOfFile_shouldLeaveNothingToRead() throws IOException {
+        try (ExternalOrderRecordReader reader = reader("external_id\nD-1\n", ImportFormat.CSV)) {
+            reader.skip(5);
+
+            assertNull(reader.next());
+        }
+    }
+}
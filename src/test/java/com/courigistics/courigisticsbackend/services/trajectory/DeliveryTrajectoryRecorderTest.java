@@ -0,0 +1,130 @@
+package com.courigistics.courigisticsbackend.services.trajectory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Opening-window simplification and distance filtering of DeliveryTrajectoryRecorder
+ */
+class DeliveryTrajectoryRecorderTest {
+
+    // 10 m tolerance, 64 point / 120 s window, 10 m jitter threshold, 200 km/h jump limit (the shipped defaults)
+    private static final DeliveryTrajectoryRecorder.Settings SETTINGS =
+            new DeliveryTrajectoryRecorder.Settings(10, 64, 120, 10, 200);
+
+    private static final double START_LAT = -1.286389;
+    private static final double START_LON = 36.817223;
+    private static final long START_TIME = 1_760_000_000L;
+    // 0.0001 degrees of latitude is about 11 m
+    private static final double STEP = 0.0001;
+
+    private final DeliveryTrajectoryRecorder recorder =
+            new DeliveryTrajectoryRecorder(UUID.randomUUID(), SETTINGS, 0, 0, null);
+
+    @Test
+    @DisplayName("A straight run keeps only its two ends")
+    void straightLineCollapsesToEndpoints() {
+        for (int i = 0; i < 20; i++) {
+            recorder.record(START_LAT + i * STEP, START_LON, START_TIME + i * 5L);
+        }
+        recorder.finish();
+
+        List<TrajectoryPoint> kept = keptPoints();
+        assertThat(kept).hasSize(2);
+        assertThat(kept.get(0).latitude()).isCloseTo(START_LAT, within(1e-5));
+        assertThat(kept.get(1).latitude()).isCloseTo(START_LAT + 19 * STEP, within(1e-5));
+        assertThat(kept.get(1).epochSecond()).isEqualTo(START_TIME + 95);
+    }
+
+    @Test
+    @DisplayName("A turn keeps the corner")
+    void turnKeepsCorner() {
+        for (int i = 0; i <= 10; i++) {
+            recorder.record(START_LAT + i * STEP, START_LON, START_TIME + i * 5L);
+        }
+        for (int i = 1; i <= 10; i++) {
+            recorder.record(START_LAT + 10 * STEP, START_LON + i * 2 * STEP, START_TIME + 50 + i * 5L);
+        }
+        recorder.finish();
+
+        List<TrajectoryPoint> kept = keptPoints();
+        assertThat(kept).hasSize(3);
+        assertThat(kept.get(1).latitude()).isCloseTo(START_LAT + 10 * STEP, within(1e-5));
+        assertThat(kept.get(1).longitude()).isCloseTo(START_LON, within(1e-5));
+    }
+
+    @Test
+    @DisplayName("The window is closed after max-window-seconds even on a straight line")
+    void windowIsBoundedInTime() {
+        for (int i = 0; i < 40; i++) {
+            recorder.record(START_LAT + i * STEP, START_LON, START_TIME + i * 5L);
+        }
+        recorder.finish();
+
+        List<TrajectoryPoint> kept = keptPoints();
+        assertThat(kept).hasSize(3);
+        for (int i = 1; i < kept.size(); i++) {
+            assertThat(kept.get(i).epochSecond() - kept.get(i - 1).epochSecond()).isLessThanOrEqualTo(120);
+        }
+    }
+
+    @Test
+    @DisplayName("Distance counts real moves and ignores jitter and single impossible jumps")
+    void distanceFiltersJitterAndJumps() {
+        recorder.record(START_LAT, START_LON, START_TIME);
+        // About 2 m: jitter
+        recorder.record(START_LAT + 0.00002, START_LON, START_TIME + 5);
+        // About 50 km in 5 s: a bad fix
+        recorder.record(START_LAT + 0.45, START_LON, START_TIME + 10);
+        // About 111 m from the start
+        recorder.record(START_LAT + 10 * STEP, START_LON, START_TIME + 15);
+        recorder.finish();
+
+        DeliveryTrajectoryRecorder.Segment segment = recorder.takeSegment(START_TIME + 20, 256, 300, true);
+        assertThat(segment.cumulativeDistanceKm()).isCloseTo(0.111, within(0.002));
+    }
+
+    @Test
+    @DisplayName("Segments wait until full or old unless forced, and acknowledged points are not written again")
+    void segmentsAreTakenAndAcknowledged() {
+        recorder.record(START_LAT, START_LON, START_TIME);
+
+        assertThat(recorder.takeSegment(START_TIME + 10, 256, 300, false)).isNull();
+        DeliveryTrajectoryRecorder.Segment aged = recorder.takeSegment(START_TIME + 300, 256, 300, false);
+        assertThat(aged).isNotNull();
+        assertThat(aged.seq()).isZero();
+        assertThat(aged.pointCount()).isEqualTo(1);
+
+        recorder.acknowledge(aged);
+        assertThat(recorder.isDrained()).isTrue();
+        assertThat(recorder.takeSegment(START_TIME + 600, 256, 300, true)).isNull();
+
+        recorder.record(START_LAT + 20 * STEP, START_LON + 20 * STEP, START_TIME + 310);
+        recorder.finish();
+        assertThat(recorder.takeSegment(START_TIME + 320, 256, 300, true).seq()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("After a seq conflict the next segment continues after the stored one")
+    void rebaseMovesSeq() {
+        recorder.record(START_LAT, START_LON, START_TIME);
+        recorder.finish();
+
+        recorder.rebase(7);
+
+        DeliveryTrajectoryRecorder.Segment segment = recorder.takeSegment(START_TIME + 5, 256, 300, true);
+        assertThat(segment.seq()).isEqualTo(7);
+        assertThat(segment.pointCount()).isEqualTo(1);
+    }
+
+    private List<TrajectoryPoint> keptPoints() {
+        DeliveryTrajectoryRecorder.Segment segment = recorder.takeSegment(Long.MAX_VALUE, 256, 300, true);
+        return TrajectoryCodec.decode(segment.encodedPoints());
+    }
+}
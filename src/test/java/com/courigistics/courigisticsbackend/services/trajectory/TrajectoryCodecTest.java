@@ -0,0 +1,102 @@
+package com.courigistics.courigisticsbackend.services.trajectory;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class TrajectoryCodecTest {
+
+    // Quantisation step of the codec, in degrees
+    private static final double PRECISION = 1e-5;
+
+    @Test
+    @DisplayName("Points survive an encode/decode round trip to 1e-5 degrees")
+    void roundTrip() {
+        Random random = new Random(42);
+        int count = 500;
+        double[] lat = new double[count];
+        double[] lon = new double[count];
+        long[] time = new long[count];
+        lat[0] = -1.286389;
+        lon[0] = 36.817223;
+        time[0] = 1_760_000_000L;
+        for (int i = 1; i < count; i++) {
+            lat[i] = lat[i - 1] + (random.nextDouble() - 0.5) * 0.002;
+            lon[i] = lon[i - 1] + (random.nextDouble() - 0.5) * 0.002;
+            time[i] = time[i - 1] + 1 + random.nextInt(30);
+        }
+
+        List<TrajectoryPoint> decoded = TrajectoryCodec.decode(TrajectoryCodec.encode(lat, lon, time, count));
+
+        assertThat(decoded).hasSize(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(decoded.get(i).latitude()).isCloseTo(lat[i], within(PRECISION));
+            assertThat(decoded.get(i).longitude()).isCloseTo(lon[i], within(PRECISION));
+            assertThat(decoded.get(i).epochSecond()).isEqualTo(time[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Negative deltas and extreme coordinates round trip through zigzag")
+    void negativeAndExtremeValues() {
+        double[] lat = {90, -90, 0, -33.868820, 51.507351};
+        double[] lon = {180, -180, 0, 151.209290, -0.127758};
+        long[] time = {0, 1_760_000_000L, 5, 4_102_444_800L, 1};
+
+        List<TrajectoryPoint> decoded = TrajectoryCodec.decode(TrajectoryCodec.encode(lat, lon, time, lat.length));
+
+        for (int i = 0; i < lat.length; i++) {
+            assertThat(decoded.get(i).latitude()).isCloseTo(lat[i], within(PRECISION));
+            assertThat(decoded.get(i).longitude()).isCloseTo(lon[i], within(PRECISION));
+            assertThat(decoded.get(i).epochSecond()).isEqualTo(time[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Only the given count of points is encoded, and an empty run decodes to nothing")
+    void countIsHonoured() {
+        double[] lat = {1, 2, 3};
+        double[] lon = {4, 5, 6};
+        long[] time = {7, 8, 9};
+
+        assertThat(TrajectoryCodec.decode(TrajectoryCodec.encode(lat, lon, time, 2))).hasSize(2);
+        assertThat(TrajectoryCodec.decode(TrajectoryCodec.encode(lat, lon, time, 0))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Consecutive pings of a moving courier take a few bytes each")
+    void deltasAreCompact() {
+        int count = 100;
+        double[] lat = new double[count];
+        double[] lon = new double[count];
+        long[] time = new long[count];
+        for (int i = 0; i < count; i++) {
+            lat[i] = -1.286389 + i * 0.0001;
+            lon[i] = 36.817223 + i * 0.0001;
+            time[i] = 1_760_000_000L + i * 5L;
+        }
+
+        byte[] encoded = TrajectoryCodec.encode(lat, lon, time, count);
+
+        // First point is absolute (about 14 bytes), every other one is three one-byte varints
+        assertThat(encoded.length).isLessThanOrEqualTo(1 + 16 + (count - 1) * 3);
+    }
+
+    @Test
+    @DisplayName("Truncated data is rejected instead of decoding garbage")
+    void truncatedDataIsRejected() {
+        byte[] encoded = TrajectoryCodec.encode(new double[]{-1.28, -1.29}, new double[]{36.8, 36.9},
+                new long[]{1_760_000_000L, 1_760_000_010L}, 2);
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 2);
+
+        assertThatThrownBy(() -> TrajectoryCodec.decode(truncated))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -2,20 +2,22 @@ package com.courigistics.courigisticsbackend.services.unit;
 
 
 import com.courigistics.courigisticsbackend.config.security.JwtService;
+import com.courigistics.courigisticsbackend.config.security.LoginAttemptTracker;
 import com.courigistics.courigisticsbackend.dto.requests.common.AddressDTO;
 import com.courigistics.courigisticsbackend.dto.requests.auth.LoginRequest;
 import com.courigistics.courigisticsbackend.dto.requests.customer.CustomerRegisterRequest;
 import com.courigistics.courigisticsbackend.dto.responses.auth.AuthResponse;
 import com.courigistics.courigisticsbackend.entities.Account;
 import com.courigistics.courigisticsbackend.entities.Customer;
-import com.courigistics.courigisticsbackend.entities.RefreshToken;
 import com.courigistics.courigisticsbackend.entities.VerificationToken;
 import com.courigistics.courigisticsbackend.entities.enums.AccountType;
 import com.courigistics.courigisticsbackend.entities.enums.TokenType;
 import com.courigistics.courigisticsbackend.repositories.AccountRepository;
-import com.courigistics.courigisticsbackend.repositories.RefreshTokenRepository;
 import com.courigistics.courigisticsbackend.services.auth.CustomerAuthServiceImpl;
+import com.courigistics.courigisticsbackend.services.auth.LoginActivityBuffer;
+import com.courigistics.courigisticsbackend.services.refresh_token.RefreshTokenService;
 import com.courigistics.courigisticsbackend.services.verification_token.VerificationTokenService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -55,7 +57,7 @@ public class CustomerAuthServiceImplTests {
     private VerificationTokenService verificationTokenService;
 
     @Mock
-    private RefreshTokenRepository refreshTokenRepository;
+    private RefreshTokenService refreshTokenService;
 
     @Mock
     private JwtService jwtService;
@@ -66,6 +68,15 @@ public class CustomerAuthServiceImplTests {
     @Mock
     private Authentication mockAuthentication;
 
+    @Mock
+    private LoginAttemptTracker loginAttemptTracker;
+
+    @Mock
+    private HttpServletRequest httpServletRequest;
+
+    @Mock
+    private LoginActivityBuffer loginActivityBuffer;
+
     /**
      * Helper method to create an RegistrationRequest with a valid Adrress
      * @return the registerRequest for account creation with valid Address
@@ -240,8 +251,7 @@ public class CustomerAuthServiceImplTests {
 
         // Verify that key methods were called on the mocks
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(refreshTokenRepository).invalidateAllByAccount(authenticatedAccount);
-        verify(refreshTokenRepository).save(any(RefreshToken.class));
+        verify(refreshTokenService).store(authenticatedAccount, "dummy-refresh-token");
         verify(jwtService).generateAccessToken(authenticatedAccount);
     }
 
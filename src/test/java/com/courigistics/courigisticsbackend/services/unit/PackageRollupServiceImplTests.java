@@ -0,0 +1,198 @@
+package com.courigistics.courigisticsbackend.services.unit;
+
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.exceptions.ServiceUnavailableException;
+import com.courigistics.courigisticsbackend.repositories.PackageRollupRepository;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupKey;
+import com.courigistics.courigisticsbackend.services.analytics.PackageRollupServiceImpl;
+import com.courigistics.courigisticsbackend.services.jobs.JobLeaseManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test examples:
+ * 1. Incremental path: hour and day buckets are incremented, created when missing, and a lost
+ *    insert race falls back to incrementing the winner's row
+ * 2. Rebuild guards: unsettled days and a held job lease are refused
+ */
+@ExtendWith(MockitoExtension.class)
+public class PackageRollupServiceImplTests {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 3, 10, 14, 25, 7);
+    private static final PackageRollupKey PARCEL_KEY = PackageRollupKey.of("PARCEL", "BOX", true, false, "Nairobi");
+    private static final PackageRollupKey DOCUMENT_KEY = PackageRollupKey.of("DOCUMENTS", "ENVELOPE", false, false, "Mombasa");
+
+    @InjectMocks
+    PackageRollupServiceImpl packageRollupService;
+
+    @Mock
+    private PackageRollupRepository packageRollupRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private JobLeaseManager jobLeaseManager;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PreparedStatement increment;
+
+    @Mock
+    private PreparedStatement insert;
+
+    @Mock
+    private Savepoint savepoint;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        ReflectionTestUtils.setField(packageRollupService, "maxRebuildDays", 366);
+        ReflectionTestUtils.setField(packageRollupService, "rebuildLeaseMinutes", 30L);
+        ReflectionTestUtils.setField(packageRollupService, "settleMinutes", 60L);
+
+        // Run the connection callback against the mocked connection, as JdbcTemplate would
+        Mockito.lenient().when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        Mockito.lenient().when(connection.prepareStatement(contains("UPDATE package_rollups"))).thenReturn(increment);
+        Mockito.lenient().when(connection.prepareStatement(contains("INSERT INTO package_rollups"))).thenReturn(insert);
+        Mockito.lenient().when(connection.setSavepoint()).thenReturn(savepoint);
+    }
+
+    @Test
+    @DisplayName("Happy path: existing hour and day buckets are incremented in place")
+    public void recordCreated_withExistingBuckets_shouldIncrementHourAndDay() throws SQLException {
+        // --- ARRANGE ---
+        Mockito.when(increment.executeUpdate()).thenReturn(1);
+
+        // --- ACT ---
+        packageRollupService.recordCreated(CREATED_AT, Map.of(PARCEL_KEY, 2L));
+
+        // --- ASSERT ---
+        verify(increment, times(2)).executeUpdate();
+        verify(insert, never()).executeUpdate();
+
+        // UPDATE parameters: count, updated_at, granularity, bucket_start, then the dimensions
+        InOrder buckets = inOrder(increment);
+        buckets.verify(increment).setObject(3, "HOUR");
+        buckets.verify(increment).setObject(4, Timestamp.valueOf(LocalDateTime.of(2025, 3, 10, 14, 0)));
+        buckets.verify(increment).setObject(3, "DAY");
+        buckets.verify(increment).setObject(4, Timestamp.valueOf(LocalDateTime.of(2025, 3, 10, 0, 0)));
+        verify(increment, times(2)).setObject(1, 2L);
+        verify(increment, times(2)).setObject(9, "Nairobi");
+    }
+
+    @Test
+    public void recordCreated_withMissingBuckets_shouldInsertThemUnderASavepoint() throws SQLException {
+        Mockito.when(increment.executeUpdate()).thenReturn(0);
+        Mockito.when(insert.executeUpdate()).thenReturn(1);
+
+        packageRollupService.recordCreated(CREATED_AT, Map.of(PARCEL_KEY, 1L));
+
+        verify(insert, times(2)).executeUpdate();
+        verify(connection, times(2)).releaseSavepoint(savepoint);
+        verify(connection, never()).rollback(any(Savepoint.class));
+    }
+
+    @Test
+    @DisplayName("A concurrent insert of the same bucket is absorbed by incrementing the winner's row")
+    public void recordCreated_whenInsertLosesTheRace_shouldRollBackToSavepointAndIncrement() throws SQLException {
+        // Hour bucket: missing, then created by another transaction; day bucket: exists
+        Mockito.when(increment.executeUpdate()).thenReturn(0, 1, 1);
+        Mockito.when(insert.executeUpdate()).thenThrow(new SQLException("duplicate key", "23505"));
+
+        packageRollupService.recordCreated(CREATED_AT, Map.of(PARCEL_KEY, 1L));
+
+        verify(connection).rollback(savepoint);
+        verify(increment, times(3)).executeUpdate();
+        verify(connection, never()).releaseSavepoint(any());
+    }
+
+    @Test
+    public void recordCreated_whenInsertFailsOtherwise_shouldPropagate() throws SQLException {
+        Mockito.when(increment.executeUpdate()).thenReturn(0);
+        Mockito.when(insert.executeUpdate()).thenThrow(new SQLException("connection reset", "08006"));
+
+        assertThrows(SQLException.class, () -> packageRollupService.recordCreated(CREATED_AT, Map.of(PARCEL_KEY, 1L)));
+
+        verify(connection, never()).rollback(any(Savepoint.class));
+    }
+
+    /**
+     * Keys are applied in a fixed order, so two transactions cannot lock the same buckets in opposite orders
+     */
+    @Test
+    public void recordCreated_withSeveralKeys_shouldIncrementInKeyOrder() throws SQLException {
+        Mockito.when(increment.executeUpdate()).thenReturn(1);
+        Map<PackageRollupKey, Long> counts = new LinkedHashMap<>();
+        counts.put(PARCEL_KEY, 1L);
+        counts.put(DOCUMENT_KEY, 1L);
+
+        packageRollupService.recordCreated(CREATED_AT, counts);
+
+        InOrder keys = inOrder(increment);
+        keys.verify(increment, times(2)).setObject(5, "DOCUMENTS");
+        keys.verify(increment, times(2)).setObject(5, "PARCEL");
+    }
+
+    @Test
+    public void recordCreated_withNoCounts_shouldNotTouchTheDatabase() {
+        packageRollupService.recordCreated(CREATED_AT, Map.of());
+
+        verify(jdbcTemplate, never()).execute(any(ConnectionCallback.class));
+    }
+
+    @Test
+    @DisplayName("Today may still gain packages from open transactions, so it cannot be rebuilt yet")
+    public void rebuild_throughToday_shouldThrowBadRequest() {
+        LocalDate today = LocalDate.now();
+
+        assertThrows(BadRequestException.class, () -> packageRollupService.rebuild(today, today.plusDays(1)));
+
+        verify(jobLeaseManager, never()).runExclusively(any(), any(), any());
+    }
+
+    @Test
+    public void rebuild_whileAnotherRunHoldsTheLease_shouldThrowServiceUnavailable() {
+        LocalDate from = LocalDate.now().minusDays(3);
+        Mockito.when(jobLeaseManager.runExclusively(eq("package-rollup-rebuild"), any(), any())).thenReturn(false);
+
+        assertThrows(ServiceUnavailableException.class, () -> packageRollupService.rebuild(from, from.plusDays(1)));
+
+        verify(packageRollupRepository, never()).deleteBucketsBetween(any(), any());
+    }
+}
@@ -0,0 +1,198 @@
+package com.courigistics.courigisticsbackend.services.unit;
+
+import com.courigistics.courigisticsbackend.entities.PartitionArchive;
+import com.courigistics.courigisticsbackend.services.archive.PartitionArchiveReader;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test examples:
+ * 1. Indexed archives: only the owner's gzip member is read, newest first, up to the limit
+ * 2. Unindexed archives: the whole file is scanned and the newest matches are kept
+ */
+@ExtendWith(MockitoExtension.class)
+public class PartitionArchiveReaderTests {
+
+    private static final String ARCHIVE_KEY = "archives/deliveries/2025-01.ndjson.gz";
+    private static final String INDEX_KEY = ARCHIVE_KEY + ".index.json";
+
+    @Mock
+    private ObjectStorage objectStorage;
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PartitionArchiveReader archiveReader;
+
+    @BeforeEach
+    public void setUp() {
+        archiveReader = new PartitionArchiveReader(objectStorage, objectMapper);
+        ReflectionTestUtils.setField(archiveReader, "cachedIndexes", 10);
+        ReflectionTestUtils.invokeMethod(archiveReader, "init");
+    }
+
+    private static String row(String id, String sender, String createdAt) {
+        return "{\"id\":\"" + id + "\",\"sender_acc_id\":\"" + sender + "\",\"created_at\":\"" + createdAt + "\"}";
+    }
+
+    /**
+     * Helper method writing the archive layout PartitionArchiver produces: one gzip member per owner,
+     * rows newest first, plus the sidecar index of member byte ranges
+     * @return the archive row, indexed or not
+     */
+    private PartitionArchive createArchive(boolean indexed) throws IOException {
+        Map<String, List<String>> rowsByOwner = Map.of(
+                "sender-a", List.of(
+                        row("d3", "sender-a", "2025-01-30T09:00:00"),
+                        row("d2", "sender-a", "2025-01-20T09:00:00"),
+                        row("d1", "sender-a", "2025-01-02T09:00:00")),
+                "sender-b", List.of(
+                        row("d5", "sender-b", "2025-01-31T18:00:00"),
+                        row("d4", "sender-b", "2025-01-15T18:00:00")));
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream();
+        Map<String, long[]> members = new HashMap<>();
+        for (String owner : List.of("sender-a", "sender-b")) {
+            long start = file.size();
+            try (GZIPOutputStream member = new GZIPOutputStream(new NonClosingStream(file))) {
+                for (String line : rowsByOwner.get(owner)) {
+                    member.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            members.put(owner, new long[]{start, file.size() - start});
+        }
+
+        Path archive = Files.write(dir.resolve("archive.gz"), file.toByteArray());
+        Mockito.lenient().when(objectStorage.open(ARCHIVE_KEY))
+                .thenAnswer(invocation -> FileChannel.open(archive, StandardOpenOption.READ));
+        if (indexed) {
+            Path index = dir.resolve("archive.index.json");
+            objectMapper.writeValue(index.toFile(), Map.of("sender_acc_id", members));
+            Mockito.lenient().when(objectStorage.open(INDEX_KEY))
+                    .thenAnswer(invocation -> FileChannel.open(index, StandardOpenOption.READ));
+        }
+
+        return PartitionArchive.builder()
+                .tableName("deliveries")
+                .periodStart(LocalDate.of(2025, 1, 1))
+                .storageKey(ARCHIVE_KEY)
+                .indexStorageKey(indexed ? INDEX_KEY : null)
+                .rowCount(5)
+                .build();
+    }
+
+    private static String id(JsonNode row) {
+        return row.get("id").asText();
+    }
+
+    @Test
+    @DisplayName("Indexed archive: one owner's rows, newest first, stopping at the limit")
+    public void readOwner_withIndex_shouldReadOnlyTheOwnersMember() throws IOException {
+        PartitionArchive archive = createArchive(true);
+
+        List<String> ids = archiveReader.readOwner(archive, "sender_acc_id", "sender-a", row -> true,
+                PartitionArchiveReaderTests::id, 2);
+
+        assertEquals(List.of("d3", "d2"), ids);
+    }
+
+    @Test
+    public void readOwner_withIndexAndFilter_shouldApplyFilterWithinTheMember() throws IOException {
+        PartitionArchive archive = createArchive(true);
+
+        List<String> ids = archiveReader.readOwner(archive, "sender_acc_id", "sender-b",
+                row -> row.get("created_at").asText().startsWith("2025-01-15"), PartitionArchiveReaderTests::id, 10);
+
+        assertEquals(List.of("d4"), ids);
+    }
+
+    @Test
+    public void readOwner_withOwnerMissingFromIndex_shouldReturnNothingWithoutOpeningTheArchive() throws IOException {
+        PartitionArchive archive = createArchive(true);
+
+        List<String> ids = archiveReader.readOwner(archive, "sender_acc_id", "sender-z", row -> true,
+                PartitionArchiveReaderTests::id, 10);
+
+        assertTrue(ids.isEmpty());
+        verify(objectStorage, never()).open(ARCHIVE_KEY);
+    }
+
+    @Test
+    @DisplayName("The index is read once and cached; archives never change")
+    public void readOwner_calledTwice_shouldLoadTheIndexOnce() throws IOException {
+        PartitionArchive archive = createArchive(true);
+
+        archiveReader.readOwner(archive, "sender_acc_id", "sender-a", row -> true, PartitionArchiveReaderTests::id, 1);
+        archiveReader.readOwner(archive, "sender_acc_id", "sender-b", row -> true, PartitionArchiveReaderTests::id, 1);
+
+        verify(objectStorage, times(1)).open(INDEX_KEY);
+    }
+
+    @Test
+    @DisplayName("Unindexed archive: scanned whole, same answer as through the index")
+    public void readOwner_withoutIndex_shouldScanTheWholeArchive() throws IOException {
+        PartitionArchive archive = createArchive(false);
+
+        List<String> ids = archiveReader.readOwner(archive, "sender_acc_id", "sender-a", row -> true,
+                PartitionArchiveReaderTests::id, 2);
+
+        assertEquals(List.of("d3", "d2"), ids);
+    }
+
+    @Test
+    public void scan_acrossOwners_shouldKeepTheNewestMatchesFirst() throws IOException {
+        PartitionArchive archive = createArchive(true);
+
+        List<String> ids = archiveReader.scan(archive, row -> true, PartitionArchiveReaderTests::id, 3);
+
+        assertEquals(List.of("d5", "d3", "d2"), ids);
+    }
+
+    /**
+     * Lets each gzip member be closed (writing its trailer) without closing the archive stream
+     */
+    private static final class NonClosingStream extends FilterOutputStream {
+        NonClosingStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.courigistics.courigisticsbackend.services.unit;
+
+import com.courigistics.courigisticsbackend.dto.responses.delivery.UploadSessionResponse;
+import com.courigistics.courigisticsbackend.entities.Delivery;
+import com.courigistics.courigisticsbackend.entities.UploadSession;
+import com.courigistics.courigisticsbackend.entities.enums.UploadSessionStatus;
+import com.courigistics.courigisticsbackend.events.ProofOfDeliveryUploadedEvent;
+import com.courigistics.courigisticsbackend.exceptions.BadRequestException;
+import com.courigistics.courigisticsbackend.repositories.AccountRepository;
+import com.courigistics.courigisticsbackend.repositories.DeliveryRepository;
+import com.courigistics.courigisticsbackend.repositories.UploadSessionRepository;
+import com.courigistics.courigisticsbackend.services.delivery.ProofOfDeliveryServiceImpl;
+import com.courigistics.courigisticsbackend.services.storage.ObjectStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test examples:
+ * 1. Chunks must continue at the committed offset; the last one finalizes the upload
+ * 2. A finalize that failed after the last chunk is retried at the end offset
+ * 3. Checksum mismatches and chunks staged on another server are refused
+ */
+@ExtendWith(MockitoExtension.class)
+public class ProofOfDeliveryServiceImplTests {
+
+    private static final byte[] IMAGE = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+    @InjectMocks
+    ProofOfDeliveryServiceImpl proofOfDeliveryService;
+
+    @Mock
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Mock
+    private DeliveryRepository deliveryRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private ObjectStorage objectStorage;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @TempDir
+    Path stagingDir;
+
+    private final UUID accountId = UUID.randomUUID();
+    private final UUID deliveryId = UUID.randomUUID();
+    private final UUID uploadId = UUID.randomUUID();
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(proofOfDeliveryService, "stagingRoot", stagingDir);
+        ReflectionTestUtils.setField(proofOfDeliveryService, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(proofOfDeliveryService, "maxChunkBytes", 6L);
+        Mockito.lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+    }
+
+    /**
+     * Helper method to create an open upload session owned by the test courier
+     * @param receivedBytes bytes already committed
+     * @param expectedSha256 checksum announced by the client, or null
+     */
+    private UploadSession createOpenSession(long receivedBytes, String expectedSha256) {
+        UploadSession session = UploadSession.builder()
+                .id(uploadId)
+                .delivery(Delivery.builder().id(deliveryId).build())
+                .contentType("image/jpeg")
+                .totalBytes((long) IMAGE.length)
+                .receivedBytes(receivedBytes)
+                .expectedSha256(expectedSha256)
+                .status(UploadSessionStatus.OPEN)
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+        Mockito.when(uploadSessionRepository.findByIdAndAccount_Id(uploadId, accountId)).thenReturn(Optional.of(session));
+        Mockito.lenient().when(uploadSessionRepository.findById(uploadId)).thenReturn(Optional.of(session));
+        return session;
+    }
+
+    private UploadSessionResponse append(long offset, int from, int to) {
+        return proofOfDeliveryService.appendChunk(accountId, deliveryId, uploadId, offset,
+                new ByteArrayInputStream(IMAGE, from, to - from));
+    }
+
+    private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+
+    @Test
+    @DisplayName("Happy path: two chunks, then the image is moved into storage")
+    public void appendChunk_withConsecutiveChunks_shouldAdvanceOffsetAndFinalize() throws Exception {
+        UploadSession session = createOpenSession(0, sha256(IMAGE));
+        String expectedKey = "pod/" + sha256(IMAGE).substring(0, 2) + "/" + sha256(IMAGE) + ".jpg";
+
+        // --- ARRANGE ---
+        Mockito.when(uploadSessionRepository.advanceOffset(eq(uploadId), anyLong(), anyLong(), any())).thenReturn(1);
+        Mockito.when(objectStorage.exists(expectedKey)).thenReturn(false);
+        Mockito.when(objectStorage.urlFor(expectedKey)).thenReturn("https://files/" + expectedKey);
+
+        // --- ACT ---
+        UploadSessionResponse first = append(0, 0, 6);
+        UploadSessionResponse last = append(6, 6, IMAGE.length);
+
+        // --- ASSERT ---
+        assertEquals(6, first.receivedBytes());
+        assertEquals(UploadSessionStatus.OPEN, first.status());
+        assertNull(first.url(), "No URL until the upload is complete");
+
+        assertEquals(IMAGE.length, last.receivedBytes());
+        assertEquals(UploadSessionStatus.COMPLETED, last.status());
+        assertEquals("https://files/" + expectedKey, last.url());
+        assertEquals(expectedKey, session.getStorageKey());
+
+        verify(uploadSessionRepository).advanceOffset(eq(uploadId), eq(0L), eq(6L), any());
+        verify(uploadSessionRepository).advanceOffset(eq(uploadId), eq(6L), eq((long) IMAGE.length), any());
+        verify(objectStorage).put(eq(expectedKey), any(Path.class));
+        verify(deliveryRepository).updateProofOfDeliveryUrl(eq(deliveryId), eq("https://files/" + expectedKey), any());
+        verify(eventPublisher).publishEvent(any(ProofOfDeliveryUploadedEvent.class));
+    }
+
+    @Test
+    public void appendChunk_withOffsetBehindCommitted_shouldThrowBadRequest() {
+        createOpenSession(6, null);
+
+        assertThrows(BadRequestException.class, () -> append(0, 0, 6));
+
+        verify(uploadSessionRepository, never()).advanceOffset(any(), anyLong(), anyLong(), any());
+        assertFalse(Files.exists(stagingDir.resolve(uploadId + ".part")), "Nothing should be staged");
+    }
+
+    @Test
+    @DisplayName("A finalize that failed after the move is completed by a retry at the end offset")
+    public void appendChunk_atEndOffsetAfterFailedFinalize_shouldCompleteWithoutUploadingAgain() throws Exception {
+        UploadSession session = createOpenSession(IMAGE.length, null);
+        String key = "pod/" + sha256(IMAGE).substring(0, 2) + "/" + sha256(IMAGE) + ".jpg";
+        // The failed attempt recorded the key and moved the staged file before the delivery update failed
+        session.setStorageKey(key);
+        Mockito.when(objectStorage.exists(key)).thenReturn(true);
+        Mockito.when(objectStorage.urlFor(key)).thenReturn("https://files/" + key);
+
+        UploadSessionResponse response = proofOfDeliveryService.appendChunk(accountId, deliveryId, uploadId,
+                IMAGE.length, new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(UploadSessionStatus.COMPLETED, response.status());
+        assertEquals("https://files/" + key, response.url());
+        verify(objectStorage, never()).put(anyString(), any(Path.class));
+        verify(deliveryRepository).updateProofOfDeliveryUrl(eq(deliveryId), eq("https://files/" + key), any());
+    }
+
+    @Test
+    public void appendChunk_atEndOffsetWithImageLost_shouldAbortUpload() {
+        UploadSession session = createOpenSession(IMAGE.length, null);
+        session.setStorageKey("pod/aa/lost.jpg");
+        Mockito.when(objectStorage.exists("pod/aa/lost.jpg")).thenReturn(false);
+
+        assertThrows(BadRequestException.class, () -> proofOfDeliveryService.appendChunk(accountId, deliveryId, uploadId,
+                IMAGE.length, new ByteArrayInputStream(new byte[0])));
+
+        assertEquals(UploadSessionStatus.ABORTED, session.getStatus());
+        verify(deliveryRepository, never()).updateProofOfDeliveryUrl(any(), any(), any());
+    }
+
+    @Test
+    public void appendChunk_withChecksumMismatch_shouldAbortUpload() throws Exception {
+        UploadSession session = createOpenSession(0, sha256("something else".getBytes(StandardCharsets.UTF_8)));
+        ReflectionTestUtils.setField(proofOfDeliveryService, "maxChunkBytes", 1024L);
+        Mockito.when(uploadSessionRepository.advanceOffset(eq(uploadId), anyLong(), anyLong(), any())).thenReturn(1);
+
+        assertThrows(BadRequestException.class, () -> append(0, 0, IMAGE.length));
+
+        assertEquals(UploadSessionStatus.ABORTED, session.getStatus());
+        assertFalse(Files.exists(stagingDir.resolve(uploadId + ".part")), "Staging file should be removed");
+        verify(objectStorage, never()).put(anyString(), any(Path.class));
+        verify(deliveryRepository, never()).updateProofOfDeliveryUrl(any(), any(), any());
+    }
+
+    /**
+     * Staging is per server; a chunk that lands on a server without the earlier ones must not leave a hole
+     */
+    @Test
+    public void appendChunk_withEarlierChunksStagedElsewhere_shouldThrowBadRequest() throws IOException {
+        createOpenSession(6, null);
+        Files.createFile(stagingDir.resolve(uploadId + ".part"));
+
+        assertThrows(BadRequestException.class, () -> append(6, 6, IMAGE.length));
+
+        verify(uploadSessionRepository, never()).advanceOffset(any(), anyLong(), anyLong(), any());
+    }
+}